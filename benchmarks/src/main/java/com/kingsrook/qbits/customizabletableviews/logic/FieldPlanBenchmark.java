@@ -0,0 +1,161 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldPlan;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qqq.backend.core.model.actions.metadata.TableMetaDataInput;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*******************************************************************************
+ * Compares personalizing a wide table where a role sees only a few of its
+ * fields by cloning the whole table, then dropping fields (cloneThenApply),
+ * against planning the fields first, then cloning only the ones that are kept
+ * (planThenClone).
+ *
+ * Run with -prof gc to compare allocation (gc.alloc.rate.norm, in bytes per
+ * operation), as well as time.
+ *******************************************************************************/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldPlanBenchmark
+{
+   @Param({ "600" })
+   private int fieldCount;
+
+   @Param({ "40" })
+   private int visibleFieldCount;
+
+   @Param({ "10" })
+   private int sectionCount;
+
+   private CustomizableTableViewsTablePersonalizer personalizer;
+   private TableMetaDataInput                      input;
+   private QTableMetaData                          table;
+   private CompiledTableView                       compiledTableView;
+
+
+
+   /***************************************************************************
+    * build a table with fieldCount fields (spread over sectionCount sections),
+    * and a view with every (fieldCount / visibleFieldCount)th of them.
+    ***************************************************************************/
+   @Setup
+   public void setup()
+   {
+      table = new QTableMetaData()
+         .withName("benchTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false));
+
+      List<List<String>> sectionFieldNames = new ArrayList<>();
+      for(int s = 0; s < sectionCount; s++)
+      {
+         sectionFieldNames.add(new ArrayList<>());
+      }
+      sectionFieldNames.get(0).add("id");
+
+      for(int i = 0; i < fieldCount - 1; i++)
+      {
+         table.withField(new QFieldMetaData("field" + i, QFieldType.STRING));
+         sectionFieldNames.get(i % sectionCount).add("field" + i);
+      }
+
+      for(int s = 0; s < sectionCount; s++)
+      {
+         table.withSection(SectionFactory.defaultT2().withName("section" + s).withFieldNames(sectionFieldNames.get(s)));
+      }
+
+      List<TableViewField> fields = new ArrayList<>();
+      int                  step   = Math.max(1, fieldCount / visibleFieldCount);
+      for(int i = 0; i < fieldCount - 1 && fields.size() < visibleFieldCount; i += step)
+      {
+         fields.add(new TableViewField().withFieldName("benchTable.field" + i).withAccessLevel(FieldAccessLevel.READ_ONLY));
+      }
+
+      personalizer = new CustomizableTableViewsTablePersonalizer();
+      input = new TableMetaDataInput();
+      compiledTableView = CompiledTableView.compile(new TableView().withFields(fields), new FieldOrdinals(table));
+   }
+
+
+
+   /***************************************************************************
+    * clone the whole table, then drop (and apply access levels to) its fields.
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData cloneThenApply()
+   {
+      return (personalizer.applyViewToTable(compiledTableView, table.clone(), input));
+   }
+
+
+
+   /***************************************************************************
+    * plan the fields, then clone only the ones that are kept.
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData planThenClone()
+   {
+      return (personalizer.applyViewToSourceTable(compiledTableView, table, input));
+   }
+
+
+
+   /***************************************************************************
+    * just the (non-mutating) planning step.
+    ***************************************************************************/
+   @Benchmark
+   public FieldPlan buildFieldPlan()
+   {
+      return (FieldPlan.build(compiledTableView, table, false));
+   }
+
+}
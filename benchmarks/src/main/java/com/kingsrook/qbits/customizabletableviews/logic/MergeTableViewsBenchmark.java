@@ -0,0 +1,110 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*******************************************************************************
+ * Benchmark for mergeTableViewEntities - the cost of combining the views for
+ * a user with many roles (1 to 20 views), each with a random half of a
+ * table's fields, at random access levels.
+ *******************************************************************************/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MergeTableViewsBenchmark
+{
+   @Param({ "1", "2", "5", "10", "20" })
+   private int viewCount;
+
+   @Param({ "50", "300" })
+   private int fieldCount;
+
+   private CustomizableTableViewsTablePersonalizer personalizer;
+   private List<TableView>                         tableViews;
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Setup
+   public void setup()
+   {
+      personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      Random             random            = new Random(47);
+      FieldAccessLevel[] fieldAccessLevels = FieldAccessLevel.values();
+      tableViews = new ArrayList<>();
+      for(int v = 0; v < viewCount; v++)
+      {
+         List<TableViewField> fields = new ArrayList<>();
+         for(int i = 0; i < fieldCount; i++)
+         {
+            if(random.nextBoolean())
+            {
+               fields.add(new TableViewField().withFieldName("benchTable.field" + i).withAccessLevel(fieldAccessLevels[random.nextInt(fieldAccessLevels.length)]));
+            }
+         }
+
+         tableViews.add(new TableView()
+            .withFields(fields)
+            .withWidgets(List.of(new TableViewWidget().withWidgetName("widget" + (v % 3)).withAccessLevel(WidgetAccessLevel.HAS_ACCESS.getId()))));
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public TableView mergeTableViewEntities()
+   {
+      return (personalizer.mergeTableViewEntities(tableViews));
+   }
+
+}
@@ -0,0 +1,333 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import com.kingsrook.qbits.customizabletableviews.CustomizableTableViewsQBitConfig;
+import com.kingsrook.qbits.customizabletableviews.CustomizableTableViewsQBitProducer;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.instances.QInstanceValidator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.metadata.QAuthenticationType;
+import com.kingsrook.qqq.backend.core.model.metadata.QBackendMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.audits.AuditLevel;
+import com.kingsrook.qqq.backend.core.model.metadata.audits.QAuditRules;
+import com.kingsrook.qqq.backend.core.model.metadata.authentication.QAuthenticationMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.joins.JoinOn;
+import com.kingsrook.qqq.backend.core.model.metadata.joins.JoinType;
+import com.kingsrook.qqq.backend.core.model.metadata.joins.QJoinMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValue;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValueSource;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValueSourceType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QFieldSection;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.TablesPossibleValueSourceMetaDataProvider;
+import com.kingsrook.qqq.backend.core.model.session.QSession;
+import com.kingsrook.qqq.backend.core.model.session.QUser;
+import com.kingsrook.qqq.backend.core.modules.backend.implementations.memory.MemoryBackendModule;
+import com.kingsrook.qqq.backend.core.modules.backend.implementations.memory.MemoryRecordStore;
+
+
+/*******************************************************************************
+ * Builds a synthetic QInstance (on the memory backend) with the qbit's tables,
+ * plus a customizable "benchTable" of configurable size - and populates its
+ * views - for benchmarks to run the personalizer against.
+ *
+ * The bench table has fieldCount fields, spread over sectionCount sections,
+ * plus (in its last section) one field from each of joinTableCount join
+ * tables, which are also customizable.  Each of roleCount roles gets its own
+ * view of each table, with a (seeded) random half of its fields, at random
+ * access levels.  The session is set up as a user with all of the roles.
+ *******************************************************************************/
+public class SyntheticInstance
+{
+   public static final String TABLE_NAME   = "benchTable";
+   public static final String BACKEND_NAME = "memory";
+
+   private int fieldCount     = 100;
+   private int sectionCount   = 5;
+   private int joinTableCount = 0;
+   private int roleCount      = 1;
+   private int widgetCount    = 2;
+
+   private QInstance      qInstance;
+   private QTableMetaData table;
+
+
+
+   /***************************************************************************
+    * build the instance, init the QContext with it (for the current thread),
+    * and insert the customizable tables, views & role ints.
+    ***************************************************************************/
+   public SyntheticInstance build() throws QException
+   {
+      qInstance = new QInstance();
+      qInstance.setAuthentication(new QAuthenticationMetaData().withType(QAuthenticationType.FULLY_ANONYMOUS));
+      qInstance.addBackend(new QBackendMetaData()
+         .withName(BACKEND_NAME)
+         .withBackendType(MemoryBackendModule.class));
+
+      new CustomizableTableViewsQBitProducer()
+         .withQBitConfig(new CustomizableTableViewsQBitConfig()
+            .withTableMetaDataCustomizer((i, t) ->
+            {
+               if(t.getBackendName() == null)
+               {
+                  t.setBackendName(BACKEND_NAME);
+               }
+               return (t);
+            }))
+         .produce(qInstance)
+         .addSelfToInstance(qInstance);
+
+      TablesPossibleValueSourceMetaDataProvider.defineTablesPossibleValueSource(qInstance).addSelfToInstance(qInstance);
+
+      List<QPossibleValue<?>> roles = new ArrayList<>();
+      for(int r = 1; r <= roleCount; r++)
+      {
+         roles.add(new QPossibleValue<>(r, "Role " + r));
+      }
+      qInstance.addPossibleValueSource(new QPossibleValueSource().withName("role").withType(QPossibleValueSourceType.ENUM).withEnumValues(roles));
+
+      qInstance.getTables().values().forEach(t -> t.setAuditRules(new QAuditRules().withAuditLevel(AuditLevel.NONE)));
+      new QInstanceValidator().validate(qInstance);
+
+      ///////////////////////////////////////////////////////////////////////////////
+      // add the synthetic tables after validation (as the personalizer's unit     //
+      // tests do) - they're just as an app would have them at runtime, but we     //
+      // don't need to satisfy the validator's rules for joined fields in sections //
+      ///////////////////////////////////////////////////////////////////////////////
+      List<QTableMetaData> joinTables = new ArrayList<>();
+      for(int j = 0; j < joinTableCount; j++)
+      {
+         QTableMetaData joinTable = defineTable("joinTable" + j, 10, 1);
+         qInstance.addTable(joinTable);
+         joinTables.add(joinTable);
+      }
+
+      table = defineTable(TABLE_NAME, fieldCount, sectionCount);
+      for(QTableMetaData joinTable : joinTables)
+      {
+         qInstance.addJoin(new QJoinMetaData().withLeftTable(TABLE_NAME).withRightTable(joinTable.getName()).withInferredName().withType(JoinType.ONE_TO_ONE).withJoinOn(new JoinOn("id", "field0")));
+         table.getSections().get(table.getSections().size() - 1).getFieldNames().add(joinTable.getName() + ".field1");
+      }
+      for(int w = 0; w < widgetCount; w++)
+      {
+         table.withSection(SectionFactory.defaultT2().withName("widgetSection" + w).withWidgetName("widget" + w));
+      }
+      qInstance.addTable(table);
+
+      QSession session = new QSession();
+      session.setUser(new QUser().withIdReference("benchUser"));
+      session.setValue("roleIds", IntStream.rangeClosed(1, roleCount).mapToObj(String::valueOf).collect(Collectors.joining(",")));
+      QContext.init(qInstance, session);
+
+      MemoryRecordStore.fullReset();
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+
+      Random random = new Random(47);
+      insertViews(1, table, random);
+      for(int j = 0; j < joinTables.size(); j++)
+      {
+         insertViews(j + 2, joinTables.get(j), random);
+      }
+
+      return (this);
+   }
+
+
+
+   /***************************************************************************
+    * a table with an integer id, and fieldCount-1 string fields, spread
+    * evenly over sectionCount sections.
+    ***************************************************************************/
+   private static QTableMetaData defineTable(String name, int fieldCount, int sectionCount)
+   {
+      QTableMetaData table = new QTableMetaData()
+         .withName(name)
+         .withBackendName(BACKEND_NAME)
+         .withPrimaryKeyField("id")
+         .withAuditRules(new QAuditRules().withAuditLevel(AuditLevel.NONE))
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false));
+
+      List<List<String>> sectionFieldNames = new ArrayList<>();
+      for(int s = 0; s < sectionCount; s++)
+      {
+         sectionFieldNames.add(new ArrayList<>());
+      }
+      sectionFieldNames.get(0).add("id");
+
+      for(int i = 0; i < fieldCount - 1; i++)
+      {
+         table.withField(new QFieldMetaData("field" + i, QFieldType.STRING));
+         sectionFieldNames.get(i % sectionCount).add("field" + i);
+      }
+
+      for(int s = 0; s < sectionCount; s++)
+      {
+         QFieldSection section = s == 0 ? SectionFactory.defaultT1() : SectionFactory.defaultT2();
+         table.withSection(section.withName("section" + s).withFieldNames(sectionFieldNames.get(s)));
+      }
+
+      return (table);
+   }
+
+
+
+   /***************************************************************************
+    * make a table customizable, with a view per role.
+    ***************************************************************************/
+   private void insertViews(int customizableTableId, QTableMetaData table, Random random) throws QException
+   {
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(customizableTableId).withTableName(table.getName()).withIsActive(true))));
+
+      FieldAccessLevel[]     fieldAccessLevels = FieldAccessLevel.values();
+      List<TableView>        tableViews        = new ArrayList<>();
+      List<TableViewRoleInt> roleInts          = new ArrayList<>();
+      for(int r = 1; r <= roleCount; r++)
+      {
+         List<TableViewField> fields = new ArrayList<>();
+         for(String fieldName : table.getFields().keySet())
+         {
+            if(random.nextBoolean())
+            {
+               FieldAccessLevel fieldAccessLevel = fieldAccessLevels[random.nextInt(fieldAccessLevels.length)];
+               if(fieldAccessLevel.validateForField(table.getField(fieldName)) == null)
+               {
+                  fields.add(new TableViewField().withFieldName(table.getName() + "." + fieldName).withAccessLevel(fieldAccessLevel));
+               }
+            }
+         }
+
+         List<TableViewWidget> widgets = new ArrayList<>();
+         for(int w = 0; w < widgetCount; w++)
+         {
+            if(random.nextBoolean())
+            {
+               widgets.add(new TableViewWidget().withWidgetName("widget" + w).withAccessLevel(WidgetAccessLevel.HAS_ACCESS.getId()));
+            }
+         }
+
+         int tableViewId = customizableTableId * 1000 + r;
+         tableViews.add(new TableView().withId(tableViewId).withCustomizableTableId(customizableTableId).withName("role " + r).withFields(fields).withWidgets(widgets));
+         roleInts.add(new TableViewRoleInt().withRoleId(r).withTableViewId(tableViewId));
+      }
+
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(tableViews));
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(roleInts));
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for table (the customizable bench table, as it is in the instance)
+    *******************************************************************************/
+   public QTableMetaData getTable()
+   {
+      return (this.table);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for qInstance
+    *******************************************************************************/
+   public QInstance getQInstance()
+   {
+      return (this.qInstance);
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for fieldCount
+    *******************************************************************************/
+   public SyntheticInstance withFieldCount(int fieldCount)
+   {
+      this.fieldCount = fieldCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for sectionCount
+    *******************************************************************************/
+   public SyntheticInstance withSectionCount(int sectionCount)
+   {
+      this.sectionCount = sectionCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for joinTableCount
+    *******************************************************************************/
+   public SyntheticInstance withJoinTableCount(int joinTableCount)
+   {
+      this.joinTableCount = joinTableCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for roleCount
+    *******************************************************************************/
+   public SyntheticInstance withRoleCount(int roleCount)
+   {
+      this.roleCount = roleCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for widgetCount
+    *******************************************************************************/
+   public SyntheticInstance withWidgetCount(int widgetCount)
+   {
+      this.widgetCount = widgetCount;
+      return (this);
+   }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldPlan;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.metadata.personalization.TableMetaDataPersonalizerInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.QInputSource;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*******************************************************************************
+ * Benchmarks for the table personalizer's hot path, against a synthetic
+ * instance on the memory backend (see SyntheticInstance):
+ *
+ * - executeCacheHit: what most meta-data requests cost - the personalized
+ *   table is re-used from cache.
+ * - executeCacheMiss: all caches are cleared first, so this includes loading
+ *   the effective view (memory-backend queries), compiling & applying it.
+ * - applyViewToSourceTable & buildFieldPlan: the per-miss cost of building
+ *   the personalized table from an already-loaded view (and, applyViewToTable,
+ *   the same, by cloning the whole table first).
+ *
+ * State is per-thread, as the QContext the personalizer reads is thread-local.
+ *******************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TablePersonalizerBenchmark
+{
+   @Param({ "50", "300", "1000" })
+   private int fieldCount;
+
+   @Param({ "5" })
+   private int sectionCount;
+
+   @Param({ "0", "3" })
+   private int joinTableCount;
+
+   @Param({ "1", "5" })
+   private int roleCount;
+
+   private CustomizableTableViewsTablePersonalizer personalizer;
+   private TableMetaDataPersonalizerInput          input;
+   private QTableMetaData                          table;
+   private TableView                               tableView;
+   private CompiledTableView                       compiledTableView;
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Setup(Level.Trial)
+   public void setup() throws QException
+   {
+      SyntheticInstance syntheticInstance = new SyntheticInstance()
+         .withFieldCount(fieldCount)
+         .withSectionCount(sectionCount)
+         .withJoinTableCount(joinTableCount)
+         .withRoleCount(roleCount)
+         .build();
+
+      personalizer = new CustomizableTableViewsTablePersonalizer();
+      table = syntheticInstance.getTable();
+      input = new TableMetaDataPersonalizerInput().withTableMetaData(table).withInputSource(QInputSource.USER);
+
+      tableView = personalizer.getEffectiveTableViewForCurrentSession(table.getName());
+      compiledTableView = CompiledTableView.compile(tableView, new FieldOrdinals(table));
+
+      //////////////////////////////////////////////////
+      // prime the caches for the cache-hit benchmark //
+      //////////////////////////////////////////////////
+      personalizer.execute(input);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData executeCacheHit() throws QException
+   {
+      return (personalizer.execute(input));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData executeCacheMiss() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      return (personalizer.execute(input));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData applyViewToTable()
+   {
+      return (personalizer.applyViewToTable(tableView, table.clone(), input));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public QTableMetaData applyViewToSourceTable()
+   {
+      return (personalizer.applyViewToSourceTable(compiledTableView, table, input));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public FieldPlan buildFieldPlan()
+   {
+      return (FieldPlan.build(compiledTableView, table, false));
+   }
+
+}
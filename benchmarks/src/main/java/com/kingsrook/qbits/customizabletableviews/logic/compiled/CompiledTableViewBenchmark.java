@@ -0,0 +1,188 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/*******************************************************************************
+ * Compares merging & applying table views as string-keyed maps (the way the
+ * personalizer used to: a HashMap of "table.field" to access level, then a
+ * split of each name when applying) against merging & applying compiled,
+ * bitset-based views.
+ *******************************************************************************/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompiledTableViewBenchmark
+{
+   @Param({ "50", "300", "1000" })
+   private int fieldCount;
+
+   @Param({ "3" })
+   private int viewCount;
+
+   private QTableMetaData          table;
+   private List<TableView>         tableViews;
+   private FieldOrdinals           fieldOrdinals;
+   private List<CompiledTableView> compiledTableViews;
+
+
+
+   /***************************************************************************
+    * build a table with fieldCount fields, and viewCount views, each having a
+    * random half of the fields at random access levels.
+    ***************************************************************************/
+   @Setup
+   public void setup()
+   {
+      Random random = new Random(47);
+
+      table = new QTableMetaData().withName("benchTable");
+      for(int i = 0; i < fieldCount; i++)
+      {
+         table.withField(new QFieldMetaData("field" + i, QFieldType.STRING));
+      }
+
+      FieldAccessLevel[] levels = FieldAccessLevel.values();
+      tableViews = new ArrayList<>();
+      for(int v = 0; v < viewCount; v++)
+      {
+         List<TableViewField> fields = new ArrayList<>();
+         for(int i = 0; i < fieldCount; i++)
+         {
+            if(random.nextBoolean())
+            {
+               fields.add(new TableViewField().withFieldName("benchTable.field" + i).withAccessLevel(levels[random.nextInt(levels.length)]));
+            }
+         }
+         tableViews.add(new TableView().withFields(fields));
+      }
+
+      fieldOrdinals = new FieldOrdinals(table);
+      compiledTableViews = new ArrayList<>();
+      for(TableView tableView : tableViews)
+      {
+         compiledTableViews.add(CompiledTableView.compile(tableView, fieldOrdinals));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * the string-keyed path: merge into a map by "table.field" name, then
+    * split each name to find the fields to keep.
+    ***************************************************************************/
+   @Benchmark
+   public void stringKeyedMergeAndApply(Blackhole blackhole)
+   {
+      Map<String, FieldAccessLevel> fieldAccessLevels = new HashMap<>();
+      for(TableView tableView : tableViews)
+      {
+         for(TableViewField field : tableView.getFields())
+         {
+            FieldAccessLevel fieldAccessLevel = FieldAccessLevel.getById(field.getAccessLevel());
+            fieldAccessLevels.put(field.getFieldName(), fieldAccessLevel.merge(fieldAccessLevels.get(field.getFieldName())));
+         }
+      }
+
+      Map<String, QFieldMetaData> fieldsToKeep = new LinkedHashMap<>();
+      for(Map.Entry<String, FieldAccessLevel> entry : fieldAccessLevels.entrySet())
+      {
+         String         fieldName     = entry.getKey().split("\\.")[1];
+         QFieldMetaData fieldMetaData = table.getFields().get(fieldName);
+         if(fieldMetaData != null)
+         {
+            fieldsToKeep.put(fieldName, fieldMetaData);
+         }
+      }
+      blackhole.consume(fieldsToKeep);
+   }
+
+
+
+   /***************************************************************************
+    * the compiled path: merge bitsets, then scan the visible bits.
+    ***************************************************************************/
+   @Benchmark
+   public void compiledMergeAndApply(Blackhole blackhole)
+   {
+      CompiledTableView merged = CompiledTableView.merge(compiledTableViews);
+
+      Map<String, QFieldMetaData> fieldsToKeep = new LinkedHashMap<>();
+      for(int ordinal = merged.getVisibleFields().nextSetBit(0); ordinal >= 0; ordinal = merged.getVisibleFields().nextSetBit(ordinal + 1))
+      {
+         String         fieldName     = fieldOrdinals.getFieldName(ordinal);
+         QFieldMetaData fieldMetaData = table.getFields().get(fieldName);
+         if(fieldMetaData != null)
+         {
+            blackhole.consume(merged.getAccessLevel(ordinal));
+            fieldsToKeep.put(fieldName, fieldMetaData);
+         }
+      }
+      blackhole.consume(fieldsToKeep);
+   }
+
+
+
+   /***************************************************************************
+    * the one-time cost of compiling the views (paid per cache miss).
+    ***************************************************************************/
+   @Benchmark
+   public void compile(Blackhole blackhole)
+   {
+      FieldOrdinals ordinals = new FieldOrdinals(table);
+      for(TableView tableView : tableViews)
+      {
+         blackhole.consume(CompiledTableView.compile(tableView, ordinals));
+      }
+   }
+
+}
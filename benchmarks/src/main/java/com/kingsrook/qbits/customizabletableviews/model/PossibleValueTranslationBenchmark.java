@@ -0,0 +1,168 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import com.kingsrook.qbits.customizabletableviews.logic.SyntheticInstance;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.dashboard.QWidgetMetaData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/*******************************************************************************
+ * Compares translating the ids in a full child record list (rowCount rows, as
+ * in the TableView screen's Fields & Widgets lists) one at a time, through
+ * getPossibleValue (as QQQ's possible value translation does), against the
+ * batch getPossibleValues - for both the field and widget possible value
+ * sources.  For fields, both read the same memoized possible values; widget
+ * possible values are cheap enough to build for each distinct id.
+ *
+ * State is per-thread, as the QContext the possible value sources read is
+ * thread-local.
+ *******************************************************************************/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PossibleValueTranslationBenchmark
+{
+   @Param({ "250" })
+   private int rowCount;
+
+   @Param({ "300" })
+   private int fieldCount;
+
+   @Param({ "20" })
+   private int widgetCount;
+
+   private CustomizableTableFieldPVS  fieldPVS;
+   private CustomizableTableWidgetPVS widgetPVS;
+   private List<String>               fieldIds;
+   private List<String>               widgetIds;
+
+
+
+   /***************************************************************************
+    * build the instance (with its bench table's widgets defined), and the ids
+    * of a child list's rows - a field per row (cycling through the table's
+    * fields), and likewise a widget per row.
+    ***************************************************************************/
+   @Setup(Level.Trial)
+   public void setup() throws QException
+   {
+      SyntheticInstance syntheticInstance = new SyntheticInstance()
+         .withFieldCount(fieldCount)
+         .withWidgetCount(widgetCount)
+         .build();
+
+      QInstance qInstance = syntheticInstance.getQInstance();
+      for(int w = 0; w < widgetCount; w++)
+      {
+         qInstance.addWidget(new QWidgetMetaData().withName("widget" + w).withLabel("Widget " + w));
+      }
+
+      fieldPVS = new CustomizableTableFieldPVS();
+      widgetPVS = new CustomizableTableWidgetPVS();
+
+      fieldIds = new ArrayList<>();
+      widgetIds = new ArrayList<>();
+      for(int i = 0; i < rowCount; i++)
+      {
+         fieldIds.add(SyntheticInstance.TABLE_NAME + ".field" + (i % (fieldCount - 1)));
+         widgetIds.add("widget" + (i % widgetCount));
+      }
+
+      //////////////////////////////////////////////////////////////////
+      // build the memoized field values once, as a running app would //
+      //////////////////////////////////////////////////////////////////
+      fieldPVS.getPossibleValues(fieldIds);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void fieldsOneAtATime(Blackhole blackhole)
+   {
+      for(String fieldId : fieldIds)
+      {
+         blackhole.consume(fieldPVS.getPossibleValue(fieldId));
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void fieldsBatch(Blackhole blackhole)
+   {
+      blackhole.consume(fieldPVS.getPossibleValues(fieldIds));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void widgetsOneAtATime(Blackhole blackhole)
+   {
+      for(String widgetId : widgetIds)
+      {
+         blackhole.consume(widgetPVS.getPossibleValue(widgetId));
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void widgetsBatch(Blackhole blackhole)
+   {
+      blackhole.consume(widgetPVS.getPossibleValues(widgetIds));
+   }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/*******************************************************************************
+ * Compares getting the table & field name parts of every field in a view by
+ * String.split("\\.") (as was done per request) against QualifiedFieldName -
+ * both the interned lookup (QualifiedFieldName.of) and the value that a
+ * TableViewField parses once and keeps (getQualifiedFieldName).
+ *******************************************************************************/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QualifiedFieldNameBenchmark
+{
+   @Param({ "500" })
+   private int fieldCount;
+
+   private List<TableViewField> tableViewFields;
+
+
+
+   /***************************************************************************
+    * build a view with fieldCount fields - pre-parsing each field's qualified
+    * name, as happens when a view is loaded & cached.
+    ***************************************************************************/
+   @Setup
+   public void setup()
+   {
+      tableViewFields = new ArrayList<>();
+      for(int i = 0; i < fieldCount; i++)
+      {
+         TableViewField tableViewField = new TableViewField().withFieldName("benchTable.field" + i);
+         tableViewField.getQualifiedFieldName();
+         tableViewFields.add(tableViewField);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void split(Blackhole blackhole)
+   {
+      for(TableViewField tableViewField : tableViewFields)
+      {
+         String[] parts = tableViewField.getFieldName().split("\\.");
+         blackhole.consume(parts[0]);
+         blackhole.consume(parts[1]);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void internedLookup(Blackhole blackhole)
+   {
+      for(TableViewField tableViewField : tableViewFields)
+      {
+         QualifiedFieldName qualifiedFieldName = QualifiedFieldName.of(tableViewField.getFieldName());
+         blackhole.consume(qualifiedFieldName.getTableName());
+         blackhole.consume(qualifiedFieldName.getFieldName());
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Benchmark
+   public void parsedAtLoad(Blackhole blackhole)
+   {
+      for(TableViewField tableViewField : tableViewFields)
+      {
+         QualifiedFieldName qualifiedFieldName = tableViewField.getQualifiedFieldName();
+         blackhole.consume(qualifiedFieldName.getTableName());
+         blackhole.consume(qualifiedFieldName.getFieldName());
+      }
+   }
+
+}
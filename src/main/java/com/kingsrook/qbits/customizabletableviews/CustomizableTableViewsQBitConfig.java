@@ -22,7 +22,13 @@
 package com.kingsrook.qbits.customizabletableviews;
 
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Executor;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.EffectiveViewCacheScope;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCacheProviderInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.CacheInvalidationBroadcasterInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.PersonalizerMetricsSinkInterface;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
 import com.kingsrook.qqq.backend.core.model.metadata.qbits.QBitConfig;
@@ -37,6 +43,44 @@ public class CustomizableTableViewsQBitConfig implements QBitConfig
 {
    private MetaDataCustomizerInterface<QTableMetaData> tableMetaDataCustomizer;
 
+   private CacheInvalidationBroadcasterInterface cacheInvalidationBroadcaster;
+
+   private PersonalizerMetricsSinkInterface metricsSink;
+
+   ///////////////////////////////////////////////////////////////////////////////////////
+   // timeouts for the personalizer's caches that load from the backend - past the soft //
+   // timeout, entries are refreshed in the background (on the cacheRefreshExecutor, if //
+   // given); past the hard timeout, they're reloaded before being used.  see           //
+   // PersonalizerCacheState.setCacheTimeouts.                                          //
+   ///////////////////////////////////////////////////////////////////////////////////////
+   private Duration cacheSoftTimeout;
+   private Duration cacheHardTimeout;
+   private Executor cacheRefreshExecutor;
+
+   ////////////////////////////////////////////////////////////////////////////////////
+   // limits on the size of each of the personalizer's caches - entries, and         //
+   // estimated retained bytes - past which least-recently-used entries are evicted. //
+   // 0 means no limit.  if null, entries are limited to DEFAULT_CACHE_MAX_ENTRIES,  //
+   // and bytes aren't limited.  see PersonalizerCacheState.setCacheLimits.          //
+   ////////////////////////////////////////////////////////////////////////////////////
+   private Integer cacheMaxEntries;
+   private Long    cacheMaxRetainedBytes;
+
+   ////////////////////////////////////////////////////////////////////////////////////
+   // whether effective views are cached per set of roles (the default), or per user //
+   // - and, optionally, a provider for the caches' implementation.                  //
+   ////////////////////////////////////////////////////////////////////////////////////
+   private EffectiveViewCacheScope            effectiveViewCacheScope;
+   private PersonalizerCacheProviderInterface cacheProvider;
+
+   ////////////////////////////////////////////////////////////////////////////////
+   // whether caches are validated against the TableViewConfigVersion table (see //
+   // ConfigVersionTracker) - null means true.  set false if the application     //
+   // doesn't have that table.  caches only use their long default timeout while //
+   // tracking succeeds - else, the short (5 minute) one.                        //
+   ////////////////////////////////////////////////////////////////////////////////
+   private Boolean configVersionTrackingEnabled;
+
 
    /***************************************************************************
     **
@@ -45,6 +89,15 @@ public class CustomizableTableViewsQBitConfig implements QBitConfig
    public void validate(QInstance qInstance, List<String> errors)
    {
       // assertCondition(someTableConfig != null, "someTableConfig must be provided", errors);
+      assertCondition(cacheSoftTimeout == null || !(cacheSoftTimeout.isNegative() || cacheSoftTimeout.isZero()), "cacheSoftTimeout must be positive", errors);
+      assertCondition(cacheHardTimeout == null || !(cacheHardTimeout.isNegative() || cacheHardTimeout.isZero()), "cacheHardTimeout must be positive", errors);
+      if(cacheSoftTimeout != null && cacheHardTimeout != null)
+      {
+         assertCondition(cacheSoftTimeout.compareTo(cacheHardTimeout) < 0, "cacheSoftTimeout must be less than cacheHardTimeout", errors);
+      }
+      assertCondition(cacheMaxEntries == null || cacheMaxEntries >= 0, "cacheMaxEntries may not be negative", errors);
+      assertCondition(cacheMaxRetainedBytes == null || cacheMaxRetainedBytes >= 0, "cacheMaxRetainedBytes may not be negative", errors);
+      assertCondition(cacheRefreshExecutor == null || cacheSoftTimeout != null, "cacheRefreshExecutor is only used with a cacheSoftTimeout, which must also be given", errors);
    }
 
 
@@ -78,4 +131,315 @@ public class CustomizableTableViewsQBitConfig implements QBitConfig
       return (this);
    }
 
+
+
+   /*******************************************************************************
+    ** Getter for cacheInvalidationBroadcaster
+    *******************************************************************************/
+   public CacheInvalidationBroadcasterInterface getCacheInvalidationBroadcaster()
+   {
+      return (this.cacheInvalidationBroadcaster);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheInvalidationBroadcaster
+    *******************************************************************************/
+   public void setCacheInvalidationBroadcaster(CacheInvalidationBroadcasterInterface cacheInvalidationBroadcaster)
+   {
+      this.cacheInvalidationBroadcaster = cacheInvalidationBroadcaster;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheInvalidationBroadcaster
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheInvalidationBroadcaster(CacheInvalidationBroadcasterInterface cacheInvalidationBroadcaster)
+   {
+      this.cacheInvalidationBroadcaster = cacheInvalidationBroadcaster;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for metricsSink
+    *******************************************************************************/
+   public PersonalizerMetricsSinkInterface getMetricsSink()
+   {
+      return (this.metricsSink);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for metricsSink
+    *******************************************************************************/
+   public void setMetricsSink(PersonalizerMetricsSinkInterface metricsSink)
+   {
+      this.metricsSink = metricsSink;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for metricsSink
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withMetricsSink(PersonalizerMetricsSinkInterface metricsSink)
+   {
+      this.metricsSink = metricsSink;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheSoftTimeout
+    *******************************************************************************/
+   public Duration getCacheSoftTimeout()
+   {
+      return (this.cacheSoftTimeout);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheSoftTimeout
+    *******************************************************************************/
+   public void setCacheSoftTimeout(Duration cacheSoftTimeout)
+   {
+      this.cacheSoftTimeout = cacheSoftTimeout;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheSoftTimeout
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheSoftTimeout(Duration cacheSoftTimeout)
+   {
+      this.cacheSoftTimeout = cacheSoftTimeout;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheHardTimeout
+    *******************************************************************************/
+   public Duration getCacheHardTimeout()
+   {
+      return (this.cacheHardTimeout);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheHardTimeout
+    *******************************************************************************/
+   public void setCacheHardTimeout(Duration cacheHardTimeout)
+   {
+      this.cacheHardTimeout = cacheHardTimeout;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheHardTimeout
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheHardTimeout(Duration cacheHardTimeout)
+   {
+      this.cacheHardTimeout = cacheHardTimeout;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheRefreshExecutor
+    *******************************************************************************/
+   public Executor getCacheRefreshExecutor()
+   {
+      return (this.cacheRefreshExecutor);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheRefreshExecutor
+    *******************************************************************************/
+   public void setCacheRefreshExecutor(Executor cacheRefreshExecutor)
+   {
+      this.cacheRefreshExecutor = cacheRefreshExecutor;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheRefreshExecutor
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheRefreshExecutor(Executor cacheRefreshExecutor)
+   {
+      this.cacheRefreshExecutor = cacheRefreshExecutor;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheMaxEntries
+    *******************************************************************************/
+   public Integer getCacheMaxEntries()
+   {
+      return (this.cacheMaxEntries);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheMaxEntries
+    *******************************************************************************/
+   public void setCacheMaxEntries(Integer cacheMaxEntries)
+   {
+      this.cacheMaxEntries = cacheMaxEntries;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheMaxEntries
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheMaxEntries(Integer cacheMaxEntries)
+   {
+      this.cacheMaxEntries = cacheMaxEntries;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheMaxRetainedBytes
+    *******************************************************************************/
+   public Long getCacheMaxRetainedBytes()
+   {
+      return (this.cacheMaxRetainedBytes);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheMaxRetainedBytes
+    *******************************************************************************/
+   public void setCacheMaxRetainedBytes(Long cacheMaxRetainedBytes)
+   {
+      this.cacheMaxRetainedBytes = cacheMaxRetainedBytes;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheMaxRetainedBytes
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheMaxRetainedBytes(Long cacheMaxRetainedBytes)
+   {
+      this.cacheMaxRetainedBytes = cacheMaxRetainedBytes;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for effectiveViewCacheScope
+    *******************************************************************************/
+   public EffectiveViewCacheScope getEffectiveViewCacheScope()
+   {
+      return (this.effectiveViewCacheScope);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for effectiveViewCacheScope
+    *******************************************************************************/
+   public void setEffectiveViewCacheScope(EffectiveViewCacheScope effectiveViewCacheScope)
+   {
+      this.effectiveViewCacheScope = effectiveViewCacheScope;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for effectiveViewCacheScope
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withEffectiveViewCacheScope(EffectiveViewCacheScope effectiveViewCacheScope)
+   {
+      this.effectiveViewCacheScope = effectiveViewCacheScope;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for cacheProvider
+    *******************************************************************************/
+   public PersonalizerCacheProviderInterface getCacheProvider()
+   {
+      return (this.cacheProvider);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for cacheProvider
+    *******************************************************************************/
+   public void setCacheProvider(PersonalizerCacheProviderInterface cacheProvider)
+   {
+      this.cacheProvider = cacheProvider;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for cacheProvider
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withCacheProvider(PersonalizerCacheProviderInterface cacheProvider)
+   {
+      this.cacheProvider = cacheProvider;
+      return (this);
+   }
+
+
+
+
+   /*******************************************************************************
+    ** Getter for configVersionTrackingEnabled
+    *******************************************************************************/
+   public Boolean getConfigVersionTrackingEnabled()
+   {
+      return (this.configVersionTrackingEnabled);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for configVersionTrackingEnabled
+    *******************************************************************************/
+   public void setConfigVersionTrackingEnabled(Boolean configVersionTrackingEnabled)
+   {
+      this.configVersionTrackingEnabled = configVersionTrackingEnabled;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for configVersionTrackingEnabled
+    *******************************************************************************/
+   public CustomizableTableViewsQBitConfig withConfigVersionTrackingEnabled(Boolean configVersionTrackingEnabled)
+   {
+      this.configVersionTrackingEnabled = configVersionTrackingEnabled;
+      return (this);
+   }
+
 }
@@ -22,13 +22,17 @@
 package com.kingsrook.qbits.customizabletableviews;
 
 
+import java.util.Collection;
 import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerCacheState;
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerWarmUpResult;
 import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
 import com.kingsrook.qbits.customizabletableviews.model.TableView;
 import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
 import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
 import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
 import com.kingsrook.qqq.backend.core.actions.metadata.personalization.TableMetaDataPersonalizerInterface;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
 import com.kingsrook.qqq.backend.core.model.metadata.layout.QAppSection;
@@ -83,8 +87,65 @@ public class CustomizableTableViewsQBitProducer implements QBitMetaDataProducer<
     *
     ***************************************************************************/
    public static void activateTableMetaDataPersonalizerInterface(QInstance qInstance)
+   {
+      activateTableMetaDataPersonalizerInterface(qInstance, null);
+   }
+
+
+
+   /***************************************************************************
+    * activate the personalizer, applying runtime settings from the qbit's
+    * config to the personalizer's cache state for this QInstance (e.g., the
+    * cache invalidation broadcaster to use when running on multiple nodes, the
+    * metrics sink, cache settings, and whether config versions are tracked) -
+    * so each QInstance in a JVM gets its own caches & settings.  config may be
+    * null, to use defaults.
+    ***************************************************************************/
+   public static void activateTableMetaDataPersonalizerInterface(QInstance qInstance, CustomizableTableViewsQBitConfig config)
    {
       qInstance.addSupplementalCustomizer(TableMetaDataPersonalizerInterface.CUSTOMIZER_TYPE, new QCodeReference(CustomizableTableViewsTablePersonalizer.class));
+
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState(qInstance);
+      cacheState.setCacheInvalidationBroadcaster(config == null ? null : config.getCacheInvalidationBroadcaster());
+      cacheState.getCacheInvalidationBroadcaster().startReceiving();
+      cacheState.setMetricsSink(config == null ? null : config.getMetricsSink());
+      cacheState.setCacheProvider(config == null ? null : config.getCacheProvider());
+      cacheState.setEffectiveViewCacheScope(config == null ? null : config.getEffectiveViewCacheScope());
+      cacheState.getConfigVersionTracker().setIsEnabled(config == null || !Boolean.FALSE.equals(config.getConfigVersionTrackingEnabled()));
+      if(config == null)
+      {
+         cacheState.setCacheTimeouts(null, null, null);
+         cacheState.setCacheLimits(PersonalizerCacheState.DEFAULT_CACHE_MAX_ENTRIES, 0);
+      }
+      else
+      {
+         cacheState.setCacheTimeouts(config.getCacheSoftTimeout(), config.getCacheHardTimeout(), config.getCacheRefreshExecutor());
+         cacheState.setCacheLimits(config.getCacheMaxEntries() == null ? PersonalizerCacheState.DEFAULT_CACHE_MAX_ENTRIES : config.getCacheMaxEntries(), config.getCacheMaxRetainedBytes() == null ? 0 : config.getCacheMaxRetainedBytes());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * warm up the table personalizer's caches (e.g., at application startup,
+    * after activating it) - see CustomizableTableViewsTablePersonalizer.warmUp.
+    * Requires a QContext.
+    ***************************************************************************/
+   public static PersonalizerWarmUpResult warmUpTableMetaDataPersonalizer() throws QException
+   {
+      return (warmUpTableMetaDataPersonalizer(null));
+   }
+
+
+
+   /***************************************************************************
+    * warm up the table personalizer's caches, including for the given sets of
+    * role ids (e.g., common combinations of roles in the application).
+    * Requires a QContext.
+    ***************************************************************************/
+   public static PersonalizerWarmUpResult warmUpTableMetaDataPersonalizer(Collection<? extends Collection<Integer>> additionalRoleSets) throws QException
+   {
+      return (CustomizableTableViewsTablePersonalizer.warmUp(additionalRoleSets));
    }
 
 
@@ -22,34 +22,41 @@
 package com.kingsrook.qbits.customizabletableviews.logic;
 
 
-import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.WeakHashMap;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.EffectiveViewCacheScope;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldPlan;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.CacheInvalidationEvent;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.CacheInvalidationEventResolver;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.PersonalizerMetricsSinkInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.PersonalizerOperation;
 import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
 import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
 import com.kingsrook.qbits.customizabletableviews.model.TableView;
 import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
-import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
 import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
 import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
 import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizerInterface;
 import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizers;
 import com.kingsrook.qqq.backend.core.actions.metadata.personalization.TableMetaDataPersonalizerInterface;
-import com.kingsrook.qqq.backend.core.actions.tables.GetAction;
-import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.LogPair;
 import com.kingsrook.qqq.backend.core.logging.QLogger;
 import com.kingsrook.qqq.backend.core.model.actions.AbstractActionInput;
 import com.kingsrook.qqq.backend.core.model.actions.AbstractTableActionInput;
@@ -57,26 +64,17 @@ import com.kingsrook.qqq.backend.core.model.actions.metadata.personalization.Tab
 import com.kingsrook.qqq.backend.core.model.actions.processes.RunBackendStepInput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.QInputSource;
 import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.get.GetInput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
 import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
 import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
-import com.kingsrook.qqq.backend.core.model.metadata.fields.DynamicDefaultValueBehavior;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.FieldAndJoinTable;
-import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QFieldSection;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.model.session.QUser;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
-import com.kingsrook.qqq.backend.core.utils.Pair;
 import com.kingsrook.qqq.backend.core.utils.StringUtils;
-import com.kingsrook.qqq.backend.core.utils.memoization.Memoization;
 import org.apache.commons.lang3.BooleanUtils;
 import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
 
@@ -89,22 +87,263 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
 {
    private static final QLogger LOG = QLogger.getLogger(CustomizableTableViewsTablePersonalizer.class);
 
-   private static Memoization<String, Boolean> isTableCustomizableMemoization = new Memoization<>(Duration.ofMinutes(5));
+   ///////////////////////////////////////////////////////////
+   // names of the caches, as reported to the metrics sink. //
+   ///////////////////////////////////////////////////////////
+   public static final String IS_TABLE_CUSTOMIZABLE_CACHE_NAME       = "isTableCustomizable";
+   public static final String EFFECTIVE_TABLE_VIEW_CACHE_NAME        = "effectiveTableView";
+   public static final String PERSONALIZED_TABLE_CACHE_NAME          = "personalizedTable";
+   public static final String COMPILED_TABLE_VIEW_CACHE_NAME         = "compiledTableView";
+   public static final String JOIN_TABLE_FIELD_NAMES_CACHE_NAME      = "joinTableFieldNames";
+   public static final String FIELDLESS_TABLE_CACHE_NAME             = "fieldlessTable";
+   public static final String TABLE_NAME_BY_TABLE_VIEW_ID_CACHE_NAME = "tableNameByTableViewId";
+   public static final String TABLE_FIELD_POSSIBLE_VALUES_CACHE_NAME = "tableFieldPossibleValues";
+   public static final String TABLE_WIDGET_SEARCH_INDEX_CACHE_NAME   = "tableWidgetSearchIndex";
+   public static final String FIELD_ORDINALS_CACHE_NAME              = "fieldOrdinals";
+   public static final String COMPILED_TABLE_VIEW_BY_ID_CACHE_NAME   = "compiledTableViewById";
+
+   /////////////////////////////////////////////////////////////////////////////////////////
+   // cache state for each QInstance in the JVM (weakly held - so an instance that's been //
+   // replaced, e.g., by a hot-reload, can be collected along with its caches) - plus one //
+   // for code running without a QInstance in its context.                                //
+   /////////////////////////////////////////////////////////////////////////////////////////
+   private static final Map<QInstance, PersonalizerCacheState> cacheStateByInstance = Collections.synchronizedMap(new WeakHashMap<>());
+   private static final PersonalizerCacheState                 noInstanceCacheState = new PersonalizerCacheState();
+
+   ////////////////////////////////////////////////////////////////////////////////////////
+   // the most recently looked-up instance & its state - as nearly every lookup is for   //
+   // the same instance, this saves going through the synchronized map on every request. //
+   ////////////////////////////////////////////////////////////////////////////////////////
+   private static volatile InstanceCacheState lastInstanceCacheState;
 
-   ///////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-   // todo ideally we would clear this memoization if user-role-int is edited - but that would require topics or similar, which we don't have at this time. //
-   ///////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-   private static Memoization<Pair<String, String>, TableView> getEffectiveTableViewByUserMemoization = new Memoization<>(Duration.ofMinutes(5));
+
+
+   /***************************************************************************
+    * get the cache state for a QInstance - creating it (with default settings)
+    * if it doesn't exist yet.  null gives the state used when there is no
+    * QInstance.
+    ***************************************************************************/
+   public static PersonalizerCacheState getCacheState(QInstance qInstance)
+   {
+      if(qInstance == null)
+      {
+         return (noInstanceCacheState);
+      }
+
+      InstanceCacheState last = lastInstanceCacheState;
+      if(last != null && last.qInstance() == qInstance)
+      {
+         return (last.cacheState());
+      }
+
+      PersonalizerCacheState cacheState = cacheStateByInstance.computeIfAbsent(qInstance, i -> new PersonalizerCacheState());
+      lastInstanceCacheState = new InstanceCacheState(qInstance, cacheState);
+      return (cacheState);
+   }
 
 
 
    /***************************************************************************
-    *
+    * get the cache state for the QInstance in the current QContext.
+    ***************************************************************************/
+   public static PersonalizerCacheState getCacheState()
+   {
+      return (getCacheState(QContext.getQInstance()));
+   }
+
+
+
+   /***************************************************************************
+    * clear the caches for the QInstance in the current QContext.
     ***************************************************************************/
    public static void clearMemoizations()
    {
-      isTableCustomizableMemoization.clear();
-      getEffectiveTableViewByUserMemoization.clear();
+      getCacheState().clear();
+   }
+
+
+
+   /***************************************************************************
+    * evict the entries from the caches (for the QInstance in the current
+    * QContext) that are affected by an invalidation event.
+    *
+    * @return the number of entries that were evicted.
+    ***************************************************************************/
+   public static int evict(CacheInvalidationEvent event)
+   {
+      return (getCacheState().evict(event));
+   }
+
+
+
+   /***************************************************************************
+    * get the metrics sink for the QInstance in the current QContext.
+    ***************************************************************************/
+   public static PersonalizerMetricsSinkInterface getMetricsSink()
+   {
+      return (getCacheState().getMetricsSink());
+   }
+
+
+
+   /***************************************************************************
+    * apply any invalidation events received from other nodes, and evict entries
+    * for tables whose configVersion has changed - failures here are logged, but
+    * do not stop the table from being personalized.
+    ***************************************************************************/
+   private static void validateCaches()
+   {
+      PersonalizerCacheState cacheState = getCacheState();
+
+      try
+      {
+         cacheState.getCacheInvalidationBroadcaster().receive();
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error receiving customizable table view cache invalidation events", e);
+      }
+
+      try
+      {
+         CacheInvalidationEvent event = cacheState.getConfigVersionTracker().checkIfDue();
+         if(!event.isEmpty())
+         {
+            int evicted = cacheState.evict(event);
+            LOG.debug("Evicted customizable table view cache entries for changed config versions", logPair("evictedEntries", evicted), logPair("clearAll", event.getClearAll()));
+         }
+      }
+      catch(Exception e)
+      {
+         logConfigVersionFailure(cacheState, "Error checking customizable table view config versions", e);
+      }
+      finally
+      {
+         cacheState.applyConfigVersionTrackingTimeout();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * log a failure to bump or check config versions - as a warning, backed
+    * off while failures repeat (e.g., if the TableViewConfigVersion table is
+    * missing from the backend), else at debug.
+    ***************************************************************************/
+   private static void logConfigVersionFailure(PersonalizerCacheState cacheState, String message, Exception e, LogPair... logPairs)
+   {
+      if(cacheState.getConfigVersionTracker().shouldWarnForFailure())
+      {
+         LOG.warn(message, e, logPairs);
+      }
+      else
+      {
+         LOG.debug(message, e, logPairs);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * pre-populate the caches used by the personalizer, for all customizable
+    * tables, using a small, fixed number of bulk queries - e.g., at startup, so
+    * that the first requests after a deploy don't each pay to load their views.
+    *
+    * Effective views are built for: the empty set of roles (e.g., users who get
+    * the default views), each individual role that has any views assigned, and
+    * any additional sets of roles given by the caller (e.g., common combinations
+    * of roles in the application).  When effective views are cached per-user
+    * (see EffectiveViewCacheScope), they can't be built ahead of time, so only
+    * the set of customizable tables is warmed.
+    *
+    * Requires a QContext (with a QInstance & session that can read this qbit's
+    * tables).
+    ***************************************************************************/
+   public static PersonalizerWarmUpResult warmUp(Collection<? extends Collection<Integer>> additionalRoleSets) throws QException
+   {
+      long                   start      = System.currentTimeMillis();
+      PersonalizerCacheState cacheState = getCacheState();
+
+      //////////////////////////////////////////////////////////////////////////////////
+      // start receiving events from other nodes before loading (if activating the    //
+      // personalizer didn't already) - so that changes they make while we're loading //
+      // are applied by the next poll, rather than lost.                              //
+      //////////////////////////////////////////////////////////////////////////////////
+      cacheState.getCacheInvalidationBroadcaster().startReceiving();
+
+      //////////////////////////////////////////////////////////////////////////////////////////
+      // establish the config version baseline before loading - so that any change made while //
+      // we're loading will be seen by the next check, rather than the first check evicting   //
+      // everything we're about to warm.                                                      //
+      //////////////////////////////////////////////////////////////////////////////////////////
+      try
+      {
+         cacheState.evict(cacheState.getConfigVersionTracker().check());
+      }
+      finally
+      {
+         cacheState.applyConfigVersionTrackingTimeout();
+      }
+
+      long             loadStart        = System.nanoTime();
+      LoadedTableViews loadedTableViews = new TableViewLoader().loadAll();
+      cacheState.getMetricsSink().recordLatency(PersonalizerOperation.LOAD_VIEWS, System.nanoTime() - loadStart);
+
+      Set<RoleSet> roleSets = new LinkedHashSet<>();
+      roleSets.add(RoleSet.EMPTY);
+      loadedTableViews.getRoleIds().forEach(roleId -> roleSets.add(RoleSet.of(List.of(roleId))));
+      if(additionalRoleSets != null)
+      {
+         for(Collection<Integer> additionalRoleSet : additionalRoleSets)
+         {
+            roleSets.add(RoleSet.of(additionalRoleSet));
+         }
+      }
+
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      Set<String> customizableTableNames = new HashSet<>();
+      for(CustomizableTable customizableTable : loadedTableViews.getCustomizableTables())
+      {
+         if(customizableTable.getTableName() != null && BooleanUtils.isTrue(customizableTable.getIsActive()))
+         {
+            customizableTableNames.add(customizableTable.getTableName());
+         }
+      }
+      cacheState.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.copyOf(customizableTableNames));
+
+      int entryCount = 1;
+      for(CustomizableTable customizableTable : loadedTableViews.getCustomizableTables())
+      {
+         String  tableName = customizableTable.getTableName();
+         boolean isActive  = customizableTableNames.contains(tableName);
+
+         ///////////////////////////////////////////////////////////////////////////
+         // effective views are only ever needed for active tables - and can only //
+         // be shared (thus, warmed) when they're cached per set of roles.        //
+         ///////////////////////////////////////////////////////////////////////////
+         if(!isActive || cacheState.getEffectiveViewCacheScope() != EffectiveViewCacheScope.ROLE_SET)
+         {
+            continue;
+         }
+
+         for(RoleSet roleSet : roleSets)
+         {
+            List<TableView> tableViews = loadedTableViews.getTableViews(tableName, roleSet.asList());
+            cacheState.getEffectiveTableViewCache().put(new EffectiveViewKey(roleSet, tableName, null), personalizer.buildEffectiveTableView(tableViews));
+            entryCount++;
+         }
+      }
+
+      PersonalizerWarmUpResult result = new PersonalizerWarmUpResult()
+         .withDurationMillis(System.currentTimeMillis() - start)
+         .withCustomizableTableCount(loadedTableViews.getCustomizableTables().size())
+         .withRoleSetCount(roleSets.size())
+         .withEntryCount(entryCount);
+
+      LOG.info("Warmed up customizable table view caches", logPair("durationMillis", result.getDurationMillis()), logPair("customizableTables", result.getCustomizableTableCount()),
+         logPair("roleSets", result.getRoleSetCount()), logPair("entries", result.getEntryCount()));
+      return (result);
    }
 
 
@@ -131,20 +370,138 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
          return (tableMetaData);
       }
 
-      if(isTableCustomizable(tableMetaData.getName()))
+      long start = System.nanoTime();
+      try
       {
-         return customizeTable(input);
+         validateCaches();
+
+         if(isTableCustomizable(tableMetaData.getName()))
+         {
+            return customizeTable(input);
+         }
+         else
+         {
+            return (tableMetaData);
+         }
       }
-      else
+      finally
       {
-         return (tableMetaData);
+         getMetricsSink().recordLatency(PersonalizerOperation.EXECUTE, System.nanoTime() - start);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * personalize a collection of tables all together, for the current session -
+    * e.g., all of the tables in an instance's meta-data, for one user.  The
+    * effective views of all of the customizable tables (and the customizable
+    * tables they join to) that aren't already cached are loaded in one bulk
+    * load, using a constant number of queries (rather than a load per table) -
+    * then each table is personalized as by execute.
+    *
+    * @return the personalized tables, keyed by name, in the order given.
+    ***************************************************************************/
+   public Map<String, QTableMetaData> personalizeTables(Collection<QTableMetaData> tables, QInputSource inputSource) throws QException
+   {
+      Map<String, QTableMetaData> personalizedTables = new LinkedHashMap<>();
+      if(tables == null)
+      {
+         return (personalizedTables);
+      }
+
+      long start = System.nanoTime();
+      try
+      {
+         if(QInputSource.USER.equals(inputSource))
+         {
+            validateCaches();
+            loadEffectiveTableViewsForCurrentSession(tables);
+         }
+
+         for(QTableMetaData table : tables)
+         {
+            if(table != null)
+            {
+               personalizedTables.put(table.getName(), execute(new TableMetaDataPersonalizerInput().withTableMetaData(table).withInputSource(inputSource)));
+            }
+         }
+
+         return (personalizedTables);
+      }
+      finally
+      {
+         getMetricsSink().recordLatency(PersonalizerOperation.PERSONALIZE_TABLES, System.nanoTime() - start);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * make sure the effective views for the current session of a collection of
+    * tables, and of the tables that they join to, are all in cache - loading
+    * the ones that aren't (and that are customizable) all together.
+    ***************************************************************************/
+   private void loadEffectiveTableViewsForCurrentSession(Collection<QTableMetaData> tables) throws QException
+   {
+      if(QContext.getQSession().getUser() == null)
+      {
+         return;
+      }
+
+      RoleSet                                                 roleSet                 = getSessionRoleSet();
+      String                                                  userId                  = getSessionCacheUserId();
+      PersonalizerCache<EffectiveViewKey, EffectiveTableView> effectiveTableViewCache = getCacheState().getEffectiveTableViewCache();
+
+      Set<String> tableNamesToLoad = new LinkedHashSet<>();
+      for(QTableMetaData table : tables)
+      {
+         if(table == null || table.getName() == null)
+         {
+            continue;
+         }
+
+         Set<String> tableNames = new LinkedHashSet<>();
+         tableNames.add(table.getName());
+         tableNames.addAll(getJoinTableNames(table));
+         for(String tableName : tableNames)
+         {
+            if(!tableNamesToLoad.contains(tableName) && isTableCustomizable(tableName) && effectiveTableViewCache.getIfPresent(new EffectiveViewKey(roleSet, tableName, userId)) == null)
+            {
+               tableNamesToLoad.add(tableName);
+            }
+         }
+      }
+
+      if(tableNamesToLoad.isEmpty())
+      {
+         return;
+      }
+
+      long                         loadStart             = System.nanoTime();
+      Map<String, List<TableView>> tableViewsByTableName = new TableViewLoader().loadForTables(tableNamesToLoad, roleSet.asList());
+      getMetricsSink().recordLatency(PersonalizerOperation.LOAD_VIEWS, System.nanoTime() - loadStart);
+
+      ///////////////////////////////////////////////////////////////////////////////////
+      // as in getEffectiveTableViewForCurrentSession - a table with no views gets an  //
+      // empty one (so the user sees nothing), else the merger of its views.           //
+      ///////////////////////////////////////////////////////////////////////////////////
+      for(String tableName : tableNamesToLoad)
+      {
+         List<TableView> tableViews = tableViewsByTableName.getOrDefault(tableName, Collections.emptyList());
+         effectiveTableViewCache.put(new EffectiveViewKey(roleSet, tableName, userId), buildEffectiveTableView(tableViews));
       }
    }
 
 
 
    /***************************************************************************
+    * personalize a customizable table for the current session.
     *
+    * The table returned is cached, and shared by every caller with the same
+    * roles - so it must be treated as read-only.  Its fields map & sections
+    * list are unmodifiable; the field & section objects in them must not be
+    * changed either.
     ***************************************************************************/
    QTableMetaData customizeTable(AbstractTableActionInput tableActionInput) throws QException
    {
@@ -154,14 +511,331 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
          return (table);
 
       }
-      TableView tableView = getEffectiveTableViewForCurrentSession(table.getName());
 
-      if(tableView != null)
+      long start = System.nanoTime();
+      try
+      {
+         EffectiveTableView effectiveTableView = getEffectiveTableViewEntryForCurrentSession(table.getName());
+         TableView          tableView          = effectiveTableView.tableView();
+
+         if(tableView != null)
+         {
+            /////////////////////////////////////////////////////////////////////////////////////////
+            // re-use a previously personalized table, if it was built from this same source table //
+            // effective view & join tables - else apply the view (cloning only the fields that it //
+            // keeps), and keep the (read-only) result for next time.                              //
+            /////////////////////////////////////////////////////////////////////////////////////////
+            QInstance            qInstance         = QContext.getQInstance();
+            RoleSet              roleSet           = getSessionRoleSet();
+            PersonalizedTableKey key               = new PersonalizedTableKey(table.getName(), roleSet, InputKind.of(tableActionInput), getSessionCacheUserId());
+            PersonalizedTable    personalizedTable = getCacheState().getPersonalizedTableCache().getIfPresent(key);
+            if(personalizedTable != null && personalizedTable.isCurrent(qInstance, table, tableView))
+            {
+               return (personalizedTable.table());
+            }
+
+            CompiledTableView compiledTableView = getCompiledTableView(new EffectiveViewKey(roleSet, table.getName(), key.userId()), effectiveTableView, table);
+            QTableMetaData    result            = makeReadOnly(applyViewToSourceTable(compiledTableView, table, tableActionInput));
+            getCacheState().getPersonalizedTableCache().put(key, new PersonalizedTable(table, tableView, result, getJoinTables(qInstance, table)));
+            return (result);
+         }
+
+         return tableActionInput.getTable();
+      }
+      finally
+      {
+         getMetricsSink().recordLatency(PersonalizerOperation.CUSTOMIZE_TABLE, System.nanoTime() - start);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * the kinds of inputs that lead to different personalized versions of a
+    * table (e.g., insert & update keep fields w/ dynamic default values).
+    ***************************************************************************/
+   enum InputKind
+   {
+      DEFAULT,
+      INSERT_OR_UPDATE;
+
+
+
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      static InputKind of(AbstractTableActionInput tableActionInput)
+      {
+         boolean isInsertOrUpdate = (tableActionInput instanceof InsertInput) || (tableActionInput instanceof UpdateInput);
+         return (isInsertOrUpdate ? INSERT_OR_UPDATE : DEFAULT);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * key for the personalized table cache.  userId is only set when effective
+    * views are cached per-user (see EffectiveViewCacheScope).
+    ***************************************************************************/
+   record PersonalizedTableKey(String tableName, RoleSet roleSet, InputKind inputKind, String userId)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * value in the personalized table cache - along with the source table,
+    * effective view and join tables (by name) that it was built from, to
+    * validate that it's still current.  The join tables' views also went into
+    * it - so their names are also used for invalidation.
+    ***************************************************************************/
+   record PersonalizedTable(QTableMetaData sourceTable, TableView tableView, QTableMetaData table, Map<String, QTableMetaData> joinTables)
+   {
+
+      /***************************************************************************
+       * check if the source table & effective view are the ones the table was
+       * built from - and each join table is still the same instance.
+       ***************************************************************************/
+      boolean isCurrent(QInstance qInstance, QTableMetaData sourceTable, TableView tableView)
+      {
+         if(this.sourceTable != sourceTable || this.tableView != tableView)
+         {
+            return (false);
+         }
+
+         for(Map.Entry<String, QTableMetaData> entry : joinTables.entrySet())
+         {
+            if(qInstance.getTable(entry.getKey()) != entry.getValue())
+            {
+               return (false);
+            }
+         }
+
+         return (true);
+      }
+
+
+
+      /***************************************************************************
+       * get the names of the join tables that the table was built with.
+       ***************************************************************************/
+      Set<String> joinTableNames()
+      {
+         return (joinTables.keySet());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * value in the effective view cache - the effective view, along with the
+    * views that it was merged from (empty for an empty view; else, for a
+    * single view, just that same view).
+    ***************************************************************************/
+   record EffectiveTableView(TableView tableView, List<TableView> sourceViews)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * key for the effective view cache.  userId is only set when effective views
+    * are cached per-user (see EffectiveViewCacheScope).
+    ***************************************************************************/
+   record EffectiveViewKey(RoleSet roleSet, String tableName, String userId)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * key for the join table field names cache.  userId is only set when
+    * effective views are cached per-user (see EffectiveViewCacheScope).
+    ***************************************************************************/
+   record JoinTableFieldNamesKey(RoleSet roleSet, String tableName, InputKind inputKind, String userId)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * a value in the fieldless table cache - along with the source table it was
+    * cloned from.
+    ***************************************************************************/
+   record FieldlessTable(QTableMetaData sourceTable, QTableMetaData table)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * a value in the join table field names cache - along with the join table &
+    * effective view it was computed from.
+    ***************************************************************************/
+   record JoinTableFieldNames(QTableMetaData joinTable, TableView tableView, Set<String> fieldNames)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * a QInstance & its cache state (see lastInstanceCacheState).
+    ***************************************************************************/
+   private record InstanceCacheState(QInstance qInstance, PersonalizerCacheState cacheState)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * get the names of join tables that a table's sections include fields from
+    * (which are named as joinTable.fieldName).
+    ***************************************************************************/
+   private static Set<String> getJoinTableNames(QTableMetaData table)
+   {
+      Set<String> joinTableNames = new HashSet<>();
+      for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+      {
+         for(String fieldName : CollectionUtils.nonNullList(section.getFieldNames()))
+         {
+            int dotIndex = fieldName.indexOf('.');
+            if(dotIndex > 0)
+            {
+               joinTableNames.add(fieldName.substring(0, dotIndex));
+            }
+         }
+      }
+      return (joinTableNames);
+   }
+
+
+
+   /***************************************************************************
+    * get the join tables that a table's sections include fields from, by name
+    * (with a null table for any that aren't in the instance).
+    ***************************************************************************/
+   private static Map<String, QTableMetaData> getJoinTables(QInstance qInstance, QTableMetaData table)
+   {
+      Map<String, QTableMetaData> joinTables = new HashMap<>();
+      for(String joinTableName : getJoinTableNames(table))
+      {
+         joinTables.put(joinTableName, qInstance.getTable(joinTableName));
+      }
+      return (joinTables);
+   }
+
+
+
+   /***************************************************************************
+    * make a personalized table's fields map & sections list unmodifiable - as
+    * it's cached, and shared by every caller with the same roles.
+    ***************************************************************************/
+   private static QTableMetaData makeReadOnly(QTableMetaData table)
+   {
+      if(table.getFields() != null)
+      {
+         table.setFields(Collections.unmodifiableMap(table.getFields()));
+      }
+
+      if(table.getSections() != null)
+      {
+         table.setSections(Collections.unmodifiableList(table.getSections()));
+      }
+
+      return (table);
+   }
+
+
+
+   /***************************************************************************
+    * get an effective view compiled against a table - from cache, if it was
+    * compiled from the same view & table instances - else compiling it now:
+    * by merging the compiled views that it was merged from (compiling each of
+    * those once, see getCompiledSourceView), or compiling the (single, or
+    * empty) view itself.
+    ***************************************************************************/
+   private static CompiledTableView getCompiledTableView(EffectiveViewKey key, EffectiveTableView effectiveTableView, QTableMetaData table)
+   {
+      PersonalizerCache<EffectiveViewKey, CompiledTableView> compiledTableViewCache = getCacheState().getCompiledTableViewCache();
+
+      TableView         tableView         = effectiveTableView.tableView();
+      CompiledTableView compiledTableView = compiledTableViewCache.getIfPresent(key);
+      if(compiledTableView != null && compiledTableView.getSourceView() == tableView && compiledTableView.getFieldOrdinals().getSourceTable() == table)
+      {
+         return (compiledTableView);
+      }
+
+      FieldOrdinals fieldOrdinals = getFieldOrdinals(table);
+      if(effectiveTableView.sourceViews().size() > 1)
       {
-         return applyViewToTable(tableView, tableActionInput.getTable().clone(), tableActionInput);
+         List<CompiledTableView> compiledSourceViews = new ArrayList<>();
+         for(TableView sourceView : effectiveTableView.sourceViews())
+         {
+            compiledSourceViews.add(getCompiledSourceView(sourceView, fieldOrdinals));
+         }
+         compiledTableView = CompiledTableView.merge(compiledSourceViews, tableView);
+      }
+      else
+      {
+         compiledTableView = getCompiledSourceView(tableView, fieldOrdinals);
       }
 
-      return tableActionInput.getTable();
+      compiledTableViewCache.put(key, compiledTableView);
+      return (compiledTableView);
+   }
+
+
+
+   /***************************************************************************
+    * get a (single) view compiled against a table's field ordinals - from
+    * cache (by the view's id), if it was compiled from the same view & field
+    * ordinals instances - else compiling it now.  So, a view that's assigned
+    * to many roles is compiled once, rather than once per set of roles that
+    * it's merged for.
+    ***************************************************************************/
+   private static CompiledTableView getCompiledSourceView(TableView tableView, FieldOrdinals fieldOrdinals)
+   {
+      if(tableView.getId() == null)
+      {
+         return (CompiledTableView.compile(tableView, fieldOrdinals));
+      }
+
+      PersonalizerCache<Integer, CompiledTableView> compiledTableViewByIdCache = getCacheState().getCompiledTableViewByIdCache();
+
+      CompiledTableView compiledTableView = compiledTableViewByIdCache.getIfPresent(tableView.getId());
+      if(compiledTableView != null && compiledTableView.getSourceView() == tableView && compiledTableView.getFieldOrdinals() == fieldOrdinals)
+      {
+         return (compiledTableView);
+      }
+
+      compiledTableView = CompiledTableView.compile(tableView, fieldOrdinals);
+      compiledTableViewByIdCache.put(tableView.getId(), compiledTableView);
+      return (compiledTableView);
+   }
+
+
+
+   /***************************************************************************
+    * get the field ordinals for a table - from cache, if they were built from
+    * this same table instance - else building them now.  Views are only merged
+    * if they were compiled against the same ordinals, so they're shared by all
+    * of the views compiled for the table.
+    ***************************************************************************/
+   private static FieldOrdinals getFieldOrdinals(QTableMetaData table)
+   {
+      PersonalizerCache<String, FieldOrdinals> fieldOrdinalsCache = getCacheState().getFieldOrdinalsCache();
+
+      FieldOrdinals fieldOrdinals = (table.getName() == null) ? null : fieldOrdinalsCache.getIfPresent(table.getName());
+      if(fieldOrdinals == null || fieldOrdinals.getSourceTable() != table)
+      {
+         fieldOrdinals = new FieldOrdinals(table);
+         if(table.getName() != null)
+         {
+            fieldOrdinalsCache.put(table.getName(), fieldOrdinals);
+         }
+      }
+
+      return (fieldOrdinals);
    }
 
 
@@ -171,30 +845,114 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
     ***************************************************************************/
    QTableMetaData applyViewToTable(TableView tableView, QTableMetaData cloneTable, AbstractTableActionInput tableActionInput)
    {
-      Map<String, QFieldMetaData> fieldsToKeep = getFieldsToKeepForTable(tableView, cloneTable, tableActionInput);
-      cloneTable.setFields(fieldsToKeep);
+      return (applyViewToTable(CompiledTableView.compile(tableView, new FieldOrdinals(cloneTable)), cloneTable, tableActionInput));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   QTableMetaData applyViewToTable(CompiledTableView compiledTableView, QTableMetaData cloneTable, AbstractTableActionInput tableActionInput)
+   {
+      long start = System.nanoTime();
+      try
+      {
+         return (applyCompiledViewToTable(compiledTableView, cloneTable, cloneTable, tableActionInput));
+      }
+      finally
+      {
+         getMetricsSink().recordLatency(PersonalizerOperation.APPLY_VIEW_TO_TABLE, System.nanoTime() - start);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * apply a view to a (shared, not-to-be-modified) source table - returning a
+    * new table, which gets clones of only the fields that the view keeps.
+    ***************************************************************************/
+   QTableMetaData applyViewToSourceTable(CompiledTableView compiledTableView, QTableMetaData sourceTable, AbstractTableActionInput tableActionInput)
+   {
+      long start = System.nanoTime();
+      try
+      {
+         return (applyCompiledViewToTable(compiledTableView, sourceTable, getFieldlessClone(sourceTable), tableActionInput));
+      }
+      finally
+      {
+         getMetricsSink().recordLatency(PersonalizerOperation.APPLY_VIEW_TO_TABLE, System.nanoTime() - start);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get a clone of a table, without any fields - by cloning a cached fieldless
+    * clone of it (so the table's full set of fields is only cloned once, rather
+    * than for every personalized version of it).
+    ***************************************************************************/
+   private static QTableMetaData getFieldlessClone(QTableMetaData sourceTable)
+   {
+      PersonalizerCache<String, FieldlessTable> fieldlessTableCache = getCacheState().getFieldlessTableCache();
+
+      FieldlessTable fieldlessTable = (sourceTable.getName() == null) ? null : fieldlessTableCache.getIfPresent(sourceTable.getName());
+      if(fieldlessTable == null || fieldlessTable.sourceTable() != sourceTable)
+      {
+         QTableMetaData table = sourceTable.clone();
+         table.setFields(new LinkedHashMap<>());
+         fieldlessTable = new FieldlessTable(sourceTable, table);
+
+         if(sourceTable.getName() != null)
+         {
+            fieldlessTableCache.put(sourceTable.getName(), fieldlessTable);
+         }
+      }
+
+      return (fieldlessTable.table().clone());
+   }
+
+
+
+   /***************************************************************************
+    * apply a compiled view, with the fields planned from the source table, and
+    * the sections (& the fields in them) kept in the target table - which may
+    * be the same instance as the source (when the caller gave us a clone).
+    ***************************************************************************/
+   private QTableMetaData applyCompiledViewToTable(CompiledTableView compiledTableView, QTableMetaData sourceTable, QTableMetaData cloneTable, AbstractTableActionInput tableActionInput)
+   {
+      FieldPlan fieldPlan = FieldPlan.build(compiledTableView, sourceTable, InputKind.of(tableActionInput) == InputKind.INSERT_OR_UPDATE);
+      cloneTable.setFields(fieldPlan.cloneKeptFields(sourceTable));
 
       ///////////////////////////////////////////////////////////
       // remove field names which aren't present from sections //
       ///////////////////////////////////////////////////////////
+      Map<String, Set<String>> getFieldsToKeepFromJoinTableCache = null;
       for(QFieldSection section : CollectionUtils.nonNullList(cloneTable.getSections()))
       {
-         Map<String, Set<String>> getFieldsToKeepFromJoinTableCache = null;
-
          Iterator<String> fieldListIterator = CollectionUtils.nonNullList(section.getFieldNames()).iterator();
          while(fieldListIterator.hasNext())
          {
             try
             {
-               String            fieldName         = fieldListIterator.next();
-               FieldAndJoinTable fieldAndJoinTable = FieldAndJoinTable.get(cloneTable, fieldName);
-
-               if(fieldAndJoinTable.joinTable().getName().equals(cloneTable.getName()))
+               String fieldName = fieldListIterator.next();
+               if(fieldName.indexOf('.') < 0)
                {
                   ////////////////////////////////////////////////////////////////////////////////////////////
                   // if the field is from this table, then remove it unless it's in the set of ones to keep //
+                  // (which doesn't need it looked up - so unknown fields are simply not kept).             //
                   ////////////////////////////////////////////////////////////////////////////////////////////
-                  if(!fieldsToKeep.containsKey(fieldName))
+                  if(!fieldPlan.keeps(fieldName))
+                  {
+                     fieldListIterator.remove();
+                  }
+                  continue;
+               }
+
+               FieldAndJoinTable fieldAndJoinTable = FieldAndJoinTable.get(sourceTable, fieldName);
+               if(fieldAndJoinTable.joinTable().getName().equals(sourceTable.getName()))
+               {
+                  if(!fieldPlan.keeps(fieldAndJoinTable.field().getName()))
                   {
                      fieldListIterator.remove();
                   }
@@ -229,29 +987,12 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
       CollectionUtils.nonNullList(cloneTable.getSections()).removeIf(section ->
          section.getFieldNames() != null && section.getFieldNames().isEmpty() && !StringUtils.hasContent(section.getWidgetName()));
 
-      //////////////////////////////////////
-      // figure out which widgets we keep //
-      //////////////////////////////////////
-      Set<String> widgetsToKeep = new HashSet<>();
-      for(TableViewWidget tableViewWidget : CollectionUtils.nonNullList(tableView.getWidgets()))
-      {
-         try
-         {
-            String widgetName = tableViewWidget.getWidgetName();
-            widgetsToKeep.add(widgetName);
-         }
-         catch(Exception e)
-         {
-            LOG.warn("Error processing tableViewWidget", e, logPair("widgetName", tableViewWidget.getWidgetName()));
-         }
-      }
-
       //////////////////////////////////////////////////////
       // remove sections w/widgets that we aren't keeping //
       //////////////////////////////////////////////////////
       if(cloneTable.getSections() != null)
       {
-         cloneTable.getSections().removeIf(section -> section.getWidgetName() != null && !widgetsToKeep.contains(section.getWidgetName()));
+         cloneTable.getSections().removeIf(section -> section.getWidgetName() != null && !compiledTableView.hasWidget(section.getWidgetName()));
       }
 
       return (cloneTable);
@@ -260,7 +1001,9 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
 
 
    /***************************************************************************
-    *
+    * get the names of the fields that the user may see from a join table.  The
+    * given map memoizes these for the table being personalized (so each join
+    * table is only looked up once, for all of its fields, in all sections).
     ***************************************************************************/
    private Set<String> getFieldsToKeepFromJoinTable(String joinTableName, AbstractTableActionInput tableActionInput, Map<String, Set<String>> getFieldsToKeepFromJoinTableCache)
    {
@@ -268,22 +1011,20 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
       {
          try
          {
+            QTableMetaData joinTable = QContext.getQInstance().getTable(joinTableName);
             if(isTableCustomizable(joinTableName))
             {
                ////////////////////////////////////////////////////////////////
                // if the table is customizable, return set of fields to keep //
                ////////////////////////////////////////////////////////////////
-               QTableMetaData joinTableClone = QContext.getQInstance().getTable(joinTableName).clone();
-               TableView      joinTableView  = getEffectiveTableViewForCurrentSession(joinTableName);
-               Map<String, QFieldMetaData> joinTableFieldsToKeep = getFieldsToKeepForTable(joinTableView, joinTableClone, tableActionInput);
-               return joinTableFieldsToKeep.keySet();
+               return (getJoinTableFieldNames(joinTable, InputKind.of(tableActionInput)));
             }
             else
             {
                ///////////////////////////////////////////////
                // else, not customizable, return all fields //
                ///////////////////////////////////////////////
-               return (QContext.getQInstance().getTable(joinTableName).getFields().keySet());
+               return (joinTable.getFields().keySet());
             }
          }
          catch(QException e)
@@ -296,82 +1037,27 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
 
 
    /***************************************************************************
-    *
+    * get the names of the fields that the current session's roles may see from
+    * a customizable join table - from cache, if they were computed from the same
+    * join table & effective view instances - else computing them now (without
+    * cloning the join table).
     ***************************************************************************/
-   private static Map<String, QFieldMetaData> getFieldsToKeepForTable(TableView tableView, QTableMetaData cloneTable, AbstractTableActionInput tableActionInput)
+   private Set<String> getJoinTableFieldNames(QTableMetaData joinTable, InputKind inputKind) throws QException
    {
-      Map<String, QFieldMetaData> cloneFields = cloneTable.getFields();
-      if(cloneFields == null)
+      EffectiveTableView     effectiveJoinView   = getEffectiveTableViewEntryForCurrentSession(joinTable.getName());
+      TableView              joinTableView       = effectiveJoinView.tableView();
+      RoleSet                roleSet             = getSessionRoleSet();
+      JoinTableFieldNamesKey key                 = new JoinTableFieldNamesKey(roleSet, joinTable.getName(), inputKind, getSessionCacheUserId());
+      JoinTableFieldNames    joinTableFieldNames = getCacheState().getJoinTableFieldNamesCache().getIfPresent(key);
+      if(joinTableFieldNames != null && joinTableFieldNames.joinTable() == joinTable && joinTableFieldNames.tableView() == joinTableView)
       {
-         cloneFields = new LinkedHashMap<>();
-         cloneTable.setFields(cloneFields);
-      }
-
-      Map<String, QFieldMetaData> fieldsToKeep = new LinkedHashMap<>();
-
-      /////////////////////////////////////////////
-      // figure out which fields the user gets   //
-      // start with ones in the user's TableView //
-      /////////////////////////////////////////////
-      for(TableViewField tableViewField : CollectionUtils.nonNullList(tableView.getFields()))
-      {
-         try
-         {
-            String         fieldName     = tableViewField.getFieldName().split("\\.")[1];
-            QFieldMetaData fieldMetaData = cloneFields.get(fieldName);
-            if(fieldMetaData != null)
-            {
-               FieldAccessLevel fieldAccessLevel = FieldAccessLevel.getById(tableViewField.getAccessLevel());
-               if(fieldAccessLevel != null)
-               {
-                  fieldAccessLevel.apply(fieldMetaData);
-               }
-
-               fieldsToKeep.put(fieldName, fieldMetaData);
-            }
-         }
-         catch(Exception e)
-         {
-            LOG.warn("Error processing tableViewField", e, logPair("fieldName", tableViewField.getFieldName()));
-         }
+         return (joinTableFieldNames.fieldNames());
       }
 
-      /////////////////////////////////////////////
-      // next look for ones that always get kept //
-      /////////////////////////////////////////////
-      boolean isInsertOrUpdate = (tableActionInput instanceof InsertInput) || (tableActionInput instanceof UpdateInput);
-      for(QFieldMetaData field : cloneTable.getFields().values())
-      {
-         String fieldName = field.getName();
-         if(fieldsToKeep.containsKey(fieldName))
-         {
-            continue;
-         }
-
-         DynamicDefaultValueBehavior x    = null;
-         boolean                     keep = false;
-         if(field.getIsRequired() || Objects.equals(fieldName, cloneTable.getPrimaryKeyField()))
-         {
-            ///////////////////////////////////////////////////////////
-            // always keep the primary key field and required fields //
-            ///////////////////////////////////////////////////////////
-            keep = true;
-         }
-         else if(isInsertOrUpdate && field.getBehaviorOnlyIfSet(DynamicDefaultValueBehavior.class) != null)
-         {
-            //////////////////////////////////////////////////////////////////////////////////////////////////////
-            // if this is for an insert or update, then keep any fields that have a DynamicDefaultValueBehavior //
-            // e.g., createDates, modifyDates, things that capture userId                                       //
-            //////////////////////////////////////////////////////////////////////////////////////////////////////
-            keep = true;
-         }
-
-         if(keep)
-         {
-            fieldsToKeep.put(fieldName, cloneFields.get(fieldName));
-         }
-      }
-      return fieldsToKeep;
+      CompiledTableView compiledJoinTableView = getCompiledTableView(new EffectiveViewKey(roleSet, joinTable.getName(), key.userId()), effectiveJoinView, joinTable);
+      Set<String>       fieldNames            = FieldPlan.build(compiledJoinTableView, joinTable, inputKind == InputKind.INSERT_OR_UPDATE).getFieldNames();
+      getCacheState().getJoinTableFieldNamesCache().put(key, new JoinTableFieldNames(joinTable, joinTableView, fieldNames));
+      return (fieldNames);
    }
 
 
@@ -384,65 +1070,98 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
     * would give the user the full table.
     ***************************************************************************/
    TableView getEffectiveTableViewForCurrentSession(String tableName) throws QException
+   {
+      return (getEffectiveTableViewEntryForCurrentSession(tableName).tableView());
+   }
+
+
+
+   /***************************************************************************
+    * get the effective view for the current session (as above) - along with
+    * the views that it was merged from.
+    ***************************************************************************/
+   private EffectiveTableView getEffectiveTableViewEntryForCurrentSession(String tableName) throws QException
    {
       QUser user = QContext.getQSession().getUser();
       if(user == null)
       {
-         return (new TableView());
+         return (buildEffectiveTableView(Collections.emptyList()));
       }
 
-      Pair<String, String> key = Pair.of(user.getIdReference(), tableName);
-      return (getEffectiveTableViewByUserMemoization.getResultThrowing(key, (k) ->
+      EffectiveViewKey key = new EffectiveViewKey(getSessionRoleSet(), tableName, getSessionCacheUserId());
+      return (getCacheState().getEffectiveTableViewCache().get(key, (k) ->
       {
-         List<QRecord> tableViews = null;
+         //////////////////////////////////////////////////////////////////////////////////////
+         // load the views assigned to the roles (else the table's default view) - in a few  //
+         // set-based queries, rather than fetching each view's fields & widgets separately. //
+         //////////////////////////////////////////////////////////////////////////////////////
+         long            loadStart  = System.nanoTime();
+         List<TableView> tableViews = new TableViewLoader().loadForTable(k.tableName(), k.roleSet().asList());
+         getMetricsSink().recordLatency(PersonalizerOperation.LOAD_VIEWS, System.nanoTime() - loadStart);
+
+         return (buildEffectiveTableView(tableViews));
+      }));
+   }
 
-         ///////////////////////////////////////////////////////////////////////////////
-         // if we have role Ids, then look for any tableViews assigned to those roles //
-         ///////////////////////////////////////////////////////////////////////////////
-         String roleIdsString = QContext.getQSession().getValue("roleIds");
-         if(StringUtils.hasContent(roleIdsString))
-         {
-            Set<Integer> roleIds = Arrays.stream(roleIdsString.split(",")).map(Integer::parseInt).collect(Collectors.toSet());
-            tableViews = new QueryAction().execute(new QueryInput(TableView.TABLE_NAME)
-                  .withFilter(new QQueryFilter()
-                     .withCriteria(new QFilterCriteria(TableViewRoleInt.TABLE_NAME + ".roleId", QCriteriaOperator.IN, roleIds))
-                     .withCriteria(new QFilterCriteria(CustomizableTable.TABLE_NAME + ".tableName", QCriteriaOperator.EQUALS, tableName)))
-                  .withQueryJoin(new QueryJoin(TableViewRoleInt.TABLE_NAME))
-                  .withIncludeAssociations(true))
-               .getRecords();
-         }
 
-         //////////////////////////////////////////////////////////////////////////
-         // if there are no role views, then look for a default one on the table //
-         //////////////////////////////////////////////////////////////////////////
-         if(CollectionUtils.nullSafeIsEmpty(tableViews))
-         {
-            tableViews = new ArrayList<>();
-            QRecord customizableTableRecord = GetAction.execute(CustomizableTable.TABLE_NAME, Map.of("tableName", tableName));
-            if(customizableTableRecord != null)
-            {
-               Integer tableViewId = customizableTableRecord.getValueInteger("defaultTableViewId");
-               if(tableViewId != null)
-               {
-                  QRecord tableView = new GetAction().executeForRecord(new GetInput(TableView.TABLE_NAME).withPrimaryKey(tableViewId).withIncludeAssociations(true));
-                  CollectionUtils.addIfNotNull(tableViews, tableView);
-               }
-            }
-         }
 
-         //////////////////////////////////////////////////////////////////////////////////////////////////
-         // if no view was found, then return an empty one, so user sees nothing rather than everything. //
-         //////////////////////////////////////////////////////////////////////////////////////////////////
-         if(tableViews.isEmpty())
-         {
-            return (new TableView());
-         }
+   /***************************************************************************
+    * build the effective view for a list of views (those assigned to a set of
+    * roles, else a table's default view).  If there are none, it's an empty
+    * view, so the user sees nothing rather than everything - else it's the
+    * merger of the views (kept along with them, to compile & merge each of
+    * them - see getCompiledTableView).
+    ***************************************************************************/
+   EffectiveTableView buildEffectiveTableView(List<TableView> tableViews)
+   {
+      if(CollectionUtils.nullSafeIsEmpty(tableViews))
+      {
+         return (new EffectiveTableView(new TableView(), Collections.emptyList()));
+      }
+
+      return (new EffectiveTableView(mergeTableViewEntities(tableViews), List.copyOf(tableViews)));
+   }
+
+
 
-         ////////////////////////////////////
-         // return the merger of the views //
-         ////////////////////////////////////
-         return mergeTableViewRecords(tableViews);
-      }).orElse(null));
+   /***************************************************************************
+    * get the user id to use in cache keys for the current session - only when
+    * effective views are cached per-user - else null, so that users with the
+    * same roles share entries.
+    ***************************************************************************/
+   private static String getSessionCacheUserId()
+   {
+      if(getCacheState().getEffectiveViewCacheScope() != EffectiveViewCacheScope.USER)
+      {
+         return (null);
+      }
+
+      QUser user = QContext.getQSession().getUser();
+      return (user == null ? null : user.getIdReference());
+   }
+
+
+
+   /***************************************************************************
+    * get the set of role ids from the current session's "roleIds" value -
+    * canonical (distinct, sorted), so that any ordering or duplication of the
+    * same roles produces an equal memoization key - and only parsed once per
+    * distinct value (see RoleSet.parse).
+    ***************************************************************************/
+   static RoleSet getSessionRoleSet()
+   {
+      return (RoleSet.parse(QContext.getQSession().getValue("roleIds")));
+   }
+
+
+
+   /***************************************************************************
+    * get the role ids from the current session's "roleIds" value, normalized
+    * (distinct, sorted).
+    ***************************************************************************/
+   static List<Integer> getSessionRoleIds()
+   {
+      return (getSessionRoleSet().asList());
    }
 
 
@@ -484,6 +1203,7 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
       /////////////////////
       // merge the views //
       /////////////////////
+      long      start           = System.nanoTime();
       TableView mergedTableView = new TableView();
 
       ////////////////////////////////////////////////////////////////////////////////////
@@ -539,26 +1259,23 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
             .withAccessLevel(entry.getValue().getId()));
       }
 
+      getMetricsSink().recordLatency(PersonalizerOperation.MERGE_VIEWS, System.nanoTime() - start);
       return (mergedTableView);
    }
 
 
 
    /***************************************************************************
-    *
+    * check if a table is (actively) customizable - against the memoized set of
+    * all customizable tables, which is loaded (in one query) when missing, e.g.,
+    * after it expires or is evicted - rather than querying for each table.
     ***************************************************************************/
    boolean isTableCustomizable(String tableName) throws QException
    {
-      return (isTableCustomizableMemoization.getResultThrowing(tableName, (name) ->
-      {
-         QRecord customizableTableRecord = GetAction.execute(CustomizableTable.TABLE_NAME, Map.of("tableName", tableName));
-         if(customizableTableRecord != null)
-         {
-            return BooleanUtils.isTrue(customizableTableRecord.getValueBoolean("isActive"));
-         }
+      Set<String> customizableTableNames = getCacheState().getIsTableCustomizableCache().get(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, (key) ->
+         new TableViewLoader().loadActiveCustomizableTableNames());
 
-         return false;
-      }).orElse(false));
+      return (customizableTableNames.contains(tableName));
    }
 
 
@@ -587,7 +1304,8 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
       @Override
       public List<QRecord> postInsertOrUpdate(AbstractActionInput input, List<QRecord> records, Optional<List<QRecord>> oldRecordList) throws QException
       {
-         CustomizableTableViewsTablePersonalizer.clearMemoizations();
+         String tableName = (input instanceof AbstractTableActionInput tableActionInput) ? tableActionInput.getTableName() : null;
+         evictForChangedRecords(tableName, records, oldRecordList);
          return records;
       }
 
@@ -599,8 +1317,42 @@ public class CustomizableTableViewsTablePersonalizer implements TableMetaDataPer
       @Override
       public List<QRecord> postDelete(DeleteInput deleteInput, List<QRecord> records) throws QException
       {
-         CustomizableTableViewsTablePersonalizer.clearMemoizations();
+         evictForChangedRecords(deleteInput.getTableName(), records, Optional.empty());
          return records;
       }
+
+
+
+      /***************************************************************************
+       * evict only the cache entries affected by the changed records (rather than
+       * clearing everything), and log how many entries that was - then bump the
+       * configVersion of the affected tables, and publish the event, so other
+       * nodes can evict the same entries.
+       ***************************************************************************/
+      private void evictForChangedRecords(String tableName, List<QRecord> records, Optional<List<QRecord>> oldRecordList)
+      {
+         PersonalizerCacheState cacheState = getCacheState();
+         CacheInvalidationEvent event      = CacheInvalidationEventResolver.resolve(tableName, records, oldRecordList);
+         int                    evicted    = cacheState.evict(event);
+         LOG.info("Evicted customizable table view cache entries", logPair("changedTable", tableName), logPair("evictedEntries", evicted), logPair("clearAll", event.getClearAll()));
+
+         try
+         {
+            cacheState.getConfigVersionTracker().bump(event);
+         }
+         catch(Exception e)
+         {
+            logConfigVersionFailure(cacheState, "Error bumping customizable table view config versions", e, logPair("changedTable", tableName));
+         }
+
+         try
+         {
+            cacheState.getCacheInvalidationBroadcaster().publish(event);
+         }
+         catch(Exception e)
+         {
+            LOG.warn("Error publishing customizable table view cache invalidation event", e, logPair("changedTable", tableName));
+         }
+      }
    }
 }
@@ -0,0 +1,136 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+
+
+/*******************************************************************************
+ * In-memory result of TableViewLoader - which can resolve the views that apply
+ * to a table for a set of roles, the same way the personalizer does when it
+ * queries for them (views assigned to any of the roles, else the table's
+ * default view).
+ *******************************************************************************/
+public class LoadedTableViews
+{
+   private final Map<String, CustomizableTable> customizableTablesByName = new LinkedHashMap<>();
+   private final Map<Integer, TableView>        tableViewsById;
+   private final Map<Integer, List<Integer>>    tableViewIdsByRoleId     = new HashMap<>();
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public LoadedTableViews(List<CustomizableTable> customizableTables, Map<Integer, TableView> tableViewsById, List<TableViewRoleInt> roleInts)
+   {
+      for(CustomizableTable customizableTable : customizableTables)
+      {
+         customizableTablesByName.put(customizableTable.getTableName(), customizableTable);
+      }
+
+      this.tableViewsById = tableViewsById;
+
+      for(TableViewRoleInt roleInt : roleInts)
+      {
+         if(roleInt.getRoleId() != null && roleInt.getTableViewId() != null)
+         {
+            tableViewIdsByRoleId.computeIfAbsent(roleInt.getRoleId(), k -> new ArrayList<>()).add(roleInt.getTableViewId());
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public Collection<CustomizableTable> getCustomizableTables()
+   {
+      return (Collections.unmodifiableCollection(customizableTablesByName.values()));
+   }
+
+
+
+   /***************************************************************************
+    * get all role ids that have any views assigned to them (sorted).
+    ***************************************************************************/
+   public Set<Integer> getRoleIds()
+   {
+      return (new TreeSet<>(tableViewIdsByRoleId.keySet()));
+   }
+
+
+
+   /***************************************************************************
+    * get the views that apply to a table for a set of roles - that is, all of
+    * the table's views assigned to any of the roles - else, the table's default
+    * view, if it has one - else, an empty list.
+    ***************************************************************************/
+   public List<TableView> getTableViews(String tableName, Collection<Integer> roleIds)
+   {
+      CustomizableTable customizableTable = customizableTablesByName.get(tableName);
+      if(customizableTable == null)
+      {
+         return (Collections.emptyList());
+      }
+
+      Map<Integer, TableView> tableViews = new LinkedHashMap<>();
+      for(Integer roleId : roleIds)
+      {
+         for(Integer tableViewId : tableViewIdsByRoleId.getOrDefault(roleId, Collections.emptyList()))
+         {
+            TableView tableView = tableViewsById.get(tableViewId);
+            if(tableView != null && Objects.equals(tableView.getCustomizableTableId(), customizableTable.getId()))
+            {
+               tableViews.put(tableViewId, tableView);
+            }
+         }
+      }
+
+      if(tableViews.isEmpty() && customizableTable.getDefaultTableViewId() != null)
+      {
+         TableView defaultTableView = tableViewsById.get(customizableTable.getDefaultTableViewId());
+         if(defaultTableView != null)
+         {
+            return (List.of(defaultTableView));
+         }
+      }
+
+      return (new ArrayList<>(tableViews.values()));
+   }
+
+}
@@ -0,0 +1,702 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.EffectiveTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.EffectiveViewKey;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.FieldlessTable;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.JoinTableFieldNames;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.JoinTableFieldNamesKey;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.PersonalizedTable;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.PersonalizedTableKey;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.DefaultPersonalizerCacheProvider;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.EffectiveViewCacheScope;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCacheProviderInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.QContextPropagatingExecutor;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.RetainedSizeEstimator;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.CacheInvalidationBroadcasterInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.CacheInvalidationEvent;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.ConfigVersionTracker;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.InJvmCacheInvalidationBroadcaster;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.NoOpPersonalizerMetricsSink;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.PersonalizerMetricsSinkInterface;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTableFieldPVS.TableFieldPossibleValues;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTableWidgetPVS.TableWidgetSearchIndex;
+
+
+/*******************************************************************************
+ * The table personalizer's caches, and their settings (timeouts, limits,
+ * metrics sink, invalidation broadcaster, etc), for one QInstance.
+ *
+ * Each QInstance in a JVM (e.g., each tenant, in a multi-tenant deployment)
+ * gets its own state - so entries are never shared between instances, each
+ * can be sized & monitored separately, and changes to one instance's table
+ * views only evict entries from its own caches.
+ *
+ * Get the state for an instance from
+ * CustomizableTableViewsTablePersonalizer.getCacheState - which creates it
+ * (with default settings) on first use; CustomizableTableViewsQBitProducer
+ * applies the qbit's config to it when activating the personalizer.
+ *******************************************************************************/
+public class PersonalizerCacheState
+{
+   /////////////////////////////////////////////////////////////////////////////////////
+   // default timeout for the caches that load from the backend - unless entries are  //
+   // being validated against each table's configVersion (i.e., the ConfigVersion-    //
+   // Tracker has checked successfully), in which case the timeout is only a backstop //
+   // - thus, it can be long.  if tracking is off, or failing, the short one is used. //
+   /////////////////////////////////////////////////////////////////////////////////////
+   private static final Duration CACHE_TIMEOUT           = Duration.ofMinutes(5);
+   private static final Duration VALIDATED_CACHE_TIMEOUT = Duration.ofHours(4);
+
+   ////////////////////////////////////////////////////////////////////////////
+   // default limit on the number of entries in each cache - the same as the //
+   // max size of the qqq Memoizations that these caches replaced.           //
+   ////////////////////////////////////////////////////////////////////////////
+   public static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+
+   ///////////////////////////////////////////////////////////////////////////////////////
+   // used to refresh stale entries in the background, if a soft timeout is set, but no //
+   // executor is given - created on first use, with a small, bounded pool & queue, and //
+   // shared by all instances.                                                          //
+   ///////////////////////////////////////////////////////////////////////////////////////
+   private static Executor defaultCacheRefreshExecutor;
+
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   // the names of all active customizable tables - loaded all at once, into an immutable    //
+   // set, which is the cache's only entry (under CUSTOMIZABLE_TABLES_KEY) - so a reload     //
+   // replaces it atomically, and checking any table (customizable or not) is just a lookup. //
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   static final String CUSTOMIZABLE_TABLES_KEY = "customizableTables";
+
+   private PersonalizerCache<String, Set<String>> isTableCustomizableCache;
+
+   //////////////////////////////////////////////////////////////////////////////////////////////////////
+   // effective views are a function of (the set of roles, table name) - so key on that, not the user, //
+   // such that all users with the same combination of roles share a single merged view.               //
+   //////////////////////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<EffectiveViewKey, EffectiveTableView> effectiveTableViewCache;
+
+   /////////////////////////////////////////////////////////////////////////////////////////////////////
+   // fully personalized tables - shared, read-only instances, re-used for as long as the effective   //
+   // view they were built from is still the memoized one, and the source table is the same instance. //
+   /////////////////////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<PersonalizedTableKey, PersonalizedTable> personalizedTableCache;
+
+   ///////////////////////////////////////////////////////////////////////////////////////////
+   // effective views, compiled against the table's field ordinals - re-used for as long as //
+   // the effective view and table they were compiled from are the same instances.          //
+   ///////////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<EffectiveViewKey, CompiledTableView> compiledTableViewCache;
+
+   ///////////////////////////////////////////////////////////////////////////////////////
+   // single views (by id), compiled against their table's (shared) field ordinals - so //
+   // an effective view merged from several views merges their compiled bitsets, rather //
+   // than compiling each of them again for every set of roles that they're merged for. //
+   ///////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<Integer, CompiledTableView> compiledTableViewByIdCache;
+
+   /////////////////////////////////////////////////////////////////////////////////
+   // the ordinals of each table's fields & widgets, shared by the views compiled //
+   // against it - re-used for as long as the table is the same instance.         //
+   /////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<String, FieldOrdinals> fieldOrdinalsCache;
+
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   // names of the fields that a set of roles can see from a (customizable) join table - for //
+   // all sections & requests - re-used for as long as the join table & effective view that  //
+   // they were computed from are the same instances.                                        //
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<JoinTableFieldNamesKey, JoinTableFieldNames> joinTableFieldNamesCache;
+
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   // clones of source tables, without their fields - the starting point for personalizing a //
+   // table, which then gets clones of only the fields that the view keeps.  re-used for as  //
+   // long as the source table is the same instance.                                         //
+   ////////////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<String, FieldlessTable> fieldlessTableCache;
+
+   ///////////////////////////////////////////////////////////////////////////////////
+   // the name of the table that each table view customizes (for the possible value //
+   // sources used while editing a view's fields & widgets) - filled in by loads,   //
+   // and by lookups in the TableViewTableNameResolver.                             //
+   ///////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<Integer, String> tableNameByTableViewIdCache;
+
+   ///////////////////////////////////////////////////////////////////////////////////
+   // possible values for each table's fields (for the field possible value source, //
+   // on every search & translation while a view is being edited) - re-used for as  //
+   // long as the table they were built from is the same instance.                  //
+   ///////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<String, TableFieldPossibleValues> tableFieldPossibleValuesCache;
+
+   ////////////////////////////////////////////////////////////////////////////////
+   // search index over each table's widgets (for the widget possible value      //
+   // source) - re-used for as long as the table, and its widgets, are the same. //
+   ////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCache<String, TableWidgetSearchIndex> tableWidgetSearchIndexCache;
+
+   private final AtomicLong evictedEntryCount = new AtomicLong(0);
+   private final AtomicLong backendQueryCount = new AtomicLong(0);
+
+   //////////////////////////////////////////////////////////////////////////////////////////
+   // shares invalidation events with other nodes running this application (if there are). //
+   //////////////////////////////////////////////////////////////////////////////////////////
+   private CacheInvalidationBroadcasterInterface cacheInvalidationBroadcaster = new InJvmCacheInvalidationBroadcaster();
+
+   private final ConfigVersionTracker configVersionTracker = new ConfigVersionTracker();
+
+   private PersonalizerMetricsSinkInterface metricsSink = new NoOpPersonalizerMetricsSink();
+
+   /////////////////////////////////////////////////////////////////////////////////////
+   // settings for the caches - kept here, so that they can be applied to new caches, //
+   // if the cache provider is changed.                                               //
+   /////////////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCacheProviderInterface cacheProvider           = new DefaultPersonalizerCacheProvider();
+   private EffectiveViewCacheScope            effectiveViewCacheScope = EffectiveViewCacheScope.ROLE_SET;
+   private Duration                           cacheSoftTimeout;
+   private Duration                           cacheHardTimeout;
+   private Executor                           cacheRefreshExecutor;
+   private int                                cacheMaxEntries         = DEFAULT_CACHE_MAX_ENTRIES;
+   private long                               cacheMaxRetainedBytes;
+   private volatile boolean                   isUsingValidatedTimeout;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public PersonalizerCacheState()
+   {
+      createCaches();
+   }
+
+
+
+   /***************************************************************************
+    * evict the entries from the caches that are affected by an invalidation
+    * event.
+    *
+    * @return the number of entries that were evicted.
+    ***************************************************************************/
+   public int evict(CacheInvalidationEvent event)
+   {
+      if(event.isEmpty())
+      {
+         return (0);
+      }
+
+      int evicted = 0;
+
+      //////////////////////////////////////////////////////////////////////////////////////
+      // any change to a table's config (including its customizable table record) gives a //
+      // table-level event - so reload the set of customizable tables for any of those.   //
+      //////////////////////////////////////////////////////////////////////////////////////
+      evicted += isTableCustomizableCache.removeIf((key, tableNames) -> event.getClearAll() || !event.getTableNames().isEmpty());
+
+      evicted += effectiveTableViewCache.removeIf((key, tableView) -> event.affects(key.tableName(), key.roleSet().asList()));
+      evicted += compiledTableViewCache.removeIf((key, compiledTableView) -> event.affects(key.tableName(), key.roleSet().asList()));
+      evicted += compiledTableViewByIdCache.removeIf((tableViewId, compiledTableView) -> event.getTableViewIds().contains(tableViewId) || compiledTableView == null || event.affects(compiledTableView.getFieldOrdinals().getSourceTable().getName(), Collections.emptyList()));
+      evicted += fieldOrdinalsCache.removeIf((tableName, fieldOrdinals) -> event.affects(tableName, Collections.emptyList()));
+      evicted += joinTableFieldNamesCache.removeIf((key, joinTableFieldNames) -> event.affects(key.tableName(), key.roleSet().asList()));
+      evicted += fieldlessTableCache.removeIf((tableName, fieldlessTable) -> event.affects(tableName, Collections.emptyList()));
+      evicted += tableFieldPossibleValuesCache.removeIf((tableName, tableFieldPossibleValues) -> event.affects(tableName, Collections.emptyList()));
+      evicted += tableWidgetSearchIndexCache.removeIf((tableName, tableWidgetSearchIndex) -> event.affects(tableName, Collections.emptyList()));
+
+      ////////////////////////////////////////////////////////////////////////////////////////
+      // a view's table can only change with its own (or its customizable table's) record - //
+      // so changes to a view's fields, widgets & roles leave its table name cached.        //
+      ////////////////////////////////////////////////////////////////////////////////////////
+      evicted += tableNameByTableViewIdCache.removeIf((tableViewId, tableName) -> event.getClearAll() || event.getTableViewIds().contains(tableViewId));
+
+      //////////////////////////////////////////////////////////////////////////////////////////////////////
+      // personalized tables can include fields from join tables - so they're also affected by any change //
+      // to the views of the tables that they join to (for the same roles).  a null value is one that's   //
+      // still loading, whose join tables aren't known yet - so it may be affected.                       //
+      //////////////////////////////////////////////////////////////////////////////////////////////////////
+      evicted += personalizedTableCache.removeIf((key, personalizedTable) -> event.affects(key.tableName(), key.roleSet().asList())
+         || personalizedTable == null || personalizedTable.joinTableNames().stream().anyMatch(joinTableName -> event.affects(joinTableName, key.roleSet().asList())));
+
+      evictedEntryCount.addAndGet(evicted);
+      return (evicted);
+   }
+
+
+
+   /***************************************************************************
+    * remove all entries from the caches.
+    ***************************************************************************/
+   public void clear()
+   {
+      evict(CacheInvalidationEvent.ofClearAll());
+   }
+
+
+
+   /***************************************************************************
+    * get the total number of cache entries that have been evicted due to
+    * invalidation events.
+    ***************************************************************************/
+   public long getEvictedEntryCount()
+   {
+      return (evictedEntryCount.get());
+   }
+
+
+
+   /***************************************************************************
+    * count queries run against the backend to load table view configuration -
+    * and report them to the metrics sink.
+    ***************************************************************************/
+   public void recordBackendQueries(int count)
+   {
+      backendQueryCount.addAndGet(count);
+      metricsSink.recordBackendQueries(count);
+   }
+
+
+
+   /***************************************************************************
+    * get the total number of queries run against the backend (for this
+    * instance) to load table view configuration.
+    ***************************************************************************/
+   public long getBackendQueryCount()
+   {
+      return (backendQueryCount.get());
+   }
+
+
+
+   /***************************************************************************
+    * get the estimated number of bytes retained by all of the caches (see
+    * RetainedSizeEstimator - this is an approximation).
+    ***************************************************************************/
+   public long getEstimatedRetainedBytes()
+   {
+      long retainedBytes = 0;
+      for(PersonalizerCache<?, ?> cache : getCaches())
+      {
+         retainedBytes += cache.getRetainedBytes();
+      }
+      return (retainedBytes);
+   }
+
+
+
+   /***************************************************************************
+    * set the broadcaster used to share invalidation events between nodes - or,
+    * rather, the one it gives for this state (see forCacheState).  null resets
+    * to the default (in-JVM only) broadcaster.
+    ***************************************************************************/
+   public void setCacheInvalidationBroadcaster(CacheInvalidationBroadcasterInterface broadcaster)
+   {
+      cacheInvalidationBroadcaster = (broadcaster == null) ? new InJvmCacheInvalidationBroadcaster() : broadcaster.forCacheState(this);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public CacheInvalidationBroadcasterInterface getCacheInvalidationBroadcaster()
+   {
+      return (cacheInvalidationBroadcaster);
+   }
+
+
+
+   /***************************************************************************
+    * set the sink that the personalizer (and the caches) report metrics to.
+    * null resets to the default (no-op) sink.
+    ***************************************************************************/
+   public void setMetricsSink(PersonalizerMetricsSinkInterface sink)
+   {
+      metricsSink = (sink == null) ? new NoOpPersonalizerMetricsSink() : sink;
+      applyCacheSettings();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public PersonalizerMetricsSinkInterface getMetricsSink()
+   {
+      return (metricsSink);
+   }
+
+
+
+   /***************************************************************************
+    * set limits on the size of each of the caches - the number of entries, and
+    * the estimated number of bytes that they retain.  When a cache goes over
+    * either limit, its least-recently-used entries are evicted.  0 (or less)
+    * means no limit.  By default, entries are limited to
+    * DEFAULT_CACHE_MAX_ENTRIES, and retained bytes aren't limited.
+    ***************************************************************************/
+   public void setCacheLimits(int maxEntries, long maxRetainedBytes)
+   {
+      cacheMaxEntries = maxEntries;
+      cacheMaxRetainedBytes = maxRetainedBytes;
+      applyCacheSettings();
+   }
+
+
+
+   /***************************************************************************
+    * set the timeouts for the caches whose loads query the backend (whether a
+    * table is customizable, and effective views):
+    *
+    * - hardTimeout: entries older than this are reloaded before being returned
+    *   (null resets to the default - of 4 hours, while config versions are
+    *   being tracked successfully, else 5 minutes).
+    * - softTimeout: entries older than this (but not the hard timeout) are
+    *   returned immediately, while being reloaded in the background, on the
+    *   refreshExecutor (or, if that's null, a small default pool).  null turns
+    *   background refreshing off.
+    ***************************************************************************/
+   public void setCacheTimeouts(Duration softTimeout, Duration hardTimeout, Executor refreshExecutor)
+   {
+      cacheSoftTimeout = softTimeout;
+      cacheHardTimeout = hardTimeout;
+      cacheRefreshExecutor = null;
+      if(softTimeout != null)
+      {
+         cacheRefreshExecutor = new QContextPropagatingExecutor(refreshExecutor == null ? getDefaultCacheRefreshExecutor() : refreshExecutor);
+      }
+      applyCacheSettings();
+   }
+
+
+
+   /***************************************************************************
+    * set the provider used to create the caches - which then replaces all of
+    * the caches (so, they start out empty), keeping their current settings.
+    * null resets to the default provider.  Meant to be called at startup
+    * (e.g., when activating the personalizer).
+    ***************************************************************************/
+   public void setCacheProvider(PersonalizerCacheProviderInterface provider)
+   {
+      cacheProvider = (provider == null) ? new DefaultPersonalizerCacheProvider() : provider;
+      createCaches();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public PersonalizerCacheProviderInterface getCacheProvider()
+   {
+      return (cacheProvider);
+   }
+
+
+
+   /***************************************************************************
+    * set whether effective views (and the tables personalized from them) are
+    * cached per set of roles (shared by users with the same roles), or per
+    * user.  null resets to the default, of per set of roles.  Changing the
+    * scope clears the caches.
+    ***************************************************************************/
+   public void setEffectiveViewCacheScope(EffectiveViewCacheScope scope)
+   {
+      EffectiveViewCacheScope newScope = (scope == null) ? EffectiveViewCacheScope.ROLE_SET : scope;
+      if(newScope != effectiveViewCacheScope)
+      {
+         effectiveViewCacheScope = newScope;
+         clear();
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public EffectiveViewCacheScope getEffectiveViewCacheScope()
+   {
+      return (effectiveViewCacheScope);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public ConfigVersionTracker getConfigVersionTracker()
+   {
+      return (configVersionTracker);
+   }
+
+
+
+   /***************************************************************************
+    * switch the caches between the long & short default timeouts, if whether
+    * the config version tracker is validating them has changed - called after
+    * each check of config versions (whether it succeeded or not).
+    ***************************************************************************/
+   void applyConfigVersionTrackingTimeout()
+   {
+      if(configVersionTracker.getIsValidating() != isUsingValidatedTimeout)
+      {
+         applyCacheSettings();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * create each of the caches (from the cache provider), and apply the current
+    * settings to them.
+    ***************************************************************************/
+   private void createCaches()
+   {
+      isTableCustomizableCache = cacheProvider.<String, Set<String>>createCache(CustomizableTableViewsTablePersonalizer.IS_TABLE_CUSTOMIZABLE_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((key, tableNames) -> RetainedSizeEstimator.ofSharedStrings(tableNames) + (tableNames == null ? 0 : tableNames.stream().mapToLong(RetainedSizeEstimator::ofString).sum()));
+
+      effectiveTableViewCache = cacheProvider.<EffectiveViewKey, EffectiveTableView>createCache(CustomizableTableViewsTablePersonalizer.EFFECTIVE_TABLE_VIEW_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((key, effectiveTableView) -> weighKey(key.roleSet(), key.userId()) + (effectiveTableView == null ? 0 : RetainedSizeEstimator.ofTableView(effectiveTableView.tableView())
+            + (effectiveTableView.sourceViews().size() > 1 ? effectiveTableView.sourceViews().stream().mapToLong(RetainedSizeEstimator::ofTableView).sum() : 0)));
+
+      personalizedTableCache = cacheProvider.<PersonalizedTableKey, PersonalizedTable>createCache(CustomizableTableViewsTablePersonalizer.PERSONALIZED_TABLE_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((key, personalizedTable) -> weighKey(key.roleSet(), key.userId()) + (personalizedTable == null ? 0 : RetainedSizeEstimator.ofTable(personalizedTable.table())));
+
+      compiledTableViewCache = cacheProvider.<EffectiveViewKey, CompiledTableView>createCache(CustomizableTableViewsTablePersonalizer.COMPILED_TABLE_VIEW_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((key, compiledTableView) -> weighKey(key.roleSet(), key.userId()) + RetainedSizeEstimator.ofCompiledTableView(compiledTableView));
+
+      compiledTableViewByIdCache = cacheProvider.<Integer, CompiledTableView>createCache(CustomizableTableViewsTablePersonalizer.COMPILED_TABLE_VIEW_BY_ID_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableViewId, compiledTableView) -> RetainedSizeEstimator.ofCompiledTableView(compiledTableView));
+
+      fieldOrdinalsCache = cacheProvider.<String, FieldOrdinals>createCache(CustomizableTableViewsTablePersonalizer.FIELD_ORDINALS_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableName, fieldOrdinals) -> RetainedSizeEstimator.ofFieldOrdinals(fieldOrdinals));
+
+      joinTableFieldNamesCache = cacheProvider.<JoinTableFieldNamesKey, JoinTableFieldNames>createCache(CustomizableTableViewsTablePersonalizer.JOIN_TABLE_FIELD_NAMES_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((key, joinTableFieldNames) -> weighKey(key.roleSet(), key.userId()) + (joinTableFieldNames == null ? 0 : RetainedSizeEstimator.ofSharedStrings(joinTableFieldNames.fieldNames())));
+
+      fieldlessTableCache = cacheProvider.<String, FieldlessTable>createCache(CustomizableTableViewsTablePersonalizer.FIELDLESS_TABLE_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableName, fieldlessTable) -> (fieldlessTable == null ? 0 : RetainedSizeEstimator.ofTable(fieldlessTable.table())));
+
+      tableNameByTableViewIdCache = cacheProvider.<Integer, String>createCache(CustomizableTableViewsTablePersonalizer.TABLE_NAME_BY_TABLE_VIEW_ID_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableViewId, tableName) -> RetainedSizeEstimator.ofString(tableName));
+
+      tableFieldPossibleValuesCache = cacheProvider.<String, TableFieldPossibleValues>createCache(CustomizableTableViewsTablePersonalizer.TABLE_FIELD_POSSIBLE_VALUES_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableName, tableFieldPossibleValues) -> (tableFieldPossibleValues == null ? 0 : RetainedSizeEstimator.ofPossibleValues(tableFieldPossibleValues.possibleValuesByFieldName().values()) + RetainedSizeEstimator.ofPossibleValueSearchIndex(tableFieldPossibleValues.searchIndex())));
+
+      tableWidgetSearchIndexCache = cacheProvider.<String, TableWidgetSearchIndex>createCache(CustomizableTableViewsTablePersonalizer.TABLE_WIDGET_SEARCH_INDEX_CACHE_NAME, CACHE_TIMEOUT)
+         .withWeigher((tableName, tableWidgetSearchIndex) -> (tableWidgetSearchIndex == null ? 0 : RetainedSizeEstimator.ofSharedStrings(tableWidgetSearchIndex.widgetNames()) + RetainedSizeEstimator.ofSharedStrings(tableWidgetSearchIndex.labels()) + RetainedSizeEstimator.ofPossibleValueSearchIndex(tableWidgetSearchIndex.searchIndex())));
+
+      applyCacheSettings();
+   }
+
+
+
+   /***************************************************************************
+    * apply the current settings (metrics sink, limits & timeouts) to the caches.
+    * timeouts only apply to the caches whose loads query the backend - the
+    * others are validated against the entries they're built from.
+    ***************************************************************************/
+   private void applyCacheSettings()
+   {
+      for(PersonalizerCache<?, ?> cache : getCaches())
+      {
+         cache.setMetricsSink(metricsSink);
+         cache.setMaxEntries(cacheMaxEntries);
+         cache.setMaxRetainedBytes(cacheMaxRetainedBytes);
+      }
+
+      isUsingValidatedTimeout = configVersionTracker.getIsValidating();
+      Duration defaultTimeout = isUsingValidatedTimeout ? VALIDATED_CACHE_TIMEOUT : CACHE_TIMEOUT;
+      for(PersonalizerCache<?, ?> cache : List.of(isTableCustomizableCache, effectiveTableViewCache))
+      {
+         cache.setTimeout(cacheHardTimeout == null ? defaultTimeout : cacheHardTimeout);
+         cache.setSoftTimeout(cacheSoftTimeout);
+         cache.setRefreshExecutor(cacheRefreshExecutor);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private List<PersonalizerCache<?, ?>> getCaches()
+   {
+      return (List.of(isTableCustomizableCache, effectiveTableViewCache, personalizedTableCache, compiledTableViewCache, compiledTableViewByIdCache, fieldOrdinalsCache, joinTableFieldNamesCache, fieldlessTableCache, tableNameByTableViewIdCache, tableFieldPossibleValuesCache, tableWidgetSearchIndexCache));
+   }
+
+
+
+   /***************************************************************************
+    * estimated retained size of the role set & user id in a cache key.
+    ***************************************************************************/
+   private static long weighKey(RoleSet roleSet, String userId)
+   {
+      return (RetainedSizeEstimator.ofRoleSet(roleSet) + RetainedSizeEstimator.ofString(userId));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static synchronized Executor getDefaultCacheRefreshExecutor()
+   {
+      if(defaultCacheRefreshExecutor == null)
+      {
+         ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1000), runnable ->
+         {
+            Thread thread = new Thread(runnable, "customizable-table-views-cache-refresh");
+            thread.setDaemon(true);
+            return (thread);
+         });
+         threadPoolExecutor.allowCoreThreadTimeOut(true);
+         defaultCacheRefreshExecutor = threadPoolExecutor;
+      }
+      return (defaultCacheRefreshExecutor);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for isTableCustomizableCache
+    *******************************************************************************/
+   PersonalizerCache<String, Set<String>> getIsTableCustomizableCache()
+   {
+      return (this.isTableCustomizableCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for effectiveTableViewCache
+    *******************************************************************************/
+   PersonalizerCache<EffectiveViewKey, EffectiveTableView> getEffectiveTableViewCache()
+   {
+      return (this.effectiveTableViewCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for personalizedTableCache
+    *******************************************************************************/
+   PersonalizerCache<PersonalizedTableKey, PersonalizedTable> getPersonalizedTableCache()
+   {
+      return (this.personalizedTableCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for compiledTableViewCache
+    *******************************************************************************/
+   PersonalizerCache<EffectiveViewKey, CompiledTableView> getCompiledTableViewCache()
+   {
+      return (this.compiledTableViewCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for compiledTableViewByIdCache
+    *******************************************************************************/
+   PersonalizerCache<Integer, CompiledTableView> getCompiledTableViewByIdCache()
+   {
+      return (this.compiledTableViewByIdCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for fieldOrdinalsCache
+    *******************************************************************************/
+   PersonalizerCache<String, FieldOrdinals> getFieldOrdinalsCache()
+   {
+      return (this.fieldOrdinalsCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for joinTableFieldNamesCache
+    *******************************************************************************/
+   PersonalizerCache<JoinTableFieldNamesKey, JoinTableFieldNames> getJoinTableFieldNamesCache()
+   {
+      return (this.joinTableFieldNamesCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for fieldlessTableCache
+    *******************************************************************************/
+   PersonalizerCache<String, FieldlessTable> getFieldlessTableCache()
+   {
+      return (this.fieldlessTableCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableNameByTableViewIdCache
+    *******************************************************************************/
+   public PersonalizerCache<Integer, String> getTableNameByTableViewIdCache()
+   {
+      return (this.tableNameByTableViewIdCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableFieldPossibleValuesCache
+    *******************************************************************************/
+   public PersonalizerCache<String, TableFieldPossibleValues> getTableFieldPossibleValuesCache()
+   {
+      return (this.tableFieldPossibleValuesCache);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableWidgetSearchIndexCache
+    *******************************************************************************/
+   public PersonalizerCache<String, TableWidgetSearchIndex> getTableWidgetSearchIndexCache()
+   {
+      return (this.tableWidgetSearchIndexCache);
+   }
+
+}
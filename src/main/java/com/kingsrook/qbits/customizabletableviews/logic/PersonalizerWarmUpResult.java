@@ -0,0 +1,159 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+/*******************************************************************************
+ * Summary of a warm-up of the table personalizer's caches.
+ *******************************************************************************/
+public class PersonalizerWarmUpResult
+{
+   private long durationMillis;
+   private int  customizableTableCount;
+   private int  roleSetCount;
+   private int  entryCount;
+
+
+
+   /*******************************************************************************
+    ** Getter for durationMillis
+    *******************************************************************************/
+   public long getDurationMillis()
+   {
+      return (this.durationMillis);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for durationMillis
+    *******************************************************************************/
+   public void setDurationMillis(long durationMillis)
+   {
+      this.durationMillis = durationMillis;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for durationMillis
+    *******************************************************************************/
+   public PersonalizerWarmUpResult withDurationMillis(long durationMillis)
+   {
+      this.durationMillis = durationMillis;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for customizableTableCount
+    *******************************************************************************/
+   public int getCustomizableTableCount()
+   {
+      return (this.customizableTableCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for customizableTableCount
+    *******************************************************************************/
+   public void setCustomizableTableCount(int customizableTableCount)
+   {
+      this.customizableTableCount = customizableTableCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for customizableTableCount
+    *******************************************************************************/
+   public PersonalizerWarmUpResult withCustomizableTableCount(int customizableTableCount)
+   {
+      this.customizableTableCount = customizableTableCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for roleSetCount
+    *******************************************************************************/
+   public int getRoleSetCount()
+   {
+      return (this.roleSetCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for roleSetCount
+    *******************************************************************************/
+   public void setRoleSetCount(int roleSetCount)
+   {
+      this.roleSetCount = roleSetCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for roleSetCount
+    *******************************************************************************/
+   public PersonalizerWarmUpResult withRoleSetCount(int roleSetCount)
+   {
+      this.roleSetCount = roleSetCount;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for entryCount
+    *******************************************************************************/
+   public int getEntryCount()
+   {
+      return (this.entryCount);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for entryCount
+    *******************************************************************************/
+   public void setEntryCount(int entryCount)
+   {
+      this.entryCount = entryCount;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for entryCount
+    *******************************************************************************/
+   public PersonalizerWarmUpResult withEntryCount(int entryCount)
+   {
+      this.entryCount = entryCount;
+      return (this);
+   }
+
+}
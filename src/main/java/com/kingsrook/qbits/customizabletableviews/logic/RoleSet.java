@@ -0,0 +1,277 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/*******************************************************************************
+ * An immutable, canonical set of role ids - sorted & distinct, in an int[],
+ * with its hash code computed up front - so that it's cheap to use in (and
+ * compare as part of) cache keys.
+ *
+ * Sets parsed from a session's comma-delimited "roleIds" value are cached by
+ * that string, so each distinct value is only parsed once (rather than on
+ * every request), and all sessions with the same value share one instance.
+ *******************************************************************************/
+public final class RoleSet
+{
+   public static final RoleSet EMPTY = new RoleSet(new int[0]);
+
+   /////////////////////////////////////////////////////////////////////////////////////
+   // bound on the number of distinct strings whose parsed sets are kept - if it's    //
+   // reached (e.g., by some pathological source of values), the cache just restarts. //
+   /////////////////////////////////////////////////////////////////////////////////////
+   private static final int MAX_PARSED_ROLE_SETS = 10_000;
+
+   private static final Map<String, RoleSet> parsedRoleSets = new ConcurrentHashMap<>();
+
+   private final int[]         roleIds;
+   private final int           hashCode;
+   private final List<Integer> roleIdList;
+
+
+
+   /*******************************************************************************
+    ** Constructor - roleIds must already be sorted & distinct.
+    **
+    *******************************************************************************/
+   private RoleSet(int[] roleIds)
+   {
+      this.roleIds = roleIds;
+      this.hashCode = Arrays.hashCode(roleIds);
+      this.roleIdList = Arrays.stream(roleIds).boxed().toList();
+   }
+
+
+
+   /***************************************************************************
+    * get the set of role ids in a comma-delimited string (e.g., a session's
+    * "roleIds" value) - ignoring whitespace, empty elements, and duplicates.
+    * null or empty gives the empty set.
+    *
+    * @throws NumberFormatException if an element isn't an integer.
+    ***************************************************************************/
+   public static RoleSet parse(String commaDelimitedRoleIds)
+   {
+      if(commaDelimitedRoleIds == null || commaDelimitedRoleIds.isEmpty())
+      {
+         return (EMPTY);
+      }
+
+      RoleSet roleSet = parsedRoleSets.get(commaDelimitedRoleIds);
+      if(roleSet == null)
+      {
+         roleSet = doParse(commaDelimitedRoleIds);
+         if(parsedRoleSets.size() >= MAX_PARSED_ROLE_SETS)
+         {
+            parsedRoleSets.clear();
+         }
+         parsedRoleSets.put(commaDelimitedRoleIds, roleSet);
+      }
+      return (roleSet);
+   }
+
+
+
+   /***************************************************************************
+    * parse a comma-delimited string - without splitting it into substrings.
+    ***************************************************************************/
+   private static RoleSet doParse(String string)
+   {
+      int[] roleIds = new int[4];
+      int   count   = 0;
+
+      int start = 0;
+      while(start <= string.length())
+      {
+         int end = string.indexOf(',', start);
+         if(end < 0)
+         {
+            end = string.length();
+         }
+
+         int tokenStart = start;
+         int tokenEnd   = end;
+         while(tokenStart < tokenEnd && Character.isWhitespace(string.charAt(tokenStart)))
+         {
+            tokenStart++;
+         }
+         while(tokenEnd > tokenStart && Character.isWhitespace(string.charAt(tokenEnd - 1)))
+         {
+            tokenEnd--;
+         }
+
+         if(tokenStart < tokenEnd)
+         {
+            if(count == roleIds.length)
+            {
+               roleIds = Arrays.copyOf(roleIds, count * 2);
+            }
+            roleIds[count++] = Integer.parseInt(string, tokenStart, tokenEnd, 10);
+         }
+
+         start = end + 1;
+      }
+
+      return (canonicalize(roleIds, count));
+   }
+
+
+
+   /***************************************************************************
+    * get the set of (non-null) role ids in a collection.
+    ***************************************************************************/
+   public static RoleSet of(Collection<Integer> roleIds)
+   {
+      if(roleIds == null || roleIds.isEmpty())
+      {
+         return (EMPTY);
+      }
+
+      int[] array = new int[roleIds.size()];
+      int   count = 0;
+      for(Integer roleId : roleIds)
+      {
+         if(roleId != null)
+         {
+            array[count++] = roleId;
+         }
+      }
+
+      return (canonicalize(array, count));
+   }
+
+
+
+   /***************************************************************************
+    * sort & de-duplicate the first count elements of an array (which may be
+    * modified), into a new set.
+    ***************************************************************************/
+   private static RoleSet canonicalize(int[] roleIds, int count)
+   {
+      if(count == 0)
+      {
+         return (EMPTY);
+      }
+
+      Arrays.sort(roleIds, 0, count);
+      int distinctCount = 1;
+      for(int i = 1; i < count; i++)
+      {
+         if(roleIds[i] != roleIds[distinctCount - 1])
+         {
+            roleIds[distinctCount++] = roleIds[i];
+         }
+      }
+
+      return (new RoleSet(Arrays.copyOf(roleIds, distinctCount)));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public boolean contains(int roleId)
+   {
+      return (Arrays.binarySearch(roleIds, roleId) >= 0);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public int size()
+   {
+      return (roleIds.length);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public boolean isEmpty()
+   {
+      return (roleIds.length == 0);
+   }
+
+
+
+   /***************************************************************************
+    * get the role ids, sorted, as an (unmodifiable, pre-built) list - for code
+    * that works with collections of role ids.
+    ***************************************************************************/
+   public List<Integer> asList()
+   {
+      return (roleIdList);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public boolean equals(Object o)
+   {
+      if(this == o)
+      {
+         return (true);
+      }
+      if(!(o instanceof RoleSet that))
+      {
+         return (false);
+      }
+      return (hashCode == that.hashCode && Arrays.equals(roleIds, that.roleIds));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public int hashCode()
+   {
+      return (hashCode);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public String toString()
+   {
+      return (roleIdList.toString());
+   }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+
+
+/*******************************************************************************
+ * Loads table view configuration from the backend using a fixed number of
+ * set-based queries (one per table), rather than a query per view (e.g., as
+ * fetching associations per view record does).
+ *
+ * The number of queries run is counted in the personalizer's cache state, for
+ * the QInstance in the current QContext (see
+ * PersonalizerCacheState.getBackendQueryCount), e.g., to confirm that views
+ * are loaded in constant queries.
+ *******************************************************************************/
+public class TableViewLoader
+{
+
+
+   /***************************************************************************
+    * load all table view configuration - every customizable table, along with
+    * all of their views (with fields & widgets) and role assignments.  The
+    * table name of each view is also cached (see TableViewTableNameResolver).
+    *
+    * Always runs 5 queries.
+    ***************************************************************************/
+   public LoadedTableViews loadAll() throws QException
+   {
+      Map<Integer, CustomizableTable> customizableTablesById = new LinkedHashMap<>();
+      for(QRecord record : query(new QueryInput(CustomizableTable.TABLE_NAME)))
+      {
+         CustomizableTable customizableTable = new CustomizableTable(record);
+         customizableTablesById.put(customizableTable.getId(), customizableTable);
+      }
+
+      Map<Integer, TableView> tableViewsById = toTableViewsById(query(new QueryInput(TableView.TABLE_NAME)));
+      addFieldsAndWidgets(tableViewsById, new QQueryFilter());
+      TableViewTableNameResolver.cacheTableNames(tableViewsById.values(), customizableTablesById);
+
+      List<TableViewRoleInt> roleInts = new ArrayList<>();
+      for(QRecord record : query(new QueryInput(TableViewRoleInt.TABLE_NAME)))
+      {
+         roleInts.add(new TableViewRoleInt(record));
+      }
+
+      return (new LoadedTableViews(new ArrayList<>(customizableTablesById.values()), tableViewsById, roleInts));
+   }
+
+
+
+   /***************************************************************************
+    * load the names of all active customizable tables (i.e., those whose views
+    * apply to users), as an immutable set.
+    *
+    * Always runs 1 query.
+    ***************************************************************************/
+   public Set<String> loadActiveCustomizableTableNames() throws QException
+   {
+      Set<String> tableNames = new HashSet<>();
+      for(QRecord record : query(new QueryInput(CustomizableTable.TABLE_NAME)
+         .withFilter(new QQueryFilter(new QFilterCriteria("isActive", QCriteriaOperator.EQUALS, true)))))
+      {
+         String tableName = record.getValueString("tableName");
+         if(tableName != null)
+         {
+            tableNames.add(tableName);
+         }
+      }
+
+      return (Set.copyOf(tableNames));
+   }
+
+
+
+   /***************************************************************************
+    * load the views (with fields & widgets) that apply to a table for a set of
+    * roles - that is, all of the table's views assigned to any of the roles -
+    * else, the table's default view, if it has one - else, an empty list.
+    *
+    * Runs at most 5 queries, regardless of how many views are found.
+    ***************************************************************************/
+   public List<TableView> loadForTable(String tableName, Collection<Integer> roleIds) throws QException
+   {
+      return (loadForTables(List.of(tableName), roleIds).getOrDefault(tableName, Collections.emptyList()));
+   }
+
+
+
+   /***************************************************************************
+    * load the views (with fields & widgets) that apply to each of a collection
+    * of tables for a set of roles (as in loadForTable) - keyed by table name.
+    * Tables that aren't customizable are not included in the result.  The table
+    * name of each view found is also cached (see TableViewTableNameResolver).
+    *
+    * Runs at most 5 queries, regardless of how many tables or views are found.
+    ***************************************************************************/
+   public Map<String, List<TableView>> loadForTables(Collection<String> tableNames, Collection<Integer> roleIds) throws QException
+   {
+      if(tableNames == null || tableNames.isEmpty())
+      {
+         return (Collections.emptyMap());
+      }
+
+      Map<Integer, CustomizableTable> customizableTablesById = new LinkedHashMap<>();
+      for(QRecord record : query(new QueryInput(CustomizableTable.TABLE_NAME)
+         .withFilter(new QQueryFilter(new QFilterCriteria("tableName", QCriteriaOperator.IN, new ArrayList<>(tableNames))))))
+      {
+         CustomizableTable customizableTable = new CustomizableTable(record);
+         customizableTablesById.put(customizableTable.getId(), customizableTable);
+      }
+
+      if(customizableTablesById.isEmpty())
+      {
+         return (Collections.emptyMap());
+      }
+
+      ////////////////////////////////////////////////////////////////////////////////////
+      // if we have role Ids, then look for any tableViews (of any of the tables) that  //
+      // are assigned to those roles                                                    //
+      ////////////////////////////////////////////////////////////////////////////////////
+      Map<Integer, TableView> tableViewsById = new LinkedHashMap<>();
+      if(roleIds != null && !roleIds.isEmpty())
+      {
+         tableViewsById.putAll(toTableViewsById(query(new QueryInput(TableView.TABLE_NAME)
+            .withFilter(new QQueryFilter()
+               .withCriteria(new QFilterCriteria(TableViewRoleInt.TABLE_NAME + ".roleId", QCriteriaOperator.IN, roleIds))
+               .withCriteria(new QFilterCriteria("customizableTableId", QCriteriaOperator.IN, new ArrayList<>(customizableTablesById.keySet()))))
+            .withQueryJoin(new QueryJoin(TableViewRoleInt.TABLE_NAME)))));
+      }
+
+      Map<Integer, List<TableView>> roleTableViewsByCustomizableTableId = new HashMap<>();
+      for(TableView tableView : tableViewsById.values())
+      {
+         roleTableViewsByCustomizableTableId.computeIfAbsent(tableView.getCustomizableTableId(), k -> new ArrayList<>()).add(tableView);
+      }
+
+      ////////////////////////////////////////////////////////////////////////////////////////
+      // for the tables with no role views, look for their default views - all in one query //
+      ////////////////////////////////////////////////////////////////////////////////////////
+      Set<Integer> defaultTableViewIds = new HashSet<>();
+      for(CustomizableTable customizableTable : customizableTablesById.values())
+      {
+         if(!roleTableViewsByCustomizableTableId.containsKey(customizableTable.getId()) && customizableTable.getDefaultTableViewId() != null)
+         {
+            defaultTableViewIds.add(customizableTable.getDefaultTableViewId());
+         }
+      }
+
+      if(!defaultTableViewIds.isEmpty())
+      {
+         toTableViewsById(query(new QueryInput(TableView.TABLE_NAME)
+            .withFilter(new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.IN, new ArrayList<>(defaultTableViewIds))))))
+            .forEach(tableViewsById::putIfAbsent);
+      }
+
+      if(!tableViewsById.isEmpty())
+      {
+         addFieldsAndWidgets(tableViewsById, new QQueryFilter(new QFilterCriteria("tableViewId", QCriteriaOperator.IN, tableViewsById.keySet())));
+         TableViewTableNameResolver.cacheTableNames(tableViewsById.values(), customizableTablesById);
+      }
+
+      Map<String, List<TableView>> tableViewsByTableName = new LinkedHashMap<>();
+      for(CustomizableTable customizableTable : customizableTablesById.values())
+      {
+         List<TableView> tableViews = roleTableViewsByCustomizableTableId.get(customizableTable.getId());
+         if(tableViews == null)
+         {
+            TableView defaultTableView = customizableTable.getDefaultTableViewId() == null ? null : tableViewsById.get(customizableTable.getDefaultTableViewId());
+            tableViews = defaultTableView == null ? new ArrayList<>() : new ArrayList<>(List.of(defaultTableView));
+         }
+         tableViewsByTableName.put(customizableTable.getTableName(), tableViews);
+      }
+
+      return (tableViewsByTableName);
+   }
+
+
+
+   /***************************************************************************
+    * build TableView entities from records (de-duplicating, as a view can be
+    * found multiple times via joins to multiple roles), with empty lists of
+    * fields & widgets, to be added to by addFieldsAndWidgets.
+    ***************************************************************************/
+   private Map<Integer, TableView> toTableViewsById(List<QRecord> records)
+   {
+      Map<Integer, TableView> tableViewsById = new LinkedHashMap<>();
+      for(QRecord record : records)
+      {
+         tableViewsById.computeIfAbsent(record.getValueInteger("id"), id ->
+         {
+            TableView tableView = new TableView(record);
+            tableView.setFields(new ArrayList<>());
+            tableView.setWidgets(new ArrayList<>());
+            return (tableView);
+         });
+      }
+      return (tableViewsById);
+   }
+
+
+
+   /***************************************************************************
+    * query for the fields & widgets matching a filter (over their tableViewId),
+    * and add them to their views.
+    ***************************************************************************/
+   private void addFieldsAndWidgets(Map<Integer, TableView> tableViewsById, QQueryFilter filter) throws QException
+   {
+      for(QRecord record : query(new QueryInput(TableViewField.TABLE_NAME).withFilter(filter)))
+      {
+         TableView tableView = tableViewsById.get(record.getValueInteger("tableViewId"));
+         if(tableView != null)
+         {
+            ////////////////////////////////////////////////////////////////////////
+            // parse the field's tableName.fieldName now, rather than per-request //
+            ////////////////////////////////////////////////////////////////////////
+            TableViewField tableViewField = new TableViewField(record);
+            tableViewField.getQualifiedFieldName();
+            tableView.getFields().add(tableViewField);
+         }
+      }
+
+      for(QRecord record : query(new QueryInput(TableViewWidget.TABLE_NAME).withFilter(filter)))
+      {
+         TableView tableView = tableViewsById.get(record.getValueInteger("tableViewId"));
+         if(tableView != null)
+         {
+            tableView.getWidgets().add(new TableViewWidget(record));
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private List<QRecord> query(QueryInput queryInput) throws QException
+   {
+      CustomizableTableViewsTablePersonalizer.getCacheState().recordBackendQueries(1);
+      return (new QueryAction().execute(queryInput).getRecords());
+   }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+
+
+/*******************************************************************************
+ * Resolves the name of the table that a table view customizes (i.e., the
+ * tableName of its CustomizableTable) - as needed, e.g., by the field & widget
+ * possible value sources, on every search while a view is being edited.
+ *
+ * Names are cached with the personalizer's caches (so, per instance), and are
+ * populated from the views that the personalizer loads, as well as by lookups
+ * here.  Since a view's table can only change when the view's own record, or
+ * its customizable table's record, changes, entries are only evicted for those
+ * changes (see CacheInvalidationEvent.getTableViewIds) - not for changes to a
+ * view's fields, widgets, or roles.
+ *******************************************************************************/
+public class TableViewTableNameResolver
+{
+
+   /***************************************************************************
+    * get the name of the table that a table view customizes - from cache, else
+    * by querying for its customizable table (and caching a non-null result).
+    *
+    * @return the table name, or null if the view (or its table) isn't found.
+    ***************************************************************************/
+   public static String getTableName(Integer tableViewId) throws QException
+   {
+      if(tableViewId == null)
+      {
+         return (null);
+      }
+
+      return (getTableNames(Set.of(tableViewId)).get(tableViewId));
+   }
+
+
+
+   /***************************************************************************
+    * get the names of the tables that a collection of table views customize -
+    * from cache, else (for all of the misses, in one query) by querying for
+    * their customizable tables (and caching the results).  Views that (or whose
+    * tables) aren't found aren't included in the result.
+    ***************************************************************************/
+   public static Map<Integer, String> getTableNames(Collection<Integer> tableViewIds) throws QException
+   {
+      PersonalizerCache<Integer, String> cache = getCache();
+
+      Map<Integer, String> tableNamesByTableViewId = new HashMap<>();
+      Set<Integer>         misses                  = new HashSet<>();
+      for(Integer tableViewId : tableViewIds)
+      {
+         String tableName = tableViewId == null ? null : cache.getIfPresent(tableViewId);
+         if(tableName != null)
+         {
+            tableNamesByTableViewId.put(tableViewId, tableName);
+         }
+         else if(tableViewId != null)
+         {
+            misses.add(tableViewId);
+         }
+      }
+
+      if(!misses.isEmpty())
+      {
+         for(QRecord record : new QueryAction().execute(new QueryInput(CustomizableTable.TABLE_NAME)
+            .withFilter(new QQueryFilter(new QFilterCriteria(TableView.TABLE_NAME + ".id", QCriteriaOperator.IN, misses)))
+            .withQueryJoin(new QueryJoin(TableView.TABLE_NAME).withSelect(true))).getRecords())
+         {
+            Integer tableViewId = record.getValueInteger(TableView.TABLE_NAME + ".id");
+            String  tableName   = record.getValueString("tableName");
+            if(tableViewId != null && tableName != null)
+            {
+               cache.put(tableViewId, tableName);
+               tableNamesByTableViewId.put(tableViewId, tableName);
+            }
+         }
+      }
+
+      return (tableNamesByTableViewId);
+   }
+
+
+
+   /***************************************************************************
+    * cache the table names of views that were loaded (along with their
+    * customizable tables) elsewhere - e.g., by the TableViewLoader.
+    ***************************************************************************/
+   static void cacheTableNames(Collection<TableView> tableViews, Map<Integer, CustomizableTable> customizableTablesById)
+   {
+      PersonalizerCache<Integer, String> cache = getCache();
+      for(TableView tableView : tableViews)
+      {
+         CustomizableTable customizableTable = customizableTablesById.get(tableView.getCustomizableTableId());
+         if(tableView.getId() != null && customizableTable != null && customizableTable.getTableName() != null)
+         {
+            cache.put(tableView.getId(), customizableTable.getTableName());
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static PersonalizerCache<Integer, String> getCache()
+   {
+      return (CustomizableTableViewsTablePersonalizer.getCacheState().getTableNameByTableViewIdCache());
+   }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+/*******************************************************************************
+ * How the table personalizer's effective views (and the tables personalized
+ * from them) are keyed in its caches.
+ *******************************************************************************/
+public enum EffectiveViewCacheScope
+{
+   /////////////////////////////////////////////////////////////////////////////////
+   // one entry per (set of roles, table) - shared by all users with the same set //
+   // of roles.  the default - as effective views only depend on roles.           //
+   /////////////////////////////////////////////////////////////////////////////////
+   ROLE_SET,
+
+   //////////////////////////////////////////////////////////////////////////////////
+   // one entry per (user, set of roles, table) - nothing is shared between users. //
+   // uses more memory & backend queries - but keeps each user's entries separate, //
+   // e.g., for applications that don't want any data shared across sessions.      //
+   //////////////////////////////////////////////////////////////////////////////////
+   USER
+}
@@ -0,0 +1,906 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.NoOpPersonalizerMetricsSink;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.PersonalizerMetricsSinkInterface;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * Time-based cache used by the table personalizer.
+ *
+ * Similar to qqq's Memoization class - but, this one lets us evict individual
+ * entries selected by a predicate over their keys & values, which is what we
+ * need to do fine-grained invalidation when table view records are edited.
+ *
+ * Loads are single-flight: if several callers miss on the same key at once
+ * (e.g., right after a popular entry expires), only the first runs the loader,
+ * and the others wait for, and share, its result.  A load whose key may be
+ * affected by a removeIf that runs while it's loading (see removeIf) returns
+ * its value, but doesn't store it - as it may be from before the change that
+ * was being invalidated.
+ *
+ * Optionally, entries can be refreshed in the background (stale-while-
+ * revalidate): with a softTimeout and a refreshExecutor set, an entry older
+ * than the softTimeout is still returned immediately, while a reload of it is
+ * run on the executor.  Only entries older than the (hard) timeout make a
+ * caller wait for a load.
+ *
+ * Size can be bounded by a maximum number of entries and/or a maximum number
+ * of (estimated) retained bytes - as weighed by a Weigher.  When a put takes
+ * the cache over either limit, a batch of the least-recently-used entries is
+ * evicted, bringing it to 90% of the limit - so the cost of finding them is
+ * spread over many puts.  Expired entries are removed when they're found by
+ * getIfPresent, and by a sweep of the whole cache, run by a put at most once
+ * per timeout (or minute, if that's sooner) - so entries that are never read
+ * again don't stay (and count towards the limits & retained bytes) forever.
+ *
+ * Hits, misses, coalesced waiters, evictions, size & retained bytes are
+ * reported (under the cache's name) to a PersonalizerMetricsSinkInterface.
+ *******************************************************************************/
+public class PersonalizerCache<K, V>
+{
+   private static final QLogger LOG = QLogger.getLogger(PersonalizerCache.class);
+
+   ////////////////////////////////////////////////////////////////////////////////////////
+   // the weight of an entry, if no weigher is given - roughly, a map node, a small key, //
+   // and the entry itself.                                                              //
+   ////////////////////////////////////////////////////////////////////////////////////////
+   public static final long DEFAULT_ENTRY_WEIGHT = 128;
+
+   private static final long MAX_SWEEP_INTERVAL_MILLIS = 60_000;
+
+   private final Map<K, Entry<V>>        map           = new ConcurrentHashMap<>();
+   private final Map<K, InFlightLoad<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+   private final String name;
+
+   private Duration timeout;
+   private Duration softTimeout;
+   private Executor refreshExecutor;
+
+   private int           maxEntries;
+   private long          maxRetainedBytes;
+   private Weigher<K, V> weigher = (key, value) -> DEFAULT_ENTRY_WEIGHT;
+
+   private final AtomicLong    retainedBytes   = new AtomicLong(0);
+   private final AtomicBoolean evicting        = new AtomicBoolean(false);
+   private final AtomicLong    lastSweepMillis = new AtomicLong(System.currentTimeMillis());
+
+   private PersonalizerMetricsSinkInterface metricsSink = new NoOpPersonalizerMetricsSink();
+
+
+
+   /***************************************************************************
+    * function used to load a value for a key upon a cache miss.
+    ***************************************************************************/
+   @FunctionalInterface
+   public interface Loader<K, V>
+   {
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      V load(K key) throws QException;
+   }
+
+
+
+   /***************************************************************************
+    * function used to estimate the number of bytes retained by an entry.
+    ***************************************************************************/
+   @FunctionalInterface
+   public interface Weigher<K, V>
+   {
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      long weigh(K key, V value);
+   }
+
+
+
+   /***************************************************************************
+    * a value in the cache, along with the time it was stored, its weight, and
+    * when it was last read (for choosing which entries to evict).
+    ***************************************************************************/
+   private static final class Entry<V>
+   {
+      private final V    value;
+      private final long storedAtMillis;
+      private final long weight;
+
+      private volatile long lastAccessNanos;
+
+
+
+      /*******************************************************************************
+       ** Constructor
+       **
+       *******************************************************************************/
+      private Entry(V value, long storedAtMillis, long weight)
+      {
+         this.value = value;
+         this.storedAtMillis = storedAtMillis;
+         this.weight = weight;
+         this.lastAccessNanos = System.nanoTime();
+      }
+
+
+
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      private V value()
+      {
+         return (value);
+      }
+
+
+
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      private long storedAtMillis()
+      {
+         return (storedAtMillis);
+      }
+
+
+
+      /***************************************************************************
+       *
+       ***************************************************************************/
+      private V touch()
+      {
+         lastAccessNanos = System.nanoTime();
+         return (value);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * a load that's running for a key - by which thread, the future that other
+    * callers for the same key wait on, and whether a removeIf that may affect
+    * its key ran while it was loading (in which case, its value isn't stored).
+    ***************************************************************************/
+   private record InFlightLoad<V>(Thread loadingThread, CompletableFuture<V> future, AtomicBoolean invalidated)
+   {
+      /*******************************************************************************
+       ** Constructor
+       **
+       *******************************************************************************/
+      private InFlightLoad(Thread loadingThread)
+      {
+         this(loadingThread, new CompletableFuture<>(), new AtomicBoolean(false));
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public PersonalizerCache(Duration timeout)
+   {
+      this(null, timeout);
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public PersonalizerCache(String name, Duration timeout)
+   {
+      this.name = name;
+      this.timeout = timeout;
+   }
+
+
+
+   /***************************************************************************
+    * get the value for a key - either from the cache, if it's there and not
+    * expired - else, by running the loader (and storing its result) - or, if
+    * another caller is already running the loader for this key, by waiting for
+    * that one's result.
+    ***************************************************************************/
+   public V get(K key, Loader<K, V> loader) throws QException
+   {
+      Entry<V> entry = map.get(key);
+      if(entry != null && !isExpired(entry))
+      {
+         metricsSink.recordCacheHit(name);
+         if(isStale(entry))
+         {
+            refreshInBackground(key, entry, loader);
+         }
+         return (entry.touch());
+      }
+
+      metricsSink.recordCacheMiss(name);
+
+      InFlightLoad<V> ourLoad      = new InFlightLoad<>(Thread.currentThread());
+      InFlightLoad<V> inFlightLoad = inFlightLoads.putIfAbsent(key, ourLoad);
+      if(inFlightLoad != null)
+      {
+         if(inFlightLoad.loadingThread() == Thread.currentThread())
+         {
+            ////////////////////////////////////////////////////////////////////////////
+            // a loader asking for its own key - waiting on ourselves would deadlock, //
+            // so just load it again.                                                 //
+            ////////////////////////////////////////////////////////////////////////////
+            return (loader.load(key));
+         }
+
+         metricsSink.recordCacheCoalescedWaiter(name);
+         return (awaitLoad(inFlightLoad.future()));
+      }
+
+      try
+      {
+         ////////////////////////////////////////////////////////////////////////////////
+         // another caller may have finished loading this key between our miss and our //
+         // claiming the load - in which case, its value is the one to use.            //
+         ////////////////////////////////////////////////////////////////////////////////
+         V value;
+         entry = map.get(key);
+         if(entry != null && !isExpired(entry))
+         {
+            value = entry.value();
+         }
+         else
+         {
+            //////////////////////////////////////////////////////////////////////////////
+            // if this key was invalidated while we were loading, what we loaded may be //
+            // from before the change - so, return it to this caller (and its waiters), //
+            // but don't store it, for the next caller to load anew.                    //
+            //////////////////////////////////////////////////////////////////////////////
+            value = loader.load(key);
+            store(key, value, ourLoad);
+         }
+
+         ourLoad.future().complete(value);
+         return (value);
+      }
+      catch(Throwable t)
+      {
+         ourLoad.future().completeExceptionally(t);
+         throw (t);
+      }
+      finally
+      {
+         inFlightLoads.remove(key, ourLoad);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * start a reload of a (stale) entry on the refresh executor - unless a load
+    * of its key is already running.  Callers that miss on the key while the
+    * refresh is running wait for it, the same as for any other load.
+    ***************************************************************************/
+   private void refreshInBackground(K key, Entry<V> staleEntry, Loader<K, V> loader)
+   {
+      InFlightLoad<V> ourLoad = new InFlightLoad<>(null);
+      if(inFlightLoads.putIfAbsent(key, ourLoad) != null)
+      {
+         return;
+      }
+
+      try
+      {
+         refreshExecutor.execute(() ->
+         {
+            try
+            {
+               V value = loader.load(key);
+               store(key, value, ourLoad);
+               ourLoad.future().complete(value);
+            }
+            catch(Throwable t)
+            {
+               //////////////////////////////////////////////////////////////////////////
+               // leave the stale entry in place - it'll be retried on a later hit, or //
+               // loaded synchronously once it passes the hard timeout.                //
+               //////////////////////////////////////////////////////////////////////////
+               LOG.warn("Error refreshing personalizer cache entry in background", t, logPair("cache", name), logPair("key", String.valueOf(key)));
+               ourLoad.future().completeExceptionally(t);
+            }
+            finally
+            {
+               inFlightLoads.remove(key, ourLoad);
+            }
+         });
+      }
+      catch(RejectedExecutionException e)
+      {
+         ////////////////////////////////////////////////////////////////////////
+         // executor is saturated (or shut down) - skip this refresh; anyone   //
+         // who started waiting on it meanwhile gets the value they'd have had //
+         ////////////////////////////////////////////////////////////////////////
+         inFlightLoads.remove(key, ourLoad);
+         ourLoad.future().complete(staleEntry.value());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * wait for another caller's load to finish - if it failed, throw a
+    * QException, caused by what it threw.
+    ***************************************************************************/
+   private V awaitLoad(CompletableFuture<V> future) throws QException
+   {
+      try
+      {
+         return (future.get());
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw (new QException("Interrupted while waiting for cache [" + name + "] to load", e));
+      }
+      catch(ExecutionException e)
+      {
+         if(e.getCause() instanceof Error error)
+         {
+            throw (error);
+         }
+         throw (new QException("Error loading cache [" + name + "]: " + e.getCause().getMessage(), e.getCause()));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the value for a key, only if it's in the cache and not expired -
+    * else null.
+    ***************************************************************************/
+   public V getIfPresent(K key)
+   {
+      Entry<V> entry = map.get(key);
+      if(entry != null && !isExpired(entry))
+      {
+         metricsSink.recordCacheHit(name);
+         return (entry.touch());
+      }
+
+      if(entry != null)
+      {
+         remove(key, entry);
+      }
+
+      metricsSink.recordCacheMiss(name);
+      return (null);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public void put(K key, V value)
+   {
+      store(key, value, null);
+   }
+
+
+
+   /***************************************************************************
+    * store a value - unless it's from a load that's been invalidated.  That
+    * check is made atomically with the store (under the key's lock in the map,
+    * which removeIf also takes to invalidate a load) - so an invalidation can't
+    * slip in between the two, leaving an outdated value cached.
+    ***************************************************************************/
+   private void store(K key, V value, InFlightLoad<V> load)
+   {
+      Entry<V> entry = new Entry<>(value, System.currentTimeMillis(), weigher.weigh(key, value));
+      map.compute(key, (k, previous) ->
+      {
+         if(load != null && load.invalidated().get())
+         {
+            return (previous);
+         }
+
+         retainedBytes.addAndGet(entry.weight - (previous == null ? 0 : previous.weight));
+         return (entry);
+      });
+
+      sweepExpiredIfDue();
+      evictIfOverLimits();
+
+      metricsSink.recordCacheSize(name, map.size());
+      metricsSink.recordCacheRetainedBytes(name, retainedBytes.get());
+   }
+
+
+
+   /***************************************************************************
+    * remove all expired entries, if it's been a sweep interval (the timeout,
+    * but at most a minute) since the last sweep.  Only one thread sweeps at a
+    * time - others putting meanwhile just carry on.
+    ***************************************************************************/
+   private void sweepExpiredIfDue()
+   {
+      long now           = System.currentTimeMillis();
+      long lastSweep     = lastSweepMillis.get();
+      long sweepInterval = Math.min(timeout.toMillis(), MAX_SWEEP_INTERVAL_MILLIS);
+      if(now - lastSweep < sweepInterval || !lastSweepMillis.compareAndSet(lastSweep, now))
+      {
+         return;
+      }
+
+      for(Map.Entry<K, Entry<V>> mapEntry : map.entrySet())
+      {
+         if(isExpired(mapEntry.getValue()))
+         {
+            remove(mapEntry.getKey(), mapEntry.getValue());
+         }
+      }
+   }
+
+
+
+   /***************************************************************************
+    * if the cache is over its max entries or max retained bytes, evict the
+    * least-recently-used entries, until it's at 90% of the limit(s).  Only one
+    * thread evicts at a time - others putting meanwhile just carry on.
+    ***************************************************************************/
+   private void evictIfOverLimits()
+   {
+      if(!isOverLimits() || !evicting.compareAndSet(false, true))
+      {
+         return;
+      }
+
+      try
+      {
+         int  targetSize          = maxEntries > 0 ? maxEntries - Math.max(1, maxEntries / 10) : Integer.MAX_VALUE;
+         long targetRetainedBytes = maxRetainedBytes > 0 ? maxRetainedBytes - maxRetainedBytes / 10 : Long.MAX_VALUE;
+
+         List<Map.Entry<K, Entry<V>>> entries = new ArrayList<>(map.entrySet());
+         entries.sort(Comparator.comparingLong(mapEntry -> mapEntry.getValue().lastAccessNanos));
+
+         int evicted = 0;
+         for(Map.Entry<K, Entry<V>> mapEntry : entries)
+         {
+            if(map.size() <= targetSize && retainedBytes.get() <= targetRetainedBytes)
+            {
+               break;
+            }
+
+            if(remove(mapEntry.getKey(), mapEntry.getValue()))
+            {
+               evicted++;
+            }
+         }
+
+         if(evicted > 0)
+         {
+            metricsSink.recordCacheEvictions(name, evicted);
+         }
+      }
+      finally
+      {
+         evicting.set(false);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private boolean isOverLimits()
+   {
+      return ((maxEntries > 0 && map.size() > maxEntries) || (maxRetainedBytes > 0 && retainedBytes.get() > maxRetainedBytes));
+   }
+
+
+
+   /***************************************************************************
+    * remove a key's entry, if it's (still) the given one.
+    ***************************************************************************/
+   private boolean remove(K key, Entry<V> entry)
+   {
+      if(map.remove(key, entry))
+      {
+         retainedBytes.addAndGet(-entry.weight);
+         return (true);
+      }
+      return (false);
+   }
+
+
+
+   /***************************************************************************
+    * remove all entries matching a predicate.
+    *
+    * Loads that are running when this is called are tested against the
+    * predicate with a null value (as their values aren't known yet) - so the
+    * predicate should match a null value if its key may be affected (e.g.,
+    * when it depends on the value).  Those that match (or for which the
+    * predicate throws) are invalidated, so they won't store their values -
+    * loads for other keys are unaffected.
+    *
+    * @return the number of entries that were removed.
+    ***************************************************************************/
+   public int removeIf(BiPredicate<? super K, ? super V> predicate)
+   {
+      ////////////////////////////////////////////////////////////////////////////////
+      // invalidate running loads first (under their key's lock in the map, as they //
+      // store under it) - so each either stored before this, and its entry is then //
+      // tested below, or it sees that it's been invalidated, and doesn't store.    //
+      ////////////////////////////////////////////////////////////////////////////////
+      for(Map.Entry<K, InFlightLoad<V>> inFlightLoad : inFlightLoads.entrySet())
+      {
+         if(mayMatchLoad(predicate, inFlightLoad.getKey()))
+         {
+            map.compute(inFlightLoad.getKey(), (k, existing) ->
+            {
+               inFlightLoad.getValue().invalidated().set(true);
+               return (existing);
+            });
+         }
+      }
+
+      int removed = 0;
+      for(Map.Entry<K, Entry<V>> mapEntry : map.entrySet())
+      {
+         if(predicate.test(mapEntry.getKey(), mapEntry.getValue().value()) && remove(mapEntry.getKey(), mapEntry.getValue()))
+         {
+            removed++;
+         }
+      }
+
+      if(removed > 0)
+      {
+         metricsSink.recordCacheEvictions(name, removed);
+         metricsSink.recordCacheSize(name, map.size());
+         metricsSink.recordCacheRetainedBytes(name, retainedBytes.get());
+      }
+
+      return (removed);
+   }
+
+
+
+   /***************************************************************************
+    * check if a running load's key may be affected by a removeIf predicate -
+    * testing it with a null value (as the load's value isn't known yet), and
+    * assuming it is, if the predicate can't handle that.
+    ***************************************************************************/
+   private boolean mayMatchLoad(BiPredicate<? super K, ? super V> predicate, K key)
+   {
+      try
+      {
+         return (predicate.test(key, null));
+      }
+      catch(RuntimeException e)
+      {
+         return (true);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * remove all entries.
+    * @return the number of entries that were removed.
+    ***************************************************************************/
+   public int clear()
+   {
+      return (removeIf((k, v) -> true));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public int size()
+   {
+      return (map.size());
+   }
+
+
+
+   /***************************************************************************
+    * get the estimated number of bytes retained by the cache's entries (as
+    * weighed by its Weigher).
+    ***************************************************************************/
+   public long getRetainedBytes()
+   {
+      return (retainedBytes.get());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private boolean isExpired(Entry<V> entry)
+   {
+      return (System.currentTimeMillis() - entry.storedAtMillis() > timeout.toMillis());
+   }
+
+
+
+   /***************************************************************************
+    * check if an entry is past the soft timeout - if background refreshing is
+    * enabled (meaning, there's both a soft timeout and an executor).
+    ***************************************************************************/
+   private boolean isStale(Entry<V> entry)
+   {
+      return (softTimeout != null && refreshExecutor != null && System.currentTimeMillis() - entry.storedAtMillis() > softTimeout.toMillis());
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for name
+    *******************************************************************************/
+   public String getName()
+   {
+      return (this.name);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for timeout
+    *******************************************************************************/
+   public Duration getTimeout()
+   {
+      return (this.timeout);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for timeout
+    *******************************************************************************/
+   public void setTimeout(Duration timeout)
+   {
+      this.timeout = timeout;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for timeout
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withTimeout(Duration timeout)
+   {
+      this.timeout = timeout;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for softTimeout
+    *******************************************************************************/
+   public Duration getSoftTimeout()
+   {
+      return (this.softTimeout);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for softTimeout - null disables background refreshing.
+    *******************************************************************************/
+   public void setSoftTimeout(Duration softTimeout)
+   {
+      this.softTimeout = softTimeout;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for softTimeout
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withSoftTimeout(Duration softTimeout)
+   {
+      this.softTimeout = softTimeout;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for refreshExecutor
+    *******************************************************************************/
+   public Executor getRefreshExecutor()
+   {
+      return (this.refreshExecutor);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for refreshExecutor - null disables background refreshing.
+    *******************************************************************************/
+   public void setRefreshExecutor(Executor refreshExecutor)
+   {
+      this.refreshExecutor = refreshExecutor;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for refreshExecutor
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withRefreshExecutor(Executor refreshExecutor)
+   {
+      this.refreshExecutor = refreshExecutor;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for maxEntries
+    *******************************************************************************/
+   public int getMaxEntries()
+   {
+      return (this.maxEntries);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for maxEntries - 0 (or less) for no limit.
+    *******************************************************************************/
+   public void setMaxEntries(int maxEntries)
+   {
+      this.maxEntries = maxEntries;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for maxEntries
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withMaxEntries(int maxEntries)
+   {
+      this.maxEntries = maxEntries;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for maxRetainedBytes
+    *******************************************************************************/
+   public long getMaxRetainedBytes()
+   {
+      return (this.maxRetainedBytes);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for maxRetainedBytes - 0 (or less) for no limit.
+    *******************************************************************************/
+   public void setMaxRetainedBytes(long maxRetainedBytes)
+   {
+      this.maxRetainedBytes = maxRetainedBytes;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for maxRetainedBytes
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withMaxRetainedBytes(long maxRetainedBytes)
+   {
+      this.maxRetainedBytes = maxRetainedBytes;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for weigher
+    *******************************************************************************/
+   public Weigher<K, V> getWeigher()
+   {
+      return (this.weigher);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for weigher - null resets to a fixed weight per entry.  Only
+    ** affects entries put after it's set.
+    *******************************************************************************/
+   public void setWeigher(Weigher<K, V> weigher)
+   {
+      this.weigher = (weigher == null) ? (key, value) -> DEFAULT_ENTRY_WEIGHT : weigher;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for weigher
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withWeigher(Weigher<K, V> weigher)
+   {
+      setWeigher(weigher);
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for metricsSink
+    *******************************************************************************/
+   public PersonalizerMetricsSinkInterface getMetricsSink()
+   {
+      return (this.metricsSink);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for metricsSink - null resets to a no-op sink.
+    *******************************************************************************/
+   public void setMetricsSink(PersonalizerMetricsSinkInterface metricsSink)
+   {
+      this.metricsSink = (metricsSink == null) ? new NoOpPersonalizerMetricsSink() : metricsSink;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for metricsSink
+    *******************************************************************************/
+   public PersonalizerCache<K, V> withMetricsSink(PersonalizerMetricsSinkInterface metricsSink)
+   {
+      setMetricsSink(metricsSink);
+      return (this);
+   }
+
+}
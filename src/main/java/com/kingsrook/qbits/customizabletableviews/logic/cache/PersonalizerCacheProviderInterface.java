@@ -0,0 +1,54 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+import java.time.Duration;
+
+
+/*******************************************************************************
+ * Interface for creating the caches used by the table personalizer - so an
+ * application can use its own implementation of them (e.g., a subclass of
+ * PersonalizerCache that keeps its entries in a different store, or that
+ * adds its own instrumentation).
+ *
+ * Note that the personalizer validates many of its cache entries by identity
+ * (e.g., that a personalized table was built from the same instance of the
+ * source table & effective view) - so implementations must give back the same
+ * value instances that were put - they can't, for example, serialize values
+ * and return copies of them.
+ *
+ * The personalizer applies its own settings (timeouts, limits, weighers &
+ * metrics sink) to each cache after creating it.
+ *
+ * Set the implementation to use in CustomizableTableViewsQBitConfig.
+ *******************************************************************************/
+public interface PersonalizerCacheProviderInterface
+{
+
+   /***************************************************************************
+    * create a new, empty cache, with the given name (as reported to the
+    * metrics sink) and (hard) timeout.
+    ***************************************************************************/
+   <K, V> PersonalizerCache<K, V> createCache(String name, Duration timeout);
+
+}
@@ -0,0 +1,105 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+import java.util.concurrent.Executor;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.session.QSession;
+
+
+/*******************************************************************************
+ * Executor that runs tasks on a delegate executor, within a QContext that has
+ * the QInstance & QSession of the thread that submitted them - so that cache
+ * loaders (which run actions, e.g., QueryAction) can run in the background.
+ *
+ * Only the instance & session are carried over - not e.g., the submitting
+ * thread's transaction, which must not be shared across threads.
+ *******************************************************************************/
+public class QContextPropagatingExecutor implements Executor
+{
+   private static final QLogger LOG = QLogger.getLogger(QContextPropagatingExecutor.class);
+
+   private final Executor delegate;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public QContextPropagatingExecutor(Executor delegate)
+   {
+      this.delegate = delegate;
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void execute(Runnable command)
+   {
+      QInstance qInstance = QContext.getQInstance();
+      QSession  qSession  = QContext.getQSession();
+
+      delegate.execute(() ->
+      {
+         try
+         {
+            QContext.init(qInstance, qSession);
+         }
+         catch(Exception e)
+         {
+            ///////////////////////////////////////////////////////////////////////////////
+            // still run the command - it's up to it to handle (e.g., fail on) a missing //
+            // context, and to clean up after itself, as it would for any other error.   //
+            ///////////////////////////////////////////////////////////////////////////////
+            LOG.warn("Error initializing QContext for background task", e);
+         }
+
+         try
+         {
+            command.run();
+         }
+         finally
+         {
+            QContext.clear();
+         }
+      });
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for delegate
+    *******************************************************************************/
+   public Executor getDelegate()
+   {
+      return (this.delegate);
+   }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+import java.util.Collection;
+import com.kingsrook.qbits.customizabletableviews.logic.RoleSet;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.model.PossibleValueSearchIndex;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValue;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QFieldSection;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * Rough estimates of the number of bytes retained by the objects that the
+ * personalizer caches - for weighing cache entries (see
+ * PersonalizerCache.Weigher).
+ *
+ * These are approximations, for a 64-bit JVM with compressed oops & compact
+ * strings - good enough to bound a cache's memory within a small factor, not
+ * to account for it exactly.  Objects that are shared with the QInstance (e.g.,
+ * field names of a table's fields) are not counted.
+ *******************************************************************************/
+public final class RetainedSizeEstimator
+{
+   private static final long STRING_OVERHEAD         = 40;
+   private static final long COLLECTION_BASE         = 64;
+   private static final long LIST_ELEMENT            = 8;
+   private static final long SET_ELEMENT             = 40;
+   private static final long BOXED_INTEGER           = 16;
+   private static final long ROLE_SET_ELEMENT        = 4;
+   private static final long TABLE_VIEW_BASE         = 160;
+   private static final long TABLE_VIEW_FIELD        = 88;
+   private static final long TABLE_VIEW_WIDGET       = 88;
+   private static final long TABLE_BASE              = 1024;
+   private static final long TABLE_FIELD             = 512;
+   private static final long TABLE_SECTION           = 256;
+   private static final long COMPILED_VIEW_BASE      = 256;
+   private static final long COMPILED_VIEW_PER_FIELD = 64;
+   private static final long COMPILED_VIEW_BITSETS   = 6;
+   private static final long POSSIBLE_VALUE          = 24;
+   private static final long SEARCH_INDEX_TOKEN      = 13;
+
+
+
+   /*******************************************************************************
+    ** Constructor - private, as this is a utility class.
+    **
+    *******************************************************************************/
+   private RetainedSizeEstimator()
+   {
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public static long ofString(String string)
+   {
+      return (string == null ? 0 : STRING_OVERHEAD + string.length());
+   }
+
+
+
+   /***************************************************************************
+    * a collection of strings that are shared with something else (e.g., the
+    * names of a table's fields) - so, just the collection's own overhead.
+    ***************************************************************************/
+   public static long ofSharedStrings(Collection<String> strings)
+   {
+      return (COLLECTION_BASE + SET_ELEMENT * (strings == null ? 0 : strings.size()));
+   }
+
+
+
+   /***************************************************************************
+    * a list of integers (e.g., role ids), with their boxes.
+    ***************************************************************************/
+   public static long ofIntegers(Collection<Integer> integers)
+   {
+      return (COLLECTION_BASE + (LIST_ELEMENT + BOXED_INTEGER) * (integers == null ? 0 : integers.size()));
+   }
+
+
+
+   /***************************************************************************
+    * a set of role ids - its int array, and its (pre-built) list of them.
+    ***************************************************************************/
+   public static long ofRoleSet(RoleSet roleSet)
+   {
+      return (roleSet == null ? 0 : COLLECTION_BASE + ROLE_SET_ELEMENT * roleSet.size() + ofIntegers(roleSet.asList()));
+   }
+
+
+
+   /***************************************************************************
+    * a table view, with its fields & widgets (whose names are read from the
+    * backend, so are not shared).
+    ***************************************************************************/
+   public static long ofTableView(TableView tableView)
+   {
+      if(tableView == null)
+      {
+         return (0);
+      }
+
+      long bytes = TABLE_VIEW_BASE + ofString(tableView.getName());
+      for(TableViewField field : CollectionUtils.nonNullList(tableView.getFields()))
+      {
+         bytes += LIST_ELEMENT + TABLE_VIEW_FIELD + ofString(field.getFieldName());
+      }
+      for(TableViewWidget widget : CollectionUtils.nonNullList(tableView.getWidgets()))
+      {
+         bytes += LIST_ELEMENT + TABLE_VIEW_WIDGET + ofString(widget.getWidgetName());
+      }
+      return (bytes);
+   }
+
+
+
+   /***************************************************************************
+    * a (cloned) table - with its fields & sections.
+    ***************************************************************************/
+   public static long ofTable(QTableMetaData table)
+   {
+      if(table == null)
+      {
+         return (0);
+      }
+
+      long bytes = TABLE_BASE + TABLE_FIELD * CollectionUtils.nonNullMap(table.getFields()).size();
+      for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+      {
+         bytes += TABLE_SECTION + LIST_ELEMENT * CollectionUtils.nonNullList(section.getFieldNames()).size();
+      }
+      return (bytes);
+   }
+
+
+
+   /***************************************************************************
+    * a compiled table view - its bitsets, and its field ordinals (which are
+    * built per compile, so are counted here).
+    ***************************************************************************/
+   public static long ofCompiledTableView(CompiledTableView compiledTableView)
+   {
+      if(compiledTableView == null)
+      {
+         return (0);
+      }
+
+      long fieldCount = compiledTableView.getFieldOrdinals().getFieldCount();
+      return (COMPILED_VIEW_BASE + fieldCount * COMPILED_VIEW_PER_FIELD + (fieldCount / 8 + 1) * COMPILED_VIEW_BITSETS);
+   }
+
+
+
+   /***************************************************************************
+    * a table's field ordinals - an array & map entry per field & widget (the
+    * names are shared with the table).
+    ***************************************************************************/
+   public static long ofFieldOrdinals(FieldOrdinals fieldOrdinals)
+   {
+      if(fieldOrdinals == null)
+      {
+         return (0);
+      }
+
+      return (COLLECTION_BASE * 2 + (long) (fieldOrdinals.getFieldCount() + fieldOrdinals.getWidgetCount()) * (LIST_ELEMENT + SET_ELEMENT + BOXED_INTEGER));
+   }
+
+
+
+   /***************************************************************************
+    * possible values in a map (e.g., by field name) - with their ids, which are
+    * built per value (labels are shared with the instance's meta-data).
+    ***************************************************************************/
+   public static long ofPossibleValues(Collection<QPossibleValue<String>> possibleValues)
+   {
+      if(possibleValues == null)
+      {
+         return (0);
+      }
+
+      long bytes = COLLECTION_BASE;
+      for(QPossibleValue<String> possibleValue : possibleValues)
+      {
+         bytes += SET_ELEMENT + POSSIBLE_VALUE + ofString(possibleValue.getId());
+      }
+      return (bytes);
+   }
+
+
+
+   /***************************************************************************
+    * a search index - its list of (shared) possible values, their lower-cased
+    * labels & ids, and its tokens.
+    ***************************************************************************/
+   public static long ofPossibleValueSearchIndex(PossibleValueSearchIndex searchIndex)
+   {
+      if(searchIndex == null)
+      {
+         return (0);
+      }
+
+      long bytes = COLLECTION_BASE;
+      for(QPossibleValue<String> possibleValue : searchIndex.getPossibleValues())
+      {
+         bytes += LIST_ELEMENT + ofString(possibleValue.getLabel()) + SET_ELEMENT + BOXED_INTEGER + ofString(possibleValue.getId());
+      }
+      return (bytes + searchIndex.getTokenCount() * (SEARCH_INDEX_TOKEN + STRING_OVERHEAD));
+   }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.BitSet;
+import java.util.List;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.QualifiedFieldName;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * A TableView, compiled against a table's FieldOrdinals, into bitsets of the
+ * fields at each access level, and of the widgets - so that applying it to a
+ * table needs no parsing of "table.field" names, and merging views is a few
+ * bitwise operations.
+ *
+ * A field is in at most one of the access level bitsets - with the least
+ * restrictive level winning (optional, then required, then read-only), the
+ * same as FieldAccessLevel.merge.  Fields with a missing or unrecognized
+ * access level are compiled as optional - which, like those, applies no
+ * change to the field - but, as in mergeTableViewEntities, they're left out
+ * when views are merged.
+ *******************************************************************************/
+public class CompiledTableView
+{
+   private final FieldOrdinals fieldOrdinals;
+   private final TableView     sourceView;
+
+   private final BitSet optionalFields;
+   private final BitSet requiredFields;
+   private final BitSet readOnlyFields;
+   private final BitSet unrecognizedFields;
+   private final BitSet visibleFields;
+   private final BitSet widgets;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private CompiledTableView(FieldOrdinals fieldOrdinals, TableView sourceView, BitSet optionalFields, BitSet requiredFields, BitSet readOnlyFields, BitSet unrecognizedFields, BitSet widgets)
+   {
+      ////////////////////////////////////////////////////////////////
+      // least-restrictive wins: optional > required > read-only.   //
+      ////////////////////////////////////////////////////////////////
+      requiredFields.andNot(optionalFields);
+      readOnlyFields.andNot(optionalFields);
+      readOnlyFields.andNot(requiredFields);
+
+      this.fieldOrdinals = fieldOrdinals;
+      this.sourceView = sourceView;
+      this.optionalFields = optionalFields;
+      this.requiredFields = requiredFields;
+      this.readOnlyFields = readOnlyFields;
+      this.unrecognizedFields = unrecognizedFields;
+      this.widgets = widgets;
+
+      this.visibleFields = (BitSet) optionalFields.clone();
+      this.visibleFields.or(requiredFields);
+      this.visibleFields.or(readOnlyFields);
+   }
+
+
+
+   /***************************************************************************
+    * compile a view against a table's field ordinals.  Fields & widgets in the
+    * view that aren't in the table are dropped.
+    ***************************************************************************/
+   public static CompiledTableView compile(TableView tableView, FieldOrdinals fieldOrdinals)
+   {
+      BitSet optionalFields     = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet requiredFields     = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet readOnlyFields     = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet unrecognizedFields = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet widgets            = new BitSet(fieldOrdinals.getWidgetCount());
+
+      for(TableViewField tableViewField : CollectionUtils.nonNullList(tableView.getFields()))
+      {
+         QualifiedFieldName qualifiedFieldName = tableViewField.getQualifiedFieldName();
+         int                ordinal            = qualifiedFieldName == null ? -1 : fieldOrdinals.getFieldOrdinal(qualifiedFieldName.getFieldName());
+         if(ordinal < 0)
+         {
+            continue;
+         }
+
+         FieldAccessLevel fieldAccessLevel = FieldAccessLevel.getById(tableViewField.getAccessLevel());
+         if(fieldAccessLevel == FieldAccessLevel.READ_ONLY)
+         {
+            readOnlyFields.set(ordinal);
+         }
+         else if(fieldAccessLevel == FieldAccessLevel.EDITABLE_REQUIRED)
+         {
+            requiredFields.set(ordinal);
+         }
+         else
+         {
+            optionalFields.set(ordinal);
+            if(fieldAccessLevel != FieldAccessLevel.EDITABLE_OPTIONAL)
+            {
+               unrecognizedFields.set(ordinal);
+            }
+         }
+      }
+
+      for(TableViewWidget tableViewWidget : CollectionUtils.nonNullList(tableView.getWidgets()))
+      {
+         int ordinal = fieldOrdinals.getWidgetOrdinal(tableViewWidget.getWidgetName());
+         if(ordinal >= 0)
+         {
+            widgets.set(ordinal);
+         }
+      }
+
+      return (new CompiledTableView(fieldOrdinals, tableView, optionalFields, requiredFields, readOnlyFields, unrecognizedFields, widgets));
+   }
+
+
+
+   /***************************************************************************
+    * merge views that were compiled against the same field ordinals - with the
+    * least-restrictive access level winning for each field, and the union of
+    * all widgets.
+    ***************************************************************************/
+   public static CompiledTableView merge(List<CompiledTableView> compiledTableViews)
+   {
+      return (merge(compiledTableViews, null));
+   }
+
+
+
+   /***************************************************************************
+    * merge views that were compiled against the same field ordinals (as above)
+    * - for a view that was merged from them (e.g., an effective view, which
+    * is then given as the merged view's source view).
+    ***************************************************************************/
+   public static CompiledTableView merge(List<CompiledTableView> compiledTableViews, TableView sourceView)
+   {
+      if(CollectionUtils.nullSafeIsEmpty(compiledTableViews))
+      {
+         throw (new IllegalArgumentException("At least one compiled table view is required to merge."));
+      }
+
+      FieldOrdinals fieldOrdinals  = compiledTableViews.get(0).fieldOrdinals;
+      BitSet        optionalFields = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet        requiredFields = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet        readOnlyFields = new BitSet(fieldOrdinals.getFieldCount());
+      BitSet        widgets        = new BitSet(fieldOrdinals.getWidgetCount());
+
+      for(CompiledTableView compiledTableView : compiledTableViews)
+      {
+         if(compiledTableView.fieldOrdinals != fieldOrdinals)
+         {
+            throw (new IllegalArgumentException("Cannot merge table views compiled against different field ordinals."));
+         }
+
+         BitSet recognizedOptionalFields = (BitSet) compiledTableView.optionalFields.clone();
+         recognizedOptionalFields.andNot(compiledTableView.unrecognizedFields);
+         optionalFields.or(recognizedOptionalFields);
+         requiredFields.or(compiledTableView.requiredFields);
+         readOnlyFields.or(compiledTableView.readOnlyFields);
+         widgets.or(compiledTableView.widgets);
+      }
+
+      return (new CompiledTableView(fieldOrdinals, sourceView, optionalFields, requiredFields, readOnlyFields, new BitSet(), widgets));
+   }
+
+
+
+   /***************************************************************************
+    * get the access level for a field by ordinal - or null if the field isn't
+    * visible in this view.
+    ***************************************************************************/
+   public FieldAccessLevel getAccessLevel(int ordinal)
+   {
+      if(optionalFields.get(ordinal))
+      {
+         return (FieldAccessLevel.EDITABLE_OPTIONAL);
+      }
+      else if(requiredFields.get(ordinal))
+      {
+         return (FieldAccessLevel.EDITABLE_REQUIRED);
+      }
+      else if(readOnlyFields.get(ordinal))
+      {
+         return (FieldAccessLevel.READ_ONLY);
+      }
+
+      return (null);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public boolean hasWidget(String widgetName)
+   {
+      int ordinal = fieldOrdinals.getWidgetOrdinal(widgetName);
+      return (ordinal >= 0 && widgets.get(ordinal));
+   }
+
+
+
+   /***************************************************************************
+    * get the ordinals of all fields in the view (at any access level).  Note,
+    * the returned bitset is not a copy, so must not be modified.
+    ***************************************************************************/
+   public BitSet getVisibleFields()
+   {
+      return (visibleFields);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public FieldOrdinals getFieldOrdinals()
+   {
+      return (fieldOrdinals);
+   }
+
+
+
+   /***************************************************************************
+    * get the view that this was compiled (or merged) for - null for merged
+    * views that weren't given one.
+    ***************************************************************************/
+   public TableView getSourceView()
+   {
+      return (sourceView);
+   }
+
+}
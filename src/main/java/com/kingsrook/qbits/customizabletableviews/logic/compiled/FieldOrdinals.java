@@ -0,0 +1,147 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QFieldSection;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * Assigns an ordinal (index) to each field in a table (in the order of the
+ * table's fields map), and to each widget in the table's sections - so that
+ * sets of fields & widgets can be represented as bitsets (see
+ * CompiledTableView).
+ *******************************************************************************/
+public class FieldOrdinals
+{
+   private final QTableMetaData sourceTable;
+
+   private final String[]             fieldNames;
+   private final Map<String, Integer> fieldOrdinalsByName  = new HashMap<>();
+   private final String[]             widgetNames;
+   private final Map<String, Integer> widgetOrdinalsByName = new HashMap<>();
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public FieldOrdinals(QTableMetaData table)
+   {
+      this.sourceTable = table;
+
+      this.fieldNames = CollectionUtils.nonNullMap(table.getFields()).keySet().toArray(new String[0]);
+      for(int i = 0; i < fieldNames.length; i++)
+      {
+         fieldOrdinalsByName.put(fieldNames[i], i);
+      }
+
+      Set<String> widgetNameSet = new LinkedHashSet<>();
+      for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+      {
+         if(section.getWidgetName() != null)
+         {
+            widgetNameSet.add(section.getWidgetName());
+         }
+      }
+
+      List<String> widgetNameList = new ArrayList<>(widgetNameSet);
+      this.widgetNames = widgetNameList.toArray(new String[0]);
+      for(int i = 0; i < widgetNames.length; i++)
+      {
+         widgetOrdinalsByName.put(widgetNames[i], i);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the ordinal of a field by name - or -1 if the table has no such field.
+    ***************************************************************************/
+   public int getFieldOrdinal(String fieldName)
+   {
+      Integer ordinal = fieldOrdinalsByName.get(fieldName);
+      return (ordinal == null ? -1 : ordinal);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public String getFieldName(int ordinal)
+   {
+      return (fieldNames[ordinal]);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public int getFieldCount()
+   {
+      return (fieldNames.length);
+   }
+
+
+
+   /***************************************************************************
+    * get the ordinal of a widget by name - or -1 if no section in the table
+    * has that widget.
+    ***************************************************************************/
+   public int getWidgetOrdinal(String widgetName)
+   {
+      Integer ordinal = widgetOrdinalsByName.get(widgetName);
+      return (ordinal == null ? -1 : ordinal);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public int getWidgetCount()
+   {
+      return (widgetNames.length);
+   }
+
+
+
+   /***************************************************************************
+    * get the table that these ordinals were built from.
+    ***************************************************************************/
+   public QTableMetaData getSourceTable()
+   {
+      return (sourceTable);
+   }
+
+}
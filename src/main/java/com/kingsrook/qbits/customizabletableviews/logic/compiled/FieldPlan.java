@@ -0,0 +1,195 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.DynamicDefaultValueBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+
+
+/*******************************************************************************
+ * The fields that a CompiledTableView keeps from a table, along with the
+ * isEditable & isRequired values that each of them gets - computed without
+ * modifying (and so, without needing to clone) the table's fields.
+ *
+ * Fields not in the plan are dropped.  Applying the plan (cloneKeptFields)
+ * clones only the fields that are kept - so personalizing a wide table for a
+ * role that sees a few of its fields doesn't pay to copy all the rest.
+ *******************************************************************************/
+public class FieldPlan
+{
+   private final List<Entry> entries;
+   private final Set<String> fieldNames;
+
+
+
+   /***************************************************************************
+    * a field that the plan keeps, and the isEditable & isRequired values that
+    * it gets (which may be overridden from the source field's, by the access
+    * level from the view).
+    ***************************************************************************/
+   public record Entry(String fieldName, boolean isEditable, boolean isRequired)
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private FieldPlan(List<Entry> entries)
+   {
+      this.entries = Collections.unmodifiableList(entries);
+
+      Set<String> fieldNameSet = new LinkedHashSet<>();
+      for(Entry entry : entries)
+      {
+         fieldNameSet.add(entry.fieldName());
+      }
+      this.fieldNames = Collections.unmodifiableSet(fieldNameSet);
+   }
+
+
+
+   /***************************************************************************
+    * build the plan for a table: first the fields visible in the compiled view
+    * (with their access levels), then the fields that are always kept - the
+    * primary key, required fields, and (if keepDynamicDefaultValueFields, e.g.,
+    * for an insert or update) fields with a DynamicDefaultValueBehavior (e.g.,
+    * createDates, modifyDates, things that capture userId).
+    ***************************************************************************/
+   public static FieldPlan build(CompiledTableView compiledTableView, QTableMetaData table, boolean keepDynamicDefaultValueFields)
+   {
+      Map<String, QFieldMetaData> fields      = CollectionUtils.nonNullMap(table.getFields());
+      Map<String, Entry>          entryByName = new LinkedHashMap<>();
+
+      FieldOrdinals fieldOrdinals = compiledTableView.getFieldOrdinals();
+      BitSet        visibleFields = compiledTableView.getVisibleFields();
+      for(int ordinal = visibleFields.nextSetBit(0); ordinal >= 0; ordinal = visibleFields.nextSetBit(ordinal + 1))
+      {
+         String         fieldName = fieldOrdinals.getFieldName(ordinal);
+         QFieldMetaData field     = fields.get(fieldName);
+         if(field != null)
+         {
+            FieldAccessLevel accessLevel = compiledTableView.getAccessLevel(ordinal);
+            entryByName.put(fieldName, new Entry(fieldName, accessLevel.getEffectiveIsEditable(field), accessLevel.getEffectiveIsRequired(field)));
+         }
+      }
+
+      for(QFieldMetaData field : fields.values())
+      {
+         String fieldName = field.getName();
+         if(entryByName.containsKey(fieldName))
+         {
+            continue;
+         }
+
+         boolean keep = field.getIsRequired() || Objects.equals(fieldName, table.getPrimaryKeyField())
+            || (keepDynamicDefaultValueFields && field.getBehaviorOnlyIfSet(DynamicDefaultValueBehavior.class) != null);
+         if(keep)
+         {
+            entryByName.put(fieldName, new Entry(fieldName, field.getIsEditable(), field.getIsRequired()));
+         }
+      }
+
+      return (new FieldPlan(new ArrayList<>(entryByName.values())));
+   }
+
+
+
+   /***************************************************************************
+    * apply the plan to a table (the same one it was built from, or one with
+    * the same fields) - returning clones of only the fields that are kept, in
+    * plan order, with their isEditable & isRequired values set.  The table
+    * itself is not modified.
+    ***************************************************************************/
+   public Map<String, QFieldMetaData> cloneKeptFields(QTableMetaData table)
+   {
+      Map<String, QFieldMetaData> fields     = CollectionUtils.nonNullMap(table.getFields());
+      Map<String, QFieldMetaData> keptFields = new LinkedHashMap<>();
+      for(Entry entry : entries)
+      {
+         QFieldMetaData field = fields.get(entry.fieldName());
+         if(field == null)
+         {
+            continue;
+         }
+
+         QFieldMetaData clone = field.clone();
+         if(clone.getIsEditable() != entry.isEditable())
+         {
+            clone.setIsEditable(entry.isEditable());
+         }
+         if(clone.getIsRequired() != entry.isRequired())
+         {
+            clone.setIsRequired(entry.isRequired());
+         }
+         keptFields.put(entry.fieldName(), clone);
+      }
+      return (keptFields);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public boolean keeps(String fieldName)
+   {
+      return (fieldNames.contains(fieldName));
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for entries
+    *******************************************************************************/
+   public List<Entry> getEntries()
+   {
+      return (this.entries);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for fieldNames - in plan order.
+    *******************************************************************************/
+   public Set<String> getFieldNames()
+   {
+      return (this.fieldNames);
+   }
+
+}
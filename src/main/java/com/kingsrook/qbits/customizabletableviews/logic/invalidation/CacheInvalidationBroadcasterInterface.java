@@ -0,0 +1,95 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerCacheState;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+
+
+/*******************************************************************************
+ * Interface for sharing the table personalizer's cache invalidation events
+ * between all of the server nodes (JVMs) in an application.
+ *
+ * When records in this qbit's tables are changed, the node where the change
+ * happened evicts the affected entries from its own caches, and then passes
+ * the event to publish - so that an implementation can deliver it to the other
+ * nodes, each of which should then evict the same entries from its caches
+ * (via PersonalizerCacheState.evict).
+ *
+ * Set the implementation to use in CustomizableTableViewsQBitConfig.
+ *******************************************************************************/
+public interface CacheInvalidationBroadcasterInterface
+{
+
+   /***************************************************************************
+    * get the broadcaster to use for one QInstance's caches - called when this
+    * broadcaster is set on the instance's PersonalizerCacheState (e.g., from
+    * the qbit's config - which may be shared by several instances).
+    * Implementations that keep state while running (e.g., a polling cursor)
+    * should return a new broadcaster here, which keeps its own state, and
+    * evicts from the given cacheState's caches.  Others can just return
+    * themselves (the default).
+    ***************************************************************************/
+   default CacheInvalidationBroadcasterInterface forCacheState(PersonalizerCacheState cacheState)
+   {
+      return (this);
+   }
+
+
+   /***************************************************************************
+    * send an event (which was already applied to this node's caches) to the
+    * other nodes.
+    ***************************************************************************/
+   void publish(CacheInvalidationEvent event) throws QException;
+
+
+   /***************************************************************************
+    * called before the personalizer's caches are filled - when it's activated,
+    * and at the start of a warm-up - for implementations that need to mark
+    * where, in a stream of events, this node's caches start from, so that no
+    * event published after that point is missed.  Calling it again after the
+    * first time should have no effect.
+    ***************************************************************************/
+   default void startReceiving()
+   {
+      ///////////////////////////////////////
+      // noop by default - nothing to mark //
+      ///////////////////////////////////////
+   }
+
+
+   /***************************************************************************
+    * called by the personalizer before it uses its caches - for implementations
+    * that receive events by polling to check for (and apply) events published
+    * by other nodes.  Implementations should make this cheap when there's
+    * nothing to do, as it's called on every personalization request.
+    ***************************************************************************/
+   default void receive() throws QException
+   {
+      ///////////////////////////////////////////////////////////////////
+      // noop by default - e.g., for push-based implementations, which //
+      // apply events as they arrive.                                  //
+      ///////////////////////////////////////////////////////////////////
+   }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/*******************************************************************************
+ * Description of which of the table personalizer's cache entries are affected
+ * by a change to the records in this qbit's tables.
+ *
+ * Entries can be affected at the level of a whole table (e.g., a view's fields
+ * changed, so every role set's view of that table is affected), or at the level
+ * of a table & role (e.g., a view was assigned to a role, so only role sets
+ * including that role are affected).  If the change couldn't be narrowed down,
+ * the event is marked as clearAll.
+ *
+ * Separately, the event lists the table views whose own records (or whose
+ * customizable tables' records) changed - i.e., those that may now customize a
+ * different table - for evicting cached view-to-table-name resolutions.
+ *******************************************************************************/
+public class CacheInvalidationEvent implements Serializable
+{
+   private boolean                   clearAll           = false;
+   private Set<String>               tableNames         = new HashSet<>();
+   private Map<String, Set<Integer>> roleIdsByTableName = new HashMap<>();
+   private Set<Integer>              tableViewIds       = new HashSet<>();
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public static CacheInvalidationEvent ofClearAll()
+   {
+      return (new CacheInvalidationEvent().withClearAll(true));
+   }
+
+
+
+   /***************************************************************************
+    * add a table, all of whose entries are affected.
+    ***************************************************************************/
+   public CacheInvalidationEvent withTableName(String tableName)
+   {
+      if(tableName == null)
+      {
+         this.clearAll = true;
+      }
+      else
+      {
+         this.tableNames.add(tableName);
+      }
+      return (this);
+   }
+
+
+
+   /***************************************************************************
+    * add a table & role - entries for that table, for role sets containing
+    * that role, are affected.
+    ***************************************************************************/
+   public CacheInvalidationEvent withTableNameAndRoleId(String tableName, Integer roleId)
+   {
+      if(tableName == null || roleId == null)
+      {
+         return (withTableName(tableName));
+      }
+
+      this.roleIdsByTableName.computeIfAbsent(tableName, k -> new HashSet<>()).add(roleId);
+      return (this);
+   }
+
+
+
+   /***************************************************************************
+    * add a table view whose table may have changed (e.g., its record, or its
+    * customizable table's record, was updated or deleted).
+    ***************************************************************************/
+   public CacheInvalidationEvent withTableViewId(Integer tableViewId)
+   {
+      if(tableViewId != null)
+      {
+         this.tableViewIds.add(tableViewId);
+      }
+      return (this);
+   }
+
+
+
+   /***************************************************************************
+    * check if the entries for a table & set of roles are affected by this event.
+    ***************************************************************************/
+   public boolean affects(String tableName, Collection<Integer> roleIds)
+   {
+      if(clearAll || tableNames.contains(tableName))
+      {
+         return (true);
+      }
+
+      Set<Integer> affectedRoleIds = roleIdsByTableName.get(tableName);
+      if(affectedRoleIds != null)
+      {
+         for(Integer roleId : roleIds)
+         {
+            if(affectedRoleIds.contains(roleId))
+            {
+               return (true);
+            }
+         }
+      }
+
+      return (false);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public boolean isEmpty()
+   {
+      return (!clearAll && tableNames.isEmpty() && roleIdsByTableName.isEmpty() && tableViewIds.isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for clearAll
+    *******************************************************************************/
+   public boolean getClearAll()
+   {
+      return (this.clearAll);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for clearAll
+    *******************************************************************************/
+   public void setClearAll(boolean clearAll)
+   {
+      this.clearAll = clearAll;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for clearAll
+    *******************************************************************************/
+   public CacheInvalidationEvent withClearAll(boolean clearAll)
+   {
+      this.clearAll = clearAll;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableNames
+    *******************************************************************************/
+   public Set<String> getTableNames()
+   {
+      return (this.tableNames);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for roleIdsByTableName
+    *******************************************************************************/
+   public Map<String, Set<Integer>> getRoleIdsByTableName()
+   {
+      return (this.roleIdsByTableName);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableViewIds
+    *******************************************************************************/
+   public Set<Integer> getTableViewIds()
+   {
+      return (this.tableViewIds);
+   }
+
+}
@@ -0,0 +1,322 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.logic.TableViewTableNameResolver;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * Works out which table names (and, for role-ints, which roles) are affected by
+ * a set of changed records in one of this qbit's tables - using both the new
+ * and old versions of the records.
+ *
+ * Values that an updated record doesn't have (e.g., as it only has its id and
+ * the changed values) are taken from its old record.  Whenever a change still
+ * can't be narrowed down (e.g., neither record has the value that we'd need
+ * to find its table), a clearAll event is returned - as evicting too much is
+ * always safer than evicting too little.
+ *******************************************************************************/
+public class CacheInvalidationEventResolver
+{
+   private static final QLogger LOG = QLogger.getLogger(CacheInvalidationEventResolver.class);
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public static CacheInvalidationEvent resolve(String tableName, List<QRecord> records, Optional<List<QRecord>> oldRecordList)
+   {
+      try
+      {
+         List<QRecord> allRecords = new ArrayList<>(withValuesFromOldRecords(CollectionUtils.nonNullList(records), oldRecordList));
+         oldRecordList.ifPresent(allRecords::addAll);
+
+         if(tableName == null)
+         {
+            return (CacheInvalidationEvent.ofClearAll());
+         }
+
+         return switch(tableName)
+         {
+            case CustomizableTable.TABLE_NAME -> resolveForCustomizableTables(allRecords);
+            case TableView.TABLE_NAME -> resolveForTableViews(allRecords);
+            case TableViewField.TABLE_NAME -> resolveForTableViewFields(allRecords);
+            case TableViewWidget.TABLE_NAME -> resolveForTableViewChildren(allRecords, false);
+            case TableViewRoleInt.TABLE_NAME -> resolveForTableViewChildren(allRecords, true);
+            default -> CacheInvalidationEvent.ofClearAll();
+         };
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error resolving cache invalidation event - will clear all", e, logPair("tableName", tableName));
+         return (CacheInvalidationEvent.ofClearAll());
+      }
+   }
+
+
+
+   /***************************************************************************
+    * fill in the values that (new) records are missing from the old records
+    * with the same id - as an update's records may only have their id and the
+    * changed values (e.g., a bulk edit of accessLevel), but resolving them
+    * needs, e.g., their tableViewId or fieldName.  Records are copied, rather
+    * than changed, as they're the caller's records.
+    ***************************************************************************/
+   static List<QRecord> withValuesFromOldRecords(List<QRecord> records, Optional<List<QRecord>> oldRecordList)
+   {
+      if(oldRecordList.isEmpty() || oldRecordList.get().isEmpty())
+      {
+         return (records);
+      }
+
+      Map<Integer, QRecord> oldRecordsById = new HashMap<>();
+      for(QRecord oldRecord : oldRecordList.get())
+      {
+         Integer id = oldRecord.getValueInteger("id");
+         if(id != null)
+         {
+            oldRecordsById.put(id, oldRecord);
+         }
+      }
+
+      List<QRecord> rs = new ArrayList<>();
+      for(QRecord record : records)
+      {
+         QRecord oldRecord = oldRecordsById.get(record.getValueInteger("id"));
+         if(oldRecord == null)
+         {
+            rs.add(record);
+            continue;
+         }
+
+         QRecord filledRecord = new QRecord(record);
+         oldRecord.getValues().forEach((fieldName, value) ->
+         {
+            if(filledRecord.getValue(fieldName) == null)
+            {
+               filledRecord.setValue(fieldName, value);
+            }
+         });
+         rs.add(filledRecord);
+      }
+
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    * a customizable table's record changing (e.g., its tableName) may change
+    * the table of each of its views - so those views are included too.
+    ***************************************************************************/
+   private static CacheInvalidationEvent resolveForCustomizableTables(List<QRecord> records) throws QException
+   {
+      CacheInvalidationEvent event = new CacheInvalidationEvent();
+
+      Set<Integer> customizableTableIds = new HashSet<>();
+      for(QRecord record : records)
+      {
+         Integer customizableTableId = record.getValueInteger("id");
+         if(customizableTableId == null)
+         {
+            return (CacheInvalidationEvent.ofClearAll());
+         }
+         customizableTableIds.add(customizableTableId);
+         event.withTableName(record.getValueString("tableName"));
+      }
+
+      if(!customizableTableIds.isEmpty())
+      {
+         for(QRecord tableView : new QueryAction().execute(new QueryInput(TableView.TABLE_NAME)
+            .withFilter(new QQueryFilter(new QFilterCriteria("customizableTableId", QCriteriaOperator.IN, customizableTableIds)))).getRecords())
+         {
+            event.withTableViewId(tableView.getValueInteger("id"));
+         }
+      }
+
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static CacheInvalidationEvent resolveForTableViews(List<QRecord> records) throws QException
+   {
+      CacheInvalidationEvent event = new CacheInvalidationEvent();
+
+      Set<Integer> customizableTableIds = new HashSet<>();
+      for(QRecord record : records)
+      {
+         Integer customizableTableId = record.getValueInteger("customizableTableId");
+         if(customizableTableId == null)
+         {
+            return (CacheInvalidationEvent.ofClearAll());
+         }
+         customizableTableIds.add(customizableTableId);
+         event.withTableViewId(record.getValueInteger("id"));
+      }
+
+      Map<Integer, String> tableNames = getTableNamesByCustomizableTableId(customizableTableIds);
+      for(Integer customizableTableId : customizableTableIds)
+      {
+         event.withTableName(tableNames.get(customizableTableId));
+      }
+
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    * field names are stored as tableName.fieldName - so we can get the table
+    * name without a lookup (unless a record doesn't have its fieldName).
+    ***************************************************************************/
+   private static CacheInvalidationEvent resolveForTableViewFields(List<QRecord> records) throws QException
+   {
+      CacheInvalidationEvent event = new CacheInvalidationEvent();
+
+      List<QRecord> recordsWithoutFieldName = new ArrayList<>();
+      for(QRecord record : records)
+      {
+         String fieldName = record.getValueString("fieldName");
+         int    dotIndex  = fieldName == null ? -1 : fieldName.indexOf('.');
+         if(dotIndex > 0)
+         {
+            event.withTableName(fieldName.substring(0, dotIndex));
+         }
+         else
+         {
+            recordsWithoutFieldName.add(record);
+         }
+      }
+
+      if(!recordsWithoutFieldName.isEmpty())
+      {
+         CacheInvalidationEvent eventForRest = resolveForTableViewChildren(recordsWithoutFieldName, false);
+         if(eventForRest.getClearAll())
+         {
+            return (eventForRest);
+         }
+         eventForRest.getTableNames().forEach(event::withTableName);
+      }
+
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    * for records that are children of TableView - look up the tables of their
+    * views.  For role-ints, the affected entries are only those for role sets
+    * including the record's role.
+    ***************************************************************************/
+   private static CacheInvalidationEvent resolveForTableViewChildren(List<QRecord> records, boolean isRoleInt) throws QException
+   {
+      CacheInvalidationEvent event = new CacheInvalidationEvent();
+
+      Set<Integer> tableViewIds = new HashSet<>();
+      for(QRecord record : records)
+      {
+         Integer tableViewId = record.getValueInteger("tableViewId");
+         if(tableViewId == null || (isRoleInt && record.getValueInteger("roleId") == null))
+         {
+            return (CacheInvalidationEvent.ofClearAll());
+         }
+         tableViewIds.add(tableViewId);
+      }
+
+      Map<Integer, String> tableNames = getTableNamesByTableViewId(tableViewIds);
+      for(QRecord record : records)
+      {
+         String tableName = tableNames.get(record.getValueInteger("tableViewId"));
+         if(isRoleInt)
+         {
+            event.withTableNameAndRoleId(tableName, record.getValueInteger("roleId"));
+         }
+         else
+         {
+            event.withTableName(tableName);
+         }
+      }
+
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    * the table names of views are usually already cached (by the personalizer's
+    * loads, or the possible value sources) - so edits to a view's children
+    * don't need to query for them.
+    ***************************************************************************/
+   static Map<Integer, String> getTableNamesByTableViewId(Set<Integer> tableViewIds) throws QException
+   {
+      return (TableViewTableNameResolver.getTableNames(tableViewIds));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   static Map<Integer, String> getTableNamesByCustomizableTableId(Set<Integer> customizableTableIds) throws QException
+   {
+      Map<Integer, String> rs = new HashMap<>();
+      customizableTableIds.remove(null);
+      if(!customizableTableIds.isEmpty())
+      {
+         for(QRecord customizableTable : new QueryAction().execute(new QueryInput(CustomizableTable.TABLE_NAME)
+            .withFilter(new QQueryFilter(new QFilterCriteria("id", QCriteriaOperator.IN, customizableTableIds)))).getRecords())
+         {
+            rs.put(customizableTable.getValueInteger("id"), customizableTable.getValueString("tableName"));
+         }
+      }
+      return (rs);
+   }
+
+}
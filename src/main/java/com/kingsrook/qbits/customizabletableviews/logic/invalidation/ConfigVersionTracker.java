@@ -0,0 +1,435 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewConfigVersion;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterOrderBy;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+
+
+/*******************************************************************************
+ * Tracks the version of each customizable table (as stored in the
+ * TableViewConfigVersion table), to let the personalizer validate its caches
+ * with a single small query, rather than by expiring & rebuilding them.
+ *
+ * Every change to table view configuration gives the tables that it affects a
+ * new versionStamp - a value unique to that change.  The personalizer then
+ * periodically reads all versions, and evicts its entries for any table whose
+ * stamp differs from what it saw on its previous check.
+ *
+ * Since each stamp is unique, comparing them is safe when several nodes change
+ * the same table at once: whichever write lands last, its stamp is new to every
+ * node (including the one that wrote it - a node's own changes also show up on
+ * its next check), so none can miss the change.  The configVersion count is
+ * also incremented, but only for people to read - concurrent changes may lose
+ * increments, so it's not compared.
+ *
+ * Tracking can be turned off (see CustomizableTableViewsQBitConfig), for
+ * applications that don't have the TableViewConfigVersion table - in which
+ * case bump & check do nothing, and caches rely on other invalidation, and on
+ * their timeouts.  The same applies (with a single warning) if the table isn't
+ * defined in the instance.  Caches only rely on tracking (i.e., use their long
+ * timeout) while it's validating them - see getIsValidating.  While checks
+ * fail (e.g., the table is missing from the backend), they're made less and
+ * less often, and failures are only warned about with the same back-off (see
+ * shouldWarnForFailure).
+ *******************************************************************************/
+public class ConfigVersionTracker
+{
+   private static final QLogger LOG = QLogger.getLogger(ConfigVersionTracker.class);
+
+   /////////////////////////////////////////////////////////////////////////////////
+   // the longest that failing checks back off to (doubling the interval for each //
+   // consecutive failure).                                                       //
+   /////////////////////////////////////////////////////////////////////////////////
+   private static final Duration MAX_FAILURE_CHECK_INTERVAL = Duration.ofMinutes(5);
+
+   private Duration checkInterval = Duration.ofSeconds(5);
+
+   private volatile boolean isEnabled = true;
+
+   private final AtomicBoolean isChecking = new AtomicBoolean(false);
+
+   private volatile Map<String, String> knownVersionStamps = null;
+   private volatile long                lastCheckMillis    = 0;
+
+   private final AtomicInteger consecutiveFailureCount  = new AtomicInteger(0);
+   private volatile boolean    lastCheckSucceeded       = false;
+   private volatile boolean    hasWarnedForMissingTable = false;
+
+
+
+   /***************************************************************************
+    * give each table affected by an event a new version stamp (and increment
+    * its configVersion) - inserting a version for tables that don't have one.
+    ***************************************************************************/
+   public void bump(CacheInvalidationEvent event) throws QException
+   {
+      if(!isAvailable() || event.isEmpty())
+      {
+         return;
+      }
+
+      try
+      {
+         doBump(event);
+      }
+      catch(QException | RuntimeException e)
+      {
+         consecutiveFailureCount.incrementAndGet();
+         throw (e);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private void doBump(CacheInvalidationEvent event) throws QException
+   {
+      Set<String> tableNames = new HashSet<>();
+      if(event.getClearAll())
+      {
+         List<QRecord> customizableTables = new QueryAction().execute(new QueryInput(CustomizableTable.TABLE_NAME)).getRecords();
+         customizableTables.forEach(record -> tableNames.add(record.getValueString("tableName")));
+      }
+      else
+      {
+         tableNames.addAll(event.getTableNames());
+         tableNames.addAll(event.getRoleIdsByTableName().keySet());
+      }
+
+      tableNames.remove(null);
+      if(tableNames.isEmpty())
+      {
+         return;
+      }
+
+      /////////////////////////////////////////////////////////////////////////////////
+      // one stamp for all of the tables in this bump - it only has to differ from   //
+      // every other bump's, for each table.  the stamp is set outright (not derived //
+      // from what we read), so a concurrent bump can't make ours go unnoticed.      //
+      /////////////////////////////////////////////////////////////////////////////////
+      String versionStamp = UUID.randomUUID().toString();
+
+      List<QRecord> existingRecords = new QueryAction().execute(new QueryInput(TableViewConfigVersion.TABLE_NAME)
+         .withFilter(new QQueryFilter(new QFilterCriteria("tableName", QCriteriaOperator.IN, tableNames)))).getRecords();
+
+      List<QRecord> updates = new ArrayList<>();
+      for(QRecord existingRecord : existingRecords)
+      {
+         Integer configVersion = Objects.requireNonNullElse(existingRecord.getValueInteger("configVersion"), 0);
+         updates.add(new QRecord()
+            .withValue("id", existingRecord.getValueInteger("id"))
+            .withValue("configVersion", configVersion + 1)
+            .withValue("versionStamp", versionStamp));
+         tableNames.remove(existingRecord.getValueString("tableName"));
+      }
+
+      List<TableViewConfigVersion> inserts = new ArrayList<>();
+      for(String tableName : tableNames)
+      {
+         inserts.add(new TableViewConfigVersion().withTableName(tableName).withConfigVersion(1).withVersionStamp(versionStamp));
+      }
+
+      if(!updates.isEmpty())
+      {
+         new UpdateAction().execute(new UpdateInput(TableViewConfigVersion.TABLE_NAME).withRecords(updates));
+      }
+
+      if(!inserts.isEmpty())
+      {
+         new InsertAction().execute(new InsertInput(TableViewConfigVersion.TABLE_NAME).withRecordEntities(inserts));
+      }
+   }
+
+
+
+   /***************************************************************************
+    * check for changed versions, if checkInterval (backed off, while checks are
+    * failing) has passed since the last check (and no other thread is currently
+    * checking) - else, return an empty event.
+    ***************************************************************************/
+   public CacheInvalidationEvent checkIfDue() throws QException
+   {
+      if(!isEnabled || System.currentTimeMillis() - lastCheckMillis < getCurrentCheckInterval().toMillis())
+      {
+         return (new CacheInvalidationEvent());
+      }
+
+      if(!isChecking.compareAndSet(false, true))
+      {
+         return (new CacheInvalidationEvent());
+      }
+
+      try
+      {
+         return (check());
+      }
+      finally
+      {
+         lastCheckMillis = System.currentTimeMillis();
+         isChecking.set(false);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * read all versions, and build an event for the tables whose version has
+    * changed since the previous check.  On the first check, there's nothing to
+    * compare against, so everything is considered changed.
+    ***************************************************************************/
+   public CacheInvalidationEvent check() throws QException
+   {
+      if(!isAvailable())
+      {
+         lastCheckSucceeded = false;
+         return (new CacheInvalidationEvent());
+      }
+
+      try
+      {
+         CacheInvalidationEvent event = doCheck();
+         consecutiveFailureCount.set(0);
+         lastCheckSucceeded = true;
+         return (event);
+      }
+      catch(QException | RuntimeException e)
+      {
+         consecutiveFailureCount.incrementAndGet();
+         lastCheckSucceeded = false;
+         throw (e);
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private CacheInvalidationEvent doCheck() throws QException
+   {
+      Map<String, String> currentVersionStamps = new HashMap<>();
+      for(QRecord record : new QueryAction().execute(new QueryInput(TableViewConfigVersion.TABLE_NAME)
+         .withFilter(new QQueryFilter().withOrderBy(new QFilterOrderBy("id")))).getRecords())
+      {
+         //////////////////////////////////////////////////////////////////////////////
+         // rows written before versionStamp existed are compared by their count.    //
+         // should a table ever have more than one row (e.g., a backend without the  //
+         // unique key, and two nodes inserting at once), a change to any of them is //
+         // a change to the table.                                                   //
+         //////////////////////////////////////////////////////////////////////////////
+         String versionStamp = Objects.requireNonNullElse(record.getValueString("versionStamp"), "configVersion:" + record.getValueInteger("configVersion"));
+         currentVersionStamps.merge(record.getValueString("tableName"), versionStamp, (a, b) -> a + "," + b);
+      }
+
+      CacheInvalidationEvent event                 = new CacheInvalidationEvent();
+      Map<String, String>    previousVersionStamps = knownVersionStamps;
+      if(previousVersionStamps == null)
+      {
+         event.withClearAll(true);
+      }
+      else
+      {
+         Set<String> tableNames = new HashSet<>(previousVersionStamps.keySet());
+         tableNames.addAll(currentVersionStamps.keySet());
+         for(String tableName : tableNames)
+         {
+            if(!Objects.equals(previousVersionStamps.get(tableName), currentVersionStamps.get(tableName)))
+            {
+               event.withTableName(tableName);
+            }
+         }
+      }
+
+      knownVersionStamps = currentVersionStamps;
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    * whether tracking is currently validating caches - i.e., it's enabled, and
+    * the last check succeeded.  Until then (or if checks start failing), caches
+    * shouldn't rely on it, and should use a short timeout instead.
+    ***************************************************************************/
+   public boolean getIsValidating()
+   {
+      return (isEnabled && lastCheckSucceeded);
+   }
+
+
+
+   /***************************************************************************
+    * whether the latest failure (of a bump or check) should be logged as a
+    * warning - the first few, then with back-off (the 4th, 8th, 16th, ...
+    * consecutive failure), so a missing table doesn't warn every few seconds,
+    * and on every write.
+    ***************************************************************************/
+   public boolean shouldWarnForFailure()
+   {
+      int failures = consecutiveFailureCount.get();
+      return (failures <= 2 || Integer.bitCount(failures) == 1);
+   }
+
+
+
+   /***************************************************************************
+    * the interval between checks - doubled for each consecutive failure (up
+    * to MAX_FAILURE_CHECK_INTERVAL, unless checkInterval is already longer).
+    ***************************************************************************/
+   Duration getCurrentCheckInterval()
+   {
+      int failures = consecutiveFailureCount.get();
+      if(failures == 0)
+      {
+         return (checkInterval);
+      }
+
+      Duration backedOff = checkInterval.multipliedBy(1L << Math.min(failures, 16));
+      if(backedOff.compareTo(MAX_FAILURE_CHECK_INTERVAL) > 0)
+      {
+         return (checkInterval.compareTo(MAX_FAILURE_CHECK_INTERVAL) > 0 ? checkInterval : MAX_FAILURE_CHECK_INTERVAL);
+      }
+      return (backedOff);
+   }
+
+
+
+   /***************************************************************************
+    * tracking is available if it's enabled, and the TableViewConfigVersion
+    * table is defined in the instance - if it isn't, warn (once), rather than
+    * failing on every bump & check.
+    ***************************************************************************/
+   private boolean isAvailable()
+   {
+      if(!isEnabled)
+      {
+         return (false);
+      }
+
+      QInstance qInstance = QContext.getQInstance();
+      if(qInstance != null && qInstance.getTable(TableViewConfigVersion.TABLE_NAME) == null)
+      {
+         if(!hasWarnedForMissingTable)
+         {
+            hasWarnedForMissingTable = true;
+            LOG.warn("The " + TableViewConfigVersion.TABLE_NAME + " table is not defined - customizable table view config versions will not be tracked (caches will use their shorter timeout).  Add the table, or turn config version tracking off.");
+         }
+         return (false);
+      }
+
+      return (true);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for checkInterval
+    *******************************************************************************/
+   public Duration getCheckInterval()
+   {
+      return (this.checkInterval);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for checkInterval
+    *******************************************************************************/
+   public void setCheckInterval(Duration checkInterval)
+   {
+      this.checkInterval = checkInterval;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for checkInterval
+    *******************************************************************************/
+   public ConfigVersionTracker withCheckInterval(Duration checkInterval)
+   {
+      this.checkInterval = checkInterval;
+      return (this);
+   }
+
+
+
+
+   /*******************************************************************************
+    ** Getter for isEnabled
+    *******************************************************************************/
+   public boolean getIsEnabled()
+   {
+      return (this.isEnabled);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for isEnabled
+    *******************************************************************************/
+   public void setIsEnabled(boolean isEnabled)
+   {
+      this.isEnabled = isEnabled;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for isEnabled
+    *******************************************************************************/
+   public ConfigVersionTracker withIsEnabled(boolean isEnabled)
+   {
+      this.isEnabled = isEnabled;
+      return (this);
+   }
+
+}
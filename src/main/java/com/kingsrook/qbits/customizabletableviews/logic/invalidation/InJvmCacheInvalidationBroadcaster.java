@@ -0,0 +1,45 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+/*******************************************************************************
+ * Default cache invalidation broadcaster - for applications that run in a
+ * single JVM.  Events are only applied to the caches in this JVM (which has
+ * already happened by the time they're published), so, there's nothing more
+ * to do here.
+ *******************************************************************************/
+public class InJvmCacheInvalidationBroadcaster implements CacheInvalidationBroadcasterInterface
+{
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void publish(CacheInvalidationEvent event)
+   {
+      /////////////////////////////////////////////////////////////////////
+      // noop - the event has already been applied to this JVM's caches. //
+      /////////////////////////////////////////////////////////////////////
+   }
+
+}
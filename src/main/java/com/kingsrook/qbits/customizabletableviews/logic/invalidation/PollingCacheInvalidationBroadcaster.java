@@ -0,0 +1,436 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerCacheState;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewCacheInvalidation;
+import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import com.kingsrook.qqq.backend.core.model.actions.tables.delete.DeleteInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterOrderBy;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import org.apache.commons.lang3.BooleanUtils;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * Cache invalidation broadcaster for applications that run on multiple server
+ * nodes - which shares events through the TableViewCacheInvalidation table (so,
+ * that table must be stored in a backend that all nodes share).
+ *
+ * Each event published by a node is written as one or more rows in that table.
+ * Each node then polls the table (at most once per pollInterval, when the
+ * personalizer is used) for rows written by other nodes since the last poll,
+ * and evicts the entries from its caches that those rows describe.  Thus, a
+ * change made on any node is applied on every other node before it next
+ * personalizes a table, once pollInterval has passed.
+ *
+ * Polls select rows by createDate, going back an overlap window before the
+ * previous poll - rather than by id after the highest id seen - so rows that
+ * commit late (after rows with higher ids), or whose node's clock is a little
+ * behind, are still seen.  Rows that come back in more than one poll are only
+ * applied once.  The window starts when startReceiving is called (when the
+ * personalizer is activated, and before a warm-up fills the caches).
+ *
+ * Rows older than the retention period are deleted as part of polling.
+ *
+ * The broadcaster set in the qbit's config is only a template: each QInstance's
+ * PersonalizerCacheState gets its own copy (from forCacheState), with its own
+ * node id and polling window, which evicts from that instance's caches - so a
+ * config shared by several instances doesn't share their cursors.
+ *******************************************************************************/
+public class PollingCacheInvalidationBroadcaster implements CacheInvalidationBroadcasterInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(PollingCacheInvalidationBroadcaster.class);
+
+   private static final int POLL_PAGE_SIZE = 1000;
+
+   private Duration pollInterval = Duration.ofSeconds(10);
+   private Duration retention    = Duration.ofDays(1);
+
+   //////////////////////////////////////////////////////////////////////////////
+   // how far before the previous poll each poll looks - must cover the time a //
+   // row may take to commit, plus any difference between nodes' clocks.       //
+   //////////////////////////////////////////////////////////////////////////////
+   private Duration overlap = Duration.ofMinutes(1);
+
+   private final String        nodeId    = UUID.randomUUID().toString();
+   private final AtomicBoolean isPolling = new AtomicBoolean(false);
+
+   ////////////////////////////////////////////////////////////////////////////
+   // the state whose caches this broadcaster evicts from - null if it's not //
+   // from forCacheState, in which case, the current QContext's is used.     //
+   ////////////////////////////////////////////////////////////////////////////
+   private PersonalizerCacheState cacheState;
+
+   ///////////////////////////////////////////////////////////////////////////////////////
+   // the createDate from which the next poll reads - and the ids (with createDates) of //
+   // the rows already read since then, which are skipped if read again.                //
+   ///////////////////////////////////////////////////////////////////////////////////////
+   private volatile Instant            pollFrom        = null;
+   private final Map<Integer, Instant> seenRowDates    = new HashMap<>();
+   private volatile long               lastPollMillis  = 0;
+   private volatile long               lastPurgeMillis = 0;
+
+
+
+   /***************************************************************************
+    * get a new broadcaster, with this one's settings, but its own node id and
+    * polling window, which evicts from the given cacheState's caches.
+    ***************************************************************************/
+   @Override
+   public PollingCacheInvalidationBroadcaster forCacheState(PersonalizerCacheState cacheState)
+   {
+      PollingCacheInvalidationBroadcaster broadcaster = new PollingCacheInvalidationBroadcaster()
+         .withPollInterval(pollInterval)
+         .withOverlap(overlap)
+         .withRetention(retention);
+      broadcaster.cacheState = cacheState;
+      return (broadcaster);
+   }
+
+
+
+   /***************************************************************************
+    * write the event's rows to the invalidation table.
+    ***************************************************************************/
+   @Override
+   public void publish(CacheInvalidationEvent event) throws QException
+   {
+      if(event.isEmpty())
+      {
+         return;
+      }
+
+      Instant                          now  = Instant.now();
+      List<TableViewCacheInvalidation> rows = new ArrayList<>();
+      if(event.getClearAll())
+      {
+         rows.add(new TableViewCacheInvalidation().withNodeId(nodeId).withCreateDate(now).withClearAll(true));
+      }
+      else
+      {
+         for(String tableName : event.getTableNames())
+         {
+            rows.add(new TableViewCacheInvalidation().withNodeId(nodeId).withCreateDate(now).withTableName(tableName));
+         }
+
+         for(Map.Entry<String, Set<Integer>> entry : event.getRoleIdsByTableName().entrySet())
+         {
+            for(Integer roleId : entry.getValue())
+            {
+               rows.add(new TableViewCacheInvalidation().withNodeId(nodeId).withCreateDate(now).withTableName(entry.getKey()).withRoleId(roleId));
+            }
+         }
+
+         for(Integer tableViewId : event.getTableViewIds())
+         {
+            rows.add(new TableViewCacheInvalidation().withNodeId(nodeId).withCreateDate(now).withTableViewId(tableViewId));
+         }
+      }
+
+      new InsertAction().execute(new InsertInput(TableViewCacheInvalidation.TABLE_NAME).withRecordEntities(rows));
+   }
+
+
+
+   /***************************************************************************
+    * start the polling window (if it isn't already started) a little before
+    * now - so events published by other nodes from now on (including those
+    * still committing) are received, even if the caches are filled before the
+    * first poll.
+    ***************************************************************************/
+   @Override
+   public synchronized void startReceiving()
+   {
+      if(pollFrom == null)
+      {
+         pollFrom = Instant.now().minus(overlap);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * poll for events from other nodes, if pollInterval has passed since the
+    * last poll (and no other thread is currently polling).
+    ***************************************************************************/
+   @Override
+   public void receive() throws QException
+   {
+      if(System.currentTimeMillis() - lastPollMillis < pollInterval.toMillis())
+      {
+         return;
+      }
+
+      if(!isPolling.compareAndSet(false, true))
+      {
+         return;
+      }
+
+      try
+      {
+         poll();
+      }
+      finally
+      {
+         lastPollMillis = System.currentTimeMillis();
+         isPolling.set(false);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * read any rows written by other nodes since the last poll (going back the
+    * overlap window), that weren't read by an earlier poll - and evict the
+    * cache entries that they describe.
+    *
+    * @return the event that was applied (which may be empty).
+    ***************************************************************************/
+   public synchronized CacheInvalidationEvent poll() throws QException
+   {
+      ///////////////////////////////////////////////////////////////////////////////////////
+      // if nothing started the window, our caches haven't been used until now - so start  //
+      // it here (reading the overlap window's rows may evict a little, but nothing more). //
+      ///////////////////////////////////////////////////////////////////////////////////////
+      startReceiving();
+
+      CacheInvalidationEvent event       = new CacheInvalidationEvent();
+      Instant                pollStarted = Instant.now();
+
+      ///////////////////////////////////////////////////////////////////////////////
+      // page through this poll's rows by id - which is only a cursor for this one //
+      // read; the next poll starts again from its window's createDate.            //
+      ///////////////////////////////////////////////////////////////////////////////
+      Integer       pageAfterId = 0;
+      List<QRecord> records;
+      do
+      {
+         records = new QueryAction().execute(new QueryInput(TableViewCacheInvalidation.TABLE_NAME)
+            .withFilter(new QQueryFilter(
+               new QFilterCriteria("createDate", QCriteriaOperator.GREATER_THAN_OR_EQUALS, pollFrom),
+               new QFilterCriteria("id", QCriteriaOperator.GREATER_THAN, pageAfterId))
+               .withOrderBy(new QFilterOrderBy("id", true))
+               .withLimit(POLL_PAGE_SIZE))).getRecords();
+
+         for(QRecord record : records)
+         {
+            Integer id         = record.getValueInteger("id");
+            Instant createDate = record.getValueInstant("createDate");
+            pageAfterId = Math.max(pageAfterId, id);
+            if(seenRowDates.putIfAbsent(id, createDate == null ? pollStarted : createDate) != null)
+            {
+               continue;
+            }
+
+            if(nodeId.equals(record.getValueString("nodeId")))
+            {
+               continue;
+            }
+
+            if(BooleanUtils.isTrue(record.getValueBoolean("clearAll")))
+            {
+               event.withClearAll(true);
+            }
+            else if(record.getValueInteger("tableViewId") != null)
+            {
+               event.withTableViewId(record.getValueInteger("tableViewId"));
+            }
+            else
+            {
+               event.withTableNameAndRoleId(record.getValueString("tableName"), record.getValueInteger("roleId"));
+            }
+         }
+      }
+      while(records.size() == POLL_PAGE_SIZE);
+
+      //////////////////////////////////////////////////////////////////////////////////
+      // move the window up - and forget the rows from before it, which the next poll //
+      // won't read (so, the set of seen ids only holds about one window's rows).     //
+      //////////////////////////////////////////////////////////////////////////////////
+      Instant nextPollFrom = pollStarted.minus(overlap);
+      if(nextPollFrom.isAfter(pollFrom))
+      {
+         pollFrom = nextPollFrom;
+      }
+      seenRowDates.values().removeIf(createDate -> createDate.isBefore(pollFrom));
+
+      if(!event.isEmpty())
+      {
+         int evicted = (cacheState == null) ? CustomizableTableViewsTablePersonalizer.evict(event) : cacheState.evict(event);
+         LOG.info("Evicted customizable table view cache entries for events from other nodes", logPair("evictedEntries", evicted), logPair("clearAll", event.getClearAll()));
+      }
+
+      purgeIfNeeded();
+      return (event);
+   }
+
+
+
+   /***************************************************************************
+    * delete rows older than the retention period - doing so no more than once
+    * per hour, per node.
+    ***************************************************************************/
+   private void purgeIfNeeded()
+   {
+      if(System.currentTimeMillis() - lastPurgeMillis < Duration.ofHours(1).toMillis())
+      {
+         return;
+      }
+
+      lastPurgeMillis = System.currentTimeMillis();
+      try
+      {
+         Instant cutoff = Instant.now().minus(retention);
+         new DeleteAction().execute(new DeleteInput(TableViewCacheInvalidation.TABLE_NAME)
+            .withQueryFilter(new QQueryFilter(new QFilterCriteria("createDate", QCriteriaOperator.LESS_THAN, cutoff))));
+      }
+      catch(Exception e)
+      {
+         LOG.warn("Error purging old table view cache invalidation records", e);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for nodeId
+    *******************************************************************************/
+   public String getNodeId()
+   {
+      return (this.nodeId);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for pollInterval
+    *******************************************************************************/
+   public Duration getPollInterval()
+   {
+      return (this.pollInterval);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for pollInterval
+    *******************************************************************************/
+   public void setPollInterval(Duration pollInterval)
+   {
+      this.pollInterval = pollInterval;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for pollInterval
+    *******************************************************************************/
+   public PollingCacheInvalidationBroadcaster withPollInterval(Duration pollInterval)
+   {
+      this.pollInterval = pollInterval;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for overlap
+    *******************************************************************************/
+   public Duration getOverlap()
+   {
+      return (this.overlap);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for overlap
+    *******************************************************************************/
+   public void setOverlap(Duration overlap)
+   {
+      this.overlap = overlap;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for overlap
+    *******************************************************************************/
+   public PollingCacheInvalidationBroadcaster withOverlap(Duration overlap)
+   {
+      this.overlap = overlap;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for retention
+    *******************************************************************************/
+   public Duration getRetention()
+   {
+      return (this.retention);
+   }
+
+
+
+   /*******************************************************************************
+    ** Setter for retention
+    *******************************************************************************/
+   public void setRetention(Duration retention)
+   {
+      this.retention = retention;
+   }
+
+
+
+   /*******************************************************************************
+    ** Fluent setter for retention
+    *******************************************************************************/
+   public PollingCacheInvalidationBroadcaster withRetention(Duration retention)
+   {
+      this.retention = retention;
+      return (this);
+   }
+
+}
@@ -0,0 +1,374 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.metrics;
+
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import com.kingsrook.qqq.backend.core.logging.LogPair;
+import com.kingsrook.qqq.backend.core.logging.QLogger;
+import static com.kingsrook.qqq.backend.core.logging.LogUtils.logPair;
+
+
+/*******************************************************************************
+ * Metrics sink that accumulates everything in memory - latency histograms per
+ * operation, and counters per cache - for an application to scrape (e.g., via
+ * getSnapshot, from its own metrics endpoint or scheduled job) or to log.
+ *
+ * e.g.:
+ * <pre>
+ * InMemoryPersonalizerMetricsSink metricsSink = new InMemoryPersonalizerMetricsSink();
+ * config.withMetricsSink(metricsSink);
+ * ...
+ * metricsSink.log(); // or metricsSink.getSnapshot()
+ * </pre>
+ *******************************************************************************/
+public class InMemoryPersonalizerMetricsSink implements PersonalizerMetricsSinkInterface
+{
+   private static final QLogger LOG = QLogger.getLogger(InMemoryPersonalizerMetricsSink.class);
+
+   private final Map<PersonalizerOperation, LatencyHistogram> latencies = new EnumMap<>(PersonalizerOperation.class);
+
+   private final Map<String, CacheStats> cacheStats = new ConcurrentHashMap<>();
+
+   private final LongAdder backendQueryCount = new LongAdder();
+
+
+
+   /***************************************************************************
+    * counters for one cache.
+    ***************************************************************************/
+   private static class CacheStats
+   {
+      private final LongAdder hits             = new LongAdder();
+      private final LongAdder misses           = new LongAdder();
+      private final LongAdder coalescedWaiters = new LongAdder();
+      private final LongAdder evictions        = new LongAdder();
+      private volatile int    size;
+      private volatile long   retainedBytes;
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   public InMemoryPersonalizerMetricsSink()
+   {
+      /////////////////////////////////////////////////////////////////////////
+      // all histograms are created up front, so the map is never written to //
+      // after construction, and can be read without any locking.            //
+      /////////////////////////////////////////////////////////////////////////
+      for(PersonalizerOperation operation : PersonalizerOperation.values())
+      {
+         latencies.put(operation, new LatencyHistogram());
+      }
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordLatency(PersonalizerOperation operation, long nanos)
+   {
+      latencies.get(operation).record(nanos);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheHit(String cacheName)
+   {
+      getCacheStats(cacheName).hits.increment();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheMiss(String cacheName)
+   {
+      getCacheStats(cacheName).misses.increment();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheCoalescedWaiter(String cacheName)
+   {
+      getCacheStats(cacheName).coalescedWaiters.increment();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheEvictions(String cacheName, int count)
+   {
+      getCacheStats(cacheName).evictions.add(count);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheSize(String cacheName, int size)
+   {
+      getCacheStats(cacheName).size = size;
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordCacheRetainedBytes(String cacheName, long retainedBytes)
+   {
+      getCacheStats(cacheName).retainedBytes = retainedBytes;
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public void recordBackendQueries(int count)
+   {
+      backendQueryCount.add(count);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private CacheStats getCacheStats(String cacheName)
+   {
+      return (cacheStats.computeIfAbsent(cacheName, k -> new CacheStats()));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public LatencyHistogram getLatencyHistogram(PersonalizerOperation operation)
+   {
+      return (latencies.get(operation));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getCacheHitCount(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.hits.sum());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getCacheMissCount(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.misses.sum());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getCacheCoalescedWaiterCount(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.coalescedWaiters.sum());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getCacheEvictionCount(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.evictions.sum());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public int getCacheSize(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.size);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getCacheRetainedBytes(String cacheName)
+   {
+      CacheStats stats = cacheStats.get(cacheName);
+      return (stats == null ? 0 : stats.retainedBytes);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getBackendQueryCount()
+   {
+      return (backendQueryCount.sum());
+   }
+
+
+
+   /***************************************************************************
+    * get all current values, as a flat (sorted) map - e.g., for exporting to
+    * another metrics system.  Keys are like:
+    * - latency.execute.count, latency.execute.p99Micros (also meanMicros,
+    *   p50Micros, p90Micros & maxMicros), for each operation.
+    * - cache.effectiveTableView.hits (also misses, coalescedWaiters, evictions,
+    *   size, retainedBytes), for each cache.
+    * - backendQueries
+    ***************************************************************************/
+   public Map<String, Long> getSnapshot()
+   {
+      Map<String, Long> snapshot = new TreeMap<>();
+      for(Map.Entry<PersonalizerOperation, LatencyHistogram> entry : latencies.entrySet())
+      {
+         String           prefix    = "latency." + toCamelCase(entry.getKey()) + ".";
+         LatencyHistogram histogram = entry.getValue();
+         snapshot.put(prefix + "count", histogram.getCount());
+         snapshot.put(prefix + "meanMicros", histogram.getMeanNanos() / 1000);
+         snapshot.put(prefix + "p50Micros", histogram.getPercentileNanos(50) / 1000);
+         snapshot.put(prefix + "p90Micros", histogram.getPercentileNanos(90) / 1000);
+         snapshot.put(prefix + "p99Micros", histogram.getPercentileNanos(99) / 1000);
+         snapshot.put(prefix + "maxMicros", histogram.getMaxNanos() / 1000);
+      }
+
+      for(Map.Entry<String, CacheStats> entry : cacheStats.entrySet())
+      {
+         String     prefix = "cache." + entry.getKey() + ".";
+         CacheStats stats  = entry.getValue();
+         snapshot.put(prefix + "hits", stats.hits.sum());
+         snapshot.put(prefix + "misses", stats.misses.sum());
+         snapshot.put(prefix + "coalescedWaiters", stats.coalescedWaiters.sum());
+         snapshot.put(prefix + "evictions", stats.evictions.sum());
+         snapshot.put(prefix + "size", (long) stats.size);
+         snapshot.put(prefix + "retainedBytes", stats.retainedBytes);
+      }
+
+      snapshot.put("backendQueries", backendQueryCount.sum());
+      return (snapshot);
+   }
+
+
+
+   /***************************************************************************
+    * write the current snapshot to the log (at info level).
+    ***************************************************************************/
+   public void log()
+   {
+      List<LogPair> logPairs = new ArrayList<>();
+      getSnapshot().forEach((key, value) -> logPairs.add(logPair(key, value)));
+      LOG.info("Customizable table view personalizer metrics", logPairs.toArray(new LogPair[0]));
+   }
+
+
+
+   /***************************************************************************
+    * zero all counters & histograms (cache sizes & retained bytes are left as
+    * they are, as they reflect the caches' current state, not an accumulation).
+    ***************************************************************************/
+   public void reset()
+   {
+      latencies.values().forEach(LatencyHistogram::reset);
+      for(CacheStats stats : cacheStats.values())
+      {
+         stats.hits.reset();
+         stats.misses.reset();
+         stats.coalescedWaiters.reset();
+         stats.evictions.reset();
+      }
+      backendQueryCount.reset();
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static String toCamelCase(PersonalizerOperation operation)
+   {
+      StringBuilder rs        = new StringBuilder();
+      boolean       upperNext = false;
+      for(char c : operation.name().toLowerCase().toCharArray())
+      {
+         if(c == '_')
+         {
+            upperNext = true;
+         }
+         else
+         {
+            rs.append(upperNext ? Character.toUpperCase(c) : c);
+            upperNext = false;
+         }
+      }
+      return (rs.toString());
+   }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.metrics;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*******************************************************************************
+ * Lock-free histogram of latencies, in power-of-two nanosecond buckets (i.e.,
+ * bucket i holds values in [2^i, 2^(i+1)) - so percentiles are accurate to
+ * within a factor of 2, which is plenty to see whether something costs micros
+ * or millis, for a fixed 64 longs of memory.
+ *******************************************************************************/
+public class LatencyHistogram
+{
+   private static final int BUCKET_COUNT = 64;
+
+   private final AtomicLongArray buckets    = new AtomicLongArray(BUCKET_COUNT);
+   private final LongAdder       count      = new LongAdder();
+   private final LongAdder       totalNanos = new LongAdder();
+   private final AtomicLong      maxNanos   = new AtomicLong(0);
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public void record(long nanos)
+   {
+      nanos = Math.max(nanos, 0);
+      buckets.incrementAndGet(getBucket(nanos));
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static int getBucket(long nanos)
+   {
+      return (nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos));
+   }
+
+
+
+   /***************************************************************************
+    * get an (upper-bound) estimate of a percentile (given as 0 to 100) of the
+    * recorded latencies - or 0 if none have been recorded.
+    ***************************************************************************/
+   public long getPercentileNanos(double percentile)
+   {
+      long total = getCount();
+      if(total == 0)
+      {
+         return (0);
+      }
+
+      long target     = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+      long cumulative = 0;
+      for(int i = 0; i < BUCKET_COUNT; i++)
+      {
+         cumulative += buckets.get(i);
+         if(cumulative >= target)
+         {
+            long bucketUpperBound = (i >= 62) ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            return (Math.min(bucketUpperBound, getMaxNanos()));
+         }
+      }
+
+      return (getMaxNanos());
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for count
+    *******************************************************************************/
+   public long getCount()
+   {
+      return (count.sum());
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for totalNanos
+    *******************************************************************************/
+   public long getTotalNanos()
+   {
+      return (totalNanos.sum());
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for maxNanos
+    *******************************************************************************/
+   public long getMaxNanos()
+   {
+      return (maxNanos.get());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public long getMeanNanos()
+   {
+      long total = getCount();
+      return (total == 0 ? 0 : getTotalNanos() / total);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   public void reset()
+   {
+      for(int i = 0; i < BUCKET_COUNT; i++)
+      {
+         buckets.set(i, 0);
+      }
+      count.reset();
+      totalNanos.reset();
+      maxNanos.set(0);
+   }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.metrics;
+
+
+/*******************************************************************************
+ * Receives metrics from the table personalizer's hot path - latencies of its
+ * operations, hits, misses, evictions, sizes & retained bytes of its caches,
+ * and the number of backend queries it issues.
+ *
+ * Set one on CustomizableTableViewsQBitConfig (or directly on the personalizer).
+ * Methods are called on request threads (concurrently), so implementations must
+ * be thread-safe, and should be cheap - e.g., increment counters, rather than
+ * doing any I/O.  All methods default to doing nothing, so an implementation
+ * only needs to override the ones it cares about.
+ *
+ * @see NoOpPersonalizerMetricsSink
+ * @see InMemoryPersonalizerMetricsSink
+ *******************************************************************************/
+public interface PersonalizerMetricsSinkInterface
+{
+
+   /***************************************************************************
+    * record how long (in nanoseconds) an operation took.
+    ***************************************************************************/
+   default void recordLatency(PersonalizerOperation operation, long nanos)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record that a lookup in a (named) cache found a live entry.
+    ***************************************************************************/
+   default void recordCacheHit(String cacheName)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record that a lookup in a (named) cache did not find a live entry.
+    ***************************************************************************/
+   default void recordCacheMiss(String cacheName)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record that a lookup in a (named) cache missed while another caller was
+    * already loading the same key - so, rather than running its own load, this
+    * caller waited for (and shared) that one's result.
+    ***************************************************************************/
+   default void recordCacheCoalescedWaiter(String cacheName)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record that entries were evicted from a (named) cache (e.g., due to an
+    * invalidation event, or the caches being cleared).
+    ***************************************************************************/
+   default void recordCacheEvictions(String cacheName, int count)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record the current number of entries in a (named) cache - called when
+    * entries are added or evicted.
+    ***************************************************************************/
+   default void recordCacheSize(String cacheName, int size)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record the current estimated number of bytes retained by a (named)
+    * cache's entries - called when entries are added or evicted.
+    ***************************************************************************/
+   default void recordCacheRetainedBytes(String cacheName, long retainedBytes)
+   {
+   }
+
+
+
+   /***************************************************************************
+    * record that queries were issued to the backend (e.g., to load views).
+    ***************************************************************************/
+   default void recordBackendQueries(int count)
+   {
+   }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.metrics;
+
+
+/*******************************************************************************
+ * The operations of the table personalizer whose latencies are recorded to a
+ * PersonalizerMetricsSinkInterface.
+ *******************************************************************************/
+public enum PersonalizerOperation
+{
+   ///////////////////////////////////////////////////////////////////////
+   // the whole personalization of a table (TableMetaDataPersonalizer). //
+   ///////////////////////////////////////////////////////////////////////
+   EXECUTE,
+
+   /////////////////////////////////////////////////////////////////
+   // personalizing a collection of tables together (as a batch). //
+   /////////////////////////////////////////////////////////////////
+   PERSONALIZE_TABLES,
+
+   /////////////////////////////////////////////////////////////////////////////////
+   // personalizing a customizable table - whether from cache, or by building it. //
+   /////////////////////////////////////////////////////////////////////////////////
+   CUSTOMIZE_TABLE,
+
+   ///////////////////////////////////////////////////////
+   // applying an effective view to a clone of a table. //
+   ///////////////////////////////////////////////////////
+   APPLY_VIEW_TO_TABLE,
+
+   ///////////////////////////////////////////////////////////////////
+   // loading views (with their fields & widgets) from the backend. //
+   ///////////////////////////////////////////////////////////////////
+   LOAD_VIEWS,
+
+   ////////////////////////////////////////////////////
+   // merging the views for a set of roles into one. //
+   ////////////////////////////////////////////////////
+   MERGE_VIEWS
+}
@@ -24,19 +24,20 @@ package com.kingsrook.qbits.customizabletableviews.model;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.TableViewTableNameResolver;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
 import com.kingsrook.qqq.backend.core.actions.values.QCustomPossibleValueProvider;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
 import com.kingsrook.qqq.backend.core.model.actions.values.SearchPossibleValueSourceInput;
-import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
@@ -46,6 +47,7 @@ import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleVal
 import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValueSourceType;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.StringUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
@@ -73,7 +75,9 @@ public class CustomizableTableFieldPVS implements QCustomPossibleValueProvider<S
 
 
    /***************************************************************************
-    *
+    * translate one id - as QQQ's possible value translation does, for each
+    * distinct value in the records it translates - by looking it up in the
+    * table's (memoized) possible values, rather than building a new one.
     ***************************************************************************/
    @Override
    public QPossibleValue<String> getPossibleValue(Serializable id)
@@ -81,20 +85,17 @@ public class CustomizableTableFieldPVS implements QCustomPossibleValueProvider<S
       /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
       // require the id to be table.field - since we can't see other values in the record to otherwise know the table... //
       /////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-      String idString = ValueUtils.getValueAsString(id);
-      if(idString.contains("."))
+      String             idString           = ValueUtils.getValueAsString(id);
+      QualifiedFieldName qualifiedFieldName = QualifiedFieldName.of(idString);
+      if(qualifiedFieldName != null)
       {
-         String[] parts     = idString.split("\\.");
-         String   tableName = parts[0];
-         String   fieldName = parts[1];
-
-         QTableMetaData table = QContext.getQInstance().getTable(tableName);
+         QTableMetaData table = QContext.getQInstance().getTable(qualifiedFieldName.getTableName());
          if(table != null)
          {
-            QFieldMetaData fieldMetaData = table.getFields().get(fieldName);
-            if(fieldMetaData != null)
+            QPossibleValue<String> possibleValue = getTableFieldPossibleValues(table).possibleValuesByFieldName().get(qualifiedFieldName.getFieldName());
+            if(possibleValue != null)
             {
-               return (new QPossibleValue<>(idString, fieldMetaData.getLabel()));
+               return (idString.equals(possibleValue.getId()) ? possibleValue : new QPossibleValue<>(idString, possibleValue.getLabel()));
             }
          }
       }
@@ -105,83 +106,218 @@ public class CustomizableTableFieldPVS implements QCustomPossibleValueProvider<S
 
 
    /***************************************************************************
+    * translate a collection of ids (e.g., the fieldName of every row in a list
+    * of a view's fields) in one pass - grouping them by table, so that each
+    * table is looked up once, and each id is then just a lookup in the table's
+    * (memoized) possible values - rather than a table lookup per id, as with
+    * getPossibleValue.
     *
+    * @return the possible values, keyed by id - ids that aren't table.field for
+    * a field in the instance are not included.
     ***************************************************************************/
-   @Override
-   public List<QPossibleValue<String>> search(SearchPossibleValueSourceInput searchPossibleValueSourceInput) throws QException
+   public Map<String, QPossibleValue<String>> getPossibleValues(Collection<? extends Serializable> ids)
    {
-      List<QPossibleValue<String>> allPossibleValues = new ArrayList<>();
-
-      Set<String> usedIds = new HashSet<>();
+      Map<String, QPossibleValue<String>> possibleValues = new HashMap<>();
+      if(ids == null)
+      {
+         return (possibleValues);
+      }
 
-      Integer tableViewId = ValueUtils.getValueAsInteger(CollectionUtils.nonNullMap(searchPossibleValueSourceInput.getOtherValues()).get("tableViewId"));
-      if(tableViewId != null)
+      Map<String, List<QualifiedFieldName>> qualifiedFieldNamesByTableName = new HashMap<>();
+      for(Serializable id : ids)
       {
-         List<QRecord> tableRecords = new QueryAction().execute(new QueryInput(CustomizableTable.TABLE_NAME)
-            .withFilter(new QQueryFilter().withCriteria(TableView.TABLE_NAME + ".id", QCriteriaOperator.EQUALS, tableViewId))
-            .withQueryJoin(new QueryJoin(TableView.TABLE_NAME))).getRecords();
+         QualifiedFieldName qualifiedFieldName = QualifiedFieldName.of(ValueUtils.getValueAsString(id));
+         if(qualifiedFieldName != null)
+         {
+            qualifiedFieldNamesByTableName.computeIfAbsent(qualifiedFieldName.getTableName(), k -> new ArrayList<>()).add(qualifiedFieldName);
+         }
+      }
 
-         if(CollectionUtils.nullSafeHasContents(tableRecords))
+      QInstance qInstance = QContext.getQInstance();
+      for(Map.Entry<String, List<QualifiedFieldName>> entry : qualifiedFieldNamesByTableName.entrySet())
+      {
+         QTableMetaData table = qInstance.getTable(entry.getKey());
+         if(table == null)
          {
-            String         tableName = tableRecords.get(0).getValueString("tableName");
-            QTableMetaData table     = QContext.getQInstance().getTable(tableName);
+            continue;
+         }
 
-            if(table != null)
+         Map<String, QPossibleValue<String>> possibleValuesByFieldName = getTableFieldPossibleValues(table).possibleValuesByFieldName();
+         for(QualifiedFieldName qualifiedFieldName : entry.getValue())
+         {
+            QPossibleValue<String> possibleValue = possibleValuesByFieldName.get(qualifiedFieldName.getFieldName());
+            if(possibleValue != null)
             {
-               for(QFieldMetaData field : table.getFields().values())
-               {
-                  if(field.getName().equals(table.getPrimaryKeyField()))
-                  {
-                     ////////////////////////////////////////////////////////////////////////////////////////
-                     // don't put the PKey in the PVS - it's always shown, and you can't change its rules. //
-                     ////////////////////////////////////////////////////////////////////////////////////////
-                     continue;
-                  }
-
-                  if(field.getIsRequired())
-                  {
-                     //////////////////////////////////////////////////////////////////////////////////////
-                     // don't put required fields in the PVS - you can't hide them or make them optional //
-                     //////////////////////////////////////////////////////////////////////////////////////
-                     continue;
-                  }
-
-                  if(field.getIsHidden())
-                  {
-                     ////////////////////////////////////////////////////////////////////////////////
-                     // don't put hidden fields in the PVS - users aren't allowed to turn them on. //
-                     ////////////////////////////////////////////////////////////////////////////////
-                     continue;
-                  }
-
-                  QPossibleValue<String> possibleValue = getPossibleValue(tableName + "." + field.getName());
-                  allPossibleValues.add(possibleValue);
-                  usedIds.add(possibleValue.getId());
-               }
+               ////////////////////////////////////////////////////////////////////////////////
+               // as in getPossibleValue, the value's id is the given id (which, rarely, may //
+               // not be exactly table.field - e.g., with anything after a second dot).      //
+               ////////////////////////////////////////////////////////////////////////////////
+               String id = qualifiedFieldName.getQualifiedName();
+               possibleValues.put(id, id.equals(possibleValue.getId()) ? possibleValue : new QPossibleValue<>(id, possibleValue.getLabel()));
             }
          }
       }
 
+      return (possibleValues);
+   }
+
+
+
+   /***************************************************************************
+    * Searches by term (e.g., type-ahead in the field picker) go to the table's
+    * index - ranked, then by label, and paged.  Other searches (all of a table's
+    * eligible fields, or specific ids) go through completeCustomPVSSearch, which
+    * sorts by label - as the widget possible value source does, too.
+    ***************************************************************************/
+   @Override
+   public List<QPossibleValue<String>> search(SearchPossibleValueSourceInput searchPossibleValueSourceInput) throws QException
+   {
+      QTableMetaData table       = null;
+      Integer        tableViewId = ValueUtils.getValueAsInteger(CollectionUtils.nonNullMap(searchPossibleValueSourceInput.getOtherValues()).get("tableViewId"));
+      if(tableViewId != null)
+      {
+         String tableName = TableViewTableNameResolver.getTableName(tableViewId);
+         if(tableName != null)
+         {
+            table = QContext.getQInstance().getTable(tableName);
+         }
+      }
+
+      ///////////////////////////////////////////////////////////////////////////////////////
+      // searches by term (e.g., type-ahead in the field picker) go to the table's index - //
+      // ranked & paged, without building (and filtering) a list of all of its fields.     //
+      ///////////////////////////////////////////////////////////////////////////////////////
+      if(searchPossibleValueSourceInput.getIdList() == null && StringUtils.hasContent(searchPossibleValueSourceInput.getSearchTerm()))
+      {
+         if(table == null)
+         {
+            return (new ArrayList<>());
+         }
+         return (getTableFieldPossibleValues(table).searchIndex().search(searchPossibleValueSourceInput.getSearchTerm(), searchPossibleValueSourceInput.getSkip(), searchPossibleValueSourceInput.getLimit()));
+      }
+
+      List<QPossibleValue<String>> allPossibleValues = new ArrayList<>();
+      if(table != null)
+      {
+         allPossibleValues.addAll(getEligibleFieldPossibleValues(table));
+      }
+
       //////////////////////////////////////////////////////////////////////////////////
       // if a list of ids is given in the search input, do specific searches for them //
       //////////////////////////////////////////////////////////////////////////////////
       if(searchPossibleValueSourceInput.getIdList() != null)
       {
+         Set<String> usedIds = new HashSet<>();
+         allPossibleValues.forEach(possibleValue -> usedIds.add(possibleValue.getId()));
+
+         List<String> otherIds = new ArrayList<>();
          for(Serializable id : searchPossibleValueSourceInput.getIdList())
          {
             String idString = ValueUtils.getValueAsString(id);
             if(!usedIds.contains(idString))
             {
-               QPossibleValue<String> possibleValue = getPossibleValue(idString);
-               if(possibleValue != null)
-               {
-                  allPossibleValues.add(possibleValue);
-                  usedIds.add(possibleValue.getId());
-               }
+               otherIds.add(idString);
+            }
+         }
+
+         Map<String, QPossibleValue<String>> otherPossibleValues = getPossibleValues(otherIds);
+         for(String id : otherIds)
+         {
+            QPossibleValue<String> possibleValue = otherPossibleValues.get(id);
+            if(possibleValue != null && usedIds.add(id))
+            {
+               allPossibleValues.add(possibleValue);
             }
          }
       }
 
       return completeCustomPVSSearch(searchPossibleValueSourceInput, allPossibleValues);
    }
+
+
+
+   /***************************************************************************
+    * get the possible values for the fields of a table that can be put in a
+    * view (i.e., all but its primary key, required, and hidden fields) - from
+    * cache, if they were built from this same table instance - else building
+    * (and caching) them now.  The list is shared - so, not to be modified.
+    ***************************************************************************/
+   static List<QPossibleValue<String>> getEligibleFieldPossibleValues(QTableMetaData table)
+   {
+      return (getTableFieldPossibleValues(table).eligiblePossibleValues());
+   }
+
+
+
+   /***************************************************************************
+    * get the possible values for all of a table's fields (by name), and the ones
+    * that are eligible to put in a view (along with their search index) - from
+    * the personalizer's cache (for the QInstance in the current QContext), if
+    * they were built from this same table instance - else building (and
+    * caching) them now.  So, a search (e.g., every keystroke in the field
+    * picker), or a batch of translations, is just lookups, rather than
+    * re-walking (and re-naming) all of the table's fields.
+    ***************************************************************************/
+   private static TableFieldPossibleValues getTableFieldPossibleValues(QTableMetaData table)
+   {
+      PersonalizerCache<String, TableFieldPossibleValues> cache                    = CustomizableTableViewsTablePersonalizer.getCacheState().getTableFieldPossibleValuesCache();
+      TableFieldPossibleValues                            tableFieldPossibleValues = cache.getIfPresent(table.getName());
+      if(tableFieldPossibleValues != null && tableFieldPossibleValues.table() == table && tableFieldPossibleValues.fieldCount() == table.getFields().size())
+      {
+         return (tableFieldPossibleValues);
+      }
+
+      Map<String, QPossibleValue<String>> possibleValuesByFieldName = new HashMap<>();
+      List<QPossibleValue<String>>        eligiblePossibleValues    = new ArrayList<>();
+      for(QFieldMetaData field : table.getFields().values())
+      {
+         QPossibleValue<String> possibleValue = new QPossibleValue<>(table.getName() + "." + field.getName(), field.getLabel());
+         possibleValuesByFieldName.put(field.getName(), possibleValue);
+
+         if(field.getName().equals(table.getPrimaryKeyField()))
+         {
+            ////////////////////////////////////////////////////////////////////////////////////////
+            // don't put the PKey in the PVS - it's always shown, and you can't change its rules. //
+            ////////////////////////////////////////////////////////////////////////////////////////
+            continue;
+         }
+
+         if(field.getIsRequired())
+         {
+            //////////////////////////////////////////////////////////////////////////////////////
+            // don't put required fields in the PVS - you can't hide them or make them optional //
+            //////////////////////////////////////////////////////////////////////////////////////
+            continue;
+         }
+
+         if(field.getIsHidden())
+         {
+            ////////////////////////////////////////////////////////////////////////////////
+            // don't put hidden fields in the PVS - users aren't allowed to turn them on. //
+            ////////////////////////////////////////////////////////////////////////////////
+            continue;
+         }
+
+         eligiblePossibleValues.add(possibleValue);
+      }
+
+      int                      fieldNameStart = table.getName().length() + 1;
+      PossibleValueSearchIndex searchIndex    = new PossibleValueSearchIndex(eligiblePossibleValues, id -> id.substring(fieldNameStart));
+
+      tableFieldPossibleValues = new TableFieldPossibleValues(table, table.getFields().size(), Collections.unmodifiableMap(possibleValuesByFieldName), Collections.unmodifiableList(eligiblePossibleValues), searchIndex);
+      cache.put(table.getName(), tableFieldPossibleValues);
+      return (tableFieldPossibleValues);
+   }
+
+
+
+   /***************************************************************************
+    * the possible values for all of a table's fields (by name), and the eligible
+    * ones (and an index for searching them) - along with the table instance
+    * (and its number of fields) that they were built from, to tell if the
+    * instance's meta-data has changed since.
+    ***************************************************************************/
+   public record TableFieldPossibleValues(QTableMetaData table, int fieldCount, Map<String, QPossibleValue<String>> possibleValuesByFieldName, List<QPossibleValue<String>> eligiblePossibleValues, PossibleValueSearchIndex searchIndex)
+   {
+   }
 }
@@ -24,17 +24,20 @@ package com.kingsrook.qbits.customizabletableviews.model;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.TableViewTableNameResolver;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
 import com.kingsrook.qqq.backend.core.actions.values.QCustomPossibleValueProvider;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QCriteriaOperator;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
-import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryJoin;
 import com.kingsrook.qqq.backend.core.model.actions.values.SearchPossibleValueSourceInput;
-import com.kingsrook.qqq.backend.core.model.data.QRecord;
 import com.kingsrook.qqq.backend.core.model.metadata.MetaDataProducerInterface;
 import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.code.QCodeReference;
@@ -45,6 +48,7 @@ import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleVal
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QFieldSection;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.utils.CollectionUtils;
+import com.kingsrook.qqq.backend.core.utils.StringUtils;
 import com.kingsrook.qqq.backend.core.utils.ValueUtils;
 
 
@@ -72,57 +76,231 @@ public class CustomizableTableWidgetPVS implements QCustomPossibleValueProvider<
 
 
    /***************************************************************************
-    *
+    * translate one id - as QQQ's possible value translation does, for each
+    * distinct value in the records it translates.
     ***************************************************************************/
    @Override
    public QPossibleValue<String> getPossibleValue(Serializable id)
    {
-      String                   idString = ValueUtils.getValueAsString(id);
-      QWidgetMetaDataInterface widget   = QContext.getQInstance().getWidget(idString);
+      return (getWidgetPossibleValue(QContext.getQInstance(), ValueUtils.getValueAsString(id)));
+   }
+
+
+
+   /***************************************************************************
+    * translate a collection of ids (e.g., the widgetName of every row in a list
+    * of a view's widgets) in one pass - building the possible value for each
+    * distinct id just once.
+    *
+    * @return the possible values, keyed by id - ids that aren't the name of a
+    * widget in the instance are not included.
+    ***************************************************************************/
+   public Map<String, QPossibleValue<String>> getPossibleValues(Collection<? extends Serializable> ids)
+   {
+      Map<String, QPossibleValue<String>> possibleValues = new HashMap<>();
+      if(ids == null)
+      {
+         return (possibleValues);
+      }
 
-      if(widget != null)
+      QInstance qInstance = QContext.getQInstance();
+      for(Serializable id : ids)
       {
-         return (new QPossibleValue<>(idString, widget.getLabel()));
+         String idString = ValueUtils.getValueAsString(id);
+         if(idString == null || possibleValues.containsKey(idString))
+         {
+            continue;
+         }
+
+         QPossibleValue<String> possibleValue = getWidgetPossibleValue(qInstance, idString);
+         if(possibleValue != null)
+         {
+            possibleValues.put(idString, possibleValue);
+         }
       }
 
-      return null;
+      return (possibleValues);
    }
 
 
 
    /***************************************************************************
+    * build the possible value for a widget - which is just a map lookup and a
+    * small object, so, it isn't worth caching (and then validating, on every
+    * hit, against the widget's current meta-data).
     *
+    * @return the possible value, or null if there's no widget by the name.
+    ***************************************************************************/
+   static QPossibleValue<String> getWidgetPossibleValue(QInstance qInstance, String widgetName)
+   {
+      QWidgetMetaDataInterface widget = widgetName == null ? null : qInstance.getWidget(widgetName);
+      if(widget == null)
+      {
+         return (null);
+      }
+
+      return (new QPossibleValue<>(widgetName, widget.getLabel()));
+   }
+
+
+
+   /***************************************************************************
+    * Searches by term (e.g., type-ahead in the widget picker) go to the table's
+    * index - ranked, then by label, and paged.  Other searches (all of a table's
+    * widgets, or specific ids) go through completeCustomPVSSearch, which sorts
+    * by label.  So results are ordered the same way as the field possible value
+    * source's.
     ***************************************************************************/
    @Override
    public List<QPossibleValue<String>> search(SearchPossibleValueSourceInput searchPossibleValueSourceInput) throws QException
    {
+      QTableMetaData table       = null;
+      Integer        tableViewId = ValueUtils.getValueAsInteger(CollectionUtils.nonNullMap(searchPossibleValueSourceInput.getOtherValues()).get("tableViewId"));
+      if(tableViewId != null)
+      {
+         String tableName = TableViewTableNameResolver.getTableName(tableViewId);
+         if(tableName != null)
+         {
+            table = QContext.getQInstance().getTable(tableName);
+         }
+      }
+
+      ////////////////////////////////////////////////////////////////////////////////////
+      // searches by term (e.g., type-ahead in the widget picker) go to the index -     //
+      // ranked & paged, without building (and filtering) a list of all of the widgets. //
+      ////////////////////////////////////////////////////////////////////////////////////
+      if(searchPossibleValueSourceInput.getIdList() == null && StringUtils.hasContent(searchPossibleValueSourceInput.getSearchTerm()))
+      {
+         if(table == null)
+         {
+            return (new ArrayList<>());
+         }
+         return (getWidgetSearchIndex(table).search(searchPossibleValueSourceInput.getSearchTerm(), searchPossibleValueSourceInput.getSkip(), searchPossibleValueSourceInput.getLimit()));
+      }
+
       List<QPossibleValue<String>> allPossibleValues = new ArrayList<>();
+      if(table != null)
+      {
+         allPossibleValues.addAll(getWidgetSearchIndex(table).getPossibleValues());
+      }
 
-      Integer tableViewId = ValueUtils.getValueAsInteger(CollectionUtils.nonNullMap(searchPossibleValueSourceInput.getOtherValues()).get("tableViewId"));
-      if(tableViewId != null)
+      ////////////////////////////////////////////////////////////////////////////////
+      // as with fields - if a list of ids is given in the search input, do         //
+      // specific searches for them (e.g., for a widget that's in a view, but is no //
+      // longer in its table's sections).                                           //
+      ////////////////////////////////////////////////////////////////////////////////
+      if(searchPossibleValueSourceInput.getIdList() != null)
+      {
+         Set<String> usedIds = new HashSet<>();
+         allPossibleValues.forEach(possibleValue -> usedIds.add(possibleValue.getId()));
+
+         List<String> otherIds = new ArrayList<>();
+         for(Serializable id : searchPossibleValueSourceInput.getIdList())
+         {
+            String idString = ValueUtils.getValueAsString(id);
+            if(!usedIds.contains(idString))
+            {
+               otherIds.add(idString);
+            }
+         }
+
+         Map<String, QPossibleValue<String>> otherPossibleValues = getPossibleValues(otherIds);
+         for(String id : otherIds)
+         {
+            QPossibleValue<String> possibleValue = otherPossibleValues.get(id);
+            if(possibleValue != null && usedIds.add(id))
+            {
+               allPossibleValues.add(possibleValue);
+            }
+         }
+      }
+
+      return completeCustomPVSSearch(searchPossibleValueSourceInput, allPossibleValues);
+   }
+
+
+
+   /***************************************************************************
+    * get the search index over the possible values for the widgets in a table's
+    * sections - from the personalizer's cache (for the QInstance in the current
+    * QContext), if it was built from this same table instance, and the same
+    * widgets (with the same labels) - else building (and caching) it now.
+    ***************************************************************************/
+   static PossibleValueSearchIndex getWidgetSearchIndex(QTableMetaData table)
+   {
+      QInstance                                         qInstance              = QContext.getQInstance();
+      PersonalizerCache<String, TableWidgetSearchIndex> cache                  = CustomizableTableViewsTablePersonalizer.getCacheState().getTableWidgetSearchIndexCache();
+      TableWidgetSearchIndex                            tableWidgetSearchIndex = cache.getIfPresent(table.getName());
+      if(tableWidgetSearchIndex != null && tableWidgetSearchIndex.isCurrent(qInstance, table))
       {
-         List<QRecord> tableRecords = new QueryAction().execute(new QueryInput(CustomizableTable.TABLE_NAME)
-            .withFilter(new QQueryFilter().withCriteria(TableView.TABLE_NAME + ".id", QCriteriaOperator.EQUALS, tableViewId))
-            .withQueryJoin(new QueryJoin(TableView.TABLE_NAME))).getRecords();
+         return (tableWidgetSearchIndex.searchIndex());
+      }
 
-         if(CollectionUtils.nullSafeHasContents(tableRecords))
+      List<String>                   widgetNames    = new ArrayList<>();
+      List<QWidgetMetaDataInterface> widgets        = new ArrayList<>();
+      List<String>                   labels         = new ArrayList<>();
+      List<QPossibleValue<String>>   possibleValues = new ArrayList<>();
+      for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+      {
+         if(section.getWidgetName() != null)
          {
-            String         tableName = tableRecords.get(0).getValueString("tableName");
-            QTableMetaData table     = QContext.getQInstance().getTable(tableName);
+            QWidgetMetaDataInterface widget = qInstance.getWidget(section.getWidgetName());
+            widgetNames.add(section.getWidgetName());
+            widgets.add(widget);
+            labels.add(widget == null ? null : widget.getLabel());
+            if(widget != null)
+            {
+               possibleValues.add(getWidgetPossibleValue(qInstance, section.getWidgetName()));
+            }
+         }
+      }
+
+      tableWidgetSearchIndex = new TableWidgetSearchIndex(table, widgetNames, widgets, labels, new PossibleValueSearchIndex(possibleValues, widgetName -> widgetName));
+      cache.put(table.getName(), tableWidgetSearchIndex);
+      return (tableWidgetSearchIndex.searchIndex());
+   }
+
+
 
-            if(table != null)
+   /***************************************************************************
+    * a search index over a table's widgets - along with the table instance,
+    * and the names, instances & labels of the widgets in its sections, that it
+    * was built from, to tell if the instance's meta-data has changed since.
+    ***************************************************************************/
+   public record TableWidgetSearchIndex(QTableMetaData table, List<String> widgetNames, List<QWidgetMetaDataInterface> widgets, List<String> labels, PossibleValueSearchIndex searchIndex)
+   {
+
+      /***************************************************************************
+       * check if the table, and each of the widgets in its sections (and their
+       * labels), are still the ones that the index was built from.
+       ***************************************************************************/
+      boolean isCurrent(QInstance qInstance, QTableMetaData table)
+      {
+         if(this.table != table)
+         {
+            return (false);
+         }
+
+         int index = 0;
+         for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+         {
+            if(section.getWidgetName() != null)
             {
-               for(QFieldSection section : CollectionUtils.nonNullList(table.getSections()))
+               if(index >= widgetNames.size() || !widgetNames.get(index).equals(section.getWidgetName()))
+               {
+                  return (false);
+               }
+
+               QWidgetMetaDataInterface widget = qInstance.getWidget(section.getWidgetName());
+               if(widget != widgets.get(index) || (widget != null && !Objects.equals(widget.getLabel(), labels.get(index))))
                {
-                  if(section.getWidgetName() != null)
-                  {
-                     allPossibleValues.add(getPossibleValue(section.getWidgetName()));
-                  }
+                  return (false);
                }
+               index++;
             }
          }
-      }
 
-      return completeCustomPVSSearch(searchPossibleValueSourceInput, allPossibleValues);
+         return (index == widgetNames.size());
+      }
    }
 }
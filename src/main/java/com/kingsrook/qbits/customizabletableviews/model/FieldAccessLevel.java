@@ -148,13 +148,68 @@ public enum FieldAccessLevel implements PossibleValueEnum<String>
     *
     ***************************************************************************/
    public void apply(QFieldMetaData fieldMetaData)
+   {
+      if(!isApplicableTo(fieldMetaData))
+      {
+         return;
+      }
+
+      /////////////////////////////////////////////////////////////////////////////////////////////
+      // so - we'll only be here for "editable, optional" fields - where we can change 2 things: //
+      /////////////////////////////////////////////////////////////////////////////////////////////
+      if(this == READ_ONLY)
+      {
+         fieldMetaData.setIsEditable(false);
+      }
+      else if(this == EDITABLE_REQUIRED)
+      {
+         fieldMetaData.setIsRequired(true);
+      }
+   }
+
+
+
+   /***************************************************************************
+    * get the isEditable value that applying this access level to a field would
+    * give it - without modifying the field.
+    ***************************************************************************/
+   public boolean getEffectiveIsEditable(QFieldMetaData fieldMetaData)
+   {
+      if(this == READ_ONLY && isApplicableTo(fieldMetaData))
+      {
+         return (false);
+      }
+      return (fieldMetaData.getIsEditable());
+   }
+
+
+
+   /***************************************************************************
+    * get the isRequired value that applying this access level to a field would
+    * give it - without modifying the field.
+    ***************************************************************************/
+   public boolean getEffectiveIsRequired(QFieldMetaData fieldMetaData)
+   {
+      if(this == EDITABLE_REQUIRED && isApplicableTo(fieldMetaData))
+      {
+         return (true);
+      }
+      return (fieldMetaData.getIsRequired());
+   }
+
+
+
+   /***************************************************************************
+    * check if an access level is allowed to change a field at all.
+    ***************************************************************************/
+   private boolean isApplicableTo(QFieldMetaData fieldMetaData)
    {
       if(fieldMetaData.getIsHidden())
       {
          //////////////////////////////////////////////////////////////////////////////////////
          // if the field is hidden, then no access level is allowed to un-hide it. so, noop. //
          //////////////////////////////////////////////////////////////////////////////////////
-         return;
+         return (false);
       }
 
       if(!fieldMetaData.getIsEditable())
@@ -164,7 +219,7 @@ public enum FieldAccessLevel implements PossibleValueEnum<String>
          // but, we don't actually have a hidden level - that's just the default if no  //
          // level is defined.  so, also noop if field is editable.                      //
          /////////////////////////////////////////////////////////////////////////////////
-         return;
+         return (false);
       }
 
       if(fieldMetaData.getIsRequired())
@@ -172,20 +227,10 @@ public enum FieldAccessLevel implements PossibleValueEnum<String>
          ////////////////////////////////////////////////////////////////////////////////////
          // if the field is required, we're not allowed to change it.  it must be entered. //
          ////////////////////////////////////////////////////////////////////////////////////
-         return;
+         return (false);
       }
 
-      /////////////////////////////////////////////////////////////////////////////////////////////
-      // so - we'll only be here for "editable, optional" fields - where we can change 2 things: //
-      /////////////////////////////////////////////////////////////////////////////////////////////
-      if(this == READ_ONLY)
-      {
-         fieldMetaData.setIsEditable(false);
-      }
-      else if(this == EDITABLE_REQUIRED)
-      {
-         fieldMetaData.setIsRequired(true);
-      }
+      return (true);
    }
 
 
@@ -0,0 +1,335 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValue;
+
+
+/*******************************************************************************
+ * An in-memory index over a (fixed) list of possible values - e.g., the fields
+ * or widgets of one table - for type-ahead searches, such as those run on each
+ * keystroke while building a table view.
+ *
+ * Each value's label, and its name (e.g., a field name, rather than the whole
+ * "table.field" id), are split into lower-cased tokens (on non-alphanumerics,
+ * and camelCase humps), which are kept sorted - so the values having a token
+ * that starts with a search word are found by binary search.  Every word of a
+ * search term must prefix one of a value's tokens for it to match.
+ *
+ * Matches are ranked: first, an exact id or label; then labels starting with
+ * the whole term; then a label token match; then just a name token match - and
+ * within each rank, by label.  Only the requested page of matches is built
+ * into a result list.
+ *******************************************************************************/
+public final class PossibleValueSearchIndex
+{
+   private static final int RANK_EXACT              = 0;
+   private static final int RANK_LABEL_PREFIX       = 1;
+   private static final int RANK_LABEL_TOKEN_PREFIX = 2;
+   private static final int RANK_NAME_TOKEN_PREFIX  = 3;
+   private static final int RANK_COUNT              = 4;
+   private static final int NO_MATCH                = Integer.MAX_VALUE;
+
+   ///////////////////////////////////////////////////////
+   // the possible values, sorted by label (nulls last) //
+   ///////////////////////////////////////////////////////
+   private final List<QPossibleValue<String>> possibleValues;
+   private final String[]                     lowerCaseLabels;
+   private final Map<String, Integer>         ordinalsByLowerCaseId = new HashMap<>();
+
+   ////////////////////////////////////////////////////////////////////////////////////
+   // parallel arrays, sorted by token: each token, the ordinal of the value that it //
+   // came from, and whether it came from the value's label (else its name).         //
+   ////////////////////////////////////////////////////////////////////////////////////
+   private final String[]  tokens;
+   private final int[]     tokenOrdinals;
+   private final boolean[] tokenIsFromLabel;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    ** @param possibleValues the values to index (nulls are skipped).
+    ** @param nameFunction gives the name to index for each value's id (e.g., the
+    ** field name in a "table.field" id) - or null to not index names.
+    *******************************************************************************/
+   public PossibleValueSearchIndex(List<QPossibleValue<String>> possibleValues, Function<String, String> nameFunction)
+   {
+      List<QPossibleValue<String>> sortedPossibleValues = new ArrayList<>();
+      for(QPossibleValue<String> possibleValue : possibleValues)
+      {
+         if(possibleValue != null)
+         {
+            sortedPossibleValues.add(possibleValue);
+         }
+      }
+      sortedPossibleValues.sort(Comparator.comparing(QPossibleValue::getLabel, Comparator.nullsLast(Comparator.naturalOrder())));
+
+      this.possibleValues = Collections.unmodifiableList(sortedPossibleValues);
+      this.lowerCaseLabels = new String[sortedPossibleValues.size()];
+
+      List<TokenEntry> tokenEntries = new ArrayList<>();
+      for(int ordinal = 0; ordinal < sortedPossibleValues.size(); ordinal++)
+      {
+         QPossibleValue<String> possibleValue = sortedPossibleValues.get(ordinal);
+         String                 label         = possibleValue.getLabel();
+         String                 id            = possibleValue.getId();
+
+         lowerCaseLabels[ordinal] = label == null ? null : label.toLowerCase();
+         if(id != null)
+         {
+            ordinalsByLowerCaseId.putIfAbsent(id.toLowerCase(), ordinal);
+         }
+
+         for(String token : tokenize(label))
+         {
+            tokenEntries.add(new TokenEntry(token, ordinal, true));
+         }
+
+         String name = (id == null || nameFunction == null) ? null : nameFunction.apply(id);
+         for(String token : tokenize(name))
+         {
+            tokenEntries.add(new TokenEntry(token, ordinal, false));
+         }
+      }
+
+      tokenEntries.sort(Comparator.comparing(TokenEntry::token).thenComparingInt(TokenEntry::ordinal));
+      this.tokens = new String[tokenEntries.size()];
+      this.tokenOrdinals = new int[tokenEntries.size()];
+      this.tokenIsFromLabel = new boolean[tokenEntries.size()];
+      for(int i = 0; i < tokenEntries.size(); i++)
+      {
+         tokens[i] = tokenEntries.get(i).token();
+         tokenOrdinals[i] = tokenEntries.get(i).ordinal();
+         tokenIsFromLabel[i] = tokenEntries.get(i).isFromLabel();
+      }
+   }
+
+
+
+   /***************************************************************************
+    * split a string into lower-cased tokens - breaking on anything other than
+    * letters & digits, and where a lower-case letter or digit is followed by an
+    * upper-case letter (e.g., "orderDate2" gives "order", "date2").
+    ***************************************************************************/
+   static List<String> tokenize(String string)
+   {
+      if(string == null || string.isEmpty())
+      {
+         return (Collections.emptyList());
+      }
+
+      List<String> tokens = new ArrayList<>();
+      int          start  = -1;
+      for(int i = 0; i <= string.length(); i++)
+      {
+         char    c               = i < string.length() ? string.charAt(i) : ' ';
+         boolean isLetterOrDigit = Character.isLetterOrDigit(c);
+         boolean isCamelCaseHump = start >= 0 && isLetterOrDigit && Character.isUpperCase(c) && !Character.isUpperCase(string.charAt(i - 1));
+
+         if(start >= 0 && (!isLetterOrDigit || isCamelCaseHump))
+         {
+            tokens.add(string.substring(start, i).toLowerCase());
+            start = -1;
+         }
+
+         if(isLetterOrDigit && start < 0)
+         {
+            start = i;
+         }
+      }
+
+      return (tokens);
+   }
+
+
+
+   /***************************************************************************
+    * find the possible values matching a search term, ranked - returning just
+    * the page of them given by skip & limit (null limit meaning no limit).  A
+    * null or blank term matches all values (in label order).
+    ***************************************************************************/
+   public List<QPossibleValue<String>> search(String searchTerm, Integer skip, Integer limit)
+   {
+      int from = skip == null ? 0 : Math.max(skip, 0);
+      int to   = limit == null ? Integer.MAX_VALUE : (int) Math.min((long) from + Math.max(limit, 0), Integer.MAX_VALUE);
+
+      String lowerCaseTerm = searchTerm == null ? "" : searchTerm.trim().toLowerCase();
+      if(lowerCaseTerm.isEmpty())
+      {
+         return (possibleValues.subList(Math.min(from, possibleValues.size()), Math.min(to, possibleValues.size())));
+      }
+
+      int[] ranks = getRanks(lowerCaseTerm);
+
+      //////////////////////////////////////////////////////////////////////////////
+      // walk the ranks in order (and values by label, within each) - only adding //
+      // the matches that fall in the requested page.                             //
+      //////////////////////////////////////////////////////////////////////////////
+      List<QPossibleValue<String>> page  = new ArrayList<>();
+      int                          index = 0;
+      for(int rank = 0; rank < RANK_COUNT && index < to; rank++)
+      {
+         for(int ordinal = 0; ordinal < ranks.length && index < to; ordinal++)
+         {
+            if(ranks[ordinal] == rank)
+            {
+               if(index >= from)
+               {
+                  page.add(possibleValues.get(ordinal));
+               }
+               index++;
+            }
+         }
+      }
+
+      return (page);
+   }
+
+
+
+   /***************************************************************************
+    * get the rank of each value (by ordinal) for a (lower-cased, trimmed) term
+    * - NO_MATCH for values that don't match it.
+    ***************************************************************************/
+   private int[] getRanks(String lowerCaseTerm)
+   {
+      int[] ranks = new int[possibleValues.size()];
+      Arrays.fill(ranks, NO_MATCH);
+
+      List<String> termTokens = tokenize(lowerCaseTerm);
+      if(!termTokens.isEmpty())
+      {
+         //////////////////////////////////////////////////////////////////////////////
+         // rank by the first word's matches - then drop any value that doesn't also //
+         // match each of the other words.                                           //
+         //////////////////////////////////////////////////////////////////////////////
+         for(int i = findFirstTokenWithPrefix(termTokens.get(0)); i < tokens.length && tokens[i].startsWith(termTokens.get(0)); i++)
+         {
+            ranks[tokenOrdinals[i]] = Math.min(ranks[tokenOrdinals[i]], tokenIsFromLabel[i] ? RANK_LABEL_TOKEN_PREFIX : RANK_NAME_TOKEN_PREFIX);
+         }
+
+         for(String termToken : termTokens.subList(1, termTokens.size()))
+         {
+            boolean[] matches = new boolean[ranks.length];
+            for(int i = findFirstTokenWithPrefix(termToken); i < tokens.length && tokens[i].startsWith(termToken); i++)
+            {
+               matches[tokenOrdinals[i]] = true;
+            }
+
+            for(int ordinal = 0; ordinal < ranks.length; ordinal++)
+            {
+               if(!matches[ordinal])
+               {
+                  ranks[ordinal] = NO_MATCH;
+               }
+            }
+         }
+      }
+
+      ////////////////////////////////////////////////////////////////////////////////////
+      // a label starting with the whole term always matches (even if the term doesn't  //
+      // end on a token boundary, e.g., "orderd" for "OrderDate") - as does an exact id //
+      // (e.g., a full "table.field" id, which isn't itself a token).                   //
+      ////////////////////////////////////////////////////////////////////////////////////
+      for(int ordinal = 0; ordinal < ranks.length; ordinal++)
+      {
+         if(lowerCaseLabels[ordinal] != null && lowerCaseLabels[ordinal].startsWith(lowerCaseTerm))
+         {
+            ranks[ordinal] = lowerCaseLabels[ordinal].length() == lowerCaseTerm.length() ? RANK_EXACT : RANK_LABEL_PREFIX;
+         }
+      }
+
+      Integer idOrdinal = ordinalsByLowerCaseId.get(lowerCaseTerm);
+      if(idOrdinal != null)
+      {
+         ranks[idOrdinal] = RANK_EXACT;
+      }
+
+      return (ranks);
+   }
+
+
+
+   /***************************************************************************
+    * binary search for the index of the first token that's >= a prefix (thus,
+    * the first that could start with it).
+    ***************************************************************************/
+   private int findFirstTokenWithPrefix(String prefix)
+   {
+      int low  = 0;
+      int high = tokens.length;
+      while(low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if(tokens[mid].compareTo(prefix) < 0)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return (low);
+   }
+
+
+
+   /***************************************************************************
+    * get all of the possible values (sorted by label).
+    ***************************************************************************/
+   public List<QPossibleValue<String>> getPossibleValues()
+   {
+      return (possibleValues);
+   }
+
+
+
+   /***************************************************************************
+    * get the number of tokens indexed (e.g., for estimating the index's size).
+    ***************************************************************************/
+   public int getTokenCount()
+   {
+      return (tokens.length);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private record TokenEntry(String token, int ordinal, boolean isFromLabel)
+   {
+   }
+
+}
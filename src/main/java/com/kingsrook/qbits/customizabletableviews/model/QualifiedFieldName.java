@@ -0,0 +1,194 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/*******************************************************************************
+ * A "tableName.fieldName" string (as stored in TableViewField.fieldName, and
+ * used as ids in the CustomizableTableFieldPVS), parsed into its parts.
+ *
+ * Instances are interned (up to a bounded number of them), so parsing the same
+ * name repeatedly (e.g., once per request) is just a map lookup - and so that
+ * many TableViewField records for the same field share a single instance.
+ *******************************************************************************/
+public final class QualifiedFieldName
+{
+   private static final int MAX_INTERNED_NAMES = 50_000;
+
+   private static final Map<String, QualifiedFieldName> internedNames = new ConcurrentHashMap<>();
+
+   private final String qualifiedName;
+   private final String tableName;
+   private final String fieldName;
+
+
+
+   /*******************************************************************************
+    ** Constructor
+    **
+    *******************************************************************************/
+   private QualifiedFieldName(String qualifiedName, String tableName, String fieldName)
+   {
+      this.qualifiedName = qualifiedName;
+      this.tableName = tableName;
+      this.fieldName = fieldName;
+   }
+
+
+
+   /***************************************************************************
+    * get the (interned) instance for a "tableName.fieldName" string - or null
+    * if the input is null or doesn't contain a dot.
+    *
+    * Like the String.split("\\.") this replaces, anything after a second dot
+    * is ignored (so "a.b.c" gives table "a", field "b").
+    ***************************************************************************/
+   public static QualifiedFieldName of(String qualifiedName)
+   {
+      if(qualifiedName == null)
+      {
+         return (null);
+      }
+
+      QualifiedFieldName interned = internedNames.get(qualifiedName);
+      if(interned != null)
+      {
+         return (interned);
+      }
+
+      QualifiedFieldName parsed = parse(qualifiedName);
+      if(parsed == null)
+      {
+         return (null);
+      }
+
+      ///////////////////////////////////////////////////////////////////////////////
+      // don't let a stream of arbitrary strings (e.g., PVS ids) grow this forever //
+      ///////////////////////////////////////////////////////////////////////////////
+      if(internedNames.size() >= MAX_INTERNED_NAMES)
+      {
+         return (parsed);
+      }
+
+      interned = internedNames.putIfAbsent(qualifiedName, parsed);
+      return (interned == null ? parsed : interned);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private static QualifiedFieldName parse(String qualifiedName)
+   {
+      int dotIndex = qualifiedName.indexOf('.');
+      if(dotIndex < 0)
+      {
+         return (null);
+      }
+
+      int    endIndex  = qualifiedName.indexOf('.', dotIndex + 1);
+      String tableName = qualifiedName.substring(0, dotIndex);
+      String fieldName = qualifiedName.substring(dotIndex + 1, endIndex < 0 ? qualifiedName.length() : endIndex);
+      return (new QualifiedFieldName(qualifiedName, tableName.intern(), fieldName.intern()));
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for qualifiedName - e.g., the original "tableName.fieldName" string.
+    *******************************************************************************/
+   public String getQualifiedName()
+   {
+      return (this.qualifiedName);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for tableName
+    *******************************************************************************/
+   public String getTableName()
+   {
+      return (this.tableName);
+   }
+
+
+
+   /*******************************************************************************
+    ** Getter for fieldName
+    *******************************************************************************/
+   public String getFieldName()
+   {
+      return (this.fieldName);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public boolean equals(Object o)
+   {
+      if(this == o)
+      {
+         return (true);
+      }
+
+      if(o == null || getClass() != o.getClass())
+      {
+         return (false);
+      }
+
+      QualifiedFieldName that = (QualifiedFieldName) o;
+      return (Objects.equals(qualifiedName, that.qualifiedName));
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public int hashCode()
+   {
+      return (qualifiedName.hashCode());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   @Override
+   public String toString()
+   {
+      return (qualifiedName);
+   }
+
+}
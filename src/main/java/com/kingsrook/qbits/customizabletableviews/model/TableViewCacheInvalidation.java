@@ -0,0 +1,390 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.time.Instant;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QField;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.ValueTooLongBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.annotations.QMetaDataProducingEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+
+
+/*******************************************************************************
+ ** QRecord Entity for TableViewCacheInvalidation table
+ **
+ ** A change-log of invalidation events for the table personalizer's caches,
+ ** written & read by PollingCacheInvalidationBroadcaster, so that a change made
+ ** on one server node invalidates the caches on every other node.  Only used if
+ ** that broadcaster is configured; rows can be purged after a retention period.
+ *******************************************************************************/
+@QMetaDataProducingEntity(
+   produceTableMetaData = true,
+   tableMetaDataCustomizer = TableViewCacheInvalidation.TableMetaDataCustomizer.class
+)
+public class TableViewCacheInvalidation extends QRecordEntity
+{
+   public static final String TABLE_NAME = "TableViewCacheInvalidation";
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public static class TableMetaDataCustomizer implements MetaDataCustomizerInterface<QTableMetaData>
+   {
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QTableMetaData customizeMetaData(QInstance qInstance, QTableMetaData table) throws QException
+      {
+         table
+            .withIcon(new QIcon().withName("sync"))
+            .withRecordLabelFormat("%s")
+            .withRecordLabelFields("id")
+            .withSection(SectionFactory.defaultT1("id", "nodeId"))
+            .withSection(SectionFactory.defaultT2("clearAll", "tableName", "roleId", "tableViewId"))
+            .withSection(SectionFactory.defaultT3("createDate"));
+
+         return (table);
+      }
+   }
+
+
+
+   @QField(isEditable = false, isPrimaryKey = true)
+   private Integer id;
+
+   @QField(isRequired = true, maxLength = 100, valueTooLongBehavior = ValueTooLongBehavior.ERROR)
+   private String nodeId;
+
+   @QField()
+   private Boolean clearAll;
+
+   @QField(maxLength = 100, valueTooLongBehavior = ValueTooLongBehavior.ERROR)
+   private String tableName;
+
+   @QField()
+   private Integer roleId;
+
+   @QField()
+   private Integer tableViewId;
+
+   @QField(isEditable = false)
+   private Instant createDate;
+
+
+
+   /*******************************************************************************
+    ** Default constructor
+    *******************************************************************************/
+   public TableViewCacheInvalidation()
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor that takes a QRecord
+    *******************************************************************************/
+   public TableViewCacheInvalidation(QRecord record)
+   {
+      populateFromQRecord(record);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for id
+    * @see #withId(Integer)
+    *******************************************************************************/
+   public Integer getId()
+   {
+      return (this.id);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for id
+    * @see #withId(Integer)
+    *******************************************************************************/
+   public void setId(Integer id)
+   {
+      this.id = id;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for id
+    *
+    * @param id
+    * unique id of the invalidation record
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withId(Integer id)
+   {
+      this.id = id;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for nodeId
+    * @see #withNodeId(String)
+    *******************************************************************************/
+   public String getNodeId()
+   {
+      return (this.nodeId);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for nodeId
+    * @see #withNodeId(String)
+    *******************************************************************************/
+   public void setNodeId(String nodeId)
+   {
+      this.nodeId = nodeId;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for nodeId
+    *
+    * @param nodeId
+    * id of the server node that wrote this record (so that node can skip its own records)
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withNodeId(String nodeId)
+   {
+      this.nodeId = nodeId;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for clearAll
+    * @see #withClearAll(Boolean)
+    *******************************************************************************/
+   public Boolean getClearAll()
+   {
+      return (this.clearAll);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for clearAll
+    * @see #withClearAll(Boolean)
+    *******************************************************************************/
+   public void setClearAll(Boolean clearAll)
+   {
+      this.clearAll = clearAll;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for clearAll
+    *
+    * @param clearAll
+    * if true, all cache entries are invalidated
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withClearAll(Boolean clearAll)
+   {
+      this.clearAll = clearAll;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for tableName
+    * @see #withTableName(String)
+    *******************************************************************************/
+   public String getTableName()
+   {
+      return (this.tableName);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for tableName
+    * @see #withTableName(String)
+    *******************************************************************************/
+   public void setTableName(String tableName)
+   {
+      this.tableName = tableName;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for tableName
+    *
+    * @param tableName
+    * name of the table whose cache entries are invalidated
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withTableName(String tableName)
+   {
+      this.tableName = tableName;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for roleId
+    * @see #withRoleId(Integer)
+    *******************************************************************************/
+   public Integer getRoleId()
+   {
+      return (this.roleId);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for roleId
+    * @see #withRoleId(Integer)
+    *******************************************************************************/
+   public void setRoleId(Integer roleId)
+   {
+      this.roleId = roleId;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for roleId
+    *
+    * @param roleId
+    * if set, only entries for role sets including this role are invalidated (for tableName)
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withRoleId(Integer roleId)
+   {
+      this.roleId = roleId;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for tableViewId
+    * @see #withTableViewId(Integer)
+    *******************************************************************************/
+   public Integer getTableViewId()
+   {
+      return (this.tableViewId);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for tableViewId
+    * @see #withTableViewId(Integer)
+    *******************************************************************************/
+   public void setTableViewId(Integer tableViewId)
+   {
+      this.tableViewId = tableViewId;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for tableViewId
+    *
+    * @param tableViewId
+    * if set, the cached table name of this table view is invalidated (instead of any table's entries)
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withTableViewId(Integer tableViewId)
+   {
+      this.tableViewId = tableViewId;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for createDate
+    * @see #withCreateDate(Instant)
+    *******************************************************************************/
+   public Instant getCreateDate()
+   {
+      return (this.createDate);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for createDate
+    * @see #withCreateDate(Instant)
+    *******************************************************************************/
+   public void setCreateDate(Instant createDate)
+   {
+      this.createDate = createDate;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for createDate
+    *
+    * @param createDate
+    * when the record was written
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewCacheInvalidation withCreateDate(Instant createDate)
+   {
+      this.createDate = createDate;
+      return (this);
+   }
+
+
+}
@@ -0,0 +1,313 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.time.Instant;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.data.QField;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.data.QRecordEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.ValueTooLongBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.layout.QIcon;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.MetaDataCustomizerInterface;
+import com.kingsrook.qqq.backend.core.model.metadata.producers.annotations.QMetaDataProducingEntity;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.UniqueKey;
+
+
+/*******************************************************************************
+ ** QRecord Entity for TableViewConfigVersion table
+ **
+ ** Holds a version per customizable table, which is changed every time any of
+ ** the view configuration for that table is changed.  The table personalizer
+ ** periodically reads all of these rows, and evicts its cached entries for any
+ ** table whose version has changed since it last looked.
+ **
+ ** The versionStamp (unique to each change) is what's compared - configVersion
+ ** is a count of changes, for people to read, which may undercount if several
+ ** nodes change the same table at once.
+ *******************************************************************************/
+@QMetaDataProducingEntity(
+   produceTableMetaData = true,
+   tableMetaDataCustomizer = TableViewConfigVersion.TableMetaDataCustomizer.class
+)
+public class TableViewConfigVersion extends QRecordEntity
+{
+   public static final String TABLE_NAME = "TableViewConfigVersion";
+
+
+
+   /***************************************************************************
+    **
+    ***************************************************************************/
+   public static class TableMetaDataCustomizer implements MetaDataCustomizerInterface<QTableMetaData>
+   {
+
+      /***************************************************************************
+       **
+       ***************************************************************************/
+      @Override
+      public QTableMetaData customizeMetaData(QInstance qInstance, QTableMetaData table) throws QException
+      {
+         table
+            .withUniqueKey(new UniqueKey("tableName"))
+            .withIcon(new QIcon().withName("history"))
+            .withRecordLabelFormat("%s")
+            .withRecordLabelFields("tableName")
+            .withSection(SectionFactory.defaultT1("id", "tableName"))
+            .withSection(SectionFactory.defaultT2("configVersion", "versionStamp"))
+            .withSection(SectionFactory.defaultT3("modifyDate"));
+
+         return (table);
+      }
+   }
+
+
+
+   @QField(isEditable = false, isPrimaryKey = true)
+   private Integer id;
+
+   @QField(isRequired = true, maxLength = 100, valueTooLongBehavior = ValueTooLongBehavior.ERROR)
+   private String tableName;
+
+   @QField(isRequired = true)
+   private Integer configVersion;
+
+   @QField(maxLength = 50, valueTooLongBehavior = ValueTooLongBehavior.ERROR)
+   private String versionStamp;
+
+   @QField(isEditable = false)
+   private Instant modifyDate;
+
+
+
+   /*******************************************************************************
+    ** Default constructor
+    *******************************************************************************/
+   public TableViewConfigVersion()
+   {
+   }
+
+
+
+   /*******************************************************************************
+    ** Constructor that takes a QRecord
+    *******************************************************************************/
+   public TableViewConfigVersion(QRecord record)
+   {
+      populateFromQRecord(record);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for id
+    * @see #withId(Integer)
+    *******************************************************************************/
+   public Integer getId()
+   {
+      return (this.id);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for id
+    * @see #withId(Integer)
+    *******************************************************************************/
+   public void setId(Integer id)
+   {
+      this.id = id;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for id
+    *
+    * @param id
+    * TODO document this property
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewConfigVersion withId(Integer id)
+   {
+      this.id = id;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for tableName
+    * @see #withTableName(String)
+    *******************************************************************************/
+   public String getTableName()
+   {
+      return (this.tableName);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for tableName
+    * @see #withTableName(String)
+    *******************************************************************************/
+   public void setTableName(String tableName)
+   {
+      this.tableName = tableName;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for tableName
+    *
+    * @param tableName
+    * TODO document this property
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewConfigVersion withTableName(String tableName)
+   {
+      this.tableName = tableName;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for configVersion
+    * @see #withConfigVersion(Integer)
+    *******************************************************************************/
+   public Integer getConfigVersion()
+   {
+      return (this.configVersion);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for configVersion
+    * @see #withConfigVersion(Integer)
+    *******************************************************************************/
+   public void setConfigVersion(Integer configVersion)
+   {
+      this.configVersion = configVersion;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for configVersion
+    *
+    * @param configVersion
+    * TODO document this property
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewConfigVersion withConfigVersion(Integer configVersion)
+   {
+      this.configVersion = configVersion;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for versionStamp
+    * @see #withVersionStamp(String)
+    *******************************************************************************/
+   public String getVersionStamp()
+   {
+      return (this.versionStamp);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for versionStamp
+    * @see #withVersionStamp(String)
+    *******************************************************************************/
+   public void setVersionStamp(String versionStamp)
+   {
+      this.versionStamp = versionStamp;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for versionStamp
+    *
+    * @param versionStamp
+    * a value unique to the most recent change to the table's view configuration.
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewConfigVersion withVersionStamp(String versionStamp)
+   {
+      this.versionStamp = versionStamp;
+      return (this);
+   }
+
+
+
+   /*******************************************************************************
+    * Getter for modifyDate
+    * @see #withModifyDate(Instant)
+    *******************************************************************************/
+   public Instant getModifyDate()
+   {
+      return (this.modifyDate);
+   }
+
+
+
+   /*******************************************************************************
+    * Setter for modifyDate
+    * @see #withModifyDate(Instant)
+    *******************************************************************************/
+   public void setModifyDate(Instant modifyDate)
+   {
+      this.modifyDate = modifyDate;
+   }
+
+
+
+   /*******************************************************************************
+    * Fluent setter for modifyDate
+    *
+    * @param modifyDate
+    * TODO document this property
+    *
+    * @return this
+    *******************************************************************************/
+   public TableViewConfigVersion withModifyDate(Instant modifyDate)
+   {
+      this.modifyDate = modifyDate;
+      return (this);
+   }
+
+}
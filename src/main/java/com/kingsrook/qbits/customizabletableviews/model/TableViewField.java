@@ -104,6 +104,11 @@ public class TableViewField extends QRecordEntity
    @QField(isEditable = false)
    private Instant modifyDate;
 
+   ///////////////////////////////////////////////////////////////////
+   // not a QField - parsed from fieldName, upon first request only //
+   ///////////////////////////////////////////////////////////////////
+   private QualifiedFieldName qualifiedFieldName;
+
 
 
    /*******************************************************************************
@@ -219,6 +224,7 @@ public class TableViewField extends QRecordEntity
    public void setFieldName(String fieldName)
    {
       this.fieldName = fieldName;
+      this.qualifiedFieldName = null;
    }
 
 
@@ -233,12 +239,28 @@ public class TableViewField extends QRecordEntity
     *******************************************************************************/
    public TableViewField withFieldName(String fieldName)
    {
-      this.fieldName = fieldName;
+      setFieldName(fieldName);
       return (this);
    }
 
 
 
+   /*******************************************************************************
+    * Getter for fieldName, parsed into its table & field name parts - or null
+    * if fieldName isn't in tableName.fieldName format.  Parsed only once per
+    * entity (and interned), so it's safe to call on hot paths.
+    *******************************************************************************/
+   public QualifiedFieldName getQualifiedFieldName()
+   {
+      if(this.qualifiedFieldName == null)
+      {
+         this.qualifiedFieldName = QualifiedFieldName.of(this.fieldName);
+      }
+      return (this.qualifiedFieldName);
+   }
+
+
+
    /*******************************************************************************
     * Getter for accessLevel
     * @see #withAccessLevel(String)
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.QualifiedFieldName;
 import com.kingsrook.qqq.backend.core.actions.customizers.RecordCustomizerUtilityInterface;
 import com.kingsrook.qqq.backend.core.actions.customizers.TableCustomizerInterface;
 import com.kingsrook.qqq.backend.core.context.QContext;
@@ -60,11 +61,13 @@ public class TableViewFieldCustomizer implements TableCustomizerInterface
             String  fieldName     = RecordCustomizerUtilityInterface.getValueFromRecordOrOldRecord("fieldName", record, id, oldRecordMap);
             String  accessLevelId = RecordCustomizerUtilityInterface.getValueFromRecordOrOldRecord("accessLevel", record, id, oldRecordMap);
 
-            String[] parts     = fieldName.split("\\.");
-            String   tableName = parts[0];
-            fieldName = parts[1];
+            QualifiedFieldName qualifiedFieldName = QualifiedFieldName.of(fieldName);
+            if(qualifiedFieldName == null)
+            {
+               throw (new QException("Field name [" + fieldName + "] is not in tableName.fieldName format."));
+            }
 
-            QFieldMetaData field = QContext.getQInstance().getTable(tableName).getField(fieldName);
+            QFieldMetaData field = QContext.getQInstance().getTable(qualifiedFieldName.getTableName()).getField(qualifiedFieldName.getFieldName());
 
             FieldAccessLevel fieldAccessLevel = FieldAccessLevel.getById(accessLevelId);
             if(fieldAccessLevel != null)
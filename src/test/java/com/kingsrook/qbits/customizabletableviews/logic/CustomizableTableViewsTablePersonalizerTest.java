@@ -22,6 +22,8 @@
 package com.kingsrook.qbits.customizabletableviews.logic;
 
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,6 +35,13 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import com.kingsrook.qbits.customizabletableviews.BaseTest;
 import com.kingsrook.qbits.customizabletableviews.QFieldMetaDataAssert;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.EffectiveViewCacheScope;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCacheProviderInterface;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.CompiledTableView;
+import com.kingsrook.qbits.customizabletableviews.logic.compiled.FieldOrdinals;
+import com.kingsrook.qbits.customizabletableviews.logic.invalidation.PollingCacheInvalidationBroadcaster;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.InMemoryPersonalizerMetricsSink;
 import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
 import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
 import com.kingsrook.qbits.customizabletableviews.model.TableView;
@@ -42,6 +51,7 @@ import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
 import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
 import com.kingsrook.qqq.backend.core.actions.tables.DeleteAction;
 import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.AbstractTableActionInput;
@@ -55,6 +65,8 @@ import com.kingsrook.qqq.backend.core.model.actions.tables.query.QFilterCriteria
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QQueryFilter;
 import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
 import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.DynamicDefaultValueBehavior;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
@@ -73,10 +85,12 @@ import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
@@ -125,6 +139,42 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
 
 
 
+   /*******************************************************************************
+    ** checking any number of tables (customizable or not) only queries for the
+    ** set of customizable tables once - until something evicts it.
+    *******************************************************************************/
+   @Test
+   void testIsTableCustomizableLoadsInOneQuery() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true),
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(false)
+      )));
+
+      PersonalizerCacheState cacheState       = CustomizableTableViewsTablePersonalizer.getCacheState();
+      long                   queryCountBefore = cacheState.getBackendQueryCount();
+      for(int i = 0; i < 400; i++)
+      {
+         assertFalse(personalizer.isTableCustomizable("notCustomizable" + i));
+      }
+      assertTrue(personalizer.isTableCustomizable("tableA"));
+      assertFalse(personalizer.isTableCustomizable("tableB"));
+      assertEquals(1, cacheState.getBackendQueryCount() - queryCountBefore);
+
+      ///////////////////////////////////////////////////////////////////////
+      // a change to a customizable table reloads the set (in one query).  //
+      ///////////////////////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(true))));
+      assertTrue(personalizer.isTableCustomizable("tableB"));
+      assertTrue(personalizer.isTableCustomizable("tableA"));
+      assertEquals(2, cacheState.getBackendQueryCount() - queryCountBefore);
+   }
+
+
+
    /*******************************************************************************
     **
     *******************************************************************************/
@@ -382,6 +432,506 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
 
          MemoryRecordStore.getInstance().reset();
       }
+
+      ///////////////////////////////////////////////////////////////////////////////////////////
+      // a different user, with the same roles (in a different order, with a dupe), should get //
+      // the same (memoized) view - even though the record store is now empty.                 //
+      ///////////////////////////////////////////////////////////////////////////////////////////
+      TableView viewForFirstUser = personalizer.getEffectiveTableViewForCurrentSession(tableWithDefaultView);
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "3, 2,3");
+      assertSame(viewForFirstUser, personalizer.getEffectiveTableViewForCurrentSession(tableWithDefaultView));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testGetSessionRoleIds()
+   {
+      QContext.getQSession().setValue("roleIds", null);
+      assertEquals(Collections.emptyList(), CustomizableTableViewsTablePersonalizer.getSessionRoleIds());
+
+      QContext.getQSession().setValue("roleIds", "");
+      assertEquals(Collections.emptyList(), CustomizableTableViewsTablePersonalizer.getSessionRoleIds());
+
+      QContext.getQSession().setValue("roleIds", "3,1,2");
+      assertEquals(List.of(1, 2, 3), CustomizableTableViewsTablePersonalizer.getSessionRoleIds());
+
+      QContext.getQSession().setValue("roleIds", "2, 1,,2");
+      assertEquals(List.of(1, 2), CustomizableTableViewsTablePersonalizer.getSessionRoleIds());
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testFineGrainedEviction() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      for(String tableName : List.of("tableA", "tableB"))
+      {
+         QContext.getQInstance().addTable(new QTableMetaData()
+            .withName(tableName)
+            .withField(new QFieldMetaData("a", QFieldType.STRING))
+            .withField(new QFieldMetaData("b", QFieldType.STRING)));
+      }
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true),
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(true)
+      )));
+
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a").withFields(List.of(new TableViewField().withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL))),
+         new TableView().withId(2).withCustomizableTableId(2).withName("b").withFields(List.of(new TableViewField().withFieldName("tableB.b").withAccessLevel(EDITABLE_OPTIONAL)))
+      )));
+
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1),
+         new TableViewRoleInt().withRoleId(1).withTableViewId(2)
+      )));
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1");
+      TableView viewA = personalizer.getEffectiveTableViewForCurrentSession("tableA");
+      TableView viewB = personalizer.getEffectiveTableViewForCurrentSession("tableB");
+
+      QContext.getQSession().setValue("roleIds", "2");
+      TableView viewBForRole2 = personalizer.getEffectiveTableViewForCurrentSession("tableB");
+
+      ///////////////////////////////////////////////////////////////////////////////
+      // adding a field to view A should only evict entries for table A - so the   //
+      // next lookup for A is a new object, but B's are still the same (memoized). //
+      ///////////////////////////////////////////////////////////////////////////////
+      long evictedBefore = CustomizableTableViewsTablePersonalizer.getCacheState().getEvictedEntryCount();
+      new InsertAction().execute(new InsertInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewField().withTableViewId(1).withFieldName("tableA.b").withAccessLevel(READ_ONLY))));
+      assertEquals(1, CustomizableTableViewsTablePersonalizer.getCacheState().getEvictedEntryCount() - evictedBefore);
+
+      QContext.getQSession().setValue("roleIds", "1");
+      assertNotSame(viewA, personalizer.getEffectiveTableViewForCurrentSession("tableA"));
+      assertSame(viewB, personalizer.getEffectiveTableViewForCurrentSession("tableB"));
+
+      ///////////////////////////////////////////////////////////////////////////////////////
+      // assigning a view of table B to role 2 should only evict role sets that include 2. //
+      ///////////////////////////////////////////////////////////////////////////////////////
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(2).withTableViewId(2))));
+      assertSame(viewB, personalizer.getEffectiveTableViewForCurrentSession("tableB"));
+
+      QContext.getQSession().setValue("roleIds", "2");
+      TableView newViewBForRole2 = personalizer.getEffectiveTableViewForCurrentSession("tableB");
+      assertNotSame(viewBForRole2, newViewBForRole2);
+      assertEquals(1, newViewBForRole2.getFields().size());
+   }
+
+
+
+   /*******************************************************************************
+    ** updates (with partial or full records) & deletes should evict only the
+    ** affected table's (and role's) entries - with values that a partial record
+    ** is missing (e.g., its tableViewId) coming from its old record.
+    *******************************************************************************/
+   @Test
+   void testFineGrainedEvictionForUpdatesAndDeletes() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      for(String tableName : List.of("tableA", "tableB"))
+      {
+         QContext.getQInstance().addTable(new QTableMetaData()
+            .withName(tableName)
+            .withField(new QFieldMetaData("a", QFieldType.STRING))
+            .withField(new QFieldMetaData("b", QFieldType.STRING)));
+      }
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true),
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(true))));
+
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a"),
+         new TableView().withId(2).withCustomizableTableId(2).withName("b"))));
+
+      new InsertAction().execute(new InsertInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewField().withId(1).withTableViewId(1).withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL),
+         new TableViewField().withId(2).withTableViewId(2).withFieldName("tableB.b").withAccessLevel(EDITABLE_OPTIONAL))));
+
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withId(1).withRoleId(1).withTableViewId(1),
+         new TableViewRoleInt().withId(2).withRoleId(1).withTableViewId(2),
+         new TableViewRoleInt().withId(3).withRoleId(2).withTableViewId(2))));
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      Map<String, TableView> viewsByRolesAndTable = loadViewsByRolesAndTable(personalizer);
+
+      ////////////////////////////////////////////////////////////////////////
+      // a partial update (just id & accessLevel) of a field in view A only //
+      // evicts table A's entries - not everything.                         //
+      ////////////////////////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(TableViewField.TABLE_NAME).withRecords(List.of(
+         new QRecord().withValue("id", 1).withValue("accessLevel", READ_ONLY.getId()))));
+      assertEvictedOnly(personalizer, viewsByRolesAndTable, Set.of("1:tableA", "2:tableA"));
+
+      /////////////////////////////////////////////////////////////
+      // a full-record update of a field in view B evicts only B //
+      /////////////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewField().withId(2).withTableViewId(2).withFieldName("tableB.b").withAccessLevel(READ_ONLY))));
+      assertEvictedOnly(personalizer, viewsByRolesAndTable, Set.of("1:tableB", "2:tableB"));
+
+      ///////////////////////////////////////////////////////////////////////
+      // a partial update of view A's record (just its name) evicts only A //
+      ///////////////////////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(TableView.TABLE_NAME).withRecords(List.of(
+         new QRecord().withValue("id", 1).withValue("name", "renamed"))));
+      assertEvictedOnly(personalizer, viewsByRolesAndTable, Set.of("1:tableA", "2:tableA"));
+
+      ///////////////////////////////////////////////////////////////////////////
+      // deleting role 2's assignment of view B evicts only role 2's B entries //
+      ///////////////////////////////////////////////////////////////////////////
+      new DeleteAction().execute(new DeleteInput(TableViewRoleInt.TABLE_NAME).withPrimaryKeys(List.of(3)));
+      assertEvictedOnly(personalizer, viewsByRolesAndTable, Set.of("2:tableB"));
+
+      ////////////////////////////////////////////////////
+      // deleting a field of view A evicts only A again //
+      ////////////////////////////////////////////////////
+      new DeleteAction().execute(new DeleteInput(TableViewField.TABLE_NAME).withPrimaryKeys(List.of(1)));
+      assertEvictedOnly(personalizer, viewsByRolesAndTable, Set.of("1:tableA", "2:tableA"));
+   }
+
+
+
+   /***************************************************************************
+    * load the effective views of tables A & B, for roles 1 & 2 - keyed by
+    * "roleIds:tableName".
+    ***************************************************************************/
+   private Map<String, TableView> loadViewsByRolesAndTable(CustomizableTableViewsTablePersonalizer personalizer) throws QException
+   {
+      Map<String, TableView> rs = new HashMap<>();
+      for(String roleIds : List.of("1", "2"))
+      {
+         QContext.getQSession().setValue("roleIds", roleIds);
+         for(String tableName : List.of("tableA", "tableB"))
+         {
+            rs.put(roleIds + ":" + tableName, personalizer.getEffectiveTableViewForCurrentSession(tableName));
+         }
+      }
+      return (rs);
+   }
+
+
+
+   /***************************************************************************
+    * assert that, of the previously loaded views, exactly the expected ones
+    * (by "roleIds:tableName") were evicted - then keep the re-loaded ones.
+    ***************************************************************************/
+   private void assertEvictedOnly(CustomizableTableViewsTablePersonalizer personalizer, Map<String, TableView> viewsByRolesAndTable, Set<String> expectedEvicted) throws QException
+   {
+      Map<String, TableView> newViews = loadViewsByRolesAndTable(personalizer);
+      for(Map.Entry<String, TableView> entry : viewsByRolesAndTable.entrySet())
+      {
+         if(expectedEvicted.contains(entry.getKey()))
+         {
+            assertNotSame(entry.getValue(), newViews.get(entry.getKey()), entry.getKey());
+         }
+         else
+         {
+            assertSame(entry.getValue(), newViews.get(entry.getKey()), entry.getKey());
+         }
+      }
+      viewsByRolesAndTable.putAll(newViews);
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testWarmUp() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("tableA")
+         .withField(new QFieldMetaData("a", QFieldType.STRING))
+         .withField(new QFieldMetaData("b", QFieldType.STRING)));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true).withDefaultTableViewId(3),
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(false)
+      )));
+
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a").withFields(List.of(new TableViewField().withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL))),
+         new TableView().withId(2).withCustomizableTableId(1).withName("b").withFields(List.of(new TableViewField().withFieldName("tableA.b").withAccessLevel(READ_ONLY))),
+         new TableView().withId(3).withCustomizableTableId(1).withName("default").withWidgets(List.of(new TableViewWidget().withWidgetName("w").withAccessLevel(WidgetAccessLevel.HAS_ACCESS.getId())))
+      )));
+
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1),
+         new TableViewRoleInt().withRoleId(2).withTableViewId(2)
+      )));
+
+      //////////////////////////////////////////////////////////////////////////////
+      // role sets are: none, [1], [2], and the additional [1,2] (given as [2,1]) //
+      // entries are: the set of customizable tables, plus 4 views for A.         //
+      //////////////////////////////////////////////////////////////////////////////
+      PersonalizerWarmUpResult result = CustomizableTableViewsTablePersonalizer.warmUp(List.of(List.of(2, 1)));
+      assertEquals(2, result.getCustomizableTableCount());
+      assertEquals(4, result.getRoleSetCount());
+      assertEquals(5, result.getEntryCount());
+      assertTrue(result.getDurationMillis() >= 0);
+
+      ///////////////////////////////////////////////////////////////////////////////////
+      // wipe the backend (without going through customizers, so nothing is evicted) - //
+      // then show that the warmed-up entries are used, rather than querying again.    //
+      ///////////////////////////////////////////////////////////////////////////////////
+      MemoryRecordStore.fullReset();
+      assertTrue(personalizer.isTableCustomizable("tableA"));
+      assertFalse(personalizer.isTableCustomizable("tableB"));
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1,2");
+      assertEquals(Set.of("tableA.a", "tableA.b"), personalizer.getEffectiveTableViewForCurrentSession("tableA").getFields().stream().map(TableViewField::getFieldName).collect(Collectors.toSet()));
+
+      QContext.getQSession().setValue("roleIds", "2");
+      assertEquals(List.of("tableA.b"), personalizer.getEffectiveTableViewForCurrentSession("tableA").getFields().stream().map(TableViewField::getFieldName).toList());
+
+      QContext.getQSession().setValue("roleIds", null);
+      assertEquals(List.of("w"), personalizer.getEffectiveTableViewForCurrentSession("tableA").getWidgets().stream().map(TableViewWidget::getWidgetName).toList());
+   }
+
+
+
+   /*******************************************************************************
+    ** caches only use their long timeout while config versions are being
+    ** tracked successfully - else, the short one.
+    *******************************************************************************/
+   @Test
+   void testCacheTimeoutFollowsConfigVersionTracking() throws QException
+   {
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      assertEquals(Duration.ofMinutes(5), cacheState.getEffectiveTableViewCache().getTimeout());
+
+      CustomizableTableViewsTablePersonalizer.warmUp(null);
+      assertEquals(Duration.ofHours(4), cacheState.getEffectiveTableViewCache().getTimeout());
+
+      cacheState.getConfigVersionTracker().setIsEnabled(false);
+      CustomizableTableViewsTablePersonalizer.warmUp(null);
+      assertEquals(Duration.ofMinutes(5), cacheState.getEffectiveTableViewCache().getTimeout());
+
+      ///////////////////////////////////////////////////
+      // an explicit hard timeout is always used as-is //
+      ///////////////////////////////////////////////////
+      cacheState.getConfigVersionTracker().setIsEnabled(true);
+      cacheState.setCacheTimeouts(null, Duration.ofMinutes(30), null);
+      CustomizableTableViewsTablePersonalizer.warmUp(null);
+      assertEquals(Duration.ofMinutes(30), cacheState.getEffectiveTableViewCache().getTimeout());
+   }
+
+
+
+   /*******************************************************************************
+    ** caches are limited to a default number of entries, unless set otherwise
+    ** (with 0 meaning no limit).
+    *******************************************************************************/
+   @Test
+   void testDefaultCacheLimits()
+   {
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      assertEquals(PersonalizerCacheState.DEFAULT_CACHE_MAX_ENTRIES, cacheState.getEffectiveTableViewCache().getMaxEntries());
+      assertEquals(PersonalizerCacheState.DEFAULT_CACHE_MAX_ENTRIES, cacheState.getPersonalizedTableCache().getMaxEntries());
+      assertEquals(0, cacheState.getEffectiveTableViewCache().getMaxRetainedBytes());
+
+      cacheState.setCacheLimits(0, 0);
+      assertEquals(0, cacheState.getEffectiveTableViewCache().getMaxEntries());
+
+      cacheState.setCacheLimits(50, 1000);
+      assertEquals(50, cacheState.getPersonalizedTableCache().getMaxEntries());
+      assertEquals(1000, cacheState.getPersonalizedTableCache().getMaxRetainedBytes());
+   }
+
+
+
+   /*******************************************************************************
+    ** views are compiled once each (by id) - so an effective view merged from
+    ** views that were already compiled for other role sets merges those.
+    *******************************************************************************/
+   @Test
+   void testViewsCompiledOnceById() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      QTableMetaData table = new QTableMetaData()
+         .withName("tableA")
+         .withField(new QFieldMetaData("a", QFieldType.STRING))
+         .withField(new QFieldMetaData("b", QFieldType.STRING));
+      QContext.getQInstance().addTable(table);
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true))));
+
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a").withFields(List.of(new TableViewField().withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL))),
+         new TableView().withId(2).withCustomizableTableId(1).withName("b").withFields(List.of(new TableViewField().withFieldName("tableA.b").withAccessLevel(READ_ONLY))))));
+
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1),
+         new TableViewRoleInt().withRoleId(2).withTableViewId(2))));
+
+      CustomizableTableViewsTablePersonalizer.warmUp(List.of(List.of(1, 2)));
+
+      TableMetaDataPersonalizerInput                input                      = new TableMetaDataPersonalizerInput().withTableMetaData(table).withInputSource(QInputSource.USER);
+      PersonalizerCache<Integer, CompiledTableView> compiledTableViewByIdCache = CustomizableTableViewsTablePersonalizer.getCacheState().getCompiledTableViewByIdCache();
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+
+      QContext.getQSession().setValue("roleIds", "1");
+      assertEquals(Set.of("a"), personalizer.execute(input).getFields().keySet());
+      QContext.getQSession().setValue("roleIds", "2");
+      assertEquals(Set.of("b"), personalizer.execute(input).getFields().keySet());
+
+      CompiledTableView compiledView1 = compiledTableViewByIdCache.getIfPresent(1);
+      CompiledTableView compiledView2 = compiledTableViewByIdCache.getIfPresent(2);
+      assertNotNull(compiledView1);
+      assertNotNull(compiledView2);
+      assertSame(compiledView1.getFieldOrdinals(), compiledView2.getFieldOrdinals());
+
+      //////////////////////////////////////////////////////////////////
+      // both roles' effective view merges the already-compiled views //
+      //////////////////////////////////////////////////////////////////
+      QContext.getQSession().setValue("roleIds", "1,2");
+      QTableMetaData personalizedTable = personalizer.execute(input);
+      assertEquals(Set.of("a", "b"), personalizedTable.getFields().keySet());
+      assertFalse(personalizedTable.getField("b").getIsEditable());
+      assertSame(compiledView1, compiledTableViewByIdCache.getIfPresent(1));
+      assertSame(compiledView2, compiledTableViewByIdCache.getIfPresent(2));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testEffectiveViewLoadsInConstantQueries() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("tableA")
+         .withField(new QFieldMetaData("a", QFieldType.STRING))
+         .withField(new QFieldMetaData("b", QFieldType.STRING)));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true))));
+
+      for(int i = 1; i <= 10; i++)
+      {
+         new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+            new TableView().withId(i).withCustomizableTableId(1).withName("view" + i)
+               .withFields(List.of(new TableViewField().withFieldName(i % 2 == 0 ? "tableA.a" : "tableA.b").withAccessLevel(READ_ONLY)))
+               .withWidgets(List.of(new TableViewWidget().withWidgetName("w" + i).withAccessLevel(WidgetAccessLevel.HAS_ACCESS.getId()))))));
+         new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+            new TableViewRoleInt().withRoleId(i % 2 + 1).withTableViewId(i))));
+      }
+
+      ///////////////////////////////////////////////////////////////////////////
+      // 10 views across 2 roles - still just: customizable table, views (with //
+      // role join), fields, widgets.                                          //
+      ///////////////////////////////////////////////////////////////////////////
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1,2");
+      PersonalizerCacheState cacheState       = CustomizableTableViewsTablePersonalizer.getCacheState();
+      long                   queryCountBefore = cacheState.getBackendQueryCount();
+      TableView              tableView        = personalizer.getEffectiveTableViewForCurrentSession("tableA");
+      assertEquals(4, cacheState.getBackendQueryCount() - queryCountBefore);
+      assertEquals(2, tableView.getFields().size());
+      assertEquals(10, tableView.getWidgets().size());
+   }
+
+
+
+   /*******************************************************************************
+    ** personalizing many tables together loads all of their effective views in a
+    ** constant number of queries - and gives the same tables as execute.
+    *******************************************************************************/
+   @Test
+   void testPersonalizeTables() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      List<QTableMetaData> tables = new ArrayList<>();
+      for(int i = 1; i <= 20; i++)
+      {
+         QTableMetaData table = new QTableMetaData()
+            .withName("table" + i)
+            .withPrimaryKeyField("id")
+            .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+            .withField(new QFieldMetaData("a", QFieldType.STRING))
+            .withField(new QFieldMetaData("b", QFieldType.STRING))
+            .withSection(SectionFactory.defaultT1("id").withName("s0"))
+            .withSection(SectionFactory.defaultT2("a", "b").withName("s1"));
+         QContext.getQInstance().addTable(table);
+         tables.add(table);
+
+         /////////////////////////////////////////////////////////////////////////////////
+         // tables 1-15 are customizable - odd ones with a view for role 1, even ones   //
+         // with only a default view - and tables 16-20 aren't customizable at all.     //
+         /////////////////////////////////////////////////////////////////////////////////
+         if(i <= 15)
+         {
+            new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+               new CustomizableTable().withId(i).withTableName(table.getName()).withIsActive(true).withDefaultTableViewId(i % 2 == 0 ? i : null))));
+            new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+               new TableView().withId(i).withCustomizableTableId(i).withName("view" + i)
+                  .withFields(List.of(new TableViewField().withFieldName(table.getName() + (i % 2 == 0 ? ".a" : ".b")).withAccessLevel(READ_ONLY))))));
+            if(i % 2 == 1)
+            {
+               new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+                  new TableViewRoleInt().withRoleId(1).withTableViewId(i))));
+            }
+         }
+      }
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1");
+
+      /////////////////////////////////////////////////////////////////////////////
+      // customizable tables, then: customizable tables, views (with role join), //
+      // default views, fields, widgets - regardless of the number of tables.    //
+      /////////////////////////////////////////////////////////////////////////////
+      PersonalizerCacheState      cacheState         = CustomizableTableViewsTablePersonalizer.getCacheState();
+      long                        queryCountBefore   = cacheState.getBackendQueryCount();
+      Map<String, QTableMetaData> personalizedTables = personalizer.personalizeTables(tables, QInputSource.USER);
+      assertEquals(6, cacheState.getBackendQueryCount() - queryCountBefore);
+      assertEquals(20, personalizedTables.size());
+
+      assertEquals(Set.of("id", "b"), personalizedTables.get("table1").getFields().keySet());
+      assertEquals(Set.of("id", "a"), personalizedTables.get("table2").getFields().keySet());
+      assertSame(tables.get(19), personalizedTables.get("table20"));
+
+      /////////////////////////////////////////////////////////////////////////
+      // and the same tables come from execute - all from cache, no queries. //
+      /////////////////////////////////////////////////////////////////////////
+      queryCountBefore = cacheState.getBackendQueryCount();
+      for(QTableMetaData table : tables)
+      {
+         assertSame(personalizedTables.get(table.getName()), personalizer.execute(new TableMetaDataPersonalizerInput().withTableMetaData(table).withInputSource(QInputSource.USER)));
+      }
+      assertEquals(0, cacheState.getBackendQueryCount() - queryCountBefore);
+
+      ///////////////////////////////////////////////////////
+      // non-user input sources get the tables as they are //
+      ///////////////////////////////////////////////////////
+      assertSame(tables.get(0), personalizer.personalizeTables(tables, QInputSource.SYSTEM).get("table1"));
    }
 
 
@@ -496,6 +1046,61 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
 
 
 
+   /*******************************************************************************
+    ** applying a view to a source table must give the same result as applying it
+    ** to a clone - without modifying the source table, or sharing its fields.
+    *******************************************************************************/
+   @Test
+   void testApplyViewToSourceTable()
+   {
+      CustomizableTableViewsTablePersonalizer personalizer     = new CustomizableTableViewsTablePersonalizer();
+      TableMetaDataInput                      tableActionInput = new TableMetaDataInput();
+
+      QTableMetaData sourceTable = new QTableMetaData()
+         .withName("sourceTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withField(new QFieldMetaData("mandatory", QFieldType.STRING).withIsRequired(true))
+         .withField(new QFieldMetaData("optional", QFieldType.STRING))
+         .withField(new QFieldMetaData("other", QFieldType.STRING))
+         .withSection(SectionFactory.defaultT1("id").withName("s0"))
+         .withSection(SectionFactory.defaultT2("mandatory", "optional").withName("s1"))
+         .withSection(SectionFactory.defaultT2("other").withName("s2"));
+
+      TableView tableView = new TableView().withFields(List.of(
+         new TableViewField().withFieldName("sourceTable.optional").withAccessLevel(READ_ONLY)));
+      CompiledTableView compiledTableView = CompiledTableView.compile(tableView, new FieldOrdinals(sourceTable));
+
+      QTableMetaData fromClone  = personalizer.applyViewToTable(compiledTableView, sourceTable.clone(), tableActionInput);
+      QTableMetaData fromSource = personalizer.applyViewToSourceTable(compiledTableView, sourceTable, tableActionInput);
+
+      assertEquals(List.copyOf(fromClone.getFields().keySet()), List.copyOf(fromSource.getFields().keySet()));
+      assertEquals(List.of("optional", "id", "mandatory"), List.copyOf(fromSource.getFields().keySet()));
+      QFieldMetaDataAssert.assertThat(fromSource.getField("optional")).isNotEditable().isNotRequired();
+      assertEquals(List.of("s0", "s1"), fromSource.getSections().stream().map(s -> s.getName()).toList());
+      assertEquals(List.of("mandatory", "optional"), fromSource.getSections().get(1).getFieldNames());
+
+      ///////////////////////////////////////////////////////////////////////
+      // the source table, its fields & sections are all left as they were //
+      ///////////////////////////////////////////////////////////////////////
+      assertEquals(4, sourceTable.getFields().size());
+      assertTrue(sourceTable.getField("optional").getIsEditable());
+      assertNotSame(sourceTable.getField("optional"), fromSource.getField("optional"));
+      assertEquals(3, sourceTable.getSections().size());
+      assertEquals(List.of("mandatory", "optional"), sourceTable.getSections().get(1).getFieldNames());
+
+      /////////////////////////////////////////////////////////////////////////
+      // and each application gets its own table (from the cached fieldless  //
+      // clone of the source) - so modifying one doesn't affect another.     //
+      /////////////////////////////////////////////////////////////////////////
+      QTableMetaData again = personalizer.applyViewToSourceTable(compiledTableView, sourceTable, tableActionInput);
+      assertNotSame(fromSource, again);
+      fromSource.getSections().clear();
+      assertEquals(2, again.getSections().size());
+   }
+
+
+
    /*******************************************************************************
     **
     *******************************************************************************/
@@ -656,6 +1261,13 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
       assertEquals(3, personalizedTable.getSections().size());
       assertEquals(List.of("s0", "s1", "w0"), personalizedTable.getSections().stream().map(s -> s.getName()).toList());
 
+      //////////////////////////////////////////////////////////////////////////////////////////////
+      // the personalized table is cached - so another request for it gets the very same instance //
+      // but an insert or update input is a different kind, so it gets its own instance.          //
+      //////////////////////////////////////////////////////////////////////////////////////////////
+      assertSame(personalizedTable, personalizer.execute(input));
+      assertNotSame(personalizedTable, personalizer.customizeTable(new InsertInput(baseTable.getName())));
+
       //////////////////////////////////////////////////////////////////////////
       // add a join table, and a field from it in the main table's t2 section //
       //////////////////////////////////////////////////////////////////////////
@@ -669,6 +1281,12 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
       QContext.getQInstance().addJoin(new QJoinMetaData().withLeftTable("baseTable").withRightTable("joinTable").withInferredName().withType(JoinType.ONE_TO_ONE).withJoinOn(new JoinOn("id", "joinField")));
       baseTable.getSection("s1").getFieldNames().add("joinTable.joinField");
 
+      ///////////////////////////////////////////////////////////////////////////////////////////
+      // we just mutated the source table in place (which an app wouldn't do) - so clear the   //
+      // memoizations, as the personalized table for it would otherwise be re-used from cache. //
+      ///////////////////////////////////////////////////////////////////////////////////////////
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+
       //////////////////////////////////////////
       // by default, should get the joinField //
       //////////////////////////////////////////
@@ -707,6 +1325,323 @@ class CustomizableTableViewsTablePersonalizerTest extends BaseTest
 
 
 
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testJoinTableFieldNamesSharedAcrossSectionsAndRequests() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+      InMemoryPersonalizerMetricsSink         metricsSink  = new InMemoryPersonalizerMetricsSink();
+
+      QTableMetaData joinTable = new QTableMetaData()
+         .withName("joinTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withField(new QFieldMetaData("joinField", QFieldType.STRING))
+         .withField(new QFieldMetaData("otherJoinField", QFieldType.STRING))
+         .withSection(SectionFactory.defaultT1("id", "joinField", "otherJoinField").withName("s0"));
+      QContext.getQInstance().addTable(joinTable);
+
+      QTableMetaData baseTable = new QTableMetaData()
+         .withName("baseTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withSection(SectionFactory.defaultT1("id", "joinTable.joinField").withName("s0"))
+         .withSection(SectionFactory.defaultT2("joinTable.otherJoinField", "joinTable.joinField").withName("s1"));
+      QContext.getQInstance().addTable(baseTable);
+      QContext.getQInstance().addJoin(new QJoinMetaData().withLeftTable("baseTable").withRightTable("joinTable").withInferredName().withType(JoinType.ONE_TO_ONE).withJoinOn(new JoinOn("id", "id")));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(baseTable.getName()).withIsActive(true),
+         new CustomizableTable().withId(2).withTableName(joinTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(2).withName("a")
+            .withFields(List.of(new TableViewField().withFieldName("joinTable.joinField").withAccessLevel(EDITABLE_OPTIONAL))))));
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1))));
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1");
+
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      CustomizableTableViewsTablePersonalizer.getCacheState().setMetricsSink(metricsSink);
+      try
+      {
+         /////////////////////////////////////////////////////////////////////////////////////
+         // the join table's field names are computed once, for both sections that use them //
+         /////////////////////////////////////////////////////////////////////////////////////
+         QTableMetaData personalizedTable = personalizer.execute(new TableMetaDataPersonalizerInput().withTableMetaData(baseTable).withInputSource(QInputSource.USER));
+         assertEquals(List.of("id", "joinTable.joinField"), personalizedTable.getSection("s0").getFieldNames());
+         assertEquals(List.of("joinTable.joinField"), personalizedTable.getSection("s1").getFieldNames());
+         assertEquals(1, metricsSink.getCacheMissCount(CustomizableTableViewsTablePersonalizer.JOIN_TABLE_FIELD_NAMES_CACHE_NAME));
+
+         ////////////////////////////////////////////////////////////////////////////////////////////
+         // personalizing a different instance of the table re-uses them from the previous request //
+         ////////////////////////////////////////////////////////////////////////////////////////////
+         personalizedTable = personalizer.execute(new TableMetaDataPersonalizerInput().withTableMetaData(baseTable.clone()).withInputSource(QInputSource.USER));
+         assertEquals(List.of("joinTable.joinField"), personalizedTable.getSection("s1").getFieldNames());
+         assertEquals(1, metricsSink.getCacheMissCount(CustomizableTableViewsTablePersonalizer.JOIN_TABLE_FIELD_NAMES_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheHitCount(CustomizableTableViewsTablePersonalizer.JOIN_TABLE_FIELD_NAMES_CACHE_NAME));
+
+         ////////////////////////////////////////////////////////////////////////////
+         // changing the join table's view evicts them, so the change is picked up //
+         ////////////////////////////////////////////////////////////////////////////
+         new InsertAction().execute(new InsertInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+            new TableViewField().withTableViewId(1).withFieldName("joinTable.otherJoinField").withAccessLevel(READ_ONLY))));
+         personalizedTable = personalizer.execute(new TableMetaDataPersonalizerInput().withTableMetaData(baseTable).withInputSource(QInputSource.USER));
+         assertEquals(List.of("joinTable.otherJoinField", "joinTable.joinField"), personalizedTable.getSection("s1").getFieldNames());
+         assertEquals(2, metricsSink.getCacheMissCount(CustomizableTableViewsTablePersonalizer.JOIN_TABLE_FIELD_NAMES_CACHE_NAME));
+      }
+      finally
+      {
+         CustomizableTableViewsTablePersonalizer.getCacheState().setMetricsSink(null);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** the cached personalized table is shared by every request with the same
+    ** roles - so it's read-only - and is only re-used while its join tables are
+    ** the same instances.
+    *******************************************************************************/
+   @Test
+   void testPersonalizedTableIsReadOnlyAndChecksJoinTables() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("joinTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withField(new QFieldMetaData("joinField", QFieldType.STRING))
+         .withSection(SectionFactory.defaultT1("id", "joinField").withName("s0")));
+
+      QTableMetaData baseTable = new QTableMetaData()
+         .withName("baseTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withSection(SectionFactory.defaultT1("id", "joinTable.joinField").withName("s0"));
+      QContext.getQInstance().addTable(baseTable);
+      QContext.getQInstance().addJoin(new QJoinMetaData().withLeftTable("baseTable").withRightTable("joinTable").withInferredName().withType(JoinType.ONE_TO_ONE).withJoinOn(new JoinOn("id", "id")));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(baseTable.getName()).withIsActive(true),
+         new CustomizableTable().withId(2).withTableName("joinTable").withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(2).withName("a")
+            .withFields(List.of(new TableViewField().withFieldName("joinTable.joinField").withAccessLevel(EDITABLE_OPTIONAL))))));
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1))));
+
+      QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+      QContext.getQSession().setValue("roleIds", "1");
+
+      TableMetaDataPersonalizerInput input             = new TableMetaDataPersonalizerInput().withTableMetaData(baseTable).withInputSource(QInputSource.USER);
+      QTableMetaData                 personalizedTable = personalizer.execute(input);
+      assertEquals(List.of("id", "joinTable.joinField"), personalizedTable.getSection("s0").getFieldNames());
+      assertSame(personalizedTable, personalizer.execute(input));
+
+      ///////////////////////////////////////////////////////////////////////
+      // the shared table's fields & sections can't be changed by a caller //
+      ///////////////////////////////////////////////////////////////////////
+      assertThrows(UnsupportedOperationException.class, () -> personalizedTable.getFields().put("other", new QFieldMetaData("other", QFieldType.STRING)));
+      assertThrows(UnsupportedOperationException.class, () -> personalizedTable.getFields().remove("id"));
+      assertThrows(UnsupportedOperationException.class, () -> personalizedTable.getSections().remove(0));
+
+      /////////////////////////////////////////////////////////////////////////////
+      // replace the join table (without its joinField) in the instance - so the //
+      // personalized table, built with the old one, isn't re-used.              //
+      /////////////////////////////////////////////////////////////////////////////
+      QContext.getQInstance().getTables().put("joinTable", new QTableMetaData()
+         .withName("joinTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withSection(SectionFactory.defaultT1("id").withName("s0")));
+
+      QTableMetaData rebuiltTable = personalizer.execute(input);
+      assertNotSame(personalizedTable, rebuiltTable);
+      assertEquals(List.of("id"), rebuiltTable.getSection("s0").getFieldNames());
+      assertSame(rebuiltTable, personalizer.execute(input));
+   }
+
+
+
+   /*******************************************************************************
+    ** effective views are shared by users with the same roles - unless they're
+    ** cached per-user.
+    *******************************************************************************/
+   @Test
+   void testEffectiveViewCacheScope() throws QException
+   {
+      CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("tableA")
+         .withField(new QFieldMetaData("a", QFieldType.STRING)));
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a").withFields(List.of(new TableViewField().withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL))))));
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withRoleId(1).withTableViewId(1))));
+
+      QUser user1 = new QUser().withIdReference(UUID.randomUUID().toString());
+      QUser user2 = new QUser().withIdReference(UUID.randomUUID().toString());
+      QContext.getQSession().setValue("roleIds", "1");
+
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      try
+      {
+         QContext.getQSession().setUser(user1);
+         TableView user1View = personalizer.getEffectiveTableViewForCurrentSession("tableA");
+         QContext.getQSession().setUser(user2);
+         assertSame(user1View, personalizer.getEffectiveTableViewForCurrentSession("tableA"));
+
+         CustomizableTableViewsTablePersonalizer.getCacheState().setEffectiveViewCacheScope(EffectiveViewCacheScope.USER);
+         QContext.getQSession().setUser(user1);
+         user1View = personalizer.getEffectiveTableViewForCurrentSession("tableA");
+         assertSame(user1View, personalizer.getEffectiveTableViewForCurrentSession("tableA"));
+
+         QContext.getQSession().setUser(user2);
+         TableView user2View = personalizer.getEffectiveTableViewForCurrentSession("tableA");
+         assertNotSame(user1View, user2View);
+         assertEquals(user1View.getFields().size(), user2View.getFields().size());
+      }
+      finally
+      {
+         CustomizableTableViewsTablePersonalizer.getCacheState().setEffectiveViewCacheScope(null);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** the personalizer's caches come from the cache provider.
+    *******************************************************************************/
+   @Test
+   void testCacheProvider() throws QException
+   {
+      List<String> createdCacheNames = new ArrayList<>();
+      CustomizableTableViewsTablePersonalizer.getCacheState().setCacheProvider(new PersonalizerCacheProviderInterface()
+      {
+         @Override
+         public <K, V> PersonalizerCache<K, V> createCache(String name, Duration timeout)
+         {
+            createdCacheNames.add(name);
+            return (new PersonalizerCache<>(name, timeout));
+         }
+      });
+
+      try
+      {
+         assertTrue(createdCacheNames.contains(CustomizableTableViewsTablePersonalizer.EFFECTIVE_TABLE_VIEW_CACHE_NAME));
+         assertTrue(createdCacheNames.contains(CustomizableTableViewsTablePersonalizer.PERSONALIZED_TABLE_CACHE_NAME));
+         assertEquals(11, createdCacheNames.size());
+
+         ////////////////////////////////////////////////////
+         // and the new caches are used for personalizing. //
+         ////////////////////////////////////////////////////
+         QContext.getQInstance().addTable(new QTableMetaData()
+            .withName("tableA")
+            .withField(new QFieldMetaData("a", QFieldType.STRING)));
+         new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+            new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true))));
+         assertTrue(new CustomizableTableViewsTablePersonalizer().isTableCustomizable("tableA"));
+         assertTrue(CustomizableTableViewsTablePersonalizer.getCacheState().getEstimatedRetainedBytes() > 0);
+      }
+      finally
+      {
+         CustomizableTableViewsTablePersonalizer.getCacheState().setCacheProvider(null);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** each QInstance gets its own cache state - so clearing one instance's caches
+    ** leaves another's alone, and each counts its own backend queries.
+    *******************************************************************************/
+   @Test
+   void testCacheStatePerInstance() throws QException
+   {
+      QInstance              otherInstance   = new QInstance();
+      PersonalizerCacheState cacheState      = CustomizableTableViewsTablePersonalizer.getCacheState();
+      PersonalizerCacheState otherCacheState = CustomizableTableViewsTablePersonalizer.getCacheState(otherInstance);
+
+      assertSame(cacheState, CustomizableTableViewsTablePersonalizer.getCacheState(QContext.getQInstance()));
+      assertSame(otherCacheState, CustomizableTableViewsTablePersonalizer.getCacheState(otherInstance));
+      assertNotSame(cacheState, otherCacheState);
+
+      cacheState.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.of("tableA"));
+      otherCacheState.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.of("tableA"));
+
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      assertNull(cacheState.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+      assertEquals(Set.of("tableA"), otherCacheState.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+      assertEquals(0, otherCacheState.getEvictedEntryCount());
+
+      long queryCountBefore = cacheState.getBackendQueryCount();
+      new TableViewLoader().loadAll();
+      assertEquals(5, cacheState.getBackendQueryCount() - queryCountBefore);
+      assertEquals(0, otherCacheState.getBackendQueryCount());
+   }
+
+
+
+   /*******************************************************************************
+    ** simulate 2 nodes, each with its own QInstance (cache state), configured
+    ** with the same polling broadcaster - a write on node A should evict node
+    ** B's caches (and only B's) when B polls.
+    *******************************************************************************/
+   @Test
+   void testPollingBroadcasterEvictsOtherNodesCaches() throws QException
+   {
+      PollingCacheInvalidationBroadcaster configBroadcaster = new PollingCacheInvalidationBroadcaster().withPollInterval(Duration.ZERO);
+
+      PersonalizerCacheState nodeA = CustomizableTableViewsTablePersonalizer.getCacheState();
+      PersonalizerCacheState nodeB = CustomizableTableViewsTablePersonalizer.getCacheState(new QInstance());
+      nodeA.setCacheInvalidationBroadcaster(configBroadcaster);
+      nodeB.setCacheInvalidationBroadcaster(configBroadcaster);
+      nodeA.getCacheInvalidationBroadcaster().startReceiving();
+      nodeB.getCacheInvalidationBroadcaster().startReceiving();
+
+      /////////////////////////////////////////////////////////////
+      // each node gets its own copy of the config's broadcaster //
+      /////////////////////////////////////////////////////////////
+      PollingCacheInvalidationBroadcaster broadcasterA = (PollingCacheInvalidationBroadcaster) nodeA.getCacheInvalidationBroadcaster();
+      PollingCacheInvalidationBroadcaster broadcasterB = (PollingCacheInvalidationBroadcaster) nodeB.getCacheInvalidationBroadcaster();
+      assertNotSame(configBroadcaster, broadcasterA);
+      assertNotSame(broadcasterA, broadcasterB);
+      assertNotEquals(broadcasterA.getNodeId(), broadcasterB.getNodeId());
+
+      nodeA.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.of());
+      nodeB.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.of());
+
+      ///////////////////////////////////////////////////////////////////////
+      // a write on node A evicts there right away, and is published for B //
+      ///////////////////////////////////////////////////////////////////////
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withTableName("tableA").withIsActive(true))));
+      assertNull(nodeA.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+      assertEquals(Set.of(), nodeB.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+
+      /////////////////////////////////////////////////////////////////////////
+      // B's poll evicts from B's caches - not from those of the QContext's  //
+      // instance (A) - and A's own poll doesn't re-apply the event it wrote //
+      /////////////////////////////////////////////////////////////////////////
+      nodeA.getIsTableCustomizableCache().put(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY, Set.of("tableA"));
+      assertTrue(broadcasterB.poll().affects("tableA", List.of()));
+      assertNull(nodeB.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+      assertEquals(Set.of("tableA"), nodeA.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+
+      assertTrue(broadcasterA.poll().isEmpty());
+      assertEquals(Set.of("tableA"), nodeA.getIsTableCustomizableCache().getIfPresent(PersonalizerCacheState.CUSTOMIZABLE_TABLES_KEY));
+   }
+
+
+
    /***************************************************************************
     *
     ***************************************************************************/
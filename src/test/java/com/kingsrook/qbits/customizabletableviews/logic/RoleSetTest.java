@@ -0,0 +1,101 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for RoleSet 
+ *******************************************************************************/
+class RoleSetTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testParse()
+   {
+      assertSame(RoleSet.EMPTY, RoleSet.parse(null));
+      assertSame(RoleSet.EMPTY, RoleSet.parse(""));
+      assertSame(RoleSet.EMPTY, RoleSet.parse(" , ,"));
+
+      assertEquals(List.of(1, 2, 3), RoleSet.parse("3,1,2").asList());
+      assertEquals(List.of(1, 2), RoleSet.parse("2, 1,,2").asList());
+      assertEquals(List.of(-1, 10), RoleSet.parse(" 10 ,-1 ").asList());
+
+      assertThrows(NumberFormatException.class, () -> RoleSet.parse("1,a"));
+   }
+
+
+
+   /*******************************************************************************
+    ** the same string should give the same instance - and different orderings
+    ** or duplications of the same roles should give equal sets.
+    *******************************************************************************/
+   @Test
+   void testCanonical()
+   {
+      String roleIds = "5,3";
+      assertSame(RoleSet.parse(roleIds), RoleSet.parse(new String(roleIds.toCharArray())));
+
+      RoleSet roleSet = RoleSet.parse("3,5");
+      assertNotSame(roleSet, RoleSet.parse("5,3,5"));
+      assertEquals(roleSet, RoleSet.parse("5,3,5"));
+      assertEquals(roleSet.hashCode(), RoleSet.parse("5,3,5").hashCode());
+      assertEquals(roleSet, RoleSet.of(Set.of(5, 3)));
+      assertEquals(roleSet, RoleSet.of(Arrays.asList(5, null, 3)));
+      assertFalse(roleSet.equals(RoleSet.parse("3")));
+
+      assertSame(RoleSet.EMPTY, RoleSet.of(null));
+      assertSame(RoleSet.EMPTY, RoleSet.of(Arrays.asList((Integer) null)));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testContains()
+   {
+      RoleSet roleSet = RoleSet.parse("1,3,7");
+      assertEquals(3, roleSet.size());
+      assertTrue(roleSet.contains(3));
+      assertFalse(roleSet.contains(2));
+      assertTrue(RoleSet.EMPTY.isEmpty());
+      assertFalse(RoleSet.EMPTY.contains(1));
+   }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic;
+
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.logic.cache.PersonalizerCache;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import org.junit.jupiter.api.Test;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.EDITABLE_OPTIONAL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+/*******************************************************************************
+ ** Unit test for TableViewTableNameResolver
+ *******************************************************************************/
+class TableViewTableNameResolverTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** names are cached by the loader's loads - and only evicted by changes to
+    ** views' (or their customizable tables') own records.
+    *******************************************************************************/
+   @Test
+   void testCachedFromLoadsAndEvictedForViewChanges() throws QException
+   {
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("tableA")
+         .withField(new QFieldMetaData("a", QFieldType.STRING)));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableA").withIsActive(true),
+         new CustomizableTable().withId(2).withTableName("tableB").withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(1).withCustomizableTableId(1).withName("a"),
+         new TableView().withId(2).withCustomizableTableId(2).withName("b"))));
+
+      PersonalizerCache<Integer, String> cache = CustomizableTableViewsTablePersonalizer.getCacheState().getTableNameByTableViewIdCache();
+      assertNull(cache.getIfPresent(1));
+
+      new TableViewLoader().loadAll();
+      assertEquals("tableA", cache.getIfPresent(1));
+      assertEquals("tableB", cache.getIfPresent(2));
+
+      //////////////////////////////////////////////////////////////////////
+      // editing views' fields, widgets & roles leaves their names cached //
+      //////////////////////////////////////////////////////////////////////
+      new InsertAction().execute(new InsertInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewField().withTableViewId(1).withFieldName("tableA.a").withAccessLevel(EDITABLE_OPTIONAL))));
+      new InsertAction().execute(new InsertInput(TableViewWidget.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewWidget().withTableViewId(2).withWidgetName("widget").withAccessLevel(WidgetAccessLevel.HAS_ACCESS))));
+      new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewRoleInt().withTableViewId(1).withRoleId(1))));
+      assertEquals("tableA", cache.getIfPresent(1));
+      assertEquals("tableB", cache.getIfPresent(2));
+
+      /////////////////////////////////////////////////////
+      // but updating a view evicts that view's name ... //
+      /////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(2).withCustomizableTableId(1).withName("b"))));
+      assertNull(cache.getIfPresent(2));
+      assertEquals("tableA", cache.getIfPresent(1));
+      assertEquals("tableA", TableViewTableNameResolver.getTableName(2));
+
+      ///////////////////////////////////////////////////////////////////
+      // ... and updating a customizable table evicts all of its views //
+      ///////////////////////////////////////////////////////////////////
+      new UpdateAction().execute(new UpdateInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName("tableC").withIsActive(true))));
+      assertNull(cache.getIfPresent(1));
+      assertNull(cache.getIfPresent(2));
+      assertEquals(Map.of(1, "tableC", 2, "tableC"), TableViewTableNameResolver.getTableNames(Arrays.asList(1, 2, 3, null)));
+
+      ////////////////////////////////////////////////////
+      // unknown (or no) views aren't found (or cached) //
+      ////////////////////////////////////////////////////
+      assertNull(TableViewTableNameResolver.getTableName(3));
+      assertNull(TableViewTableNameResolver.getTableName(null));
+      assertNull(cache.getIfPresent(3));
+   }
+
+}
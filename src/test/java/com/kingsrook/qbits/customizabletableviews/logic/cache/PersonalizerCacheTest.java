@@ -0,0 +1,495 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic.cache;
+
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.logic.metrics.InMemoryPersonalizerMetricsSink;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for PersonalizerCache 
+ *******************************************************************************/
+class PersonalizerCacheTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** concurrent misses on the same key should run the loader once, with the
+    ** other callers waiting for (and sharing) its result.
+    *******************************************************************************/
+   @Test
+   void testConcurrentMissesAreCoalesced() throws Exception
+   {
+      int                               threadCount = 8;
+      InMemoryPersonalizerMetricsSink   metricsSink = new InMemoryPersonalizerMetricsSink();
+      PersonalizerCache<String, String> cache       = new PersonalizerCache<String, String>("test", Duration.ofMinutes(1)).withMetricsSink(metricsSink);
+
+      AtomicInteger  loadCount     = new AtomicInteger(0);
+      CountDownLatch releaseLoader = new CountDownLatch(1);
+
+      ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+      try
+      {
+         List<Future<String>> futures = new ArrayList<>();
+         for(int i = 0; i < threadCount; i++)
+         {
+            futures.add(executorService.submit(() -> cache.get("key", k ->
+            {
+               loadCount.incrementAndGet();
+               await(releaseLoader);
+               return ("value for " + k);
+            })));
+         }
+
+         ///////////////////////////////////////////////////////////////////////
+         // hold the loader until every other caller is waiting on its result //
+         ///////////////////////////////////////////////////////////////////////
+         long deadline = System.currentTimeMillis() + 10_000;
+         while(metricsSink.getCacheCoalescedWaiterCount("test") < threadCount - 1 && System.currentTimeMillis() < deadline)
+         {
+            Thread.sleep(5);
+         }
+         releaseLoader.countDown();
+
+         for(Future<String> future : futures)
+         {
+            assertEquals("value for key", future.get(10, TimeUnit.SECONDS));
+         }
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+
+      assertEquals(1, loadCount.get());
+      assertEquals(threadCount - 1, metricsSink.getCacheCoalescedWaiterCount("test"));
+      assertEquals(threadCount, metricsSink.getCacheMissCount("test"));
+      assertEquals(1, cache.size());
+
+      //////////////////////////////////////////////
+      // and after that, it's just a regular hit. //
+      //////////////////////////////////////////////
+      assertEquals("value for key", cache.get("key", k -> "not this"));
+      assertEquals(1, metricsSink.getCacheHitCount("test"));
+   }
+
+
+
+   /*******************************************************************************
+    ** a failed load should fail its waiters too - and not be cached.
+    *******************************************************************************/
+   @Test
+   void testFailedLoadFailsWaiters() throws Exception
+   {
+      InMemoryPersonalizerMetricsSink   metricsSink = new InMemoryPersonalizerMetricsSink();
+      PersonalizerCache<String, String> cache       = new PersonalizerCache<String, String>("test", Duration.ofMinutes(1)).withMetricsSink(metricsSink);
+
+      CountDownLatch loaderStarted = new CountDownLatch(1);
+      CountDownLatch releaseLoader = new CountDownLatch(1);
+
+      ExecutorService executorService = Executors.newFixedThreadPool(2);
+      try
+      {
+         Future<String> loader = executorService.submit(() -> cache.get("key", k ->
+         {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            throw (new QException("backend is down"));
+         }));
+
+         ////////////////////////////////////////////////////////////////////////////
+         // wait for the first caller to start loading, before the second one asks //
+         ////////////////////////////////////////////////////////////////////////////
+         assertTrue(loaderStarted.await(10, TimeUnit.SECONDS));
+
+         Future<String> waiter   = executorService.submit(() -> cache.get("key", k -> "not this"));
+         long           deadline = System.currentTimeMillis() + 10_000;
+         while(metricsSink.getCacheCoalescedWaiterCount("test") < 1 && System.currentTimeMillis() < deadline)
+         {
+            Thread.sleep(5);
+         }
+         releaseLoader.countDown();
+
+         Exception loaderException = assertThrows(Exception.class, () -> loader.get(10, TimeUnit.SECONDS));
+         assertTrue(loaderException.getCause() instanceof QException);
+         Exception waiterException = assertThrows(Exception.class, () -> waiter.get(10, TimeUnit.SECONDS));
+         assertTrue(waiterException.getCause() instanceof QException);
+         assertTrue(waiterException.getCause().getMessage().contains("backend is down"));
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+
+      assertEquals(0, cache.size());
+      assertEquals("loaded", cache.get("key", k -> "loaded"));
+   }
+
+
+
+   /*******************************************************************************
+    ** a value loaded while an invalidation ran should be returned to its caller
+    ** (and waiters) - but not cached, as it may be from before the change.
+    *******************************************************************************/
+   @Test
+   void testInvalidationDuringLoadIsNotCached() throws Exception
+   {
+      PersonalizerCache<String, String> cache = new PersonalizerCache<>("test", Duration.ofMinutes(1));
+
+      CountDownLatch loaderStarted = new CountDownLatch(1);
+      CountDownLatch releaseLoader = new CountDownLatch(1);
+
+      ExecutorService executorService = Executors.newSingleThreadExecutor();
+      try
+      {
+         Future<String> loader = executorService.submit(() -> cache.get("key", k ->
+         {
+            loaderStarted.countDown();
+            await(releaseLoader);
+            return ("before");
+         }));
+
+         assertTrue(loaderStarted.await(10, TimeUnit.SECONDS));
+
+         //////////////////////////////////////////////////////////////////////////
+         // invalidate while the load is blocked (there's nothing cached to      //
+         // remove yet), then let the load finish with its (now outdated) value. //
+         //////////////////////////////////////////////////////////////////////////
+         assertEquals(0, cache.removeIf((k, v) -> k.equals("key")));
+         releaseLoader.countDown();
+
+         assertEquals("before", loader.get(10, TimeUnit.SECONDS));
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+
+      assertEquals(0, cache.size());
+      assertNull(cache.getIfPresent("key"));
+      assertEquals("after", cache.get("key", k -> "after"));
+      assertEquals("after", cache.getIfPresent("key"));
+   }
+
+
+
+   /*******************************************************************************
+    ** an invalidation during loads should only keep the loads of the keys that
+    ** it may affect from being cached - others still store their values.
+    *******************************************************************************/
+   @Test
+   void testInvalidationDuringLoadOnlyAffectsMatchingKeys() throws Exception
+   {
+      PersonalizerCache<String, String> cache = new PersonalizerCache<>("test", Duration.ofMinutes(1));
+
+      CountDownLatch loadersStarted = new CountDownLatch(2);
+      CountDownLatch releaseLoaders = new CountDownLatch(1);
+
+      ExecutorService executorService = Executors.newFixedThreadPool(2);
+      try
+      {
+         List<Future<String>> loaders = new ArrayList<>();
+         for(String key : List.of("a", "b"))
+         {
+            loaders.add(executorService.submit(() -> cache.get(key, k ->
+            {
+               loadersStarted.countDown();
+               await(releaseLoaders);
+               return (k + "-before");
+            })));
+         }
+
+         assertTrue(loadersStarted.await(10, TimeUnit.SECONDS));
+         assertEquals(0, cache.removeIf((k, v) -> k.equals("a")));
+         releaseLoaders.countDown();
+
+         assertEquals("a-before", loaders.get(0).get(10, TimeUnit.SECONDS));
+         assertEquals("b-before", loaders.get(1).get(10, TimeUnit.SECONDS));
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+
+      assertNull(cache.getIfPresent("a"));
+      assertEquals("b-before", cache.getIfPresent("b"));
+   }
+
+
+
+   /*******************************************************************************
+    ** race loads against changes & their invalidations - however they interleave,
+    ** what's left cached must never be from before the latest change (which a
+    ** check-then-store, that an invalidation could slip in between, would allow).
+    *******************************************************************************/
+   @Test
+   void testConcurrentLoadAndInvalidation() throws Exception
+   {
+      ExecutorService executorService = Executors.newFixedThreadPool(2);
+      try
+      {
+         for(int i = 0; i < 1000; i++)
+         {
+            PersonalizerCache<String, Integer> cache   = new PersonalizerCache<>("test", Duration.ofMinutes(1));
+            AtomicInteger                      version = new AtomicInteger(0);
+            CountDownLatch                     start   = new CountDownLatch(1);
+
+            Future<Integer> loader = executorService.submit(() ->
+            {
+               await(start);
+               return (cache.get("key", k -> version.get()));
+            });
+
+            Future<Integer> invalidator = executorService.submit(() ->
+            {
+               await(start);
+               version.incrementAndGet();
+               return (cache.removeIf((k, v) -> true));
+            });
+
+            start.countDown();
+            loader.get(10, TimeUnit.SECONDS);
+            invalidator.get(10, TimeUnit.SECONDS);
+
+            Integer cached = cache.getIfPresent("key");
+            assertTrue(cached == null || cached == version.get(), "iteration " + i + " cached an outdated value: " + cached);
+         }
+      }
+      finally
+      {
+         executorService.shutdownNow();
+      }
+   }
+
+
+
+   /*******************************************************************************
+    ** a loader that asks for its own key shouldn't deadlock.
+    *******************************************************************************/
+   @Test
+   void testReentrantLoad() throws QException
+   {
+      PersonalizerCache<String, String> cache = new PersonalizerCache<>("test", Duration.ofMinutes(1));
+      assertEquals("outer(inner)", cache.get("key", k -> "outer(" + cache.get(k, k2 -> "inner") + ")"));
+   }
+
+
+
+   /*******************************************************************************
+    ** past the soft timeout, the cached value should be returned right away,
+    ** with a reload run on the refresh executor.
+    *******************************************************************************/
+   @Test
+   void testStaleWhileRevalidate() throws Exception
+   {
+      List<Runnable>                    refreshTasks = new ArrayList<>();
+      PersonalizerCache<String, String> cache        = new PersonalizerCache<String, String>("test", Duration.ofMinutes(1))
+         .withSoftTimeout(Duration.ofMillis(1))
+         .withRefreshExecutor(refreshTasks::add);
+
+      cache.put("key", "v1");
+      Thread.sleep(5);
+
+      /////////////////////////////////////////////////////////////////////////
+      // stale - so get the old value, and a refresh is queued (just one, no //
+      // matter how many callers see the stale entry while it's pending).    //
+      /////////////////////////////////////////////////////////////////////////
+      assertEquals("v1", cache.get("key", k -> "v2"));
+      assertEquals("v1", cache.get("key", k -> "v2"));
+      assertEquals(1, refreshTasks.size());
+
+      refreshTasks.remove(0).run();
+      assertEquals("v2", cache.getIfPresent("key"));
+
+      ///////////////////////////////////////////////////////////////////////////
+      // a refresh that was started before the entry was invalidated shouldn't //
+      // put its (possibly outdated) value back.                               //
+      ///////////////////////////////////////////////////////////////////////////
+      Thread.sleep(5);
+      assertEquals("v2", cache.get("key", k -> "v3"));
+      assertEquals(1, refreshTasks.size());
+      cache.clear();
+      refreshTasks.remove(0).run();
+      assertEquals(0, cache.size());
+
+      /////////////////////////////////////////////////////////////////////////
+      // without an executor, a stale (but not expired) entry is just a hit. //
+      /////////////////////////////////////////////////////////////////////////
+      cache.setRefreshExecutor(null);
+      cache.put("key", "v4");
+      Thread.sleep(5);
+      assertEquals("v4", cache.get("key", k -> "v5"));
+      assertEquals(0, refreshTasks.size());
+   }
+
+
+
+   /*******************************************************************************
+    ** past max entries, the least-recently-used entries should be evicted, down
+    ** to 90% of the limit.
+    *******************************************************************************/
+   @Test
+   void testMaxEntriesEvictsLeastRecentlyUsed() throws Exception
+   {
+      InMemoryPersonalizerMetricsSink   metricsSink = new InMemoryPersonalizerMetricsSink();
+      PersonalizerCache<String, String> cache       = new PersonalizerCache<String, String>("test", Duration.ofMinutes(1))
+         .withMetricsSink(metricsSink)
+         .withMaxEntries(10);
+
+      for(int i = 0; i < 10; i++)
+      {
+         cache.put("k" + i, "v" + i);
+         Thread.sleep(1);
+      }
+      assertEquals(10, cache.size());
+      assertEquals(0, metricsSink.getCacheEvictionCount("test"));
+
+      /////////////////////////////////////////////////////////////////
+      // use the oldest entry - so it's the next-oldest ones that go //
+      /////////////////////////////////////////////////////////////////
+      assertEquals("v0", cache.getIfPresent("k0"));
+      Thread.sleep(1);
+
+      cache.put("k10", "v10");
+      assertEquals(9, cache.size());
+      assertEquals(9, metricsSink.getCacheSize("test"));
+      assertEquals(2, metricsSink.getCacheEvictionCount("test"));
+      assertEquals("v0", cache.getIfPresent("k0"));
+      assertNull(cache.getIfPresent("k1"));
+      assertNull(cache.getIfPresent("k2"));
+      assertEquals("v10", cache.getIfPresent("k10"));
+   }
+
+
+
+   /*******************************************************************************
+    ** retained bytes should be tracked by the weigher, and past the max, the
+    ** least-recently-used entries should be evicted, down to 90% of the limit.
+    *******************************************************************************/
+   @Test
+   void testMaxRetainedBytes() throws Exception
+   {
+      InMemoryPersonalizerMetricsSink   metricsSink = new InMemoryPersonalizerMetricsSink();
+      PersonalizerCache<String, String> cache       = new PersonalizerCache<String, String>("test", Duration.ofMinutes(1))
+         .withMetricsSink(metricsSink)
+         .withWeigher((key, value) -> value.length())
+         .withMaxRetainedBytes(100);
+
+      String thirtyBytes = "x".repeat(30);
+      for(int i = 0; i < 3; i++)
+      {
+         cache.put("k" + i, thirtyBytes);
+         Thread.sleep(1);
+      }
+      assertEquals(90, cache.getRetainedBytes());
+      assertEquals(90, metricsSink.getCacheRetainedBytes("test"));
+
+      ///////////////////////////////////////////////////////////
+      // replacing an entry swaps its weight, rather than adds //
+      ///////////////////////////////////////////////////////////
+      cache.put("k2", "x".repeat(20));
+      assertEquals(80, cache.getRetainedBytes());
+      Thread.sleep(1);
+
+      //////////////////////////////////////////////////////////////////
+      // 110 bytes is over the limit - so the oldest entry (k0) goes. //
+      //////////////////////////////////////////////////////////////////
+      cache.put("k3", thirtyBytes);
+      assertEquals(80, cache.getRetainedBytes());
+      assertNull(cache.getIfPresent("k0"));
+      assertEquals(1, metricsSink.getCacheEvictionCount("test"));
+
+      cache.clear();
+      assertEquals(0, cache.getRetainedBytes());
+      assertEquals(0, metricsSink.getCacheRetainedBytes("test"));
+   }
+
+
+
+   /*******************************************************************************
+    ** expired entries should be removed - when found by getIfPresent, and by a
+    ** put that's a sweep interval after the last sweep - not just hidden.
+    *******************************************************************************/
+   @Test
+   void testExpiredEntriesAreRemoved() throws Exception
+   {
+      InMemoryPersonalizerMetricsSink   metricsSink = new InMemoryPersonalizerMetricsSink();
+      PersonalizerCache<String, String> cache       = new PersonalizerCache<String, String>("test", Duration.ofMillis(20))
+         .withMetricsSink(metricsSink)
+         .withWeigher((key, value) -> value.length());
+
+      cache.put("k0", "x".repeat(10));
+      cache.put("k1", "x".repeat(10));
+      cache.put("k2", "x".repeat(10));
+      assertEquals(3, cache.size());
+      assertEquals(30, cache.getRetainedBytes());
+      Thread.sleep(30);
+
+      assertNull(cache.getIfPresent("k0"));
+      assertEquals(2, cache.size());
+      assertEquals(20, cache.getRetainedBytes());
+
+      ///////////////////////////////////////////////////////////////
+      // the next put sweeps out the rest, that were never re-read //
+      ///////////////////////////////////////////////////////////////
+      cache.put("k3", "x".repeat(5));
+      assertEquals(1, cache.size());
+      assertEquals(5, cache.getRetainedBytes());
+      assertEquals(1, metricsSink.getCacheSize("test"));
+      assertEquals(5, metricsSink.getCacheRetainedBytes("test"));
+      assertEquals("xxxxx", cache.getIfPresent("k3"));
+   }
+
+
+
+   /*******************************************************************************
+    ** wait for a latch (in a loader - which can only throw QException).
+    *******************************************************************************/
+   private static void await(CountDownLatch latch) throws QException
+   {
+      try
+      {
+         latch.await(10, TimeUnit.SECONDS);
+      }
+      catch(InterruptedException e)
+      {
+         throw (new QException("Interrupted", e));
+      }
+   }
+
+}
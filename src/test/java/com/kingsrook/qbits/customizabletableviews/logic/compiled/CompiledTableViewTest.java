@@ -0,0 +1,183 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewWidget;
+import com.kingsrook.qbits.customizabletableviews.model.WidgetAccessLevel;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import org.junit.jupiter.api.Test;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.EDITABLE_OPTIONAL;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.EDITABLE_REQUIRED;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.READ_ONLY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for CompiledTableView 
+ *******************************************************************************/
+class CompiledTableViewTest extends BaseTest
+{
+   private static final QTableMetaData TABLE = new QTableMetaData()
+      .withName("myTable")
+      .withField(new QFieldMetaData("id", QFieldType.INTEGER))
+      .withField(new QFieldMetaData("a", QFieldType.STRING))
+      .withField(new QFieldMetaData("b", QFieldType.STRING))
+      .withSection(SectionFactory.defaultT1("id", "a", "b"))
+      .withSection(SectionFactory.defaultT2().withName("w1").withWidgetName("widget1"))
+      .withSection(SectionFactory.defaultT2().withName("w2").withWidgetName("widget2"));
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testCompile()
+   {
+      FieldOrdinals fieldOrdinals = new FieldOrdinals(TABLE);
+      assertEquals(3, fieldOrdinals.getFieldCount());
+      assertEquals(2, fieldOrdinals.getWidgetCount());
+
+      CompiledTableView compiledTableView = CompiledTableView.compile(new TableView()
+         .withFields(List.of(
+            new TableViewField().withFieldName("myTable.a").withAccessLevel(READ_ONLY),
+            new TableViewField().withFieldName("myTable.b").withAccessLevel("invalid"),
+            new TableViewField().withFieldName("myTable.notAField").withAccessLevel(EDITABLE_OPTIONAL),
+            new TableViewField().withFieldName("noDot").withAccessLevel(EDITABLE_OPTIONAL)))
+         .withWidgets(List.of(
+            new TableViewWidget().withWidgetName("widget2").withAccessLevel(WidgetAccessLevel.HAS_ACCESS),
+            new TableViewWidget().withWidgetName("notAWidget").withAccessLevel(WidgetAccessLevel.HAS_ACCESS))), fieldOrdinals);
+
+      assertEquals(2, compiledTableView.getVisibleFields().cardinality());
+      assertNull(compiledTableView.getAccessLevel(fieldOrdinals.getFieldOrdinal("id")));
+      assertEquals(READ_ONLY, compiledTableView.getAccessLevel(fieldOrdinals.getFieldOrdinal("a")));
+      assertEquals(EDITABLE_OPTIONAL, compiledTableView.getAccessLevel(fieldOrdinals.getFieldOrdinal("b")));
+
+      assertFalse(compiledTableView.hasWidget("widget1"));
+      assertTrue(compiledTableView.hasWidget("widget2"));
+      assertFalse(compiledTableView.hasWidget("notAWidget"));
+   }
+
+
+
+   /*******************************************************************************
+    ** merging compiled views must give the same result as FieldAccessLevel.merge,
+    ** for every combination of levels (null meaning not in the view).
+    *******************************************************************************/
+   @Test
+   void testMergeMatchesFieldAccessLevelMerge()
+   {
+      FieldOrdinals          fieldOrdinals = new FieldOrdinals(TABLE);
+      List<FieldAccessLevel> levels        = new ArrayList<>(Arrays.asList(FieldAccessLevel.values()));
+      levels.add(null);
+
+      for(FieldAccessLevel level1 : levels)
+      {
+         for(FieldAccessLevel level2 : levels)
+         {
+            CompiledTableView merged = CompiledTableView.merge(List.of(
+               CompiledTableView.compile(viewWithFieldA(level1), fieldOrdinals),
+               CompiledTableView.compile(viewWithFieldA(level2), fieldOrdinals)));
+
+            FieldAccessLevel expected = level1 == null ? level2 : level1.merge(level2);
+            assertEquals(expected, merged.getAccessLevel(fieldOrdinals.getFieldOrdinal("a")), level1 + " + " + level2);
+         }
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testMergeWidgetsAndDifferentOrdinals()
+   {
+      FieldOrdinals fieldOrdinals = new FieldOrdinals(TABLE);
+      CompiledTableView merged = CompiledTableView.merge(List.of(
+         CompiledTableView.compile(new TableView().withWidgets(List.of(new TableViewWidget().withWidgetName("widget1"))), fieldOrdinals),
+         CompiledTableView.compile(new TableView().withWidgets(List.of(new TableViewWidget().withWidgetName("widget2"))), fieldOrdinals)));
+      assertTrue(merged.hasWidget("widget1"));
+      assertTrue(merged.hasWidget("widget2"));
+
+      assertThrows(IllegalArgumentException.class, () -> CompiledTableView.merge(List.of(
+         CompiledTableView.compile(new TableView(), fieldOrdinals),
+         CompiledTableView.compile(new TableView(), new FieldOrdinals(TABLE)))));
+   }
+
+
+
+   /*******************************************************************************
+    ** fields with an unrecognized access level are optional in a view on its own,
+    ** but (as in mergeTableViewEntities) are left out when views are merged -
+    ** unless another of the views gives them a level.
+    *******************************************************************************/
+   @Test
+   void testMergeUnrecognizedAccessLevels()
+   {
+      FieldOrdinals     fieldOrdinals = new FieldOrdinals(TABLE);
+      CompiledTableView unrecognized  = CompiledTableView.compile(new TableView().withFields(List.of(
+         new TableViewField().withFieldName("myTable.a").withAccessLevel("invalid"),
+         new TableViewField().withFieldName("myTable.b").withAccessLevel("invalid"))), fieldOrdinals);
+      assertEquals(EDITABLE_OPTIONAL, unrecognized.getAccessLevel(fieldOrdinals.getFieldOrdinal("a")));
+      assertEquals(EDITABLE_OPTIONAL, unrecognized.getAccessLevel(fieldOrdinals.getFieldOrdinal("b")));
+
+      TableView         sourceView = new TableView();
+      CompiledTableView merged     = CompiledTableView.merge(List.of(unrecognized, CompiledTableView.compile(viewWithFieldA(READ_ONLY), fieldOrdinals)), sourceView);
+      assertEquals(READ_ONLY, merged.getAccessLevel(fieldOrdinals.getFieldOrdinal("a")));
+      assertNull(merged.getAccessLevel(fieldOrdinals.getFieldOrdinal("b")));
+      assertEquals(1, merged.getVisibleFields().cardinality());
+      assertSame(sourceView, merged.getSourceView());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private TableView viewWithFieldA(FieldAccessLevel level)
+   {
+      if(level == null)
+      {
+         return (new TableView());
+      }
+
+      return (new TableView().withFields(List.of(new TableViewField().withFieldName("myTable.a").withAccessLevel(level))));
+   }
+
+}
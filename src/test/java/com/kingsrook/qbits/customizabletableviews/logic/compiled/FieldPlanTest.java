@@ -0,0 +1,147 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package com.kingsrook.qbits.customizabletableviews.logic.compiled;
+
+
+import java.util.List;
+import java.util.Map;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.DynamicDefaultValueBehavior;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import org.junit.jupiter.api.Test;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.EDITABLE_OPTIONAL;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.EDITABLE_REQUIRED;
+import static com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel.READ_ONLY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for FieldPlan 
+ *******************************************************************************/
+class FieldPlanTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   private static QTableMetaData defineTable()
+   {
+      return (new QTableMetaData()
+         .withName("myTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.INTEGER).withIsEditable(false))
+         .withField(new QFieldMetaData("mandatory", QFieldType.STRING).withIsRequired(true))
+         .withField(new QFieldMetaData("createDate", QFieldType.DATE_TIME).withBehavior(DynamicDefaultValueBehavior.CREATE_DATE))
+         .withField(new QFieldMetaData("a", QFieldType.STRING))
+         .withField(new QFieldMetaData("b", QFieldType.STRING))
+         .withField(new QFieldMetaData("dropped", QFieldType.STRING)));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testBuildAndClone()
+   {
+      QTableMetaData    table             = defineTable();
+      CompiledTableView compiledTableView = CompiledTableView.compile(new TableView().withFields(List.of(
+         new TableViewField().withFieldName("myTable.b").withAccessLevel(READ_ONLY),
+         new TableViewField().withFieldName("myTable.a").withAccessLevel(EDITABLE_REQUIRED))), new FieldOrdinals(table));
+
+      ////////////////////////////////////////////////////////////////////////////
+      // visible fields first (in table order), then the always-kept ones - and //
+      // createDate only if keeping dynamic-default-value fields                //
+      ////////////////////////////////////////////////////////////////////////////
+      FieldPlan fieldPlan = FieldPlan.build(compiledTableView, table, false);
+      assertEquals(List.of("a", "b", "id", "mandatory"), List.copyOf(fieldPlan.getFieldNames()));
+      assertFalse(fieldPlan.keeps("dropped"));
+      assertEquals(new FieldPlan.Entry("a", true, true), fieldPlan.getEntries().get(0));
+      assertEquals(new FieldPlan.Entry("b", false, false), fieldPlan.getEntries().get(1));
+      assertEquals(new FieldPlan.Entry("id", false, false), fieldPlan.getEntries().get(2));
+      assertEquals(new FieldPlan.Entry("mandatory", true, true), fieldPlan.getEntries().get(3));
+
+      assertEquals(List.of("a", "b", "id", "mandatory", "createDate"), List.copyOf(FieldPlan.build(compiledTableView, table, true).getFieldNames()));
+
+      ///////////////////////////////////////////////////////////////////////////
+      // building the plan doesn't touch the table - applying it gives clones, //
+      // with the plan's values, of only the kept fields                       //
+      ///////////////////////////////////////////////////////////////////////////
+      assertTrue(table.getField("a").getIsEditable());
+      assertFalse(table.getField("a").getIsRequired());
+      assertTrue(table.getField("b").getIsEditable());
+
+      Map<String, QFieldMetaData> keptFields = fieldPlan.cloneKeptFields(table);
+      assertEquals(List.of("a", "b", "id", "mandatory"), List.copyOf(keptFields.keySet()));
+      assertNotSame(table.getField("a"), keptFields.get("a"));
+      assertTrue(keptFields.get("a").getIsRequired());
+      assertFalse(keptFields.get("b").getIsEditable());
+
+      assertFalse(table.getField("a").getIsRequired());
+      assertTrue(table.getField("b").getIsEditable());
+      assertEquals(6, table.getFields().size());
+   }
+
+
+
+   /*******************************************************************************
+    ** the plan's values must be the same as what FieldAccessLevel.apply does to
+    ** a field, for every level, and every kind of field.
+    *******************************************************************************/
+   @Test
+   void testPlanMatchesFieldAccessLevelApply()
+   {
+      List<QFieldMetaData> fields = List.of(
+         new QFieldMetaData("optional", QFieldType.STRING),
+         new QFieldMetaData("required", QFieldType.STRING).withIsRequired(true),
+         new QFieldMetaData("readOnly", QFieldType.STRING).withIsEditable(false),
+         new QFieldMetaData("hidden", QFieldType.STRING).withIsHidden(true));
+
+      for(FieldAccessLevel level : List.of(EDITABLE_OPTIONAL, EDITABLE_REQUIRED, READ_ONLY))
+      {
+         for(QFieldMetaData field : fields)
+         {
+            QTableMetaData    table             = new QTableMetaData().withName("t").withField(field.clone());
+            CompiledTableView compiledTableView = CompiledTableView.compile(new TableView().withFields(List.of(
+               new TableViewField().withFieldName("t." + field.getName()).withAccessLevel(level))), new FieldOrdinals(table));
+
+            QFieldMetaData applied = field.clone();
+            level.apply(applied);
+
+            FieldPlan.Entry entry = FieldPlan.build(compiledTableView, table, false).getEntries().get(0);
+            assertEquals(applied.getIsEditable(), entry.isEditable(), level + " " + field.getName());
+            assertEquals(applied.getIsRequired(), entry.isRequired(), level + " " + field.getName());
+         }
+      }
+   }
+
+}
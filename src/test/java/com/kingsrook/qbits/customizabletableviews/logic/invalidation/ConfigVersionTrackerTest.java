@@ -0,0 +1,242 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewConfigVersion;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.actions.tables.UpdateAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.update.UpdateInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for ConfigVersionTracker 
+ *******************************************************************************/
+class ConfigVersionTrackerTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testBumpAndCheck() throws QException
+   {
+      ConfigVersionTracker tracker = new ConfigVersionTracker();
+
+      ////////////////////////////////////////////////////////////////////////
+      // first check has nothing to compare against - so everything changed //
+      ////////////////////////////////////////////////////////////////////////
+      assertTrue(tracker.check().getClearAll());
+      assertTrue(tracker.check().isEmpty());
+
+      tracker.bump(new CacheInvalidationEvent().withTableName("tableA").withTableNameAndRoleId("tableB", 1));
+      assertEquals(Map.of("tableA", 1, "tableB", 1), getVersions());
+
+      CacheInvalidationEvent event = tracker.check();
+      assertTrue(event.affects("tableA", List.of()));
+      assertTrue(event.affects("tableB", List.of()));
+
+      tracker.bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertEquals(Map.of("tableA", 2, "tableB", 1), getVersions());
+
+      event = tracker.check();
+      assertTrue(event.affects("tableA", List.of()));
+      assertFalse(event.affects("tableB", List.of()));
+      assertTrue(tracker.check().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testClearAllBumpsAllCustomizableTables() throws QException
+   {
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withTableName("tableA"),
+         new CustomizableTable().withTableName("tableB")
+      )));
+
+      //////////////////////////////////////////////////////////////////////
+      // the inserts went through the post-insert customizer, which bumps //
+      //////////////////////////////////////////////////////////////////////
+      assertEquals(Map.of("tableA", 1, "tableB", 1), getVersions());
+
+      new ConfigVersionTracker().bump(CacheInvalidationEvent.ofClearAll());
+      assertEquals(Map.of("tableA", 2, "tableB", 2), getVersions());
+   }
+
+
+
+   /*******************************************************************************
+    ** a change whose count collides with another's (as when two nodes bump the
+    ** same table at once, and one increment is lost) should still be seen - as
+    ** its stamp is different.
+    *******************************************************************************/
+   @Test
+   void testConcurrentBumpsWithSameCountAreSeen() throws QException
+   {
+      ConfigVersionTracker tracker = new ConfigVersionTracker();
+      tracker.bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertTrue(tracker.check().getClearAll());
+
+      new ConfigVersionTracker().bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertTrue(tracker.check().affects("tableA", List.of()));
+      assertEquals(Map.of("tableA", 2), getVersions());
+
+      ///////////////////////////////////////////////////////////////////////////
+      // another node, which read version 1 at the same time, writes version 2 //
+      // over it - same count, but its own stamp.                              //
+      ///////////////////////////////////////////////////////////////////////////
+      Integer id = new QueryAction().execute(new QueryInput(TableViewConfigVersion.TABLE_NAME)).getRecords().get(0).getValueInteger("id");
+      new UpdateAction().execute(new UpdateInput(TableViewConfigVersion.TABLE_NAME).withRecord(new QRecord()
+         .withValue("id", id)
+         .withValue("configVersion", 2)
+         .withValue("versionStamp", "other-node")));
+
+      assertEquals(Map.of("tableA", 2), getVersions());
+      assertTrue(tracker.check().affects("tableA", List.of()));
+      assertTrue(tracker.check().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    ** with tracking turned off, nothing should be read or written.
+    *******************************************************************************/
+   @Test
+   void testDisabled() throws QException
+   {
+      ConfigVersionTracker tracker = new ConfigVersionTracker().withIsEnabled(false);
+      tracker.bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertEquals(Map.of(), getVersions());
+
+      assertTrue(tracker.check().isEmpty());
+      assertTrue(tracker.checkIfDue().isEmpty());
+
+      new ConfigVersionTracker().bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertTrue(tracker.check().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    ** without the TableViewConfigVersion table in the instance, bump & check
+    ** should do nothing (rather than fail), and tracking isn't validating.
+    *******************************************************************************/
+   @Test
+   void testMissingTable() throws QException
+   {
+      QContext.getQInstance().getTables().remove(TableViewConfigVersion.TABLE_NAME);
+
+      ConfigVersionTracker tracker = new ConfigVersionTracker();
+      tracker.bump(new CacheInvalidationEvent().withTableName("tableA"));
+      assertTrue(tracker.check().isEmpty());
+      assertTrue(tracker.checkIfDue().isEmpty());
+      assertFalse(tracker.getIsValidating());
+   }
+
+
+
+   /*******************************************************************************
+    ** tracking only validates after a successful check - and while checks fail,
+    ** they back off, as do their warnings.
+    *******************************************************************************/
+   @Test
+   void testValidatingAndBackOff() throws QException
+   {
+      ConfigVersionTracker tracker = new ConfigVersionTracker();
+      assertFalse(tracker.getIsValidating());
+
+      tracker.check();
+      assertTrue(tracker.getIsValidating());
+      assertEquals(Duration.ofSeconds(5), tracker.getCurrentCheckInterval());
+
+      /////////////////////////////////////////////////////////////////////////
+      // point the table at a backend that doesn't have it, so checks fail - //
+      // the 1st & 2nd failures warn, the 3rd doesn't, the 4th does again.   //
+      /////////////////////////////////////////////////////////////////////////
+      QTableMetaData table = QContext.getQInstance().getTable(TableViewConfigVersion.TABLE_NAME);
+      table.setBackendName(BaseTest.RDBMS_BACKEND_NAME);
+
+      assertThrows(Exception.class, tracker::check);
+      assertFalse(tracker.getIsValidating());
+      assertTrue(tracker.shouldWarnForFailure());
+      assertEquals(Duration.ofSeconds(10), tracker.getCurrentCheckInterval());
+
+      assertThrows(Exception.class, tracker::check);
+      assertTrue(tracker.shouldWarnForFailure());
+
+      assertThrows(Exception.class, tracker::check);
+      assertFalse(tracker.shouldWarnForFailure());
+      assertEquals(Duration.ofSeconds(40), tracker.getCurrentCheckInterval());
+
+      assertThrows(Exception.class, () -> tracker.bump(new CacheInvalidationEvent().withTableName("tableA")));
+      assertTrue(tracker.shouldWarnForFailure());
+
+      for(int i = 0; i < 10; i++)
+      {
+         assertThrows(Exception.class, tracker::check);
+      }
+      assertEquals(Duration.ofMinutes(5), tracker.getCurrentCheckInterval());
+
+      ////////////////////////////////////////////////////////
+      // once checks succeed again, tracking is validating, //
+      // and checks are back to their usual interval.       //
+      ////////////////////////////////////////////////////////
+      table.setBackendName(BaseTest.MEMORY_BACKEND_NAME);
+      tracker.check();
+      assertTrue(tracker.getIsValidating());
+      assertEquals(Duration.ofSeconds(5), tracker.getCurrentCheckInterval());
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private Map<String, Integer> getVersions() throws QException
+   {
+      return (new QueryAction().execute(new QueryInput(TableViewConfigVersion.TABLE_NAME)).getRecords().stream()
+         .collect(Collectors.toMap(r -> r.getValueString("tableName"), r -> r.getValueInteger("configVersion"))));
+   }
+
+}
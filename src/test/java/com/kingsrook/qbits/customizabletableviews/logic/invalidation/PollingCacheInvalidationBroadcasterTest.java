@@ -0,0 +1,181 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.invalidation;
+
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewCacheInvalidation;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for PollingCacheInvalidationBroadcaster 
+ *******************************************************************************/
+class PollingCacheInvalidationBroadcasterTest extends BaseTest
+{
+
+   /*******************************************************************************
+    ** simulate 2 nodes, by using 2 broadcaster instances against the same table.
+    *******************************************************************************/
+   @Test
+   void testEventsAreReceivedByOtherNodes() throws QException
+   {
+      PollingCacheInvalidationBroadcaster nodeA = new PollingCacheInvalidationBroadcaster();
+      PollingCacheInvalidationBroadcaster nodeB = new PollingCacheInvalidationBroadcaster();
+
+      /////////////////////////////////////////////////////
+      // nothing in the log yet - so nothing is applied. //
+      /////////////////////////////////////////////////////
+      assertTrue(nodeA.poll().isEmpty());
+      assertTrue(nodeB.poll().isEmpty());
+
+      nodeA.publish(new CacheInvalidationEvent().withTableName("tableA").withTableNameAndRoleId("tableB", 2));
+      assertEquals(2, new QueryAction().execute(new QueryInput(TableViewCacheInvalidation.TABLE_NAME)).getRecords().size());
+
+      ////////////////////////////////////////////////////////////////////////////////
+      // node A wrote the rows, so it doesn't re-apply them - but node B does, once //
+      ////////////////////////////////////////////////////////////////////////////////
+      assertTrue(nodeA.poll().isEmpty());
+
+      CacheInvalidationEvent received = nodeB.poll();
+      assertFalse(received.getClearAll());
+      assertTrue(received.affects("tableA", List.of(1)));
+      assertTrue(received.affects("tableB", List.of(2)));
+      assertFalse(received.affects("tableB", List.of(1)));
+      assertFalse(received.affects("tableC", List.of(2)));
+
+      assertTrue(nodeB.poll().isEmpty());
+
+      /////////////////////////////
+      // and clear-all, the same //
+      /////////////////////////////
+      nodeB.publish(CacheInvalidationEvent.ofClearAll());
+      assertTrue(nodeB.poll().isEmpty());
+      assertTrue(nodeA.poll().getClearAll());
+   }
+
+
+
+   /*******************************************************************************
+    ** table view ids are shared as their own rows - which affect no tables.
+    *******************************************************************************/
+   @Test
+   void testTableViewIdsAreReceivedByOtherNodes() throws QException
+   {
+      PollingCacheInvalidationBroadcaster nodeA = new PollingCacheInvalidationBroadcaster();
+      PollingCacheInvalidationBroadcaster nodeB = new PollingCacheInvalidationBroadcaster();
+      nodeB.poll();
+
+      nodeA.publish(new CacheInvalidationEvent().withTableViewId(7).withTableViewId(8));
+
+      CacheInvalidationEvent received = nodeB.poll();
+      assertFalse(received.getClearAll());
+      assertEquals(Set.of(7, 8), received.getTableViewIds());
+      assertTrue(received.getTableNames().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    ** events published after a node starts receiving (e.g., while a warm-up is
+    ** filling its caches) should be applied by its first poll.
+    *******************************************************************************/
+   @Test
+   void testEventsBeforeFirstPollAreReceived() throws QException
+   {
+      PollingCacheInvalidationBroadcaster nodeA = new PollingCacheInvalidationBroadcaster();
+      PollingCacheInvalidationBroadcaster nodeB = new PollingCacheInvalidationBroadcaster();
+      nodeB.startReceiving();
+
+      nodeA.publish(new CacheInvalidationEvent().withTableName("tableA"));
+
+      assertTrue(nodeB.poll().affects("tableA", List.of()));
+      assertTrue(nodeB.poll().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    ** a row that commits after rows with higher ids should still be received
+    ** (once) - while rows from before the overlap window aren't.
+    *******************************************************************************/
+   @Test
+   void testLateCommittedRowsAreReceivedOnce() throws QException
+   {
+      PollingCacheInvalidationBroadcaster nodeB = new PollingCacheInvalidationBroadcaster();
+
+      insertRow(new TableViewCacheInvalidation().withId(1).withNodeId("nodeA").withTableName("tableOld").withCreateDate(Instant.now().minus(Duration.ofMinutes(5))));
+      insertRow(new TableViewCacheInvalidation().withId(10).withNodeId("nodeA").withTableName("tableA").withCreateDate(Instant.now()));
+
+      CacheInvalidationEvent received = nodeB.poll();
+      assertTrue(received.affects("tableA", List.of()));
+      assertFalse(received.affects("tableOld", List.of()));
+
+      ///////////////////////////////////////////////////////////////////////////
+      // a lower id, written a few seconds ago, that only committed now - it's //
+      // applied, but the row that was already seen isn't applied again.       //
+      ///////////////////////////////////////////////////////////////////////////
+      insertRow(new TableViewCacheInvalidation().withId(5).withNodeId("nodeA").withTableName("tableB").withCreateDate(Instant.now().minus(Duration.ofSeconds(5))));
+
+      received = nodeB.poll();
+      assertTrue(received.affects("tableB", List.of()));
+      assertFalse(received.affects("tableA", List.of()));
+
+      assertTrue(nodeB.poll().isEmpty());
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testEmptyEventIsNotPublished() throws QException
+   {
+      new PollingCacheInvalidationBroadcaster().publish(new CacheInvalidationEvent());
+      assertEquals(0, new QueryAction().execute(new QueryInput(TableViewCacheInvalidation.TABLE_NAME)).getRecords().size());
+   }
+
+
+
+
+   /***************************************************************************
+    * insert a row directly (e.g., as if from another node).
+    ***************************************************************************/
+   private void insertRow(TableViewCacheInvalidation row) throws QException
+   {
+      new InsertAction().execute(new InsertInput(TableViewCacheInvalidation.TABLE_NAME).withRecordEntities(List.of(row)));
+   }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.logic.metrics;
+
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.model.CustomizableTable;
+import com.kingsrook.qbits.customizabletableviews.model.FieldAccessLevel;
+import com.kingsrook.qbits.customizabletableviews.model.TableView;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewField;
+import com.kingsrook.qbits.customizabletableviews.model.TableViewRoleInt;
+import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.context.QContext;
+import com.kingsrook.qqq.backend.core.exceptions.QException;
+import com.kingsrook.qqq.backend.core.model.actions.metadata.personalization.TableMetaDataPersonalizerInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.QInputSource;
+import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
+import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.model.session.QUser;
+import org.junit.jupiter.api.Test;
+import static com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.EFFECTIVE_TABLE_VIEW_CACHE_NAME;
+import static com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.IS_TABLE_CUSTOMIZABLE_CACHE_NAME;
+import static com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer.PERSONALIZED_TABLE_CACHE_NAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for InMemoryPersonalizerMetricsSink 
+ *******************************************************************************/
+class InMemoryPersonalizerMetricsSinkTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testPersonalizerMetrics() throws QException
+   {
+      InMemoryPersonalizerMetricsSink metricsSink = new InMemoryPersonalizerMetricsSink();
+      try
+      {
+         QTableMetaData baseTable = new QTableMetaData()
+            .withName("baseTable")
+            .withPrimaryKeyField("id")
+            .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+            .withField(new QFieldMetaData("optional", QFieldType.STRING))
+            .withSection(SectionFactory.defaultT1("id", "optional").withName("s0"));
+         QContext.getQInstance().addTable(baseTable);
+
+         new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+            new CustomizableTable().withId(1).withTableName(baseTable.getName()).withIsActive(true))));
+         new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+            new TableView().withId(1).withCustomizableTableId(1).withName("a")
+               .withFields(List.of(new TableViewField().withFieldName("baseTable.optional").withAccessLevel(FieldAccessLevel.READ_ONLY))))));
+         new InsertAction().execute(new InsertInput(TableViewRoleInt.TABLE_NAME).withRecordEntities(List.of(
+            new TableViewRoleInt().withRoleId(1).withTableViewId(1))));
+
+         QContext.getQSession().setUser(new QUser().withIdReference(UUID.randomUUID().toString()));
+         QContext.getQSession().setValue("roleIds", "1");
+
+         CustomizableTableViewsTablePersonalizer.clearMemoizations();
+         CustomizableTableViewsTablePersonalizer.getCacheState().setMetricsSink(metricsSink);
+
+         //////////////////////////////////////////////////////////////////////////////////
+         // personalize the table twice - the first builds it, the second is a cache hit //
+         //////////////////////////////////////////////////////////////////////////////////
+         CustomizableTableViewsTablePersonalizer personalizer = new CustomizableTableViewsTablePersonalizer();
+         TableMetaDataPersonalizerInput          input        = new TableMetaDataPersonalizerInput().withTableMetaData(baseTable).withInputSource(QInputSource.USER);
+         personalizer.execute(input);
+         personalizer.execute(input);
+
+         assertEquals(2, metricsSink.getLatencyHistogram(PersonalizerOperation.EXECUTE).getCount());
+         assertEquals(2, metricsSink.getLatencyHistogram(PersonalizerOperation.CUSTOMIZE_TABLE).getCount());
+         assertEquals(1, metricsSink.getLatencyHistogram(PersonalizerOperation.APPLY_VIEW_TO_TABLE).getCount());
+         assertEquals(1, metricsSink.getLatencyHistogram(PersonalizerOperation.LOAD_VIEWS).getCount());
+
+         assertEquals(1, metricsSink.getCacheMissCount(IS_TABLE_CUSTOMIZABLE_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheHitCount(IS_TABLE_CUSTOMIZABLE_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheMissCount(EFFECTIVE_TABLE_VIEW_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheHitCount(EFFECTIVE_TABLE_VIEW_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheMissCount(PERSONALIZED_TABLE_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheHitCount(PERSONALIZED_TABLE_CACHE_NAME));
+         assertEquals(1, metricsSink.getCacheSize(PERSONALIZED_TABLE_CACHE_NAME));
+         assertTrue(metricsSink.getBackendQueryCount() >= 2);
+
+         Map<String, Long> snapshot = metricsSink.getSnapshot();
+         assertEquals(2, snapshot.get("latency.execute.count").longValue());
+         assertEquals(1, snapshot.get("latency.applyViewToTable.count").longValue());
+         assertEquals(1, snapshot.get("cache.personalizedTable.hits").longValue());
+
+         //////////////////////////////////////////////////
+         // clearing the caches is reported as evictions //
+         //////////////////////////////////////////////////
+         CustomizableTableViewsTablePersonalizer.clearMemoizations();
+         assertTrue(metricsSink.getCacheEvictionCount(PERSONALIZED_TABLE_CACHE_NAME) >= 1);
+         assertEquals(0, metricsSink.getCacheSize(PERSONALIZED_TABLE_CACHE_NAME));
+
+         metricsSink.log();
+         metricsSink.reset();
+         assertEquals(0, metricsSink.getLatencyHistogram(PersonalizerOperation.EXECUTE).getCount());
+         assertEquals(0, metricsSink.getCacheHitCount(PERSONALIZED_TABLE_CACHE_NAME));
+      }
+      finally
+      {
+         CustomizableTableViewsTablePersonalizer.getCacheState().setMetricsSink(null);
+      }
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testLatencyHistogram()
+   {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(0, histogram.getPercentileNanos(50));
+
+      for(int i = 0; i < 99; i++)
+      {
+         histogram.record(100);
+      }
+      histogram.record(1_000_000);
+
+      assertEquals(100, histogram.getCount());
+      assertEquals(1_000_000, histogram.getMaxNanos());
+      assertEquals((99 * 100 + 1_000_000) / 100, histogram.getMeanNanos());
+
+      ////////////////////////////////////////////////////////////////
+      // 100 is in the [64, 128) bucket - so percentiles report 127 //
+      ////////////////////////////////////////////////////////////////
+      assertEquals(127, histogram.getPercentileNanos(50));
+      assertEquals(127, histogram.getPercentileNanos(99));
+      assertEquals(1_000_000, histogram.getPercentileNanos(100));
+   }
+
+}
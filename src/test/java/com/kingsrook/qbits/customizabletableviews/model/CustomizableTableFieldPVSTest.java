@@ -22,21 +22,34 @@
 package com.kingsrook.qbits.customizabletableviews.model;
 
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerCacheState;
+import com.kingsrook.qbits.customizabletableviews.logic.TableViewTableNameResolver;
 import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
 import com.kingsrook.qqq.backend.core.model.actions.values.SearchPossibleValueSourceInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
 import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValue;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.QTableMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
+import com.kingsrook.qqq.backend.core.modules.backend.implementations.memory.MemoryRecordStore;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 
 /*******************************************************************************
@@ -84,4 +97,156 @@ class CustomizableTableFieldPVSTest extends BaseTest
       assertEquals("Optional", possibleValues.get(1).getLabel());
    }
 
-}
\ No newline at end of file
+
+
+   /*******************************************************************************
+    ** searches re-use the memoized view-to-table mapping & field possible values,
+    ** rather than querying (or re-building them) each time.
+    *******************************************************************************/
+   @Test
+   void testMemoization() throws QException
+   {
+      QTableMetaData testTable = new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withField(new QFieldMetaData("optional", QFieldType.STRING).withLabel("Optional"));
+      QContext.getQInstance().addTable(testTable);
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(17).withCustomizableTableId(1).withName("a"))));
+
+      SearchPossibleValueSourceInput input = new SearchPossibleValueSourceInput().withOtherValues(Map.of("tableViewId", 17));
+      assertEquals(1, new CustomizableTableFieldPVS().search(input).size());
+      assertSame(CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable), CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable));
+
+      ///////////////////////////////////////////////////////////////////////////////////
+      // wipe the backend (without going through customizers, so nothing is evicted) - //
+      // and the search still finds the view's table, from cache.                      //
+      ///////////////////////////////////////////////////////////////////////////////////
+      MemoryRecordStore.fullReset();
+      assertEquals("testTable", TableViewTableNameResolver.getTableName(17));
+      assertEquals(1, new CustomizableTableFieldPVS().search(input).size());
+
+      ///////////////////////////////////////////////////////////////////////////
+      // a change to the table's meta-data re-builds its field possible values //
+      ///////////////////////////////////////////////////////////////////////////
+      List<QPossibleValue<String>> before = CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable);
+      testTable.addField(new QFieldMetaData("extra", QFieldType.STRING).withLabel("Extra"));
+      assertNotSame(before, CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable));
+      assertEquals(2, new CustomizableTableFieldPVS().search(input).size());
+
+      SearchPossibleValueSourceInput searchInput = new SearchPossibleValueSourceInput().withSearchTerm("ext").withOtherValues(Map.of("tableViewId", 17));
+      assertEquals(List.of("testTable.extra"), new CustomizableTableFieldPVS().search(searchInput).stream().map(QPossibleValue::getId).toList());
+
+      ////////////////////////////////////////////////////////////////////////////
+      // the possible values are cached in the instance's personalizer caches - //
+      // so they're evicted along with its other entries.                       //
+      ////////////////////////////////////////////////////////////////////////////
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      assertEquals(1, cacheState.getTableFieldPossibleValuesCache().size());
+      assertEquals(0, CustomizableTableViewsTablePersonalizer.getCacheState(new QInstance()).getTableFieldPossibleValuesCache().size());
+
+      before = CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable);
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      assertEquals(0, cacheState.getTableFieldPossibleValuesCache().size());
+      assertNotSame(before, CustomizableTableFieldPVS.getEligibleFieldPossibleValues(testTable));
+
+      ////////////////////////////////////////////////////////////////////////
+      // and an unknown view isn't memoized (so it's found once it's added) //
+      ////////////////////////////////////////////////////////////////////////
+      assertNull(TableViewTableNameResolver.getTableName(18));
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(18).withCustomizableTableId(1).withName("b"))));
+      assertEquals("testTable", TableViewTableNameResolver.getTableName(18));
+   }
+
+
+
+   /*******************************************************************************
+    ** batch translation gives the same values as one-at-a-time - for ids from
+    ** any number of tables - leaving out ids that aren't fields in the instance.
+    *******************************************************************************/
+   @Test
+   void testGetPossibleValues()
+   {
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withField(new QFieldMetaData("hidden", QFieldType.STRING).withIsHidden(true).withLabel("Hidden"))
+         .withField(new QFieldMetaData("optional", QFieldType.STRING).withLabel("Optional")));
+      QContext.getQInstance().addTable(new QTableMetaData()
+         .withName("otherTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING))
+         .withField(new QFieldMetaData("a", QFieldType.STRING).withLabel("A")));
+
+      CustomizableTableFieldPVS pvs = new CustomizableTableFieldPVS();
+
+      List<String>                        ids                = Arrays.asList("testTable.optional", "otherTable.a", "testTable.hidden", "testTable.optional", "testTable.nope", "noTable.a", "noDot", null);
+      Map<String, QPossibleValue<String>> possibleValuesById = pvs.getPossibleValues(ids);
+      assertEquals(Set.of("testTable.optional", "testTable.hidden", "otherTable.a"), possibleValuesById.keySet());
+
+      for(String id : ids)
+      {
+         QPossibleValue<String> possibleValue = pvs.getPossibleValue(id);
+         if(possibleValue == null)
+         {
+            assertNull(possibleValuesById.get(id));
+         }
+         else
+         {
+            assertEquals(possibleValue.getId(), possibleValuesById.get(id).getId());
+            assertEquals(possibleValue.getLabel(), possibleValuesById.get(id).getLabel());
+         }
+      }
+
+      assertEquals(Map.of(), pvs.getPossibleValues(null));
+   }
+
+
+
+   /*******************************************************************************
+    ** QQQ's possible value translation (which calls getPossibleValue for each
+    ** value) reads the table's memoized possible values - rather than building
+    ** a new one for every record.
+    *******************************************************************************/
+   @Test
+   void testTranslation() throws QException
+   {
+      QTableMetaData testTable = new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withField(new QFieldMetaData("optional", QFieldType.STRING).withLabel("Optional"));
+      QContext.getQInstance().addTable(testTable);
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(17).withCustomizableTableId(1).withName("a"))));
+      new InsertAction().execute(new InsertInput(TableViewField.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewField().withTableViewId(17).withFieldName("testTable.optional").withAccessLevel(FieldAccessLevel.EDITABLE_OPTIONAL))));
+
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      cacheState.clear();
+
+      List<QRecord> records = new QueryAction().execute(new QueryInput(TableViewField.TABLE_NAME).withShouldTranslatePossibleValues(true)).getRecords();
+      assertEquals(1, records.size());
+      assertEquals("Optional", records.get(0).getDisplayValue("fieldName"));
+
+      ////////////////////////////////////////////////////////////////////////////
+      // the translation built (and cached) the table's possible values - which //
+      // are then given out as-is, rather than as new ones.                     //
+      ////////////////////////////////////////////////////////////////////////////
+      QPossibleValue<String> possibleValue = cacheState.getTableFieldPossibleValuesCache().getIfPresent("testTable").possibleValuesByFieldName().get("optional");
+      assertSame(possibleValue, new CustomizableTableFieldPVS().getPossibleValue("testTable.optional"));
+      assertSame(possibleValue, new CustomizableTableFieldPVS().getPossibleValues(List.of("testTable.optional")).get("testTable.optional"));
+   }
+
+}
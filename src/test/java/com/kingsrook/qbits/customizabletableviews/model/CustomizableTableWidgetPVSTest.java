@@ -22,14 +22,22 @@
 package com.kingsrook.qbits.customizabletableviews.model;
 
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import com.kingsrook.qbits.customizabletableviews.logic.CustomizableTableViewsTablePersonalizer;
+import com.kingsrook.qbits.customizabletableviews.logic.PersonalizerCacheState;
 import com.kingsrook.qqq.backend.core.actions.tables.InsertAction;
+import com.kingsrook.qqq.backend.core.actions.tables.QueryAction;
 import com.kingsrook.qqq.backend.core.context.QContext;
 import com.kingsrook.qqq.backend.core.exceptions.QException;
 import com.kingsrook.qqq.backend.core.model.actions.tables.insert.InsertInput;
+import com.kingsrook.qqq.backend.core.model.actions.tables.query.QueryInput;
 import com.kingsrook.qqq.backend.core.model.actions.values.SearchPossibleValueSourceInput;
+import com.kingsrook.qqq.backend.core.model.data.QRecord;
+import com.kingsrook.qqq.backend.core.model.metadata.QInstance;
 import com.kingsrook.qqq.backend.core.model.metadata.dashboard.QWidgetMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldMetaData;
 import com.kingsrook.qqq.backend.core.model.metadata.fields.QFieldType;
@@ -39,6 +47,9 @@ import com.kingsrook.qqq.backend.core.model.metadata.tables.SectionFactory;
 import org.junit.jupiter.api.Test;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 
 /*******************************************************************************
@@ -88,6 +99,167 @@ class CustomizableTableWidgetPVSTest extends BaseTest
       possibleValues = new CustomizableTableWidgetPVS().search(new SearchPossibleValueSourceInput().withPossibleValueSourceName(CustomizableTableWidgetPVS.NAME).withIdList(List.of("lilWidgy")).withOtherValues(Map.of("tableViewId", tableViewId)));
       assertEquals(1, possibleValues.size());
       assertThat(possibleValues).anyMatch(pv -> pv.getId().equals("lilWidgy"));
+
+      ////////////////////////////////////////////////////////////////////////
+      // batch translation - just the known widgets, once each, keyed by id //
+      ////////////////////////////////////////////////////////////////////////
+      Map<String, QPossibleValue<String>> possibleValuesById = new CustomizableTableWidgetPVS().getPossibleValues(Arrays.asList("lilWidgy", "biggyWidgy", "lilWidgy", "noWidgy", null));
+      assertEquals(Set.of("lilWidgy", "biggyWidgy"), possibleValuesById.keySet());
+      assertEquals("Lil' Widgy", possibleValuesById.get("lilWidgy").getLabel());
+      assertEquals("Biggy Widgy", possibleValuesById.get("biggyWidgy").getLabel());
+   }
+
+
+
+   /*******************************************************************************
+    ** the widget search index is cached per instance - and re-built when the
+    ** table's widgets (or their labels) change.  Searches are ordered the same
+    ** way as the field possible value source's.
+    *******************************************************************************/
+   @Test
+   void testSearchIndexCachingAndOrdering() throws QException
+   {
+      QWidgetMetaData lilWidgy  = new QWidgetMetaData().withName("lilWidgy").withLabel("Lil' Widgy");
+      QTableMetaData  testTable = new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withField(new QFieldMetaData("widgyCount", QFieldType.STRING).withLabel("Widgy Count"))
+         .withField(new QFieldMetaData("bigWidgy", QFieldType.STRING).withLabel("Big Widgy"))
+         .withSection(SectionFactory.defaultT1("id").withName("s0"))
+         .withSection(SectionFactory.defaultT2("widgyCount", "bigWidgy").withName("s1"))
+         .withSection(SectionFactory.defaultT2().withWidgetName("widgyCount").withName("w0"))
+         .withSection(SectionFactory.defaultT2().withWidgetName("bigWidgy").withName("w1"))
+         .withSection(SectionFactory.defaultT2().withWidgetName("lilWidgy").withName("w2"));
+      QContext.getQInstance().addTable(testTable);
+      QContext.getQInstance().addWidget(new QWidgetMetaData().withName("widgyCount").withLabel("Widgy Count"));
+      QContext.getQInstance().addWidget(new QWidgetMetaData().withName("bigWidgy").withLabel("Big Widgy"));
+      QContext.getQInstance().addWidget(lilWidgy);
+      QContext.getQInstance().addWidget(new QWidgetMetaData().withName("otherWidgy").withLabel("Other Widgy"));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(17).withCustomizableTableId(1).withName("a"))));
+
+      ////////////////////////////////////////////////////////////////////////////
+      // fields & widgets with the same labels come back in the same order - by //
+      // label for a full list, and by rank (then label) for a search term.     //
+      ////////////////////////////////////////////////////////////////////////////
+      for(String searchTerm : Arrays.asList(null, "widgy", "w", "big"))
+      {
+         SearchPossibleValueSourceInput input        = new SearchPossibleValueSourceInput().withSearchTerm(searchTerm).withOtherValues(Map.of("tableViewId", 17));
+         List<String>                   fieldLabels  = new CustomizableTableFieldPVS().search(input).stream().map(QPossibleValue::getLabel).toList();
+         List<String>                   widgetLabels = new CustomizableTableWidgetPVS().search(input).stream().map(QPossibleValue::getLabel).filter(fieldLabels::contains).toList();
+         assertEquals(fieldLabels, widgetLabels, "for search term: " + searchTerm);
+      }
+      assertEquals(List.of("Big Widgy", "Lil' Widgy", "Widgy Count"), new CustomizableTableWidgetPVS().search(new SearchPossibleValueSourceInput().withOtherValues(Map.of("tableViewId", 17))).stream().map(QPossibleValue::getLabel).toList());
+
+      //////////////////////////////////////////////////////////////////////////
+      // the index is in the instance's personalizer caches - and re-used ... //
+      //////////////////////////////////////////////////////////////////////////
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      assertEquals(1, cacheState.getTableWidgetSearchIndexCache().size());
+      assertEquals(0, CustomizableTableViewsTablePersonalizer.getCacheState(new QInstance()).getTableWidgetSearchIndexCache().size());
+      PossibleValueSearchIndex before = CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable);
+      assertSame(before, CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable));
+
+      //////////////////////////////////////////////////
+      // ... until a widget's label is changed, or... //
+      //////////////////////////////////////////////////
+      lilWidgy.setLabel("Tiny Widgy");
+      assertNotSame(before, CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable));
+      assertEquals(List.of("lilWidgy"), new CustomizableTableWidgetPVS().search(new SearchPossibleValueSourceInput().withSearchTerm("tiny").withOtherValues(Map.of("tableViewId", 17))).stream().map(QPossibleValue::getId).toList());
+
+      //////////////////////////////////////
+      // ... a widget section is added... //
+      //////////////////////////////////////
+      before = CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable);
+      testTable.addSection(SectionFactory.defaultT2().withWidgetName("otherWidgy").withName("w3"));
+      assertNotSame(before, CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable));
+      assertEquals(4, CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable).getPossibleValues().size());
+
+      //////////////////////////////////////////
+      // ... or the memoizations are cleared. //
+      //////////////////////////////////////////
+      before = CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable);
+      CustomizableTableViewsTablePersonalizer.clearMemoizations();
+      assertEquals(0, cacheState.getTableWidgetSearchIndexCache().size());
+      assertNotSame(before, CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable));
+   }
+
+
+
+   /*******************************************************************************
+    ** as with fields, a search by ids finds widgets that aren't in the table's
+    ** sections (e.g., that were removed from it after being put in a view).
+    *******************************************************************************/
+   @Test
+   void testIdListOutsideOfTable() throws QException
+   {
+      QTableMetaData testTable = new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withSection(SectionFactory.defaultT1("id").withName("s0"))
+         .withSection(SectionFactory.defaultT2().withWidgetName("lilWidgy").withName("w0"));
+      QContext.getQInstance().addTable(testTable);
+      QContext.getQInstance().addWidget(new QWidgetMetaData().withName("lilWidgy").withLabel("Lil' Widgy"));
+      QContext.getQInstance().addWidget(new QWidgetMetaData().withName("oldWidgy").withLabel("Old Widgy"));
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(17).withCustomizableTableId(1).withName("a"))));
+
+      List<QPossibleValue<String>> possibleValues = new CustomizableTableWidgetPVS().search(new SearchPossibleValueSourceInput().withIdList(List.of("oldWidgy", "lilWidgy", "noWidgy")).withOtherValues(Map.of("tableViewId", 17)));
+      assertEquals(List.of("lilWidgy", "oldWidgy"), possibleValues.stream().map(QPossibleValue::getId).toList());
+   }
+
+
+
+   /*******************************************************************************
+    ** QQQ's possible value translation (which calls getPossibleValue for each
+    ** value) gives each widget's current label - and the search index is
+    ** rebuilt when a label changes.
+    *******************************************************************************/
+   @Test
+   void testTranslation() throws QException
+   {
+      QWidgetMetaData lilWidgy  = new QWidgetMetaData().withName("lilWidgy").withLabel("Lil' Widgy");
+      QTableMetaData  testTable = new QTableMetaData()
+         .withName("testTable")
+         .withPrimaryKeyField("id")
+         .withField(new QFieldMetaData("id", QFieldType.STRING).withIsEditable(false))
+         .withSection(SectionFactory.defaultT1("id").withName("s0"))
+         .withSection(SectionFactory.defaultT2().withWidgetName("lilWidgy").withName("w0"));
+      QContext.getQInstance().addTable(testTable);
+      QContext.getQInstance().addWidget(lilWidgy);
+
+      new InsertAction().execute(new InsertInput(CustomizableTable.TABLE_NAME).withRecordEntities(List.of(
+         new CustomizableTable().withId(1).withTableName(testTable.getName()).withIsActive(true))));
+      new InsertAction().execute(new InsertInput(TableView.TABLE_NAME).withRecordEntities(List.of(
+         new TableView().withId(17).withCustomizableTableId(1).withName("a"))));
+      new InsertAction().execute(new InsertInput(TableViewWidget.TABLE_NAME).withRecordEntities(List.of(
+         new TableViewWidget().withTableViewId(17).withWidgetName("lilWidgy").withAccessLevel(WidgetAccessLevel.HAS_ACCESS))));
+
+      PersonalizerCacheState cacheState = CustomizableTableViewsTablePersonalizer.getCacheState();
+      cacheState.clear();
+
+      List<QRecord> records = new QueryAction().execute(new QueryInput(TableViewWidget.TABLE_NAME).withShouldTranslatePossibleValues(true)).getRecords();
+      assertEquals(1, records.size());
+      assertEquals("Lil' Widgy", records.get(0).getDisplayValue("widgetName"));
+
+      assertEquals("Lil' Widgy", new CustomizableTableWidgetPVS().getPossibleValue("lilWidgy").getLabel());
+      assertEquals("Lil' Widgy", CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable).getPossibleValues().get(0).getLabel());
+
+      lilWidgy.setLabel("Tiny Widgy");
+      records = new QueryAction().execute(new QueryInput(TableViewWidget.TABLE_NAME).withShouldTranslatePossibleValues(true)).getRecords();
+      assertEquals("Tiny Widgy", records.get(0).getDisplayValue("widgetName"));
+      assertEquals("Tiny Widgy", new CustomizableTableWidgetPVS().getPossibleValue("lilWidgy").getLabel());
+      assertEquals("Tiny Widgy", CustomizableTableWidgetPVS.getWidgetSearchIndex(testTable).getPossibleValues().get(0).getLabel());
+      assertNull(new CustomizableTableWidgetPVS().getPossibleValue("noWidgy"));
+      assertNull(new CustomizableTableWidgetPVS().getPossibleValue(null));
    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import com.kingsrook.qqq.backend.core.model.metadata.possiblevalues.QPossibleValue;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/*******************************************************************************
+ ** Unit test for PossibleValueSearchIndex
+ *******************************************************************************/
+class PossibleValueSearchIndexTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testTokenize()
+   {
+      assertEquals(List.of(), PossibleValueSearchIndex.tokenize(null));
+      assertEquals(List.of("order", "date"), PossibleValueSearchIndex.tokenize("Order Date"));
+      assertEquals(List.of("order", "date2"), PossibleValueSearchIndex.tokenize("orderDate2"));
+      assertEquals(List.of("lil", "widgy"), PossibleValueSearchIndex.tokenize("Lil' Widgy"));
+      assertEquals(List.of("ship", "to", "zip"), PossibleValueSearchIndex.tokenize("  ship-to (ZIP) "));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testSearch()
+   {
+      PossibleValueSearchIndex index = new PossibleValueSearchIndex(List.of(
+         new QPossibleValue<>("order.shipDate", "Date Shipped"),
+         new QPossibleValue<>("order.orderDate", "Order Date"),
+         new QPossibleValue<>("order.orderNo", "Order"),
+         new QPossibleValue<>("order.dateOrderedAgain", "Re-ordered"),
+         new QPossibleValue<>("order.storeId", "Store"),
+         new QPossibleValue<>("order.billToZip", "BillToZip")
+      ), id -> id.substring("order.".length()));
+
+      ////////////////////////////////////////////////////////////////////////////
+      // exact label, then label prefix, then label token, then just name token //
+      ////////////////////////////////////////////////////////////////////////////
+      assertEquals(List.of("order.orderNo", "order.orderDate", "order.dateOrderedAgain"), ids(index.search("order", null, null)));
+      assertEquals(List.of("order.shipDate", "order.orderDate", "order.dateOrderedAgain"), ids(index.search("DATE", null, null)));
+
+      //////////////////////////////////////////////////////////////////////////////
+      // each word must match - and a label prefix that isn't on a token boundary //
+      //////////////////////////////////////////////////////////////////////////////
+      assertEquals(List.of("order.orderDate", "order.dateOrderedAgain"), ids(index.search("or da", null, null)));
+      assertEquals(List.of("order.billToZip"), ids(index.search("billt", null, null)));
+      assertEquals(List.of(), ids(index.search("zzz", null, null)));
+
+      /////////////////////////////////////////////
+      // an exact id matches, though not a token //
+      /////////////////////////////////////////////
+      assertEquals(List.of("order.storeId"), ids(index.search("order.storeId", null, null)));
+
+      ///////////////////////////////////////////////////////
+      // no term gives all values, by label (and is paged) //
+      ///////////////////////////////////////////////////////
+      assertEquals(List.of("order.billToZip", "order.shipDate", "order.orderNo", "order.orderDate", "order.dateOrderedAgain", "order.storeId"), ids(index.search(" ", null, null)));
+      assertEquals(List.of("order.orderNo", "order.orderDate"), ids(index.search(null, 2, 2)));
+      assertEquals(List.of(), ids(index.search(null, 10, 2)));
+
+      //////////////////////////////////
+      // and paging of ranked matches //
+      //////////////////////////////////
+      assertEquals(List.of("order.orderDate"), ids(index.search("order", 1, 1)));
+      assertEquals(List.of("order.dateOrderedAgain"), ids(index.search("order", 2, 10)));
+   }
+
+
+
+   /*******************************************************************************
+    ** not a benchmark - just a sanity check that searching a large table's worth
+    ** of values is cheap.
+    *******************************************************************************/
+   @Test
+   void testLargeIndex()
+   {
+      List<QPossibleValue<String>> possibleValues = new ArrayList<>();
+      for(int i = 0; i < 1000; i++)
+      {
+         possibleValues.add(new QPossibleValue<>("bigTable.field" + i, "Field Number " + i));
+      }
+      PossibleValueSearchIndex index = new PossibleValueSearchIndex(possibleValues, id -> id.substring("bigTable.".length()));
+
+      assertEquals(11, index.search("field number 99", null, null).size());
+      assertEquals(25, index.search("fie", 100, 25).size());
+
+      long start = System.nanoTime();
+      for(int i = 0; i < 1000; i++)
+      {
+         index.search("num 5", 0, 25);
+      }
+      assertTrue(System.nanoTime() - start < 5_000_000_000L);
+   }
+
+
+
+   /***************************************************************************
+    *
+    ***************************************************************************/
+   private List<String> ids(List<QPossibleValue<String>> possibleValues)
+   {
+      return (possibleValues.stream().map(QPossibleValue::getId).toList());
+   }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * QQQ - Low-code Application Framework for Engineers.
+ * Copyright (C) 2021-2025.  Kingsrook, LLC
+ * 651 N Broad St Ste 205 # 6917 | Middletown DE 19709 | United States
+ * contact@kingsrook.com
+ * https://github.com/Kingsrook/
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.kingsrook.qbits.customizabletableviews.model;
+
+
+import com.kingsrook.qbits.customizabletableviews.BaseTest;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+/*******************************************************************************
+ ** Unit test for QualifiedFieldName 
+ *******************************************************************************/
+class QualifiedFieldNameTest extends BaseTest
+{
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testOf()
+   {
+      QualifiedFieldName qualifiedFieldName = QualifiedFieldName.of("myTable.myField");
+      assertEquals("myTable", qualifiedFieldName.getTableName());
+      assertEquals("myField", qualifiedFieldName.getFieldName());
+      assertEquals("myTable.myField", qualifiedFieldName.toString());
+
+      //////////////////////////////////////////////////////////////
+      // same as String.split("\\.") - anything after [1] ignored //
+      //////////////////////////////////////////////////////////////
+      assertEquals("b", QualifiedFieldName.of("a.b.c").getFieldName());
+      assertEquals("", QualifiedFieldName.of(".b").getTableName());
+
+      assertNull(QualifiedFieldName.of(null));
+      assertNull(QualifiedFieldName.of("noDot"));
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testInterning()
+   {
+      assertSame(QualifiedFieldName.of("myTable.myField"), QualifiedFieldName.of(new String("myTable.myField")));
+      assertEquals(QualifiedFieldName.of("myTable.myField").hashCode(), "myTable.myField".hashCode());
+   }
+
+
+
+   /*******************************************************************************
+    **
+    *******************************************************************************/
+   @Test
+   void testTableViewField()
+   {
+      TableViewField tableViewField = new TableViewField().withFieldName("myTable.a");
+      assertSame(tableViewField.getQualifiedFieldName(), tableViewField.getQualifiedFieldName());
+      assertEquals("a", tableViewField.getQualifiedFieldName().getFieldName());
+
+      tableViewField.setFieldName("myTable.b");
+      assertEquals("b", tableViewField.getQualifiedFieldName().getFieldName());
+
+      tableViewField.setFieldName("noDot");
+      assertNull(tableViewField.getQualifiedFieldName());
+   }
+
+}